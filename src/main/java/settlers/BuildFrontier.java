@@ -0,0 +1,76 @@
+package settlers;
+
+import settlers.board.Board;
+import settlers.board.Edge;
+
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+/**
+ * Keeps track of where each player's roads reach, so finding where they can build doesn't mean looking at every edge
+ * For each player, it has the bitset of the vertices at the ends of their roads, and of the edges touching their
+ * roads, in the board's bitset layout. ANDing those with the board's open vertices and empty edges gives the spots
+ *
+ * Like RoadNetwork, this doesn't watch the board, so Main tells it about every road
+ */
+class BuildFrontier {
+
+    private final Board board;
+    private final Map<Player, long[]> frontiers; // [0] = road ends, [1] and [2] = the two words of the edges touched
+
+    /**
+     * @param board whose roads this keeps track of. Roads already on the board are not included
+     */
+    BuildFrontier(Board board) {
+        this.board = board;
+        frontiers = new IdentityHashMap<>();
+    }
+
+    /**
+     * Pushes the player's frontier out to include everything the new road touches
+     * @param player who built the road
+     * @param road that was built
+     */
+    void addRoad(Player player, Edge road) {
+        int id = road.getId();
+        if (id < 0 || board.getEdge(id) != road) {
+            return; // not on this board, so it can't lead anywhere on it
+        }
+        long[] frontier = frontiers.computeIfAbsent(player, p -> new long[3]);
+        frontier[0] |= board.getEdgeEndBits(id);
+        frontier[1] |= board.getEdgeNeighborBits(id, 0);
+        frontier[2] |= board.getEdgeNeighborBits(id, 1);
+    }
+
+    /**
+     * Forgets every frontier, and starts again from the roads now on the board
+     * This is for when the board goes back to an earlier state, since a frontier can't shrink one road at a time
+     */
+    void rebuild() {
+        frontiers.clear();
+        for (Edge edge : board.getEdges()) {
+            if (edge.getPlayer() != null) {
+                addRoad(edge.getPlayer(), edge);
+            }
+        }
+    }
+
+    /**
+     * @param player who wants to build a settlement
+     * @return the bitset of open vertices at the end of one of the player's roads
+     */
+    long getSettlementSpotBits(Player player) {
+        long[] frontier = frontiers.get(player);
+        return frontier == null ? 0 : frontier[0] & board.getOpenVertexBits();
+    }
+
+    /**
+     * @param player who wants to build a road
+     * @param word 0 for edges 0 to 63, 1 for the rest
+     * @return that word of the bitset of empty edges touching one of the player's roads
+     */
+    long getRoadSpotBits(Player player, int word) {
+        long[] frontier = frontiers.get(player);
+        return frontier == null ? 0 : frontier[1 + word] & board.getEmptyEdgeBits(word);
+    }
+}
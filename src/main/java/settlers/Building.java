@@ -3,7 +3,7 @@ package settlers;
 import settlers.card.Resource;
 
 import java.util.Collections;
-import java.util.HashMap;
+import java.util.EnumMap;
 import java.util.Map;
 
 public enum Building {
@@ -12,25 +12,107 @@ public enum Building {
     CITY(4,0, 0, 2, 3, 0),
     DEVELOPMENT_CARD(25,0, 0, 1, 1, 1);
 
+    // Costs and hands can also be packed into a long, with a 12 bit lane for each resource but MISC, at bit
+    // 12 * ordinal. The top bit of each lane is kept free, so a whole hand can be checked against a whole cost with
+    // one subtraction: if a lane's top bit is set in the hand, subtracting the cost can only clear it, and only if the
+    // hand doesn't have enough, without borrowing from the next lane
+    private static final int LANE_BITS = 12;
+    private static final int LANE_MAX = (1 << (LANE_BITS - 1)) - 1; // the most of a resource a packed hand can show
+    private static final long GUARD_BITS; // the top bit of every lane
+    private static final Resource[] RESOURCES = Resource.values();
+    private static final Building[] BUILDINGS = values();
+
+    static {
+        long guardBits = 0;
+        for (int lane = 0; lane < Resource.MISC.ordinal(); lane++) {
+            guardBits |= 1L << (lane * LANE_BITS + LANE_BITS - 1);
+        }
+        GUARD_BITS = guardBits;
+    }
+
     Building(int maxNumber, int brickNumber, int woodNumber, int wheatNumber, int oreNumber, int sheepNumber) {
         this.maxNumber = maxNumber;
-        resources = new HashMap<>();
+        Map<Resource, Integer> resources = new EnumMap<>(Resource.class);
         resources.put(Resource.BRICK, brickNumber);
         resources.put(Resource.WOOD, woodNumber);
         resources.put(Resource.WHEAT, wheatNumber);
         resources.put(Resource.ORE, oreNumber);
         resources.put(Resource.SHEEP, sheepNumber);
+        this.resources = Collections.unmodifiableMap(resources);
+
+        costs = new int[Resource.values().length]; // MISC is in there too, but always costs 0
+        long packedCost = 0;
+        for (Map.Entry<Resource, Integer> resource : resources.entrySet()) {
+            costs[resource.getKey().ordinal()] = resource.getValue();
+            packedCost |= (long) resource.getValue() << (resource.getKey().ordinal() * LANE_BITS);
+        }
+        this.packedCost = packedCost;
     }
 
     private final Map<Resource, Integer> resources;
+    private final int[] costs; // [resource ordinal] = how many of that resource this costs
+    private final long packedCost;
     private final int maxNumber;
 
     public Map<Resource, Integer> getResources() {
-        return Collections.unmodifiableMap(resources);
+        return resources;
     }
+
+    /**
+     * @param resource whose cost is wanted
+     * @return how many cards of that resource this costs, which is 0 for MISC
+     */
+    public int getCost(Resource resource) {
+        return costs[resource.ordinal()];
+    }
+
+    /**
+     * @return this building's cost packed the same way as packHand
+     */
+    public long getPackedCost() {
+        return packedCost;
+    }
+
     public int getMax() {
         return maxNumber;
     }
 
+    /**
+     * @param packedHand a hand from packHand
+     * @return true if the hand has enough of every resource to pay for this
+     */
+    public boolean isAffordable(long packedHand) {
+        return (((packedHand | GUARD_BITS) - packedCost) & GUARD_BITS) == GUARD_BITS;
+    }
+
+    /**
+     * Packs a player's hand into a long, to be checked against packed costs
+     * A hand with more than 2047 of one resource is packed as if it had 2047, which is still enough for anything
+     * @param player whose hand is being packed
+     * @return the packed hand
+     */
+    public static long packHand(Player player) {
+        long packedHand = 0;
+        for (int lane = 0; lane < Resource.MISC.ordinal(); lane++) {
+            long count = Math.min(player.getResourceCount(RESOURCES[lane]), LANE_MAX);
+            packedHand |= count << (lane * LANE_BITS);
+        }
+        return packedHand;
+    }
 
-}
\ No newline at end of file
+    /**
+     * Checks a hand against every building at once
+     * Only checks the resources, not whether there is anywhere to build, or any pieces left
+     * @param packedHand a hand from packHand
+     * @return a bitmask where bit ordinal() is set for every building the hand can pay for
+     */
+    public static int getAffordable(long packedHand) {
+        int affordable = 0;
+        for (Building building : BUILDINGS) {
+            if (building.isAffordable(packedHand)) {
+                affordable |= 1 << building.ordinal();
+            }
+        }
+        return affordable;
+    }
+}
@@ -0,0 +1,264 @@
+package settlers;
+
+import settlers.card.Resource;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.util.Map;
+
+/**
+ * An append-only binary log of everything that changes a game, which MainImpl.replayJournal plays back exactly
+ * It starts with a header of the seed, players and round limit, and then has a JournalEvent for every call that
+ * changed the game, in order. Events are put in a batch in memory, which is only written once it is full, so
+ * recording one is a few array writes. Games people play can also write the batch at the end of every turn, so a
+ * crash loses at most the turn it happened in
+ */
+public class GameJournal implements Closeable {
+
+    private static final int MAGIC = 0x434A524E; // "CJRN", so other files aren't mistaken for journals
+    private static final int FORMAT = 1; // goes up whenever the layout changes, so old journals aren't misread
+    private static final int HEADER_BYTES = 4 + 1 + 1 + 8 + 4; // magic, format, players, seed, max rounds
+    private static final int BATCH_BYTES = 8192;
+    private static final int MOST_EVENT_BYTES = 2 + 6; // every event but RESTORE, which makes room for itself
+    private static final JournalEvent[] EVENTS = JournalEvent.values();
+
+    private final OutputStream out;
+    private final boolean flushEachTurn;
+    private byte[] batch;
+    private int size; // of the batch so far
+    private long eventCount;
+
+    /**
+     * Starts a journal, with its header in the first batch
+     * @param out where the batches are written, which is closed with the journal
+     * @param seed that the game was made with
+     * @param players in the game
+     * @param maxRounds that the game will play before it gives up
+     * @param flushEachTurn true to write the batch at the end of every turn, for games slow enough that it costs
+     *                      nothing, or false to only write full batches, for headless games
+     */
+    public GameJournal(OutputStream out, long seed, int players, int maxRounds, boolean flushEachTurn) {
+        if (out == null) {
+            throw new IllegalArgumentException("out is null");
+        }
+        if (players < 2 || players > 4) {
+            throw new IllegalArgumentException(players + " players given, but Catan needs 2 to 4 players");
+        }
+        this.out = out;
+        this.flushEachTurn = flushEachTurn;
+        batch = new byte[BATCH_BYTES];
+        ByteBuffer.wrap(batch).putInt(MAGIC).put((byte) FORMAT).put((byte) players).putLong(seed).putInt(maxRounds);
+        size = HEADER_BYTES;
+    }
+
+    /**
+     * Adds an event to the batch, writing the batch first if it is full
+     * @param event that happened
+     * @param player it happened to, by place in the game
+     * @param first argument, if the event has one
+     * @param second argument, if the event has two
+     */
+    void record(JournalEvent event, int player, int first, int second) {
+        makeRoom(MOST_EVENT_BYTES);
+        batch[size++] = (byte) event.ordinal();
+        batch[size++] = (byte) player;
+        if (event.getArgumentCount() > 0) {
+            batch[size++] = (byte) first;
+        }
+        if (event.getArgumentCount() > 1) {
+            batch[size++] = (byte) second;
+        }
+        eventCount++;
+        if (flushEachTurn && event == JournalEvent.TURN_END) {
+            flushBatch();
+        }
+    }
+
+    /**
+     * Adds a trade between two players
+     * @param resourcesExchanged the same as Main.trade, where negative values are given by player
+     */
+    void recordTrade(int player, int otherPlayer, Map<Resource, Integer> resourcesExchanged) {
+        makeRoom(MOST_EVENT_BYTES);
+        batch[size++] = (byte) JournalEvent.PLAYER_TRADE.ordinal();
+        batch[size++] = (byte) player;
+        batch[size++] = (byte) otherPlayer;
+        for (int resource = 0; resource < Resource.MISC.ordinal(); resource++) {
+            batch[size++] = (byte) (int) resourcesExchanged.getOrDefault(Resource.values()[resource], 0);
+        }
+        eventCount++;
+    }
+
+    /**
+     * Adds a restore, which has the whole state, since it can put the game anywhere
+     */
+    void recordRestore(GameState state) {
+        byte[] bytes = state.toByteArray();
+        makeRoom(2 + 2 + bytes.length);
+        batch[size++] = (byte) JournalEvent.RESTORE.ordinal();
+        batch[size++] = (byte) 0xFF; // it isn't for any one player
+        batch[size++] = (byte) (bytes.length >>> 8);
+        batch[size++] = (byte) bytes.length;
+        System.arraycopy(bytes, 0, batch, size, bytes.length);
+        size += bytes.length;
+        eventCount++;
+    }
+
+    /**
+     * @return the number of events recorded so far, written or not
+     */
+    public long getEventCount() {
+        return eventCount;
+    }
+
+    /**
+     * Writes what is in the batch, and flushes the stream
+     * @throws IOException if the stream can't be written
+     */
+    public void flush() throws IOException {
+        out.write(batch, 0, size);
+        out.flush();
+        size = 0;
+    }
+
+    /**
+     * Writes what is left, and closes the stream
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            flush();
+        } finally {
+            out.close();
+        }
+    }
+
+    private void makeRoom(int bytes) {
+        if (size + bytes > batch.length) {
+            flushBatch();
+            if (bytes > batch.length) {
+                batch = new byte[bytes]; // only a restore can be this big, and batches stay this size after
+            }
+        }
+    }
+
+    /**
+     * Writes the batch from the middle of the game, where a failure can't be handed back to whoever is playing
+     */
+    private void flushBatch() {
+        try {
+            flush();
+        } catch (IOException e) {
+            throw new IllegalStateException("Could not write the game's journal", e);
+        }
+    }
+
+    /**
+     * Reads a whole journal back, one event at a time, for MainImpl.replayJournal
+     * The events' fields are reused, so each is only good until the next call to next
+     */
+    static class Reader {
+        private final ByteBuffer bytes;
+        private final int playerCount;
+        private final long seed;
+        private final int maxRounds;
+        private JournalEvent event;
+        private int player;
+        private final int[] arguments;
+        private byte[] state;
+
+        /**
+         * @param journal every byte of a journal, which may have been cut short anywhere after the header
+         * @throws IllegalArgumentException if it isn't a journal this can read
+         */
+        Reader(byte[] journal) {
+            bytes = ByteBuffer.wrap(journal);
+            if (journal.length < HEADER_BYTES || bytes.getInt() != MAGIC) {
+                throw new IllegalArgumentException("This isn't a game journal");
+            }
+            int format = bytes.get();
+            if (format != FORMAT) {
+                throw new IllegalArgumentException("Journals of format " + format + " can't be read, only " + FORMAT);
+            }
+            playerCount = bytes.get();
+            seed = bytes.getLong();
+            maxRounds = bytes.getInt();
+            arguments = new int[6];
+        }
+
+        int getPlayerCount() {
+            return playerCount;
+        }
+
+        long getSeed() {
+            return seed;
+        }
+
+        int getMaxRounds() {
+            return maxRounds;
+        }
+
+        /**
+         * Moves on to the next event
+         * @return false if the journal is over, including when it was cut off in the middle of an event
+         * @throws IllegalArgumentException if the next event isn't one there is
+         */
+        boolean next() {
+            if (bytes.remaining() < 2) {
+                return false;
+            }
+            int start = bytes.position();
+            int ordinal = bytes.get();
+            if (ordinal < 0 || ordinal >= EVENTS.length) {
+                throw new IllegalArgumentException("There is no event " + ordinal + ", at byte " + start);
+            }
+            JournalEvent nextEvent = EVENTS[ordinal];
+            player = bytes.get();
+            int length = nextEvent.getArgumentCount();
+            if (nextEvent == JournalEvent.RESTORE) {
+                length = bytes.remaining() < 2 ? Integer.MAX_VALUE : bytes.getShort() & 0xFFFF;
+            }
+            if (bytes.remaining() < length) {
+                bytes.position(bytes.limit()); // the journal was cut off here
+                return false;
+            }
+            if (nextEvent == JournalEvent.RESTORE) {
+                state = new byte[length];
+                bytes.get(state);
+            } else {
+                for (int i = 0; i < length; i++) {
+                    arguments[i] = bytes.get();
+                }
+            }
+            event = nextEvent;
+            return true;
+        }
+
+        JournalEvent getEvent() {
+            return event;
+        }
+
+        /**
+         * @return the place of the player the event was for
+         */
+        int getPlayer() {
+            return player;
+        }
+
+        /**
+         * @return the argument at that place, as a signed byte, so -1 stays -1
+         */
+        int getArgument(int index) {
+            return arguments[index];
+        }
+
+        /**
+         * @return the state of a RESTORE event
+         */
+        GameState getState() {
+            return GameState.fromBytes(state);
+        }
+    }
+}
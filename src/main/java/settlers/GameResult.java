@@ -0,0 +1,63 @@
+package settlers;
+
+import java.util.Arrays;
+
+/**
+ * What happened in a finished game, given back by headless games instead of closing the program
+ */
+public class GameResult {
+
+    private final int winnerID; // -1 if the game was stopped before anyone won
+    private final int turns;
+    private final int[] victoryPoints; // indexed by player ID
+
+    public GameResult(int winnerID, int turns, int[] victoryPoints) {
+        if (victoryPoints == null) {
+            throw new IllegalArgumentException("victoryPoints is null");
+        }
+        this.winnerID = winnerID;
+        this.turns = turns;
+        this.victoryPoints = Arrays.copyOf(victoryPoints, victoryPoints.length);
+    }
+
+    /**
+     * @return the ID of the player who won, or -1 if the game was stopped before anyone won
+     */
+    public int getWinnerID() {
+        return winnerID;
+    }
+
+    /**
+     * @return true if someone won the game, false if it was stopped first
+     */
+    public boolean hasWinner() {
+        return winnerID >= 0;
+    }
+
+    /**
+     * @return the number of main phase turns that were played, not counting setup
+     */
+    public int getTurns() {
+        return turns;
+    }
+
+    /**
+     * @return the number of players in the game
+     */
+    public int getPlayerCount() {
+        return victoryPoints.length;
+    }
+
+    /**
+     * @param playerID of the player we want the points of
+     * @return how many victory points that player had when the game ended
+     */
+    public int getVictoryPoints(int playerID) {
+        return victoryPoints[playerID];
+    }
+
+    @Override
+    public String toString() {
+        return "GameResult: winner " + winnerID + " after " + turns + " turns, points " + Arrays.toString(victoryPoints);
+    }
+}
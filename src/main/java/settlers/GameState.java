@@ -0,0 +1,482 @@
+package settlers;
+
+import settlers.board.Board;
+import settlers.board.Edge;
+import settlers.board.Hex;
+import settlers.board.Vertex;
+import settlers.card.DevelopmentCard;
+import settlers.card.Resource;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Everything about a game at one moment, packed into a few hundred bytes instead of a graph of objects
+ * Two games in the same position always give equal states, so states can be used as keys, sent, or saved
+ * The layout comes first and is always the same size, then the position, then the players, and then the deck.
+ * Everything but the deck is at a fixed place, so each getter just reads the bytes it needs
+ *
+ * Players are stored by their place in the game's list of players, and owners are stored as that place + 1,
+ * so that 0 can mean no one. The dice and the thief's stealing aren't part of the state, since they are random
+ */
+public final class GameState {
+
+    private static final int FORMAT = 1; // goes up whenever the layout below changes, so old bytes aren't misread
+    private static final int NO_ONE = 0xFF; // for the current turn and the holders, when there isn't anyone
+
+    private static final Resource[] RESOURCES = Resource.values();
+    private static final DevelopmentCard[] CARDS = DevelopmentCard.values();
+    private static final int HAND_RESOURCES = Resource.MISC.ordinal(); // every resource but MISC can be held
+
+    private static final int HEX_COUNT = 19;
+    private static final int VERTEX_COUNT = 54;
+    private static final int EDGE_COUNT = 72;
+    private static final int MAX_PLAYERS = 7; // owners get 3 bits, and 0 is taken by no one
+
+    // the layout
+    private static final int FORMAT_AT = 0;
+    private static final int PLAYER_COUNT_AT = 1;
+    private static final int HEXES_AT = 2; // a byte per hex, resource ordinal << 4 | number
+    private static final int PORTS_AT = HEXES_AT + HEX_COUNT; // a nibble per vertex, port ordinal + 1 or 0 for none
+    // the position
+    private static final int THIEF_AT = PORTS_AT + VERTEX_COUNT / 2;
+    private static final int VERTICES_AT = THIEF_AT + 1; // a nibble per vertex, owner + 1, with 8 for a city
+    private static final int EDGES_AT = VERTICES_AT + VERTEX_COUNT / 2; // a nibble per edge, owner + 1
+    private static final int MAIN_PHASE_AT = EDGES_AT + EDGE_COUNT / 2;
+    private static final int CURRENT_TURN_AT = MAIN_PHASE_AT + 1;
+    private static final int LONGEST_ROAD_AT = CURRENT_TURN_AT + 1;
+    private static final int LARGEST_ARMY_AT = LONGEST_ROAD_AT + 1;
+    private static final int WINNER_AT = LARGEST_ARMY_AT + 1;
+    private static final int TURNS_PLAYED_AT = WINNER_AT + 1; // an int
+    private static final int NEW_CARDS_AT = TURNS_PLAYED_AT + 4; // a byte per card type, bought this turn
+    private static final int TURN_ORDER_AT = NEW_CARDS_AT + CARDS.length; // a byte per player
+    // then each player, after the turn order
+    private static final int HAND_OFFSET = 0; // 2 bytes per resource
+    private static final int CARDS_OFFSET = HAND_OFFSET + 2 * HAND_RESOURCES; // a byte per card type
+    private static final int KNIGHTS_OFFSET = CARDS_OFFSET + CARDS.length;
+    private static final int ROAD_LENGTH_OFFSET = KNIGHTS_OFFSET + 1;
+    private static final int VICTORY_POINTS_OFFSET = ROAD_LENGTH_OFFSET + 1;
+    private static final int PLAYER_PORTS_OFFSET = VICTORY_POINTS_OFFSET + 1; // bit ordinal for each port
+    private static final int PLAYER_BYTES = PLAYER_PORTS_OFFSET + 1;
+    // and then the deck, as its size followed by a byte per card, from the top
+
+    private final byte[] bytes;
+
+    private GameState(byte[] bytes) {
+        this.bytes = bytes;
+    }
+
+    /**
+     * Packs a game's current state
+     * @param main the game
+     * @return its state
+     * @throws IllegalStateException if something on the board belongs to a player who isn't in the game
+     */
+    static GameState of(MainImpl main) {
+        Board board = main.getBoard();
+        List<Player> players = main.getPlayers();
+        if (players.size() > MAX_PLAYERS) {
+            throw new IllegalArgumentException("A state can have at most " + MAX_PLAYERS + " players, not "
+                    + players.size());
+        }
+        Collection<DevelopmentCard> deck = main.getVellyDeck();
+        int deckAt = TURN_ORDER_AT + players.size() + players.size() * PLAYER_BYTES;
+        byte[] bytes = new byte[deckAt + 1 + deck.size()];
+
+        bytes[FORMAT_AT] = FORMAT;
+        bytes[PLAYER_COUNT_AT] = (byte) players.size();
+        Hex thief = null;
+        for (int i = 0; i < HEX_COUNT; i++) {
+            Hex hex = board.getHex(i);
+            bytes[HEXES_AT + i] = (byte) (hex.getResource().ordinal() << 4 | hex.getNumber());
+            if (hex.hasThief()) {
+                thief = hex;
+            }
+        }
+        bytes[THIEF_AT] = (byte) (thief == null ? NO_ONE : thief.getId());
+        for (int i = 0; i < VERTEX_COUNT; i++) {
+            Vertex vertex = board.getVertex(i);
+            setNibble(bytes, PORTS_AT, i, vertex.getPort() == null ? 0 : vertex.getPort().ordinal() + 1);
+            int owner = vertex.getPlayer() == null ? 0 : indexOf(players, vertex.getPlayer()) + 1;
+            setNibble(bytes, VERTICES_AT, i, owner | (vertex.isCity() ? 8 : 0));
+        }
+        for (int i = 0; i < EDGE_COUNT; i++) {
+            Edge edge = board.getEdge(i);
+            setNibble(bytes, EDGES_AT, i, edge.getPlayer() == null ? 0 : indexOf(players, edge.getPlayer()) + 1);
+        }
+
+        bytes[MAIN_PHASE_AT] = (byte) (main.isMainPhase() ? 1 : 0);
+        bytes[CURRENT_TURN_AT] = (byte) indexOrNoOne(players, main.getCurrentTurn());
+        bytes[LONGEST_ROAD_AT] = (byte) indexOrNoOne(players, main.getLongestRoadPlayer());
+        bytes[LARGEST_ARMY_AT] = (byte) indexOrNoOne(players, main.getLongestArmyPlayer());
+        bytes[WINNER_AT] = (byte) indexOrNoOne(players, main.getWinner());
+        putInt(bytes, TURNS_PLAYED_AT, main.getTurnsPlayed());
+        Map<DevelopmentCard, Integer> newCards = main.getNewCards();
+        for (DevelopmentCard card : CARDS) {
+            bytes[NEW_CARDS_AT + card.ordinal()] = toByte(newCards.getOrDefault(card, 0));
+        }
+        List<Integer> turnOrder = main.getTurnOrder();
+        for (int i = 0; i < players.size(); i++) {
+            bytes[TURN_ORDER_AT + i] = (byte) (int) turnOrder.get(i);
+        }
+
+        for (int i = 0; i < players.size(); i++) {
+            Player player = players.get(i);
+            int at = TURN_ORDER_AT + players.size() + i * PLAYER_BYTES;
+            for (int resource = 0; resource < HAND_RESOURCES; resource++) {
+                int count = player.getResourceCount(RESOURCES[resource]);
+                if (count > 0xFFFF) {
+                    throw new IllegalStateException(player + " has too many " + RESOURCES[resource] + " to pack");
+                }
+                bytes[at + HAND_OFFSET + 2 * resource] = (byte) (count >>> 8);
+                bytes[at + HAND_OFFSET + 2 * resource + 1] = (byte) count;
+            }
+            Map<DevelopmentCard, Integer> cards = player.getDevelopmentCards();
+            for (DevelopmentCard card : CARDS) {
+                bytes[at + CARDS_OFFSET + card.ordinal()] = toByte(cards.getOrDefault(card, 0));
+            }
+            bytes[at + KNIGHTS_OFFSET] = toByte(player.getKnightNumber());
+            bytes[at + ROAD_LENGTH_OFFSET] = toByte(player.getRoadLength());
+            bytes[at + VICTORY_POINTS_OFFSET] = toByte(player.getVictoryPoints());
+            int ports = 0;
+            for (Resource port : player.getPorts()) {
+                ports |= 1 << port.ordinal();
+            }
+            bytes[at + PLAYER_PORTS_OFFSET] = (byte) ports;
+        }
+
+        bytes[deckAt] = toByte(deck.size());
+        int card = deckAt + 1;
+        for (DevelopmentCard velly : deck) {
+            bytes[card++] = (byte) velly.ordinal();
+        }
+        return new GameState(bytes);
+    }
+
+    /**
+     * Reads a state from bytes that came from toByteArray
+     * @param bytes the packed state, which are copied
+     * @return the state
+     * @throws IllegalArgumentException if the bytes aren't a state of this format
+     */
+    public static GameState fromBytes(byte[] bytes) {
+        if (bytes == null || bytes.length <= TURN_ORDER_AT) {
+            throw new IllegalArgumentException("Too few bytes to be a game state");
+        }
+        if (bytes[FORMAT_AT] != FORMAT) {
+            throw new IllegalArgumentException("Game state format " + bytes[FORMAT_AT] + " is not " + FORMAT);
+        }
+        int playerCount = bytes[PLAYER_COUNT_AT];
+        if (playerCount < 0 || playerCount > MAX_PLAYERS) {
+            throw new IllegalArgumentException("A game state can't have " + playerCount + " players");
+        }
+        int deckAt = TURN_ORDER_AT + playerCount + playerCount * PLAYER_BYTES;
+        if (bytes.length <= deckAt || bytes.length != deckAt + 1 + (bytes[deckAt] & 0xFF)) {
+            throw new IllegalArgumentException("The bytes are not the length their game state says they should be");
+        }
+        return new GameState(Arrays.copyOf(bytes, bytes.length));
+    }
+
+    /**
+     * @return a copy of the packed bytes, which fromBytes turns back into this state
+     */
+    public byte[] toByteArray() {
+        return Arrays.copyOf(bytes, bytes.length);
+    }
+
+    /**
+     * @return how many bytes this state takes
+     */
+    public int size() {
+        return bytes.length;
+    }
+
+    /**
+     * @return the number of players in the game
+     */
+    public int getPlayerCount() {
+        return bytes[PLAYER_COUNT_AT];
+    }
+
+    /**
+     * @param hex the hex's id
+     * @return the hex's resource
+     */
+    public Resource getHexResource(int hex) {
+        return RESOURCES[(bytes[HEXES_AT + checkIndex(hex, HEX_COUNT)] & 0xFF) >>> 4];
+    }
+
+    /**
+     * @param hex the hex's id
+     * @return the hex's number, which is 1 for the desert
+     */
+    public int getHexNumber(int hex) {
+        return bytes[HEXES_AT + checkIndex(hex, HEX_COUNT)] & 0xF;
+    }
+
+    /**
+     * @param vertex the vertex's id
+     * @return the resource of the vertex's port, MISC for a 3:1 port, or null if it has none
+     */
+    public Resource getPort(int vertex) {
+        int port = getNibble(PORTS_AT, checkIndex(vertex, VERTEX_COUNT));
+        return port == 0 ? null : RESOURCES[port - 1];
+    }
+
+    /**
+     * @return the id of the hex with the thief, or -1 if it isn't anywhere
+     */
+    public int getThiefHex() {
+        return orMinusOne(bytes[THIEF_AT]);
+    }
+
+    /**
+     * @param vertex the vertex's id
+     * @return the place in the game's players of whoever built there, or -1 if no one has
+     */
+    public int getVertexOwner(int vertex) {
+        return (getNibble(VERTICES_AT, checkIndex(vertex, VERTEX_COUNT)) & 7) - 1;
+    }
+
+    /**
+     * @param vertex the vertex's id
+     * @return true if there is a city there
+     */
+    public boolean isCity(int vertex) {
+        return (getNibble(VERTICES_AT, checkIndex(vertex, VERTEX_COUNT)) & 8) != 0;
+    }
+
+    /**
+     * @param edge the edge's id
+     * @return the place in the game's players of whoever built a road there, or -1 if no one has
+     */
+    public int getEdgeOwner(int edge) {
+        return getNibble(EDGES_AT, checkIndex(edge, EDGE_COUNT)) - 1;
+    }
+
+    /**
+     * @return true if setup is over
+     */
+    public boolean isMainPhase() {
+        return bytes[MAIN_PHASE_AT] != 0;
+    }
+
+    /**
+     * @return the place in the game's players of the player whose turn it is, or -1 if it is no one's
+     */
+    public int getCurrentTurn() {
+        return orMinusOne(bytes[CURRENT_TURN_AT]);
+    }
+
+    /**
+     * @return the place in the game's players of the player with longest road, or -1 if no one has it
+     */
+    public int getLongestRoadHolder() {
+        return orMinusOne(bytes[LONGEST_ROAD_AT]);
+    }
+
+    /**
+     * @return the place in the game's players of the player with largest army, or -1 if no one has it
+     */
+    public int getLargestArmyHolder() {
+        return orMinusOne(bytes[LARGEST_ARMY_AT]);
+    }
+
+    /**
+     * @return the place in the game's players of the winner, or -1 if no one has won
+     */
+    public int getWinner() {
+        return orMinusOne(bytes[WINNER_AT]);
+    }
+
+    /**
+     * @return the number of main phase turns played so far
+     */
+    public int getTurnsPlayed() {
+        return (bytes[TURNS_PLAYED_AT] & 0xFF) << 24 | (bytes[TURNS_PLAYED_AT + 1] & 0xFF) << 16
+                | (bytes[TURNS_PLAYED_AT + 2] & 0xFF) << 8 | bytes[TURNS_PLAYED_AT + 3] & 0xFF;
+    }
+
+    /**
+     * @param card a type of development card
+     * @return how many of that card the current player bought this turn, and so can't play yet
+     */
+    public int getNewCardCount(DevelopmentCard card) {
+        return bytes[NEW_CARDS_AT + card.ordinal()] & 0xFF;
+    }
+
+    /**
+     * @return the places in the game's players, in the order they take their turns
+     */
+    public int[] getTurnOrder() {
+        int[] turnOrder = new int[getPlayerCount()];
+        for (int i = 0; i < turnOrder.length; i++) {
+            turnOrder[i] = bytes[TURN_ORDER_AT + i];
+        }
+        return turnOrder;
+    }
+
+    /**
+     * @param player place in the game's players
+     * @param resource anything but MISC
+     * @return how many of that resource the player has
+     */
+    public int getResourceCount(int player, Resource resource) {
+        if (resource == Resource.MISC) {
+            return 0;
+        }
+        int at = playerAt(player) + HAND_OFFSET + 2 * resource.ordinal();
+        return (bytes[at] & 0xFF) << 8 | bytes[at + 1] & 0xFF;
+    }
+
+    /**
+     * @param player place in the game's players
+     * @param card a type of development card
+     * @return how many of that card the player has
+     */
+    public int getDevelopmentCardCount(int player, DevelopmentCard card) {
+        return bytes[playerAt(player) + CARDS_OFFSET + card.ordinal()] & 0xFF;
+    }
+
+    /**
+     * @param player place in the game's players
+     * @return how many knights the player has played
+     */
+    public int getKnightNumber(int player) {
+        return bytes[playerAt(player) + KNIGHTS_OFFSET] & 0xFF;
+    }
+
+    /**
+     * @param player place in the game's players
+     * @return the length of the player's longest road
+     */
+    public int getRoadLength(int player) {
+        return bytes[playerAt(player) + ROAD_LENGTH_OFFSET] & 0xFF;
+    }
+
+    /**
+     * @param player place in the game's players
+     * @return the player's victory points, including any point cards
+     */
+    public int getVictoryPoints(int player) {
+        return bytes[playerAt(player) + VICTORY_POINTS_OFFSET] & 0xFF;
+    }
+
+    /**
+     * @param player place in the game's players
+     * @param port the resource of the port, or MISC for a 3:1 port
+     * @return true if the player has that port
+     */
+    public boolean hasPort(int player, Resource port) {
+        return (bytes[playerAt(player) + PLAYER_PORTS_OFFSET] >>> port.ordinal() & 1) != 0;
+    }
+
+    /**
+     * @return the development cards left, from the top of the deck down
+     */
+    public List<DevelopmentCard> getDeck() {
+        int size = getDeckSize();
+        List<DevelopmentCard> deck = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            deck.add(getDeckCard(i));
+        }
+        return deck;
+    }
+
+    /**
+     * @return the number of development cards left
+     */
+    public int getDeckSize() {
+        return bytes[playerAt(getPlayerCount())] & 0xFF;
+    }
+
+    /**
+     * @param position from 0 for the top of the deck, to getDeckSize() - 1
+     * @return the card at that position
+     */
+    public DevelopmentCard getDeckCard(int position) {
+        return CARDS[bytes[playerAt(getPlayerCount()) + 1 + checkIndex(position, getDeckSize())]];
+    }
+
+    /**
+     * @param other another state
+     * @return true if both states have the same number of players on the same board, with the same numbers and ports
+     */
+    public boolean hasSameLayout(GameState other) {
+        return Arrays.equals(bytes, FORMAT_AT, THIEF_AT, other.bytes, FORMAT_AT, THIEF_AT);
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        return other instanceof GameState && Arrays.equals(bytes, ((GameState) other).bytes);
+    }
+
+    @Override
+    public int hashCode() {
+        return Arrays.hashCode(bytes);
+    }
+
+    @Override
+    public String toString() {
+        return "GameState: " + bytes.length + " bytes, turn " + getTurnsPlayed();
+    }
+
+    /**
+     * @return where the player's bytes start, or where the deck starts if player is the player count
+     */
+    private int playerAt(int player) {
+        if (player < 0 || player > getPlayerCount()) {
+            throw new IllegalArgumentException("There is no player " + player);
+        }
+        return TURN_ORDER_AT + getPlayerCount() + player * PLAYER_BYTES;
+    }
+
+    private int getNibble(int start, int index) {
+        return (bytes[start + index / 2] & 0xFF) >>> (index % 2 * 4) & 0xF;
+    }
+
+    private static void setNibble(byte[] bytes, int start, int index, int value) {
+        bytes[start + index / 2] |= (byte) (value << (index % 2 * 4));
+    }
+
+    private static void putInt(byte[] bytes, int at, int value) {
+        bytes[at] = (byte) (value >>> 24);
+        bytes[at + 1] = (byte) (value >>> 16);
+        bytes[at + 2] = (byte) (value >>> 8);
+        bytes[at + 3] = (byte) value;
+    }
+
+    private static int checkIndex(int index, int count) {
+        if (index < 0 || index >= count) {
+            throw new IllegalArgumentException("There is no " + index + " out of " + count);
+        }
+        return index;
+    }
+
+    private static int orMinusOne(byte value) {
+        return (value & 0xFF) == NO_ONE ? -1 : value & 0xFF;
+    }
+
+    private static byte toByte(int value) {
+        if (value < 0 || value > 0xFF) {
+            throw new IllegalStateException(value + " is too big to pack into a byte");
+        }
+        return (byte) value;
+    }
+
+    private static int indexOrNoOne(List<Player> players, Player player) {
+        return player == null ? NO_ONE : indexOf(players, player);
+    }
+
+    private static int indexOf(List<Player> players, Player player) {
+        for (int i = 0; i < players.size(); i++) {
+            if (players.get(i) == player) {
+                return i;
+            }
+        }
+        throw new IllegalStateException(player + " is not in this game");
+    }
+}
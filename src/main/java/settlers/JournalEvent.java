@@ -0,0 +1,40 @@
+package settlers;
+
+/**
+ * Everything that can change a game, as it is written to a GameJournal
+ * Each event is saved as its ordinal, the place of the player it was for, and then its arguments, a byte each
+ * Only what was asked for is saved, not what came of it, since replaying from the same seed gives the same draws and
+ * thefts. The _END events mark where each step an Agent takes ends, so a replay knows when to hand the game back
+ */
+public enum JournalEvent {
+    ROLL(1), // the die roll, at the start of a main phase turn
+    SETTLEMENT(1), // vertex
+    ROAD(1), // edge
+    CITY(1), // vertex
+    DEVELOPMENT_CARD(0),
+    THIEF(2), // hex, vertex robbed
+    KNIGHT(2), // hex, vertex robbed
+    YEAR_OF_PLENTY(2), // resource, resource
+    MONOPOLY(1), // resource
+    ROAD_BUILDING(2), // edge, edge or -1
+    BANK_TRADE(2), // resource given, resource gotten
+    PLAYER_TRADE(6), // the other player, then a signed count for each resource but MISC, negative for given
+    DISCARD(1), // resource
+    RESTORE(-1), // a 2 byte length and then the GameState's bytes, for agents that try moves on the real game
+    SETUP_END(1), // the vertex of the settlement the setup turn was for
+    DISCARD_END(0),
+    TURN_END(0);
+
+    private final int argumentCount;
+
+    JournalEvent(int argumentCount) {
+        this.argumentCount = argumentCount;
+    }
+
+    /**
+     * @return the number of bytes after the player, or -1 if the event gives its own length
+     */
+    public int getArgumentCount() {
+        return argumentCount;
+    }
+}
@@ -0,0 +1,180 @@
+package settlers;
+
+import settlers.board.*;
+import settlers.bot.Agent;
+import settlers.card.Resource;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * The Agent that replays a GameJournal, making every call the journal says was made, in the same order
+ * Every player shares one, since they all read from the same journal. The dice, draws and thefts aren't in the
+ * journal, since the game makes them again from its seed, but the rolls are checked, so a journal that doesn't belong
+ * to its header's game is caught. A journal that was cut off stops the game where it ends, with MainImpl.stop
+ */
+class JournalReplayAgent implements Agent {
+
+    private static final Resource[] RESOURCES = Resource.values();
+
+    private final GameJournal.Reader journal;
+    private final MainImpl game; // the game being replayed, which is stopped when the journal runs out
+    private boolean rollChecked; // whether this turn's roll has been read yet
+
+    JournalReplayAgent(GameJournal.Reader journal, MainImpl game) {
+        this.journal = journal;
+        this.game = game;
+    }
+
+    /**
+     * @return where the settlement was built, or null if the journal ended first, which stops the game
+     */
+    @Override
+    public Vertex takeSetupTurn(Main main, Player player, Set<Vertex> validSpots) {
+        if (!replayUntil(main, player, JournalEvent.SETUP_END)) {
+            return null;
+        }
+        return main.getBoard().getVertex(journal.getArgument(0));
+    }
+
+    @Override
+    public void discard(Main main, Player player, int cardsToKeep) {
+        if (checkRoll(7)) { // players only discard on a 7
+            replayUntil(main, player, JournalEvent.DISCARD_END);
+        }
+    }
+
+    @Override
+    public void startTurn(Main main, Player player, int dieRoll) {
+        if (checkRoll(dieRoll)) {
+            replayUntil(main, player, JournalEvent.TURN_END);
+        }
+    }
+
+    /**
+     * The journal only has trades that were made, which are replayed with Main.trade, so nothing is offered during
+     * a replay. If something were, it wasn't taken when the journal was written, so it is declined
+     */
+    @Override
+    public boolean acceptTrade(Main main, Player player, Player trader, Map<Resource, Integer> resourcesExchanged) {
+        return false;
+    }
+
+    /**
+     * Checks the roll that starts the turn, if no step has yet
+     * It is read by whichever step comes first after it, which is the first discard or the turn itself
+     * @return false if the journal ended first
+     */
+    private boolean checkRoll(int dieRoll) {
+        if (rollChecked) {
+            return true;
+        }
+        if (!nextEvent()) {
+            return false;
+        }
+        if (journal.getEvent() != JournalEvent.ROLL) {
+            throw new IllegalStateException("The journal doesn't match the game: expected a roll, not "
+                    + journal.getEvent());
+        }
+        if (journal.getArgument(0) != dieRoll) {
+            throw new IllegalStateException("The journal doesn't match the game: " + journal.getArgument(0)
+                    + " was rolled, not " + dieRoll);
+        }
+        rollChecked = true;
+        return true;
+    }
+
+    /**
+     * Makes every call in the journal until the end of this step
+     * @return false if the journal ended first
+     */
+    private boolean replayUntil(Main main, Player player, JournalEvent end) {
+        while (nextEvent()) {
+            JournalEvent event = journal.getEvent();
+            if (event == end) {
+                if (journal.getPlayer() != player.getID()) {
+                    throw new IllegalStateException("The journal doesn't match the game: " + end + " was for player "
+                            + journal.getPlayer() + ", not " + player.getID());
+                }
+                if (end == JournalEvent.TURN_END) {
+                    rollChecked = false; // the next turn has a roll of its own
+                }
+                return true;
+            }
+            replay(main, event);
+        }
+        return false;
+    }
+
+    /**
+     * Makes the call for one event
+     */
+    private void replay(Main main, JournalEvent event) {
+        Board board = main.getBoard();
+        Player player = event == JournalEvent.RESTORE ? null : main.getPlayers().get(journal.getPlayer());
+        switch (event) {
+            case SETTLEMENT:
+                main.buildSettlement(player, board.getVertex(journal.getArgument(0)));
+                break;
+            case ROAD:
+                main.buildRoad(player, board.getEdge(journal.getArgument(0)));
+                break;
+            case CITY:
+                main.buildCity(player, board.getVertex(journal.getArgument(0)));
+                break;
+            case DEVELOPMENT_CARD:
+                main.buildDevelopmentCard(player);
+                break;
+            case THIEF:
+                main.moveThief(player, board.getVertex(journal.getArgument(1)), board.getHex(journal.getArgument(0)));
+                break;
+            case KNIGHT:
+                main.playKnight(player, board.getVertex(journal.getArgument(1)), board.getHex(journal.getArgument(0)));
+                break;
+            case YEAR_OF_PLENTY:
+                main.playYearOfPlenty(player, RESOURCES[journal.getArgument(0)], RESOURCES[journal.getArgument(1)]);
+                break;
+            case MONOPOLY:
+                main.playMonopoly(player, RESOURCES[journal.getArgument(0)]);
+                break;
+            case ROAD_BUILDING:
+                int second = journal.getArgument(1);
+                main.playRoadBuilding(player, board.getEdge(journal.getArgument(0)),
+                        second < 0 ? null : board.getEdge(second));
+                break;
+            case BANK_TRADE:
+                main.trade(player, RESOURCES[journal.getArgument(0)], RESOURCES[journal.getArgument(1)]);
+                break;
+            case PLAYER_TRADE:
+                Map<Resource, Integer> exchanged = new EnumMap<>(Resource.class);
+                for (int resource = 0; resource < Resource.MISC.ordinal(); resource++) {
+                    if (journal.getArgument(1 + resource) != 0) {
+                        exchanged.put(RESOURCES[resource], journal.getArgument(1 + resource));
+                    }
+                }
+                main.trade(player, exchanged, main.getPlayers().get(journal.getArgument(0)));
+                break;
+            case DISCARD:
+                main.removePlayerResource(player, RESOURCES[journal.getArgument(0)]);
+                break;
+            case RESTORE:
+                main.restore(journal.getState());
+                break;
+            default: // a roll or the end of a step, which don't belong in the middle of one
+                throw new IllegalStateException("The journal doesn't match the game: unexpected " + event);
+        }
+    }
+
+    /**
+     * Moves on to the next event, stopping the game if there are none left
+     * @return false if the journal is over
+     */
+    private boolean nextEvent() {
+        if (journal.next()) {
+            return true;
+        }
+        game.stop();
+        return false;
+    }
+}
@@ -58,6 +58,21 @@ public interface Main {
      */
     Set<Edge> getAvailableRoadSpotsGivenEdge(Player player, Edge roadToBuild);
 
+    /**
+     * The same spots as getAvailableSettlementSpots, as a bitset of vertex ids, without making a Set
+     * @param player building the settlement
+     * @return the bitset of vertices where this player could build, laid out like Board.getOpenVertexBits
+     */
+    long getSettlementSpotBits(Player player);
+
+    /**
+     * The same spots as getAvailableRoadSpots, as a bitset of edge ids, without making a Set
+     * @param player building the road
+     * @param word 0 for edges 0 to 63, 1 for the rest
+     * @return that word of the bitset of edges where this player could build, laid out like Board.getEmptyEdgeBits
+     */
+    long getRoadSpotBits(Player player, int word);
+
     /**
      * Gets the settlements that this player could upgrade into cities
      * @param player building the city
@@ -186,6 +201,16 @@ public interface Main {
      */
     void trade(Player player1, Map<Resource, Integer> resourcesExchanged, Player player2);
 
+    /**
+     * Offers a trade to other players, asking their agents one at a time, and makes it with the first who accepts
+     * Players who can't afford their side of the trade aren't asked
+     * @param player who is offering the trade, whose turn it is
+     * @param resourcesExchanged where negative values are given by player, and positive values are received by player
+     * @param sendTo the players who are offered the trade, who are asked in the order of getPlayers()
+     * @return the player who took the trade, or null if no one did, or if player can't afford it
+     */
+    Player offerTrade(Player player, Map<Resource, Integer> resourcesExchanged, Set<Player> sendTo);
+
     List<Player> getPlayers();
 
     /**
@@ -198,4 +223,30 @@ public interface Main {
      */
     Player getLongestArmyPlayer();
 
+    /**
+     * @return the player who won the game, or null if the game isn't over yet
+     */
+    Player getWinner();
+
+    /**
+     * @return everything about the game right now, packed into a few hundred bytes
+     */
+    GameState getState();
+
+    /**
+     * A 64 bit hash of the position, for transposition tables and finding repeated positions
+     * It is kept up as the game changes, so getting it is cheap, but only changes to the board made through Main are seen
+     * @return a hash that is always the same for the same position on the same board
+     */
+    long getPositionHash();
+
+    /**
+     * Puts the game back to the state, so that a move can be tried and then taken back
+     * Only what changed since the state is put back, so trying a move and undoing it is cheap
+     * The players' settlements, cities and roads come back in board order, not the order they were built
+     * @param state from getState() of this game, or of another game on the same board with the same players
+     * @throws IllegalArgumentException if the state is from a different board or number of players
+     */
+    void restore(GameState state);
+
 }
\ No newline at end of file
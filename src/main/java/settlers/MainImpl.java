@@ -1,29 +1,70 @@
 package settlers;
 
 import settlers.board.*;
+import settlers.bot.Agent;
+import settlers.bot.AgentMctsImpl;
 import settlers.card.DevelopmentCard;
 import settlers.card.Resource;
+import settlers.gui.GUIAgentImpl;
+import settlers.gui.GUIBotAgentImpl;
 import settlers.gui.GUIMain;
 import settlers.gui.GUIMainDummyImpl;
 import settlers.gui.GUIMainImpl;
 
+import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.*;
 
 public class MainImpl implements Main {
 
+    private static final Resource[] RESOURCES = Resource.values(); // so I don't copy the values each time
+
     private final Board board;
+    private final Vertex[] vertices; // the board's vertices and edges, in the order of the board's bitsets
+    private final Edge[] edges;
     private final Player[] players;
-    private GUIMain gui;
+    private final Agent[] agents; // agent i makes player i's decisions, and Main asks it directly
 
     private boolean isMainPhase; // starts automatically as false
     private Hex thiefIsHere; // so we don't have to look for it
+    private final ProductionIndex production; // what each die roll gives out, so we don't have to look for that either
 
     private final List<Integer> turnOrder; // where the players are ordered by their array number in the turn order
     private Player currentTurn; // a link to the player whose turn it currently is
 
     private Player largestArmyHolder; // a link to the player who has largest army
     private Player longestRoadHolder; // a link to the player who has longest road
+    private final RoadNetwork roads; // everyone's roads, so the longest can be found without looking at all of them
+    private final BuildFrontier frontier; // where everyone's roads reach, so their spots can be found the same way
+    private long version; // goes up whenever anything in the game changes, so saved answers know when they are stale
+    private GameState layout; // the first state taken, so restored states can be checked for being on this board
+    // the Zobrist hash of everything but the players' hands, kept up by every method that changes the position
+    // the players keep up their own parts, so the board should only be changed through Main, or this won't notice
+    private long positionHash;
+    // each player's saved spots, which are good until version changes
+    // so the board should only be changed through Main, or the spots may not notice
+    private final Map<Player, SpotCache> spotCaches;
+
+    private Player winner; // the player who won, stays null until someone gets 10 points
+    private boolean exitOnVictory; // only the real GUI game closes the program when someone wins
+    private int turnsPlayed; // the number of main phase turns that have been played so far
+    private int maxRounds = Integer.MAX_VALUE; // headless games give up after this many rounds
+    private boolean stopped; // set when a replay runs out of journal, so the game is left where the journal ends
+    // where every call that changes the game is written, or null if this game isn't kept
+    // every change is recorded by the public method the agents call, before it happens, so nothing is left out if
+    // the change ends the game
+    private GameJournal journal;
+
+    // each part of the game gets its own stream, split from the one the game was made with, so the whole game
+    // can be replayed from one seed, and one part using more numbers doesn't change what the others get
+    private final SplittableRandom turnOrderRandom;
+    private final SplittableRandom deckRandom;
+    private final SplittableRandom diceRandom;
+    private final SplittableRandom thiefRandom;
 
     private final Queue<DevelopmentCard> vellyDeck; // where all the vellies are kept
     private final Map<DevelopmentCard, Integer> newCards; // this stores all the cards that the player just bought
@@ -33,8 +74,33 @@ public class MainImpl implements Main {
     // I made it a queue, because we only ever take from the top
 
     public MainImpl(int numberOfPlayers) {
-        this(numberOfPlayers, new GUIMainDummyImpl());
-        gui = new GUIMainImpl(this);
+        this(numberOfPlayers, new SplittableRandom().nextLong());
+    }
+
+    /**
+     * Makes a game for the GUI where everything random comes from the seed, so its journal can be replayed
+     */
+    public MainImpl(int numberOfPlayers, long seed) {
+        this(numberOfPlayers, 0, seed);
+    }
+
+    /**
+     * Makes a game for the GUI where the last computerPlayers seats are played by AgentMctsImpls
+     * @throws IllegalArgumentException if there are more computer players than players
+     */
+    public MainImpl(int numberOfPlayers, int computerPlayers, long seed) {
+        this(numberOfPlayers, new GUIMainDummyImpl(), new SplittableRandom(seed));
+        if (computerPlayers < 0 || computerPlayers > numberOfPlayers) {
+            throw new IllegalArgumentException(computerPlayers + " computer players can't play in a game of "
+                    + numberOfPlayers);
+        }
+        // the GUI shows every player's window, so all the players share one adapter to it
+        GUIMain gui = new GUIMainImpl(this);
+        Arrays.fill(agents, new GUIAgentImpl(gui));
+        for (int i = numberOfPlayers - computerPlayers; i < numberOfPlayers; i++) {
+            agents[i] = new GUIBotAgentImpl(gui, new AgentMctsImpl());
+        }
+        exitOnVictory = true;
     }
 
     /**
@@ -42,25 +108,49 @@ public class MainImpl implements Main {
      * Always gives 4 players
      */
     protected MainImpl(int numberOfPlayers, GUIMain testGUI) {
+        this(numberOfPlayers, testGUI, new SplittableRandom());
+    }
+
+    /**
+     * A version of the testing constructor where all randomness comes from random
+     * Two games made with SplittableRandoms of the same seed, and given the same moves, play out exactly the same
+     */
+    protected MainImpl(int numberOfPlayers, GUIMain testGUI, SplittableRandom random) {
+        this(numberOfPlayers, testGUI, random, null);
+    }
+
+    /**
+     * @param layout the board to play on, or null to make one from random
+     */
+    private MainImpl(int numberOfPlayers, GUIMain testGUI, SplittableRandom random, Board layout) {
+        // the order of the splits is part of what a seed means, so new ones must go at the end
+        turnOrderRandom = random.split();
+        SplittableRandom boardRandom = random.split();
+        deckRandom = random.split();
+        diceRandom = random.split();
+        thiefRandom = random.split();
         players = new Player[numberOfPlayers];
         for (int i = 0; i < numberOfPlayers; i++) {
             players[i] = new PlayerImpl(i);
         }
         turnOrder = turnOrder(); // creating the turn order
-        board = new BoardImpl();
-        // now we find the thief, the only time we need to do it this way
-        for (Hex hex : board.getHexes()) {
-            if (hex.getNumber() == 1) {
-                thiefIsHere = hex;
-                break;
-            }
-        }
+        board = layout == null ? new BoardImpl(boardRandom) : layout;
+        thiefIsHere = board.getThiefHex(); // which starts on the desert
         assert thiefIsHere != null;
+        vertices = board.getVertices();
+        edges = board.getEdges();
+        production = new ProductionIndex(board);
+        roads = new RoadNetwork(board);
+        frontier = new BuildFrontier(board);
+        spotCaches = new IdentityHashMap<>();
         // a dummy testGUI that doesn't actually show a board
-        gui = testGUI;
+        agents = new Agent[numberOfPlayers];
+        Arrays.fill(agents, new GUIAgentImpl(testGUI));
         // now we set up the vellyDeck
         vellyDeck = shuffleVellyDeck();
         newCards = new HashMap<>();
+        // nothing has been built and it is no one's turn, so only the thief and the deck start in the hash
+        positionHash = Zobrist.thief(thiefIsHere.getId()) ^ Zobrist.deck(vellyDeck.size());
     }
 
     /**
@@ -68,14 +158,13 @@ public class MainImpl implements Main {
      * @return an array containing the player array numbers in a random order
      */
     protected List<Integer> turnOrder() {
-        Random generator = new Random();
         List<Integer> turnOrder = new ArrayList<>(players.length);
         List<Integer> numberSource = new ArrayList<>(Arrays.asList(0, 1, 2, 3)); // later numbers won't be used if not applicable
         for (int i = players.length; i > 0; i--) {
             // we add a number chosen randomly from the numberSource
             // as we remove numbers from the number source, it shrinks in line with i
             // the generator gets a random index from what the List has left
-            turnOrder.add(numberSource.remove(generator.nextInt(i)));
+            turnOrder.add(numberSource.remove(turnOrderRandom.nextInt(i)));
         }
         return turnOrder;
     }
@@ -97,10 +186,9 @@ public class MainImpl implements Main {
         unshuffledDeck.add(DevelopmentCard.ROAD_BUILDING);
 
         // now we shuffle the cards into a new deck in a random order
-        Random random = new Random();
         Queue<DevelopmentCard> shuffledDeck = new LinkedList<>();
         for (int i = 25; i > 0; i--) { // should add all the cards in randomly
-            shuffledDeck.add(unshuffledDeck.remove(random.nextInt(i)));
+            shuffledDeck.add(unshuffledDeck.remove(deckRandom.nextInt(i)));
         }
 
         return shuffledDeck;
@@ -130,7 +218,13 @@ public class MainImpl implements Main {
     public static void main(String[] args) {
         // because this is static, I have to create a separate variable for this
         // should also set up board, players, and GUI
-        MainImpl main = new MainImpl(getNumOfPlayers(System.in));
+        int numberOfPlayers = getNumOfPlayers(System.in);
+        // the computer can play some of the seats, which are given as the only argument, and are 0 if it isn't
+        int computerPlayers = args.length > 0 ? Math.min(Integer.parseInt(args[0]), numberOfPlayers) : 0;
+        long seed = new SplittableRandom().nextLong();
+        MainImpl main = new MainImpl(numberOfPlayers, computerPlayers, seed);
+        // the game is kept in a journal, so it can be replayed after the program closes
+        main.journal = openJournal(Paths.get("catan-" + Long.toHexString(seed) + ".journal"), seed, numberOfPlayers);
         // now it is time for the setup loop
         // in a separate method, to more easily access private and protected methods
         main.setupLoop();
@@ -138,6 +232,210 @@ public class MainImpl implements Main {
         main.mainLoop();
     }
 
+    /**
+     * Plays a complete game without a GUI, where every player's decisions are made by an Agent
+     * Unlike main(), this doesn't call System.exit when someone wins, so one JVM can play as many games as it wants
+     * @param agents controlling the players, where agent i controls player i. There must be 2 to 4 of them
+     * @param maxRounds after this many rounds, the game is stopped without a winner, in case the agents get stuck
+     * @return the result of the game
+     */
+    public static GameResult playHeadlessGame(List<Agent> agents, int maxRounds) {
+        return playHeadlessGame(agents, maxRounds, new SplittableRandom());
+    }
+
+    /**
+     * Plays a complete headless game, where the board, turn order, deck, dice and thief all come from the seed
+     * If the agents are also seeded the same way, the same seed always gives the same game
+     * @param agents controlling the players, where agent i controls player i. There must be 2 to 4 of them
+     * @param maxRounds after this many rounds, the game is stopped without a winner, in case the agents get stuck
+     * @param seed that decides everything random in the game
+     * @return the result of the game
+     */
+    public static GameResult playHeadlessGame(List<Agent> agents, int maxRounds, long seed) {
+        return playHeadlessGame(agents, maxRounds, new SplittableRandom(seed));
+    }
+
+    /**
+     * Plays a complete headless game, like playHeadlessGame, and writes it to a journal as it goes
+     * @param journal where the game is written, which can be given to replayJournal to play it again exactly
+     *                It is flushed once the game is over, but not closed
+     * @return the result of the game
+     * @throws IOException if the journal can't be written
+     */
+    public static GameResult playHeadlessGame(List<Agent> agents, int maxRounds, long seed, OutputStream journal)
+            throws IOException {
+        GameJournal gameJournal = new GameJournal(journal, seed, agents.size(), maxRounds, false);
+        GameResult result = playHeadlessGame(agents, maxRounds, new SplittableRandom(seed), gameJournal);
+        gameJournal.flush();
+        return result;
+    }
+
+    private static GameResult playHeadlessGame(List<Agent> agents, int maxRounds, SplittableRandom random) {
+        return playHeadlessGame(agents, maxRounds, random, null);
+    }
+
+    private static GameResult playHeadlessGame(List<Agent> agents, int maxRounds, SplittableRandom random,
+                                               GameJournal journal) {
+        if (maxRounds < 1) {
+            throw new IllegalArgumentException("maxRounds must be positive, not " + maxRounds);
+        }
+        MainImpl main = setUpHeadlessGame(agents, random, journal);
+        main.maxRounds = maxRounds;
+        main.mainLoop();
+        return main.getResult();
+    }
+
+    /**
+     * Plays a journal's game again, making the same calls in the same order, so it ends exactly as it did
+     * A journal that was cut off, like by a crash, is played up to where it stops, and the game is left there
+     * @param journal the bytes written by a GameJournal
+     * @return the game, as it was at the end of the journal
+     * @throws IOException if the journal can't be read
+     * @throws IllegalArgumentException if it isn't a journal
+     * @throws IllegalStateException if the journal doesn't match the game its header describes
+     */
+    public static MainImpl replayJournal(InputStream journal) throws IOException {
+        GameJournal.Reader reader = new GameJournal.Reader(journal.readAllBytes());
+        MainImpl main = new MainImpl(reader.getPlayerCount(), new GUIMainDummyImpl(),
+                new SplittableRandom(reader.getSeed()));
+        Arrays.fill(main.agents, new JournalReplayAgent(reader, main));
+        main.maxRounds = reader.getMaxRounds();
+        main.setupLoop();
+        main.mainLoop();
+        if (main.stopped) {
+            return main; // it stopped where the journal did, which is where it was when it was cut off
+        }
+        if (reader.next()) {
+            throw new IllegalStateException("The journal doesn't match the game: it goes on after the game ended");
+        }
+        return main;
+    }
+
+    /**
+     * Stops the game once the step being played returns, for a replay whose journal ran out partway through it
+     * The game is left as it is, without finishing the step or starting another
+     */
+    void stop() {
+        stopped = true;
+    }
+
+    /**
+     * Opens a journal file for a game people are playing, which writes every turn as it ends
+     * @return the journal, or null if the file can't be made, since the game can still be played without one
+     */
+    private static GameJournal openJournal(Path file, long seed, int numberOfPlayers) {
+        try {
+            return new GameJournal(Files.newOutputStream(file), seed, numberOfPlayers, Integer.MAX_VALUE, true);
+        } catch (IOException e) {
+            System.out.println("This game won't be saved, because " + file + " couldn't be made: " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Makes a headless game and plays its setup, so that it is ready for the first main phase turn
+     * This gives search bots and benchmarks a real position to try moves on, with getState and restore
+     * @param agents controlling the players, where agent i controls player i. There must be 2 to 4 of them
+     * @param seed that decides everything random in the game, the same way as in playHeadlessGame
+     * @return the game, with everyone's first settlements and roads built
+     */
+    public static MainImpl setUpHeadlessGame(List<Agent> agents, long seed) {
+        return setUpHeadlessGame(agents, new SplittableRandom(seed), null);
+    }
+
+    private static MainImpl setUpHeadlessGame(List<Agent> agents, SplittableRandom random, GameJournal journal) {
+        if (agents.size() < 2 || agents.size() > 4) {
+            throw new IllegalArgumentException(agents.size() + " agents given, but Catan needs 2 to 4 players");
+        }
+        MainImpl main = new MainImpl(agents.size(), new GUIMainDummyImpl(), random);
+        for (int i = 0; i < agents.size(); i++) {
+            main.agents[i] = agents.get(i);
+        }
+        main.journal = journal; // before the setup, so that is recorded too
+        main.setupLoop();
+        return main;
+    }
+
+    /**
+     * Makes a headless game in the same position as the state, for search bots to play out moves on
+     * The game has its own board, laid out like the state's, so it can be changed without touching the real game,
+     * and its dice, deck and thief come from the seed, so what happens next is different for each seed
+     * @param state the position to start in, during the main phase
+     * @param agents controlling the players from then on, where agent i controls player i
+     * @param seed that decides everything random from here on
+     * @return the game, in the middle of the state's turn
+     * @throws IllegalArgumentException if the state isn't in the main phase, or there isn't an agent per player
+     */
+    public static MainImpl fromState(GameState state, List<Agent> agents, long seed) {
+        if (!state.isMainPhase()) {
+            throw new IllegalArgumentException("Only main phase states can be played on from");
+        }
+        if (agents.size() != state.getPlayerCount()) {
+            throw new IllegalArgumentException(agents.size() + " agents given for " + state.getPlayerCount()
+                    + " players");
+        }
+        Resource[] hexResources = new Resource[19];
+        int[] hexNumbers = new int[19];
+        for (int i = 0; i < 19; i++) {
+            hexResources[i] = state.getHexResource(i);
+            hexNumbers[i] = state.getHexNumber(i);
+        }
+        Resource[] ports = new Resource[54];
+        for (int i = 0; i < 54; i++) {
+            ports[i] = state.getPort(i);
+        }
+        MainImpl main = new MainImpl(agents.size(), new GUIMainDummyImpl(), new SplittableRandom(seed),
+                new BoardImpl(hexResources, hexNumbers, ports));
+        agents.toArray(main.agents);
+        main.restore(state);
+        return main;
+    }
+
+    /**
+     * Ends the current turn, and plays the game on until someone wins, or turns more turns have been played
+     * Whoever calls this plays the rest of the current turn first, if they want it played
+     * @param turns the most turns to play after this one, after which the game is left without a winner
+     * @return the result of the game, at the point it stopped
+     * @throws IllegalStateException if it isn't the main phase
+     */
+    public GameResult playOut(int turns) {
+        if (!isMainPhase) {
+            throw new IllegalStateException("Games can only be played out during the main phase");
+        }
+        int turnIndex = turnOrder.indexOf(currentTurn.getID());
+        record(JournalEvent.TURN_END, currentTurn, 0, 0);
+        newCards.clear();
+        for (int turn = 0; winner == null && turn < turns; turn++) {
+            turnIndex = (turnIndex + 1) % players.length;
+            mainTurn(turnOrder.get(turnIndex));
+        }
+        return getResult();
+    }
+
+    /**
+     * Shuffles what is left of the deck again, which a search bot should do before trying moves on a copy of the
+     * game, since whoever is playing can't know what order the cards are in
+     */
+    public void shuffleDeck() {
+        List<DevelopmentCard> cards = new ArrayList<>(vellyDeck);
+        vellyDeck.clear();
+        for (int i = cards.size(); i > 0; i--) {
+            vellyDeck.add(cards.remove(deckRandom.nextInt(i)));
+        }
+        version++;
+    }
+
+    /**
+     * @return the result of this game so far, with no winner if it hasn't ended yet
+     */
+    protected GameResult getResult() {
+        int[] victoryPoints = new int[players.length];
+        for (Player player : players) {
+            victoryPoints[player.getID()] = player.getVictoryPoints();
+        }
+        return new GameResult(winner == null ? -1 : winner.getID(), turnsPlayed, victoryPoints);
+    }
+
     /**
      * Gets the number of players for the next game
      * This method is called during the Main creation process, so it has to be static
@@ -184,7 +482,11 @@ public class MainImpl implements Main {
         for (int i = players.length - 1; i >= 0; i--) { // the backwards loop
             setupTurn(turnOrder.get(i), true);
         }
-        isMainPhase = true; // now it is main phase
+        if (stopped) {
+            return; // still in the setup, where the journal ends
+        }
+        changePhase(true); // now it is main phase
+        version++;
     }
 
     /**
@@ -194,12 +496,19 @@ public class MainImpl implements Main {
      * Completing this method will just require uncommenting some lines and changing some method names
      */
     private void setupTurn(int turnNumber, boolean isSecondLoop) {
-        currentTurn = players[turnNumber];
-        // we ask gui where the player wants to put the settlement
-        // gui will then call buildSettlement on the appropriate spot to actually build the settlement
-        // It will also find out what road to build, and build that too
-        Vertex settlement = gui.startSetupTurn(currentTurn, getAvailableSettlementSpots(currentTurn));
-        // now the player does its setup turn over in guiland
+        changeTurn(players[turnNumber]);
+        version++;
+        // we ask the agent to build the settlement, and the road next to it
+        // it calls buildSettlement and buildRoad itself, and tells us where the settlement went
+        if (stopped) {
+            return; // a replay ran out of journal in an earlier setup turn
+        }
+        Vertex settlement = agents[turnNumber].takeSetupTurn(this, currentTurn,
+                getAvailableSettlementSpots(currentTurn));
+        if (stopped) {
+            return; // the settlement may not have been built
+        }
+        record(JournalEvent.SETUP_END, currentTurn, settlement.getId(), 0);
         if (isSecondLoop) {
             givePlayerSettlementResources(currentTurn, settlement);
         }
@@ -211,14 +520,11 @@ public class MainImpl implements Main {
      * @param settlement that was built second, which the player gets resources from
      */
     private void givePlayerSettlementResources(Player player, Vertex settlement) {
-        // this is inefficient, but I only have to do it once per player
-        for (Hex hex : board.getHexes()) { // look at each hex's vertices
+        // the board knows which hexes each vertex touches, so I don't have to look through all of them
+        for (int hexes = board.getVertexHexBits(settlement.getId()); hexes != 0; hexes &= hexes - 1) {
+            Hex hex = board.getHex(Integer.numberOfTrailingZeros(hexes));
             if (hex.getResource() != Resource.MISC) {
-                for (Vertex vertex : hex.getVertices()) {
-                    if (vertex == settlement) { // if they are the same vertex
-                        player.addResource(hex.getResource()); // give the player that hex's resource
-                    }
-                }
+                player.addResource(hex.getResource()); // give the player that hex's resource
             }
         }
     }
@@ -229,31 +535,67 @@ public class MainImpl implements Main {
     private void mainLoop() {
         //We start by rolling the dice, telling the player what the roll was, and giving each player
             //the resources from that roll
-        while (true) { // goes until I call break when the player ends the game
+        // in the GUI game, endGame closes the program, so this only stops on its own in headless games
+        for (int round = 0; winner == null && !stopped && round < maxRounds; round++) {
             for (int turnNumber : turnOrder) {
                 mainTurn(turnNumber); // rolls the dice, and gives players resources
                 // if a 7 is rolled, it deals with players discarding and robbing
                 // it also calls the method that gives control over to the gui to actually do the turn
                 // I don't need to call about victory points, the player already knows about it
+                if (winner != null || stopped) {
+                    break; // the rest of the players don't get a turn once someone has won
+                }
             }
         }
     }
 
     private void mainTurn(int turnNumber) {
-        currentTurn = players[turnNumber]; // the player whose turn it is
-        Random dieRoller = new Random();
+        changeTurn(players[turnNumber]); // the player whose turn it is
+        version++;
+        turnsPlayed++;
         // gets the value of the dice being rolled
         // since nextInt(6) gives 0 to 5, I then add 1 per die to make each die 1 to 6
-        int dieValue = 2 + dieRoller.nextInt(6) + dieRoller.nextInt(6);
-        // gui.insertMethodNameHere(dieValue); // displays the die value
+        int dieValue = 2 + diceRandom.nextInt(6) + diceRandom.nextInt(6);
+        record(JournalEvent.ROLL, currentTurn, dieValue, 0);
         applyDice(dieValue); // changes values and stuff
-        gui.startTurn(currentTurn, dieValue); // tells GUI to get input and call the methods, when they end,
-            // this method will end, and it will be the next player's turn
-            // updates number and resources and also does 7 stuff, so I don't worry about it
+        if (dieValue == 7) {
+            discardHalves();
+        }
+        // the agent moves the thief if it was a 7, and plays the turn, calling the methods itself
+        // when it returns, this method will end, and it will be the next player's turn
+        if (!stopped) {
+            agents[turnNumber].startTurn(this, currentTurn, dieValue);
+        }
+        if (stopped) {
+            return; // the turn is left unfinished, where the journal ends
+        }
+        record(JournalEvent.TURN_END, currentTurn, 0, 0);
         newCards.clear(); // so that future turns will not have to deal with being unable to use the new development
             // cards that were purchased
     }
 
+    /**
+     * Has everyone with more than 7 cards discard half, rounding what they keep up
+     * Each player's agent is asked in the order of the players, and must be done before the next is asked
+     */
+    private void discardHalves() {
+        for (int i = 0; i < players.length; i++) {
+            Player player = players[i];
+            if (player.hasMoreThan7Cards()) {
+                int cardsToKeep = player.getCardNumber() / 2 + player.getCardNumber() % 2;
+                agents[i].discard(this, player, cardsToKeep);
+                if (stopped) {
+                    return;
+                }
+                record(JournalEvent.DISCARD_END, player, 0, 0);
+                if (player.getCardNumber() > cardsToKeep) {
+                    throw new IllegalStateException(player + " kept " + player.getCardNumber() + " cards, not "
+                            + cardsToKeep);
+                }
+            }
+        }
+    }
+
     /**
      * Uses the result of the die roll to give resources
      * No longer deals with 7, that is now done by GUI
@@ -261,21 +603,11 @@ public class MainImpl implements Main {
      * @param dieValue  a number from 2 to 12
      */
     protected void applyDice(int dieValue) {
+        version++;
         if (dieValue != 7) {
-            for (Hex hex : board.getHexes()) {
-                if (hex.getNumber() == dieValue && !hex.hasThief()) {
-                    // if this hex has the right number and not the thief, we give its players the right resource
-                    for (Vertex vertex : hex.getVertices()) {
-                        if (vertex.getPlayer() != null) { // if this vertex has a player, give him a resource
-                            vertex.getPlayer().addResource(hex.getResource());
-                            if (vertex.isCity()) {
-                                // if this is a city, give the player a second resource
-                                vertex.getPlayer().addResource(hex.getResource());
-                            }
-                        }
-                    }
-                }
-            }
+            // the index already knows who gets what from each number, skipping hexes with the thief
+            // and counting cities twice, so this just hands it out
+            production.apply(dieValue);
         }
         // if we get a 7, no resources are given, and instead gui will deal with the thief and the like later
     }
@@ -297,6 +629,8 @@ public class MainImpl implements Main {
      */
     @Override
     public boolean removePlayerResource(Player player, Resource resource) {
+        record(JournalEvent.DISCARD, player, resource.ordinal(), 0);
+        version++;
         return removeMultipleOfOneResource(player, resource, 1);
     }
 
@@ -324,6 +658,234 @@ public class MainImpl implements Main {
         return largestArmyHolder;
     }
 
+    /**
+     * @return the player who won the game, or null if the game isn't over yet
+     */
+    @Override
+    public Player getWinner() {
+        return winner;
+    }
+
+    /**
+     * @return everything about the game right now, packed into a few hundred bytes
+     */
+    @Override
+    public GameState getState() {
+        GameState state = GameState.of(this);
+        if (layout == null) {
+            layout = state; // the layout never changes, so any state will do to check restored states against
+        }
+        return state;
+    }
+
+    /**
+     * A 64 bit hash of the position, which is kept up as the game changes instead of being worked out each time
+     * Two games in the same position on the same board always have the same hash, whatever order they got there in
+     * @return the XOR of the Zobrist keys of everything in the position
+     */
+    @Override
+    public long getPositionHash() {
+        long hash = positionHash;
+        for (Player player : players) {
+            hash ^= player.getPositionHash();
+        }
+        return hash;
+    }
+
+    /**
+     * Puts the game back to the state, so that a move can be tried and then taken back
+     * Only what changed since the state is put back, so trying a move and undoing it is cheap
+     * The players' settlements, cities and roads come back in board order, not the order they were built
+     * @param state from getState() of this game, or of another game on the same board with the same players
+     * @throws IllegalArgumentException if the state is from a different board or number of players
+     */
+    @Override
+    public void restore(GameState state) {
+        if (layout == null) {
+            getState();
+        }
+        if (!layout.hasSameLayout(state)) {
+            throw new IllegalArgumentException("The state is from a different board or number of players");
+        }
+        if (journal != null) {
+            journal.recordRestore(state);
+        }
+        version++;
+        // first the board, where I only touch what is different, and tell the indexes about it
+        boolean buildingsChanged = false;
+        for (Vertex vertex : vertices) {
+            int owner = state.getVertexOwner(vertex.getId());
+            Player player = owner < 0 ? null : players[owner];
+            boolean isCity = state.isCity(vertex.getId());
+            if (vertex.getPlayer() != player || vertex.isCity() != isCity) {
+                positionHash ^= vertexKey(vertex);
+                vertex.restore(player, isCity);
+                positionHash ^= vertexKey(vertex);
+                production.vertexChanged(vertex);
+                buildingsChanged = true;
+            }
+        }
+        boolean roadsChanged = false;
+        for (Edge edge : edges) {
+            int owner = state.getEdgeOwner(edge.getId());
+            Player player = owner < 0 ? null : players[owner];
+            if (edge.getPlayer() != player) {
+                positionHash ^= edgeKey(edge);
+                edge.setPlayer(player);
+                positionHash ^= edgeKey(edge);
+                roadsChanged = true;
+            }
+        }
+        if (buildingsChanged || roadsChanged) {
+            board.recalculateOpenSpots();
+            roads.rebuild(); // a settlement can cut a road, so the pieces need redoing either way
+        }
+        if (roadsChanged) {
+            frontier.rebuild();
+        }
+        Hex location = board.getHex(state.getThiefHex());
+        if (location != thiefIsHere) {
+            board.moveThief(location);
+            production.thiefMoved(thiefIsHere, location);
+            positionHash ^= Zobrist.thief(thiefIsHere.getId()) ^ Zobrist.thief(location.getId());
+            thiefIsHere = location;
+        }
+
+        // then the players and the rest of the game
+        for (int i = 0; i < players.length; i++) {
+            players[i].restore(state, i);
+            if (buildingsChanged || roadsChanged) {
+                players[i].restorePieces(state, i, board);
+            }
+        }
+        changePhase(state.isMainPhase());
+        changeTurn(playerOrNull(state.getCurrentTurn()));
+        changeLongestRoadHolder(playerOrNull(state.getLongestRoadHolder()));
+        changeLargestArmyHolder(playerOrNull(state.getLargestArmyHolder()));
+        winner = playerOrNull(state.getWinner());
+        turnsPlayed = state.getTurnsPlayed();
+        newCards.clear();
+        for (DevelopmentCard card : DevelopmentCard.values()) {
+            if (state.getNewCardCount(card) > 0) {
+                newCards.put(card, state.getNewCardCount(card));
+            }
+        }
+        int[] restoredTurnOrder = state.getTurnOrder();
+        for (int i = 0; i < restoredTurnOrder.length; i++) {
+            turnOrder.set(i, restoredTurnOrder[i]);
+        }
+        // the deck only changes when a card is bought, so I only rebuild it when it is different
+        if (!deckMatches(state)) {
+            positionHash ^= Zobrist.deck(vellyDeck.size()) ^ Zobrist.deck(state.getDeckSize());
+            vellyDeck.clear();
+            for (int i = 0; i < state.getDeckSize(); i++) {
+                vellyDeck.add(state.getDeckCard(i));
+            }
+        }
+    }
+
+    /**
+     * @return true if the deck already has the same cards in the same order as the state's deck
+     */
+    private boolean deckMatches(GameState state) {
+        if (vellyDeck.size() != state.getDeckSize()) {
+            return false;
+        }
+        int position = 0;
+        for (DevelopmentCard card : vellyDeck) {
+            if (card != state.getDeckCard(position++)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private Player playerOrNull(int index) {
+        return index < 0 ? null : players[index];
+    }
+
+    /**
+     * @return the player's place in players, or -1 if they aren't in this game
+     */
+    private int indexOf(Player player) {
+        for (int i = 0; i < players.length; i++) {
+            if (players[i] == player) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * @return the Zobrist key of whatever is built on the vertex, or 0 if it is empty or not on this board
+     */
+    private long vertexKey(Vertex vertex) {
+        int id = vertex.getId();
+        if (id < 0 || vertices[id] != vertex || vertex.getPlayer() == null) {
+            return 0;
+        }
+        return Zobrist.vertex(id, indexOf(vertex.getPlayer()), vertex.isCity());
+    }
+
+    /**
+     * @return the Zobrist key of the road on the edge, or 0 if it is empty or not on this board
+     */
+    private long edgeKey(Edge edge) {
+        int id = edge.getId();
+        if (id < 0 || edges[id] != edge || edge.getPlayer() == null) {
+            return 0;
+        }
+        return Zobrist.edge(id, indexOf(edge.getPlayer()));
+    }
+
+    // these change the position's scalars along with their part of the hash
+
+    private void changePhase(boolean toMainPhase) {
+        positionHash ^= Zobrist.mainPhase(isMainPhase) ^ Zobrist.mainPhase(toMainPhase);
+        isMainPhase = toMainPhase;
+    }
+
+    private void changeTurn(Player player) {
+        positionHash ^= Zobrist.turn(indexOf(currentTurn)) ^ Zobrist.turn(indexOf(player));
+        currentTurn = player;
+    }
+
+    private void changeLongestRoadHolder(Player player) {
+        positionHash ^= Zobrist.longestRoad(indexOf(longestRoadHolder)) ^ Zobrist.longestRoad(indexOf(player));
+        longestRoadHolder = player;
+    }
+
+    private void changeLargestArmyHolder(Player player) {
+        positionHash ^= Zobrist.largestArmy(indexOf(largestArmyHolder)) ^ Zobrist.largestArmy(indexOf(player));
+        largestArmyHolder = player;
+    }
+
+    // the rest of the state, for GameState to pack
+
+    boolean isMainPhase() {
+        return isMainPhase;
+    }
+
+    Player getCurrentTurn() {
+        return currentTurn;
+    }
+
+    int getTurnsPlayed() {
+        return turnsPlayed;
+    }
+
+    List<Integer> getTurnOrder() {
+        return Collections.unmodifiableList(turnOrder);
+    }
+
+    Map<DevelopmentCard, Integer> getNewCards() {
+        return Collections.unmodifiableMap(newCards);
+    }
+
+    Collection<DevelopmentCard> getVellyDeck() {
+        return Collections.unmodifiableCollection(vellyDeck);
+    }
+
 
     /**
      * I am going to refactor this method, call it canBuild, and make it check if the player has the resources
@@ -340,31 +902,28 @@ public class MainImpl implements Main {
         if (currentTurn != player) { // if it is not this player's turn
             return false;
         }
-        Map<Resource, Integer> requirements = project.getResources();
-        for (Resource resource : requirements.keySet()) {
-            if (player.getResources().getOrDefault(resource, 0) < requirements.get(resource)) {
-                // if the player doesn't have enough of that resource
-                return false;
-            }
+        if (!project.isAffordable(Building.packHand(player))) {
+            // if the player doesn't have enough of some resource
+            return false;
         }
         // this next part makes sure that if
         int projectNumber;
         switch (project) {
             case ROAD:
                 projectNumber = player.getRoads().size();
-                if (getAvailableRoadSpots(player).isEmpty()) {
+                if (getRoadSpotBits(player, 0) == 0 && getRoadSpotBits(player, 1) == 0) {
                     return false;
                 }
                 break;
             case SETTLEMENT:
                 projectNumber = player.getSettlements().size();
-                if (getAvailableSettlementSpots(player).isEmpty()) {
+                if (getSettlementSpotBits(player) == 0) {
                     return false;
                 }
                 break;
             case CITY:
                 projectNumber = player.getCities().size();
-                if (getAvailableCitySpots(player).isEmpty()) {
+                if (player.getSettlements().isEmpty()) { // the city spots, without making a view of them
                     return false;
                 }
                 break;
@@ -385,7 +944,7 @@ public class MainImpl implements Main {
      */
     @Override
     public Set<Hex> getAvailableThiefSpots() {
-        Set<Hex> hexes = new HashSet<>(Arrays.asList(board.getHexes()));
+        Set<Hex> hexes = new LinkedHashSet<>(Arrays.asList(board.getHexes()));
         hexes.remove(thiefIsHere);
         return hexes;
     }
@@ -398,34 +957,28 @@ public class MainImpl implements Main {
      */
     @Override
     public Set<Vertex> getAvailableSettlementSpots(Player player) {
-        // I check the game phase, then call the appropriate method
-        if (!isMainPhase) {
-            return board.getOpenVertices(); // since all vertices not occupied or next to one occupied are
-                // fair game here
+        // if nothing has changed since the last time, the same set is still right
+        SpotCache cache = getSpotCache(player);
+        if (cache.settlementVersion != version) {
+            cache.settlementSpots = Collections.unmodifiableSet(toVertexSet(getSettlementSpotBits(player)));
+            cache.settlementVersion = version;
         }
-        return getSettleSpotsGame(player);
+        return cache.settlementSpots;
     }
 
     /**
-     * Gets the settle spots during the game
-     * @param player building a settlement
-     * @return the available settlement spots for that player
+     * The same spots as getAvailableSettlementSpots, as a bitset of vertex ids, without making a Set
+     * @param player building the settlement
+     * @return the bitset of vertices where this player could build, laid out like Board.getOpenVertexBits
      */
-    private Set<Vertex> getSettleSpotsGame(Player player) {
-        // First, I get a list of all open settle spots
-        // I then traverse each of them
-        // If it has a road of this player, I add it to a second list
-        // I return the second list
-        Set<Vertex> openSpots = board.getOpenVertices();
-        Set<Vertex> settleSpots = new HashSet<>();
-        for (Vertex spot : openSpots) {
-            for (Edge edge : spot.getEdges()) {
-                if (edge != null && player.equals(edge.getPlayer())) {
-                    settleSpots.add(spot);
-                }
-            }
+    @Override
+    public long getSettlementSpotBits(Player player) {
+        // I check the game phase, then give the appropriate bits
+        if (!isMainPhase) {
+            return board.getOpenVertexBits();
         }
-        return settleSpots;
+        // the frontier already knows every vertex at the end of this player's roads, and keeps the open ones
+        return frontier.getSettlementSpotBits(player);
     }
 
     /**
@@ -436,22 +989,23 @@ public class MainImpl implements Main {
      */
     @Override
     public Set<Edge> getAvailableRoadSpots(Player player) {
-        // we will start with an empty set
-        // then, we will go through all the vertices
-        // if one belongs to this player, add the other two
-        // Then at the end, I will take all the viable roads, and retainAll
-        // This is frankly too inefficient, but I am not bothering to find something better
-        Set<Edge> roadSpots = new HashSet<>();
-        for (Vertex vertex : board.getVertices()) {
-            for (Edge edge : vertex.getEdges()) {
-                if (edge != null && player.equals(edge.getPlayer())) {
-                    roadSpots.addAll(Arrays.asList(vertex.getEdges()));
-                }
-            }
+        SpotCache cache = getSpotCache(player);
+        if (cache.roadVersion != version) {
+            cache.roadSpots = Collections.unmodifiableSet(toEdgeSet(getRoadSpotBits(player, 0), getRoadSpotBits(player, 1)));
+            cache.roadVersion = version;
         }
-        roadSpots.retainAll(board.getEmptyEdges());
-        roadSpots.remove(null);
-        return roadSpots;
+        return cache.roadSpots;
+    }
+
+    /**
+     * The same spots as getAvailableRoadSpots, as a bitset of edge ids, without making a Set
+     * @param player building the road
+     * @param word 0 for edges 0 to 63, 1 for the rest
+     * @return that word of the bitset of edges where this player could build, laid out like Board.getEmptyEdgeBits
+     */
+    @Override
+    public long getRoadSpotBits(Player player, int word) {
+        return frontier.getRoadSpotBits(player, word);
     }
 
     /**
@@ -464,24 +1018,63 @@ public class MainImpl implements Main {
      */
     @Override
     public Set<Edge> getAvailableRoadSpotsGivenEdge(Player player, Edge roadToBuild) {
-        // first we take the normal list
-        Set<Edge> roadSpots = new HashSet<>();
-        // then we remove roadToBuild
-        // then we add what is adjacent to it
-        for (Vertex vertex : board.getVertices()) {
-            for (Edge edge : vertex.getEdges()) {
-                if (edge != null && (player.equals(edge.getPlayer()) || edge == roadToBuild)) {
-                    // if this edge is this player's road or will be soon
-                    roadSpots.addAll(Arrays.asList(vertex.getEdges()));
-                }
-            }
-        }
-        roadSpots.retainAll(board.getEmptyEdges());
-        roadSpots.remove(null);
-        roadSpots.remove(roadToBuild); // because you can't build here, that was your first road
+        // the same as the normal spots, but also counting the spots touching roadToBuild
+        long lowSpots = getRoadSpotBits(player, 0);
+        long highSpots = getRoadSpotBits(player, 1);
+        int id = roadToBuild.getId();
+        if (id >= 0 && edges[id] == roadToBuild) {
+            lowSpots |= board.getEdgeNeighborBits(id, 0) & board.getEmptyEdgeBits(0);
+            highSpots |= board.getEdgeNeighborBits(id, 1) & board.getEmptyEdgeBits(1);
+        }
+        Set<Edge> roadSpots = toEdgeSet(lowSpots, highSpots);
+        // it isn't empty yet, so I have to take it out myself, because you can't build there twice
+        roadSpots.remove(roadToBuild);
         return roadSpots;
     }
 
+    /**
+     * A player's spots from the last time they were asked for, and the version they were found at
+     * Since the sets can't be changed, the same one can be given out until the game changes
+     */
+    private static final class SpotCache {
+        long settlementVersion = -1;
+        Set<Vertex> settlementSpots;
+        long roadVersion = -1;
+        Set<Edge> roadSpots;
+    }
+
+    private SpotCache getSpotCache(Player player) {
+        return spotCaches.computeIfAbsent(player, p -> new SpotCache());
+    }
+
+    /**
+     * @param bits a bitset of the board's vertices
+     * @return the vertices in it, in board order
+     */
+    private Set<Vertex> toVertexSet(long bits) {
+        Set<Vertex> vertexSet = new LinkedHashSet<>();
+        for (; bits != 0; bits &= bits - 1) {
+            vertexSet.add(vertices[Long.numberOfTrailingZeros(bits)]);
+        }
+        return vertexSet;
+    }
+
+    /**
+     * @param lowBits the first word of a bitset of the board's edges
+     * @param highBits the second word
+     * @return the edges in it, in board order
+     */
+    private Set<Edge> toEdgeSet(long lowBits, long highBits) {
+        Set<Edge> edgeSet = new LinkedHashSet<>();
+        for (; lowBits != 0; lowBits &= lowBits - 1) {
+            edgeSet.add(edges[Long.numberOfTrailingZeros(lowBits)]);
+        }
+        for (; highBits != 0; highBits &= highBits - 1) {
+            edgeSet.add(edges[64 + Long.numberOfTrailingZeros(highBits)]);
+        }
+        return edgeSet;
+    }
+
     /**
      * Gets the settlements that this player could upgrade into cities
      *
@@ -490,7 +1083,7 @@ public class MainImpl implements Main {
      */
     @Override
     public Set<Vertex> getAvailableCitySpots(Player player) {
-        return player.getSettlements();
+        return Collections.unmodifiableSet(player.getSettlements()); // a view, so it is never out of date
     }
 
     /**
@@ -502,36 +1095,47 @@ public class MainImpl implements Main {
      */
     @Override
     public void moveThief(Player stealer, Vertex settlement, Hex location) {
+        record(JournalEvent.THIEF, stealer, location.getId(), settlement.getId());
+        relocateThief(stealer, settlement, location);
+    }
+
+    /**
+     * Does moveThief, without recording it, for the knight, which is recorded as itself
+     */
+    private void relocateThief(Player stealer, Vertex settlement, Hex location) {
+        version++;
         // moves the robber
-        thiefIsHere.setThief(false);
+        Hex previousLocation = thiefIsHere;
+        positionHash ^= Zobrist.thief(previousLocation.getId()) ^ Zobrist.thief(location.getId());
         thiefIsHere = location;
-        location.setThief(true);
+        board.moveThief(location);
+        production.thiefMoved(previousLocation, location);
         if (settlement.getPlayer() == null) {
             return; // because there is no robbing being done
         }
         Player victim = settlement.getPlayer();
-        List<Resource> victimResources = getVictimResources(victim);
-        if (victimResources.isEmpty()) {
+        if (victim.getCardNumber() == 0) {
             return; // since the victim has nothing for the stealer to rob
         }
-        Random resourceChooser = new Random();
-        Resource robbedResource = victimResources.get(resourceChooser.nextInt(victimResources.size())); // chooses the random to be removed
+        Resource robbedResource = getVictimResource(victim, thiefRandom.nextInt(victim.getCardNumber())); // chooses the random to be removed
         removeMultipleOfOneResource(victim, robbedResource, 1);
         stealer.addResource(robbedResource); // gives that resource to the thief
     }
 
     /**
+     * Finds a card in the player's hand, as if the hand were laid out in a row, without making the row
      * @param player who is being robbed
-     * @return the player's resources in list form
+     * @param cardIndex from 0 to the player's card number - 1
+     * @return the resource of that card
      */
-    private List<Resource> getVictimResources(Player player) {
-        List<Resource> resources = new ArrayList<>();
-        for (Resource resource : player.getResources().keySet()) {
-            for (int i = 0; i < player.getResources().get(resource); i++) {
-                resources.add(resource);
+    private Resource getVictimResource(Player player, int cardIndex) {
+        for (Resource resource : RESOURCES) {
+            cardIndex -= player.getResourceCount(resource);
+            if (cardIndex < 0) {
+                return resource;
             }
         }
-        return resources;
+        throw new IllegalStateException(player + " has fewer cards than their card number");
     }
 
     /**
@@ -543,20 +1147,25 @@ public class MainImpl implements Main {
      */
     @Override
     public void buildSettlement(Player player, Vertex location) {
+        record(JournalEvent.SETTLEMENT, player, location.getId(), 0);
+        version++;
         // I need to change the vertex's status
         location.setPlayer(player);
+        positionHash ^= vertexKey(location);
         // I need to add the vertex to the player's list
         boolean isWinner = player.addSettlement(location); // true if the player now has 10 victory points
         // I need to remove the vertex from the board's open vertex list
         // I need to remove the adjacent vertices from the board's open vertex list
         board.removeSettlement(location);
+        // I need to tell the production index that this vertex now gets resources
+        production.vertexChanged(location);
         // I need to add the port to the player's list, if applicable
         if (location.getPort() != null) {
             player.addPort(location.getPort());
         }
         // I need to remove resources from the player, if this is the right phase
         if (isMainPhase) {
-            player.removeResources(Building.SETTLEMENT.getResources());
+            player.removeResources(Building.SETTLEMENT);
         }
         // we don't need to tell the GUI to update anything, because it already knows
         if (isWinner) { // if the player has won, end the game
@@ -586,72 +1195,19 @@ public class MainImpl implements Main {
         // I need to recalculate even if the player being interrupted does not have the longest road
         // That way, if an interruption does happen later, they can still have longest road
         // First, I need to figure out which player was interrupted, if any
-        Player interrupted = getInterruptedPlayer(builder, settlement);
+        // the road network splits their road if it was cut, so only the cut part is measured again
+        Player interrupted = roads.settlementBuilt(builder, settlement);
         if (interrupted == null) { // if no player was interrupted, we are done her, and no recalculation is necessary
             return;
         } // from here on, we have an interrupted player who needs to be recalculated
-        // so we recalculate the road length, and set the new length
-        interrupted.setRoadLength(recalculateLongestRoad(interrupted));
+        // so we set the new length
+        interrupted.setRoadLength(roads.getLongestRoad(interrupted));
         // if the player also had the longest road, we now need to figure out who has that now
         if (interrupted == longestRoadHolder) {
             redetermineLongestRoad();
         }
     }
 
-    /**
-     * @param builder who just built a settlement, and so cannot be interrupted
-     * @param settlement that was just built
-     * @return which player was just interrupted, or null if none were
-     */
-    private Player getInterruptedPlayer(Player builder, Vertex settlement) {
-        Player interruptedPlayer = null;
-        for (Edge edge : settlement.getEdges()) {
-            // we check each edge
-            if (edge != null && edge.getPlayer() != builder) {
-                // if this is another player's road, we might have interrupted someone
-                if (interruptedPlayer == null) {
-                    // if this is the first other road we find, we store it
-                    interruptedPlayer = edge.getPlayer();
-                } else if (interruptedPlayer == edge.getPlayer()) {
-                    // if this is the second, and of the first type as the first, we are interrupting that player
-                    // and so must return it
-                    return interruptedPlayer;
-                }
-                // we don't have to worry about getting an interrupted player of one type, and then overlooking another
-                // because we know that at least 1 road belongs to this player
-                // unless this is setup phase, in which case we can't interrupt anyone anyway
-                // so of the remaining two, they either must be the same type as each other, and are interrupted
-                // or they are of different types, in which case it doesn't matter what we ignore
-                    // because they can't be interrupted anyway, only blocked
-            }
-        }
-        return null; // we didn't find an interrupted player, so no player was interrupted
-    }
-
-    /**
-     * This method is called either because the player was blocked by someone's settlement
-     * Or because this player has a loop, and we need to figure out which way of calculating gives us
-     * the longest road whenever we add a road
-     *
-     * This method does not actually change the longest road, because what needs to be done there
-     * depends on which method called this one in the first place.
-     *
-     * This method is inefficient, at O(n^2), because it needs to calculate the road length at every road
-     * in order to find the longest path through the loop, or check every branch for the longest road
-     *
-     * @param player whose longest road length needs to be recalculated
-     */
-    private int recalculateLongestRoad(Player player) {
-        int longestRoad = 0;
-        for (Edge edge : player.getRoads()) {
-            int roadNumber = calculateRoadLength(player, edge, true);
-            if (roadNumber > longestRoad) {
-                longestRoad = roadNumber;
-            }
-        }
-        return longestRoad;
-    }
-
     /**
      * This method is called after someone interrupts the path of someone who has longest road
      * We now need to figure out who really has the longest road
@@ -692,7 +1248,7 @@ public class MainImpl implements Main {
             newLongestPlayer.increaseVictoryPoints(2);
         }
         // update in Main
-        longestRoadHolder = newLongestPlayer;
+        changeLongestRoadHolder(newLongestPlayer);
         // if the redetermination caused a new victor, we should end the game now
         if (longestRoadHolder != null && longestRoadHolder.getVictoryPoints() >= 10) {
             endGame(longestRoadHolder);
@@ -707,15 +1263,27 @@ public class MainImpl implements Main {
      */
     @Override
     public void buildRoad(Player player, Edge location) {
+        record(JournalEvent.ROAD, player, location.getId(), 0);
+        placeRoad(player, location);
+    }
+
+    /**
+     * Does buildRoad, without recording it, for road building, which is recorded as itself
+     */
+    private void placeRoad(Player player, Edge location) {
+        version++;
         // I need to change the edge's status
         location.setPlayer(player);
+        positionHash ^= edgeKey(location);
         // I need to add the edge to the player's list
         player.addRoad(location);
         // I need to remove the edge from the board's empty edge list
         board.removeRoad(location);
+        // and push the player's frontier out to where the road reaches
+        frontier.addRoad(player, location);
         // I need to remove resources from the player, if this is the right phase
         if (isMainPhase) {
-            player.removeResources(Building.ROAD.getResources());
+            player.removeResources(Building.ROAD);
         }
         // recalculate the longest road, see if this player has it now
         determineLongestRoad(player, location);
@@ -729,10 +1297,9 @@ public class MainImpl implements Main {
      * @param road that was just put down
      */
     private void determineLongestRoad(Player player, Edge road) {
-        int roadLength = calculateRoadLength(player, road, false);
-        if (roadLength > player.getRoadLength()) { // if this is the player's new record, change their length
-            player.setRoadLength(roadLength);
-        }
+        // the network only measures the piece of road this joined, even if it makes a loop
+        int roadLength = roads.addRoad(player, road);
+        player.setRoadLength(roadLength);
         if ((longestRoadHolder == null || roadLength > longestRoadHolder.getRoadLength())
                 // so that if there is no holder, we don't need to check if this road is bigger
                 && roadLength >= 5) { // the player's road is bigger than the holder's
@@ -743,104 +1310,13 @@ public class MainImpl implements Main {
             // give this player longest road
             player.increaseVictoryPoints(2);
             // update in Main
-            longestRoadHolder = player;
+            changeLongestRoadHolder(player);
             if (player.getVictoryPoints() >= 10) {
                 endGame(player);
             }
         }
     }
 
-    /**
-     * The base method for calculating road length. Returns the length of this player's road, starting from
-     * this edge
-     * @param player who built a road
-     * @param road that was just built
-     * @param doingLoop is false if we are calling this method plain, true if part of a recalculation
-     * @return the length of the player's road
-     */
-    private int calculateRoadLength(Player player, Edge road, boolean doingLoop) {
-        // we calculate the road on each side, and then add together the 2 parts
-        List<Vertex> adjVertices = getVerticesAdjacentToRoad(road);
-        Set<Edge> duplicateSet = new HashSet<>(player.getRoads());
-        int firstLength = calculateRoadLength(player, adjVertices.get(0), road, duplicateSet, doingLoop);
-        int secondLength = calculateRoadLength(player, adjVertices.get(1), road, duplicateSet, doingLoop);
-        if (firstLength < 0 || secondLength < 0) {
-            return recalculateLongestRoad(player);
-        }
-        return firstLength + secondLength - 1; // the longest path on each side
-        // both paths count this road, so we have to remove the second copy
-    }
-
-    /**
-     * The recursive method for calculating road length
-     * @param player whose roads we are following
-     * @param vertex we are currently looking at
-     * @param road that we last visited
-     * @param dupSet the set of Roads that the player has, removed from whenever a road is looked at
-     *               Used to prevent loops from causing a StackOverflowError
-     * @param doingLoop starts as false, becomes true if we are recalculating due to a loop
-     *                  If we are recalculating, we don't want to check for a loop and recalculate to make a
-     *                  StackOverflowError
-     * @return the length of the road from the other end until here
-     */
-    private int calculateRoadLength(Player player, Vertex vertex, Edge road, Set<Edge> dupSet, boolean doingLoop) {
-        // If this vertex belongs to another player, we return 0
-        if (vertex.getPlayer() != null && vertex.getPlayer() != player) {
-            // if there is a settlement here, and it doesn't belong to this player
-            // then this vertex does count, but the road can't go further
-            return 1;
-        }
-        // Otherwise, we look at each edge
-        dupSet.remove(road); // we already looked at it, we shouldn't look at it again if there
-            // is a loop
-        int laterRoadLength = 0;
-        for (int i = 0; i < 3; i++) {
-            Edge edge = vertex.getEdges()[i];
-            // If the edge does not belong to this player, it is ignored
-            // Or if it is the road we are looking at now
-            if (edge != null && dupSet.contains(edge)) {
-                // the contains makes sure that (a) we haven't looked at it yet, and (b) this player
-                    // owns it
-                // If it does, we recursively call the method on that edge and the vertex beyond it,
-                // keeping its return value, because we want everything beyond this road plus this road
-                int lengthFromThisEdge = calculateRoadLength(player, vertex.getAdjacentVertices()[i], edge, dupSet, doingLoop);
-                // the +1 accounts for this road, which we can't lose
-                if (lengthFromThisEdge > laterRoadLength) {
-                    // We then return the greater value of the two,
-                    // since that is the value of the road beyond the given one
-                    laterRoadLength = lengthFromThisEdge;
-                }
-            } else if (edge != null && !doingLoop) { // if we already saw the edge, and so are in the middle of a loop
-                // I need to figure out how to recalculate the longest road
-                // so maybe I return a really negative number, say -20, that way even after being added to stuff
-                    // it will still be negative
-                // Then, in the parent method, we can check for this output, and if we get it, we recalculate the
-                    // player's longest road
-                // !doingLoop, because if we are trying to recalculate, we don't want this
-                return -20;
-            }
-        }
-        return laterRoadLength + 1; // to account for this road
-    }
-
-    /**
-     * This is inefficient, but right now, Edges have no idea where Vertices or other edges are
-     * @param road we are looking for its vertices
-     * @return the vertices next to the road
-     */
-    private List<Vertex> getVerticesAdjacentToRoad(Edge road) {
-        List<Vertex> adjVertices = new ArrayList<>();
-        for (Vertex vertex : board.getVertices()) {
-            for (Edge edge : vertex.getEdges()) {
-                if (edge == road) {
-                    adjVertices.add(vertex);
-                }
-            }
-        }
-        assert adjVertices.size() == 2;
-        return adjVertices;
-    }
-
     /**
      * Upgrades a settlement to a city, and updates the Vertex and Player accordingly
      *
@@ -849,15 +1325,20 @@ public class MainImpl implements Main {
      */
     @Override
     public void buildCity(Player player, Vertex location) {
-        // I need to change the vertex's status
+        record(JournalEvent.CITY, player, location.getId(), 0);
+        version++;
+        // I need to change the vertex's status, and swap the settlement's key for the city's
+        positionHash ^= vertexKey(location);
         location.makeCity();
+        positionHash ^= vertexKey(location);
         // I need to change which list the vertex is on
         boolean isWinner = player.upgradeSettlement(location);
+        production.vertexChanged(location); // now it gets twice as much
         // I need to remove resources from the player, if this is the right phase
         // the phase doesn't really matter here, since you can't build a city during setup phase anyway
             // but I might want it for testing, so I will leave it in
         if (isMainPhase) {
-            player.removeResources(Building.CITY.getResources());
+            player.removeResources(Building.CITY);
         }
         // no need to report to GUI, it will know from the method ending
         if (isWinner) { // if the player has won, end the game
@@ -872,13 +1353,16 @@ public class MainImpl implements Main {
      */
     @Override
     public void buildDevelopmentCard(Player player) {
+        record(JournalEvent.DEVELOPMENT_CARD, player, 0, 0);
+        version++;
         // removes a card from the deck and gives it to the player
         // isWinner is true if this point card made the player win the game
         DevelopmentCard card = vellyDeck.remove();
+        positionHash ^= Zobrist.deck(vellyDeck.size() + 1) ^ Zobrist.deck(vellyDeck.size());
         boolean isWinner = player.addDevelopmentCard(card);
         // remove expended resources, only in main phase to help testing
         if (isMainPhase) {
-            player.removeResources(Building.DEVELOPMENT_CARD.getResources());
+            player.removeResources(Building.DEVELOPMENT_CARD);
             newCards.put(card, newCards.getOrDefault(card, 0) + 1);
         }
         // no need to report to GUI, it will know from the method ending
@@ -919,6 +1403,8 @@ public class MainImpl implements Main {
      */
     @Override
     public boolean playKnight(Player stealer, Vertex settlement, Hex location) {
+        record(JournalEvent.KNIGHT, stealer, location.getId(), settlement.getId());
+        version++;
         if (!isMainPhase) { // that way, I can call removeDevelopmentCard and increase the Knight number
             stealer.addDevelopmentCard(DevelopmentCard.KNIGHT);
         }
@@ -928,13 +1414,13 @@ public class MainImpl implements Main {
             // if it returns false, it means that the player never had one
             return false;
         }
-        moveThief(stealer, settlement, location);
+        relocateThief(stealer, settlement, location);
         if (hasLargestArmy(stealer)) {
             if (largestArmyHolder != null) { // if someone is losing Largest Army
                 largestArmyHolder.increaseVictoryPoints(-2); // they lose the 2 points
             }
             boolean isWinner = stealer.increaseVictoryPoints(2); // give the 2 points
-            largestArmyHolder = stealer; // make Main know you have it
+            changeLargestArmyHolder(stealer); // make Main know you have it
             if (isWinner) { // if the new points make you win
                 endGame(stealer); // you won!
             }
@@ -967,9 +1453,11 @@ public class MainImpl implements Main {
      */
     @Override
     public boolean playYearOfPlenty(Player player, Resource firstResource, Resource secondResource) {
+        version++;
         if (firstResource == Resource.MISC || secondResource == Resource.MISC) {
             throw new IllegalArgumentException("players can't get MISC resources");
         }
+        record(JournalEvent.YEAR_OF_PLENTY, player, firstResource.ordinal(), secondResource.ordinal());
         if (isMainPhase && !player.removeDevelopmentCard(DevelopmentCard.YEAR_OF_PLENTY)) {
             // for testing, in setup phase, you don't need the card
             // the if statement removes the development card if there is one
@@ -990,9 +1478,11 @@ public class MainImpl implements Main {
      */
     @Override
     public boolean playMonopoly(Player player, Resource resource) {
+        version++;
         if (resource == Resource.MISC) {
             throw new IllegalArgumentException("players can't get MISC resources");
         }
+        record(JournalEvent.MONOPOLY, player, resource.ordinal(), 0);
         if (isMainPhase && !player.removeDevelopmentCard(DevelopmentCard.MONOPOLY)) {
             // for testing, in setup phase, you don't need the card
             // the if statement removes the development card if there is one
@@ -1002,7 +1492,7 @@ public class MainImpl implements Main {
         int numberOfCards = 0;
         for (Player otherPlayer : players) {
             if (otherPlayer != player) { // no point in removing cards from this player
-                int playerResourceNum = otherPlayer.getResources().get(resource);
+                int playerResourceNum = otherPlayer.getResourceCount(resource);
                 // the number of this resource that that player has
                 numberOfCards += playerResourceNum;
                 removeMultipleOfOneResource(otherPlayer, resource, playerResourceNum);
@@ -1027,6 +1517,9 @@ public class MainImpl implements Main {
      */
     @Override
     public boolean playRoadBuilding(Player player, Edge firstLocation, Edge secondLocation) {
+        record(JournalEvent.ROAD_BUILDING, player, firstLocation.getId(),
+                secondLocation == null ? -1 : secondLocation.getId());
+        version++;
         if (isMainPhase && !player.removeDevelopmentCard(DevelopmentCard.ROAD_BUILDING)) {
             // for testing, in setup phase, you don't need the card
             // the if statement removes the development card if there is one
@@ -1046,7 +1539,7 @@ public class MainImpl implements Main {
             player.addResource(Resource.WOOD);
             player.addResource(Resource.BRICK);
         }
-        buildRoad(player, location);
+        placeRoad(player, location);
     }
 
     /**
@@ -1068,7 +1561,7 @@ public class MainImpl implements Main {
             return false; // you can only trade with the bank on your turn
         }
         int resourceNumber = getPlayerTradeNumber(player, resourceGiven);
-        return player.getResources().get(resourceGiven) >= resourceNumber;
+        return player.getResourceCount(resourceGiven) >= resourceNumber;
     }
 
     /**
@@ -1095,11 +1588,11 @@ public class MainImpl implements Main {
             // and you have to give something
             return false;
         }
-        Map<Resource, Integer> playerResources = player.getResources();
-        for (Resource resource : resourcesGiven.keySet()) { // make sure that has enough for each
+        for (Map.Entry<Resource, Integer> given : resourcesGiven.entrySet()) { // make sure that has enough for each
                 // resource
-            if (!isRequestingPlayer && (playerResources.get(resource) < resourcesGiven.get(resource))
-            || isRequestingPlayer && (playerResources.get(resource) < resourcesGiven.get(resource) * -1)) {
+            int playerResourceNum = player.getResourceCount(given.getKey());
+            if (!isRequestingPlayer && (playerResourceNum < given.getValue())
+            || isRequestingPlayer && (playerResourceNum < given.getValue() * -1)) {
                 return false;
             }
         }
@@ -1127,12 +1620,14 @@ public class MainImpl implements Main {
      */
     @Override
     public void trade(Player player, Resource resourceGiven, Resource resourceGotten) {
+        version++;
         if (player == null || resourceGiven == null || resourceGotten == null) {
             throw new IllegalArgumentException("null values not permitted");
         }
         if (resourceGiven == Resource.MISC || resourceGotten == Resource.MISC) {
             throw new IllegalArgumentException("Players can't have MISC resources");
         }
+        record(JournalEvent.BANK_TRADE, player, resourceGiven.ordinal(), resourceGotten.ordinal());
         int resourceNumber = getPlayerTradeNumber(player, resourceGiven);
         // now we remove the old resources and add the new ones
         removeMultipleOfOneResource(player, resourceGiven, resourceNumber);
@@ -1149,6 +1644,10 @@ public class MainImpl implements Main {
      */
     @Override
     public void trade(Player player1, Map<Resource, Integer> resourcesExchanged, Player player2) {
+        if (journal != null) {
+            journal.recordTrade(player1.getID(), player2.getID(), resourcesExchanged);
+        }
+        version++;
         // the new way of doing the resources is significantly more annoying for me, but that is what
         // Aryeh wanted
         Map<Resource, Integer> resourcesGiven = new HashMap<>();
@@ -1172,6 +1671,36 @@ public class MainImpl implements Main {
         player2.removeResources(resourcesReceived);
     }
 
+    /**
+     * Offers a trade to other players, asking their agents one at a time, and makes it with the first who accepts
+     * Players who can't afford their side of the trade aren't asked
+     *
+     * @param player             who is offering the trade, whose turn it is
+     * @param resourcesExchanged where negative values are given by player, and positive values are received by player
+     * @param sendTo             the players who are offered the trade, who are asked in the order of players
+     * @return the player who took the trade, or null if no one did, or if player can't afford it
+     */
+    @Override
+    public Player offerTrade(Player player, Map<Resource, Integer> resourcesExchanged, Set<Player> sendTo) {
+        if (player == null || resourcesExchanged == null || sendTo == null) {
+            throw new IllegalArgumentException("null values not permitted");
+        }
+        if (!canTrade(player, resourcesExchanged, true)) {
+            return null;
+        }
+        // the agents only get a copy, so they can't change the offer after they accept it
+        Map<Resource, Integer> offer = Collections.unmodifiableMap(new EnumMap<>(resourcesExchanged));
+        for (int i = 0; i < players.length; i++) {
+            Player other = players[i];
+            if (other != player && sendTo.contains(other) && canTrade(other, offer, false)
+                    && agents[i].acceptTrade(this, other, player, offer)) {
+                trade(player, offer, other);
+                return other;
+            }
+        }
+        return null;
+    }
+
     /**
      * Removes multiple of the same resource from a player in one line
      * @param player losing resources
@@ -1180,9 +1709,7 @@ public class MainImpl implements Main {
      * @return true if removal was successful, false otherwise
      */
     private boolean removeMultipleOfOneResource(Player player, Resource resource, int number) {
-        Map<Resource, Integer> resourcesRemoved = new HashMap<>();
-        resourcesRemoved.put(resource, number);
-        return player.removeResources(resourcesRemoved);
+        return player.removeResource(resource, number);
     }
 
     /**
@@ -1192,7 +1719,8 @@ public class MainImpl implements Main {
      */
     @Deprecated
     protected void setPhase(boolean changingToMain) {
-        isMainPhase = changingToMain;
+        version++;
+        changePhase(changingToMain);
     }
 
     /**
@@ -1201,11 +1729,28 @@ public class MainImpl implements Main {
      * @param player whose turn it now is
      */
     protected void setTurn(Player player, boolean turnToMain) {
-        isMainPhase = turnToMain;
-        currentTurn = player;
+        version++;
+        changePhase(turnToMain);
+        changeTurn(player);
+    }
+
+    /**
+     * Adds an event to the journal, if this game is being kept in one
+     */
+    private void record(JournalEvent event, Player player, int first, int second) {
+        if (journal != null) {
+            journal.record(event, player.getID(), first, second);
+        }
     }
 
     private void endGame(Player victor) {
+        if (winner != null) {
+            return; // someone already won, and the first player to win keeps it
+        }
+        winner = victor;
+        if (!exitOnVictory) {
+            return; // headless games and tests keep going, and let whoever is running them check the winner
+        }
         String color;
         switch (victor.getID()) {
             case 0:
@@ -1224,6 +1769,13 @@ public class MainImpl implements Main {
                 color = "BLACK - wait, what?";
         }
         System.out.println("Congratulations, " + color + ", you have won the game! Woo!!!");
+        if (journal != null) {
+            try {
+                journal.close(); // so the end of the game isn't lost when the program closes
+            } catch (IOException e) {
+                System.out.println("The end of this game couldn't be saved: " + e.getMessage());
+            }
+        }
         System.exit(0);
     }
 
@@ -3,6 +3,7 @@ package settlers;
 import java.util.Map;
 import java.util.Set;
 
+import settlers.board.Board;
 import settlers.board.Edge;
 import settlers.board.Vertex;
 import settlers.card.*;
@@ -20,6 +21,20 @@ public interface Player {
      */
     void addResource(Resource resource);
 
+    /**
+     * Like getResources().get(resource), but without going through a Map, for code that checks hands often
+     * @param resource whose cards are being counted
+     * @return how many cards of that resource the player has, which is always 0 for MISC
+     */
+    int getResourceCount(Resource resource);
+
+    /**
+     * @param resource to be removed from the player's hand
+     * @param number of cards of that resource to remove
+     * @return true if the removal was successful, false if the player has fewer than that many
+     */
+    boolean removeResource(Resource resource, int number);
+
     /**
      * @param resources to be removed from the player's hand
      * @return true if the removal was successful, false if it was not
@@ -27,6 +42,13 @@ public interface Player {
      */
     boolean removeResources(Map<Resource, Integer> resources);
 
+    /**
+     * Pays for a building, using its costs directly instead of its Map
+     * @param project whose cost is removed from the player's hand
+     * @return true if the removal was successful, false if the player can't afford it, in which case nothing is removed
+     */
+    boolean removeResources(Building project);
+
     /**
      * @return true if the player has more than 7 resource cards, false otherwise
      */
@@ -138,4 +160,26 @@ public interface Player {
      * @return the player's ID, which if set up properly will be from 0 to 3
      */
     int getID();
+
+    /**
+     * @return the XOR of the Zobrist keys of the player's hand, development cards and knights, which is kept up as
+     * they change. It is the player's part of Main's position hash
+     */
+    long getPositionHash();
+
+    /**
+     * Puts the player's cards, ports and counts back to how they were in the state, for undoing moves
+     * Doesn't touch the player's settlements, cities and roads, which restorePieces does
+     * @param state that the game is going back to
+     * @param index this player's place in the game's players
+     */
+    void restore(GameState state, int index);
+
+    /**
+     * Puts the player's settlements, cities and roads back to how they were in the state, in board order
+     * @param state that the game is going back to
+     * @param index this player's place in the game's players
+     * @param board that the game is played on, which the pieces come from
+     */
+    void restorePieces(GameState state, int index, Board board);
 }
\ No newline at end of file
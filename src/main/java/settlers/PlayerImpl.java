@@ -1,5 +1,6 @@
 package settlers;
 
+import settlers.board.Board;
 import settlers.board.Edge;
 import settlers.board.Vertex;
 import settlers.card.DevelopmentCard;
@@ -9,7 +10,12 @@ import java.util.*;
 
 public class PlayerImpl implements Player {
 
-    private Map<Resource, Integer> resources;
+    private static final Resource[] RESOURCES = Resource.values(); // so I don't copy the values each time
+
+    // the hand is counted by Resource ordinal, so adding and checking cards never boxes an Integer
+    // MISC has a place too, so I never need to subtract, but it always stays 0
+    private final int[] resources;
+    private final Map<Resource, Integer> resourceView; // what getResources() returns, which reads from the array
     private int resourceCount; // defaults to 0, number of total resources
     private final Map<DevelopmentCard, Integer> vellies;
     private int vellyCount;
@@ -22,6 +28,9 @@ public class PlayerImpl implements Player {
     private int knightNumber;
     private int roadLength;
     private int victoryPoints; // starts at 0
+    // the Zobrist keys of the hand, development cards and knights, kept up as they change, so Main never has to
+    // look through the hand to hash the position
+    private long positionHash;
 
     private final int id; // ignore this, it is for testing
 
@@ -31,33 +40,83 @@ public class PlayerImpl implements Player {
     }
 
     public PlayerImpl(int id) {
-        setUpEmptyResources(); // sets up the resources to have 0 of each type
-        vellies = new HashMap<>();
-        ports = new HashSet<>();
-        settlements = new HashSet<>();
-        cities = new HashSet<>();
-        roads = new HashSet<>();
+        resources = new int[RESOURCES.length]; // starts with 0 of each type
+        resourceView = new ResourceView();
+        // all ordered, so that going through them always goes the same way, which seeded games rely on
+        vellies = new EnumMap<>(DevelopmentCard.class);
+        ports = EnumSet.noneOf(Resource.class);
+        settlements = new LinkedHashSet<>();
+        cities = new LinkedHashSet<>();
+        roads = new LinkedHashSet<>();
         this.id = id;
     }
 
     /**
-     * Sets up the player's resources to have 0 of every type, for aid of testing
+     * A read-only Map of the hand that always has the player's current counts, with every resource but MISC in it,
+     * in the same order as an EnumMap would have them
      */
-    private void setUpEmptyResources() {
-        resources = new HashMap<>();
-        for (Resource resource : Resource.values()) {
-            if (resource != Resource.MISC) {
-                resources.put(resource, 0);
+    private final class ResourceView extends AbstractMap<Resource, Integer> {
+
+        private final Set<Entry<Resource, Integer>> entries = new AbstractSet<Entry<Resource, Integer>>() {
+            @Override
+            public Iterator<Entry<Resource, Integer>> iterator() {
+                return new Iterator<Entry<Resource, Integer>>() {
+                    private int ordinal = 0;
+
+                    @Override
+                    public boolean hasNext() {
+                        return ordinal < Resource.MISC.ordinal();
+                    }
+
+                    @Override
+                    public Entry<Resource, Integer> next() {
+                        if (!hasNext()) {
+                            throw new NoSuchElementException();
+                        }
+                        Resource resource = RESOURCES[ordinal++];
+                        return new SimpleImmutableEntry<>(resource, resources[resource.ordinal()]);
+                    }
+                };
+            }
+
+            @Override
+            public int size() {
+                return Resource.MISC.ordinal();
             }
+        };
+
+        @Override
+        public Set<Entry<Resource, Integer>> entrySet() {
+            return entries;
+        }
+
+        @Override
+        public Integer get(Object key) {
+            return containsKey(key) ? resources[((Resource) key).ordinal()] : null;
+        }
+
+        @Override
+        public boolean containsKey(Object key) {
+            return key instanceof Resource && key != Resource.MISC;
         }
     }
 
     /**
      * @return an unmodifiable Map containing the player's resource cards and quantity of each
+     * It is a view of the hand, so it changes along with it
      */
     @Override
     public Map<Resource, Integer> getResources() {
-        return Collections.unmodifiableMap(resources);
+        return resourceView;
+    }
+
+    /**
+     * @param resource whose cards are being counted
+     * @return how many cards of that resource the player has, which is always 0 for MISC
+     */
+    @Override
+    public int getResourceCount(Resource resource) {
+        return resources[resource.ordinal()];
     }
 
     /**
@@ -69,9 +128,23 @@ public class PlayerImpl implements Player {
         if (resource == Resource.MISC) {
             throw new IllegalArgumentException("Players cannot have MISC resources");
         }
-        // The following should update resources by 1
-        resources.put(resource, resources.getOrDefault(resource, 0) + 1);
-        resourceCount++;
+        setResourceCount(resource, resources[resource.ordinal()] + 1);
+    }
+
+    /**
+     * Changes how many of a resource the player has, along with the total and the hash
+     */
+    private void setResourceCount(Resource resource, int count) {
+        int ordinal = resource.ordinal();
+        positionHash ^= Zobrist.hand(id, resource, resources[ordinal]) ^ Zobrist.hand(id, resource, count);
+        resourceCount += count - resources[ordinal];
+        resources[ordinal] = count;
+    }
+
+    private void setDevelopmentCardCount(DevelopmentCard card, int count) {
+        positionHash ^= Zobrist.cards(id, card, vellies.getOrDefault(card, 0)) ^ Zobrist.cards(id, card, count);
+        vellyCount += count - vellies.getOrDefault(card, 0);
+        vellies.put(card, count);
     }
 
     /**
@@ -81,20 +154,52 @@ public class PlayerImpl implements Player {
      */
     @Override
     public boolean removeResources(Map<Resource, Integer> resources) {
-        for (Resource resource : resources.keySet()) {
-            if (this.resources.getOrDefault(resource, 0) < resources.get(resource)) {
+        for (Map.Entry<Resource, Integer> resource : resources.entrySet()) {
+            if (this.resources[resource.getKey().ordinal()] < resource.getValue()) {
                 // if the player has fewer than what is being removed
                 return false; // without actually removing anything
             }
         }
-        for (Resource resource : resources.keySet()) {
+        for (Map.Entry<Resource, Integer> resource : resources.entrySet()) {
             // Subtracts the number being removed from the number the player has
-            this.resources.put(resource, this.resources.getOrDefault(resource, 0) - resources.get(resource));
-            resourceCount -= resources.get(resource); // decreases number of cards in hand
+            setResourceCount(resource.getKey(), this.resources[resource.getKey().ordinal()] - resource.getValue());
         }
         return true;
     }
 
+    /**
+     * @param project whose cost is removed from the player's hand
+     * @return true if the removal was successful, false if the player can't afford it, in which case nothing is removed
+     */
+    @Override
+    public boolean removeResources(Building project) {
+        for (Resource resource : RESOURCES) {
+            if (resources[resource.ordinal()] < project.getCost(resource)) {
+                return false;
+            }
+        }
+        for (Resource resource : RESOURCES) {
+            if (project.getCost(resource) > 0) {
+                setResourceCount(resource, resources[resource.ordinal()] - project.getCost(resource));
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @param resource to be removed from the player's hand
+     * @param number of cards of that resource to remove
+     * @return true if the removal was successful, false if the player has fewer than that many
+     */
+    @Override
+    public boolean removeResource(Resource resource, int number) {
+        if (resources[resource.ordinal()] < number) {
+            return false;
+        }
+        setResourceCount(resource, resources[resource.ordinal()] - number);
+        return true;
+    }
+
     /**
      * @return true if the player has more than 7 resource cards, false otherwise
      */
@@ -124,8 +229,7 @@ public class PlayerImpl implements Player {
      */
     @Override
     public boolean addDevelopmentCard(DevelopmentCard development) {
-        vellies.put(development, vellies.getOrDefault(development, 0) + 1);
-        vellyCount++;
+        setDevelopmentCardCount(development, vellies.getOrDefault(development, 0) + 1);
         if (development == DevelopmentCard.VICTORY_POINT) {
             return(increaseVictoryPoints(1));
         }
@@ -154,9 +258,9 @@ public class PlayerImpl implements Player {
             // if the player does not have or never did have the card, or if this is a point card
             return false;
         }
-        vellyCount--;
-        vellies.put(development, vellies.get(development) - 1);
+        setDevelopmentCardCount(development, vellies.get(development) - 1);
         if (development == DevelopmentCard.KNIGHT) {
+            positionHash ^= Zobrist.knights(id, knightNumber) ^ Zobrist.knights(id, knightNumber + 1);
             knightNumber += 1;
         }
         return true;
@@ -284,6 +388,66 @@ public class PlayerImpl implements Player {
         return id;
     }
 
+    /**
+     * @return the XOR of the Zobrist keys of the player's hand, development cards and knights, where the player's
+     * ID is their place in the game
+     */
+    @Override
+    public long getPositionHash() {
+        return positionHash;
+    }
+
+    /**
+     * Puts the player's cards, ports and counts back to how they were in the state, for undoing moves
+     * @param state that the game is going back to
+     * @param index this player's place in the game's players
+     */
+    @Override
+    public void restore(GameState state, int index) {
+        for (Resource resource : RESOURCES) {
+            setResourceCount(resource, state.getResourceCount(index, resource));
+        }
+        for (DevelopmentCard card : DevelopmentCard.values()) {
+            int count = state.getDevelopmentCardCount(index, card);
+            if (count > 0 || vellies.containsKey(card)) {
+                setDevelopmentCardCount(card, count);
+            }
+        }
+        ports.clear();
+        for (Resource resource : RESOURCES) {
+            if (state.hasPort(index, resource)) {
+                ports.add(resource);
+            }
+        }
+        positionHash ^= Zobrist.knights(id, knightNumber) ^ Zobrist.knights(id, state.getKnightNumber(index));
+        knightNumber = state.getKnightNumber(index);
+        roadLength = state.getRoadLength(index);
+        victoryPoints = state.getVictoryPoints(index);
+    }
+
+    /**
+     * Puts the player's settlements, cities and roads back to how they were in the state, in board order
+     * @param state that the game is going back to
+     * @param index this player's place in the game's players
+     * @param board that the game is played on, which the pieces come from
+     */
+    @Override
+    public void restorePieces(GameState state, int index, Board board) {
+        settlements.clear();
+        cities.clear();
+        for (Vertex vertex : board.getVertices()) {
+            if (state.getVertexOwner(vertex.getId()) == index) {
+                (state.isCity(vertex.getId()) ? cities : settlements).add(vertex);
+            }
+        }
+        roads.clear();
+        for (Edge edge : board.getEdges()) {
+            if (state.getEdgeOwner(edge.getId()) == index) {
+                roads.add(edge);
+            }
+        }
+    }
+
     @Override
     public String toString() {
         return "Player: " + id;
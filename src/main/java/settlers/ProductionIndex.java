@@ -0,0 +1,170 @@
+package settlers;
+
+import settlers.board.Board;
+import settlers.board.Hex;
+import settlers.board.Vertex;
+import settlers.card.Resource;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Keeps, for every die roll, the list of what that roll gives out: which player gets which resource, and how many
+ * That way, applying the dice only touches the players who get something, instead of every hex on the board
+ * The lists don't watch the board, so Main has to tell this whenever a settlement or city is built, or the thief
+ * moves. Each change only redoes the lists of the numbers next to it
+ */
+class ProductionIndex {
+
+    private static final int MAX_NUMBER = 12;
+    private static final int MAX_PAYOUTS = 12; // no number is on more than 2 hexes, and each hex has 6 vertices
+
+    private final Hex[][] hexesByNumber; // [die roll] = the hexes with that number
+    private final Vertex[][][] verticesByNumber; // [die roll][hex] = that hex's vertices, so I don't copy them each time
+    private final Board board;
+    private final int[][] numbersByVertex; // [vertex id] = the numbers of the hexes it touches
+    private final int[] numbersByHex; // [hex id] = its number, or 0 if it has none that can be rolled
+
+    // the payouts of each die roll, where payout i gives players[roll][i] multipliers[roll][i] of resources[roll][i]
+    private final Player[][] players;
+    private final Resource[][] resources;
+    private final int[][] multipliers;
+    private final int[] payoutCounts;
+
+    /**
+     * Makes the index for a board, which has to already have its numbers
+     * Anything already built on the board is included
+     * @param board whose production this keeps track of
+     */
+    ProductionIndex(Board board) {
+        this.board = board;
+        hexesByNumber = new Hex[MAX_NUMBER + 1][];
+        verticesByNumber = new Vertex[MAX_NUMBER + 1][][];
+        numbersByVertex = new int[board.getVertices().length][0];
+        numbersByHex = new int[board.getHexes().length];
+        players = new Player[MAX_NUMBER + 1][MAX_PAYOUTS];
+        resources = new Resource[MAX_NUMBER + 1][MAX_PAYOUTS];
+        multipliers = new int[MAX_NUMBER + 1][MAX_PAYOUTS];
+        payoutCounts = new int[MAX_NUMBER + 1];
+
+        // first I sort the hexes by number, leaving out the desert, whose 1 can never be rolled
+        List<List<Hex>> hexLists = new ArrayList<>(MAX_NUMBER + 1);
+        for (int number = 0; number <= MAX_NUMBER; number++) {
+            hexLists.add(new ArrayList<>(2));
+        }
+        for (Hex hex : board.getHexes()) {
+            if (hex.getNumber() >= 2 && hex.getNumber() <= MAX_NUMBER) {
+                hexLists.get(hex.getNumber()).add(hex);
+                numbersByHex[hex.getId()] = hex.getNumber();
+            }
+        }
+        for (int number = 0; number <= MAX_NUMBER; number++) {
+            List<Hex> hexes = hexLists.get(number);
+            hexesByNumber[number] = hexes.toArray(new Hex[0]);
+            verticesByNumber[number] = new Vertex[hexes.size()][];
+            for (int i = 0; i < hexes.size(); i++) {
+                Vertex[] vertices = hexes.get(i).getVertices();
+                verticesByNumber[number][i] = vertices;
+                for (Vertex vertex : vertices) {
+                    addNumber(vertex, number);
+                }
+            }
+            refresh(number);
+        }
+    }
+
+    /**
+     * Remembers that the vertex touches a hex of this number
+     */
+    private void addNumber(Vertex vertex, int number) {
+        int[] numbers = numbersByVertex[vertex.getId()];
+        int[] longer = Arrays.copyOf(numbers, numbers.length + 1);
+        longer[numbers.length] = number;
+        numbersByVertex[vertex.getId()] = longer;
+    }
+
+    /**
+     * Must be called whenever a settlement or city is built on the vertex
+     * @param vertex that now has a different building
+     */
+    void vertexChanged(Vertex vertex) {
+        if (vertex.getId() < 0 || board.getVertex(vertex.getId()) != vertex) {
+            return; // it isn't on this board
+        }
+        // if it only touches the desert or the sea, it has no numbers, and this does nothing
+        for (int number : numbersByVertex[vertex.getId()]) {
+            refresh(number);
+        }
+    }
+
+    /**
+     * Must be called whenever the thief moves
+     * Hexes that aren't on the board are ignored, since they can't be rolled
+     * @param from where the thief was
+     * @param to where the thief is now
+     */
+    void thiefMoved(Hex from, Hex to) {
+        refresh(from);
+        refresh(to);
+    }
+
+    /**
+     * Redoes the payouts of the hex's number, if it is on this board and has one
+     */
+    private void refresh(Hex hex) {
+        if (hex.getId() >= 0 && board.getHex(hex.getId()) == hex && numbersByHex[hex.getId()] != 0) {
+            refresh(numbersByHex[hex.getId()]);
+        }
+    }
+
+    /**
+     * Gives out everything a die roll produces
+     * @param dieValue from 2 to 12, where 7 gives nothing
+     */
+    void apply(int dieValue) {
+        if (dieValue < 0 || dieValue > MAX_NUMBER) {
+            throw new IllegalArgumentException(dieValue + " can't be rolled");
+        }
+        Player[] rollPlayers = players[dieValue];
+        Resource[] rollResources = resources[dieValue];
+        int[] rollMultipliers = multipliers[dieValue];
+        for (int i = 0; i < payoutCounts[dieValue]; i++) {
+            for (int j = 0; j < rollMultipliers[i]; j++) {
+                rollPlayers[i].addResource(rollResources[i]);
+            }
+        }
+    }
+
+    /**
+     * @param dieValue from 0 to 12
+     * @return how many players or buildings get something when it is rolled
+     */
+    int getPayoutCount(int dieValue) {
+        return payoutCounts[dieValue];
+    }
+
+    /**
+     * Redoes the payouts of one number from what is on the board now
+     */
+    private void refresh(int number) {
+        int count = 0;
+        for (int i = 0; i < hexesByNumber[number].length; i++) {
+            Hex hex = hexesByNumber[number][i];
+            if (hex.hasThief()) {
+                continue; // the thief stops the hex from producing
+            }
+            for (Vertex vertex : verticesByNumber[number][i]) {
+                if (vertex.getPlayer() != null) {
+                    players[number][count] = vertex.getPlayer();
+                    resources[number][count] = hex.getResource();
+                    multipliers[number][count] = vertex.isCity() ? 2 : 1;
+                    count++;
+                }
+            }
+        }
+        // clear the rest, so the index doesn't keep old players alive
+        Arrays.fill(players[number], count, MAX_PAYOUTS, null);
+        payoutCounts[number] = count;
+    }
+}
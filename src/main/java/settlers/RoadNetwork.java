@@ -0,0 +1,305 @@
+package settlers;
+
+import settlers.board.Board;
+import settlers.board.Edge;
+import settlers.board.Vertex;
+
+import java.util.*;
+
+/**
+ * Keeps track of every player's roads as connected pieces, and the longest road in each piece
+ * When a road is built, only the piece it joins is looked at again, and when a settlement cuts through someone's
+ * road, only the piece it cut. Roads are only connected through vertices that don't have another player's building
+ *
+ * Each piece is a set of edge ids stored as bits of two longs, since there are 72 edges, so following a road never
+ * has to make a Set
+ * Like ProductionIndex, this doesn't watch the board, so Main tells it about every road and settlement
+ */
+class RoadNetwork {
+
+    private static final int NONE = -1;
+
+    private final Board board;
+    private final int[][] edgeEnds; // [edge] = the ids of the vertices at either end
+    private final int[][] vertexEdges; // [vertex] = the ids of its 3 edges, NONE where there is no edge
+    private final Player[] owners; // [edge] = whose road this is, as far as this knows
+    private final Map<Player, List<Piece>> pieces;
+    private final int[] stack; // for splitting pieces, so I don't need a new one each time
+
+    /**
+     * A connected piece of one player's roads
+     */
+    private static final class Piece {
+        long low; // edges 0 to 63
+        long high; // edges 64 and up
+        int length; // the longest road in this piece
+
+        boolean contains(int edge) {
+            return edge < 64 ? (low >>> edge & 1) != 0 : (high >>> (edge - 64) & 1) != 0;
+        }
+
+        void add(int edge) {
+            if (edge < 64) {
+                low |= 1L << edge;
+            } else {
+                high |= 1L << (edge - 64);
+            }
+        }
+    }
+
+    /**
+     * @param board whose roads this keeps track of. Roads already on the board are not included
+     */
+    RoadNetwork(Board board) {
+        this.board = board;
+        Vertex[] vertices = board.getVertices();
+        Edge[] edges = board.getEdges();
+        if (vertices.length > 64) {
+            throw new IllegalArgumentException("A board can have at most 64 vertices, not " + vertices.length);
+        }
+        if (edges.length > 128) {
+            throw new IllegalArgumentException("A board can have at most 128 edges, not " + edges.length);
+        }
+        // everything is stored by id, which is the same as the place in the board's arrays
+        edgeEnds = new int[edges.length][2];
+        for (Edge edge : edges) {
+            Vertex[] ends = edge.getVertices();
+            edgeEnds[edge.getId()][0] = ends[0].getId();
+            edgeEnds[edge.getId()][1] = ends[1].getId();
+        }
+        vertexEdges = new int[vertices.length][3];
+        for (Vertex vertex : vertices) {
+            Edge[] vertexEdgeArray = vertex.getEdges();
+            for (int i = 0; i < 3; i++) {
+                vertexEdges[vertex.getId()][i] = vertexEdgeArray[i] == null ? NONE : vertexEdgeArray[i].getId();
+            }
+        }
+        owners = new Player[edges.length];
+        pieces = new IdentityHashMap<>();
+        stack = new int[edges.length];
+    }
+
+    /**
+     * Adds a road, joining it to whichever of the player's pieces it touches, and works out that piece's longest road
+     * @param player building the road
+     * @param road that was built
+     * @return the player's longest road now
+     */
+    int addRoad(Player player, Edge road) {
+        int id = road.getId();
+        if (id < 0 || board.getEdge(id) != road || owners[id] != null) {
+            return getLongestRoad(player); // not on this board, or already counted
+        }
+        owners[id] = player;
+        List<Piece> playerPieces = pieces.computeIfAbsent(player, p -> new ArrayList<>());
+        Piece joined = new Piece();
+        joined.add(id);
+        for (int end : edgeEnds[id]) {
+            if (isBlocked(end, player)) {
+                continue; // the road ends at someone else's building, so it doesn't connect to anything here
+            }
+            for (int edge : vertexEdges[end]) {
+                if (edge == NONE || edge == id || owners[edge] != player) {
+                    continue;
+                }
+                // this edge's piece is now part of the joined piece
+                for (Iterator<Piece> iterator = playerPieces.iterator(); iterator.hasNext(); ) {
+                    Piece piece = iterator.next();
+                    if (piece.contains(edge)) {
+                        joined.low |= piece.low;
+                        joined.high |= piece.high;
+                        iterator.remove();
+                        break;
+                    }
+                }
+            }
+        }
+        joined.length = longestRoad(joined, player);
+        playerPieces.add(joined);
+        return getLongestRoad(player);
+    }
+
+    /**
+     * Splits any road that the new building cuts through
+     * Only a player with two roads at the vertex can be cut, and there can only be one such player besides the builder
+     * @param builder who built the settlement
+     * @param settlement that was just built, which must already have its player
+     * @return the player whose road was cut, or null if no one's was
+     */
+    Player settlementBuilt(Player builder, Vertex settlement) {
+        int vertex = settlement.getId();
+        if (vertex < 0 || board.getVertex(vertex) != settlement) {
+            return null; // not on this board
+        }
+        for (int first = 0; first < 3; first++) {
+            int firstEdge = vertexEdges[vertex][first];
+            if (firstEdge == NONE || owners[firstEdge] == null || owners[firstEdge] == builder) {
+                continue;
+            }
+            Player cut = owners[firstEdge];
+            for (int second = first + 1; second < 3; second++) {
+                int secondEdge = vertexEdges[vertex][second];
+                if (secondEdge != NONE && owners[secondEdge] == cut) {
+                    split(cut, firstEdge);
+                    return cut;
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @param player whose roads are being measured
+     * @return the length of the player's longest road, or 0 if they have none
+     */
+    int getLongestRoad(Player player) {
+        int longest = 0;
+        for (Piece piece : pieces.getOrDefault(player, Collections.emptyList())) {
+            longest = Math.max(longest, piece.length);
+        }
+        return longest;
+    }
+
+    /**
+     * @param player whose roads are being counted
+     * @return how many separate pieces the player's roads are in
+     */
+    int getPieceCount(Player player) {
+        return pieces.getOrDefault(player, Collections.emptyList()).size();
+    }
+
+    /**
+     * Forgets every road, and starts again from the roads now on the board
+     * This is for when the board goes back to an earlier state, since roads can't be taken away one at a time
+     */
+    void rebuild() {
+        Arrays.fill(owners, null);
+        pieces.clear();
+        Edge[] edges = board.getEdges();
+        for (Edge edge : edges) {
+            owners[edge.getId()] = edge.getPlayer();
+        }
+        // then I break each player's roads up into connected pieces, the same way a cut road is
+        for (Edge edge : edges) {
+            Player player = owners[edge.getId()];
+            if (player == null || pieces.containsKey(player)) {
+                continue; // already done this player
+            }
+            Piece all = new Piece();
+            for (int id = edge.getId(); id < owners.length; id++) {
+                if (owners[id] == player) {
+                    all.add(id);
+                }
+            }
+            partition(player, all, new ArrayList<>());
+        }
+    }
+
+    /**
+     * Breaks the piece containing this edge back into connected pieces, now that it might be cut
+     */
+    private void split(Player player, int edge) {
+        List<Piece> playerPieces = pieces.get(player);
+        Piece old = null;
+        for (Piece piece : playerPieces) {
+            if (piece.contains(edge)) {
+                old = piece;
+                break;
+            }
+        }
+        playerPieces.remove(old);
+        partition(player, old, playerPieces);
+    }
+
+    /**
+     * Splits the edges of old into connected pieces, and adds them to the player's pieces
+     * @param playerPieces the player's list of pieces, which is put in the map if it isn't already
+     */
+    private void partition(Player player, Piece old, List<Piece> playerPieces) {
+        pieces.put(player, playerPieces);
+        long leftLow = old.low;
+        long leftHigh = old.high;
+        while (leftLow != 0 || leftHigh != 0) {
+            // each time, I flood out from the first edge left to find everything connected to it
+            int start = leftLow != 0 ? Long.numberOfTrailingZeros(leftLow) : 64 + Long.numberOfTrailingZeros(leftHigh);
+            Piece piece = new Piece();
+            piece.add(start);
+            int stackSize = 0;
+            stack[stackSize++] = start;
+            while (stackSize > 0) {
+                int current = stack[--stackSize];
+                for (int end : edgeEnds[current]) {
+                    if (isBlocked(end, player)) {
+                        continue;
+                    }
+                    for (int next : vertexEdges[end]) {
+                        if (next != NONE && old.contains(next) && !piece.contains(next)) {
+                            piece.add(next);
+                            stack[stackSize++] = next;
+                        }
+                    }
+                }
+            }
+            piece.length = longestRoad(piece, player);
+            playerPieces.add(piece);
+            leftLow &= ~piece.low;
+            leftHigh &= ~piece.high;
+        }
+    }
+
+    /**
+     * Finds the longest road in a piece, by trying every way of walking it from every vertex it touches
+     */
+    private int longestRoad(Piece piece, Player player) {
+        int longest = 0;
+        long started = 0; // the vertices already started from, which fit in one long since there are 54
+        for (int edge = 0; edge < edgeEnds.length; edge++) {
+            if (!piece.contains(edge)) {
+                continue;
+            }
+            for (int end : edgeEnds[edge]) {
+                if ((started >>> end & 1) == 0) {
+                    started |= 1L << end;
+                    longest = Math.max(longest, walk(piece, player, end, 0, 0));
+                }
+            }
+        }
+        return longest;
+    }
+
+    /**
+     * @param vertex where the road has got to
+     * @param usedLow the edges from 0 to 63 already walked
+     * @param usedHigh the edges from 64 up already walked
+     * @return the longest road that can go on from this vertex without walking an edge twice
+     */
+    private int walk(Piece piece, Player player, int vertex, long usedLow, long usedHigh) {
+        int longest = 0;
+        for (int edge : vertexEdges[vertex]) {
+            if (edge == NONE || !piece.contains(edge)) {
+                continue;
+            }
+            long edgeLow = edge < 64 ? 1L << edge : 0;
+            long edgeHigh = edge < 64 ? 0 : 1L << (edge - 64);
+            if ((usedLow & edgeLow) != 0 || (usedHigh & edgeHigh) != 0) {
+                continue;
+            }
+            int[] ends = edgeEnds[edge];
+            int other = ends[0] == vertex ? ends[1] : ends[0];
+            int length = 1;
+            if (!isBlocked(other, player)) { // someone else's building stops the road, but the edge still counts
+                length += walk(piece, player, other, usedLow | edgeLow, usedHigh | edgeHigh);
+            }
+            longest = Math.max(longest, length);
+        }
+        return longest;
+    }
+
+    /**
+     * @return true if another player has built on the vertex, so this player's road can't go through it
+     */
+    private boolean isBlocked(int vertex, Player player) {
+        Player builder = board.getVertex(vertex).getPlayer();
+        return builder != null && builder != player;
+    }
+}
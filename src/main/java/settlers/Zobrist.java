@@ -0,0 +1,224 @@
+package settlers;
+
+import settlers.card.DevelopmentCard;
+import settlers.card.Resource;
+
+import java.util.SplittableRandom;
+
+/**
+ * The random keys that position hashes are made of, and a way to hash a GameState from scratch
+ * A position's hash is the XOR of a key for every piece, the thief, the turn and phase, the holders, the size of
+ * the deck, and every count in every player's hand. So when something changes, only its old and new keys need to be
+ * XORed in, which is how Main and Player keep their hashes up to date without looking at the rest of the game
+ *
+ * The keys come from a fixed seed, so a position hashes the same in every run. The board's layout, the turns played
+ * and the cards bought this turn aren't part of the hash, so it is for telling apart positions in the same game
+ * Counts of a card above MAX_COUNT hash as MAX_COUNT, and anything about no one, or a player past MAX_PLAYERS,
+ * hashes as 0
+ */
+final class Zobrist {
+
+    static final int MAX_PLAYERS = 4;
+    static final int MAX_COUNT = 31; // more of one card than this is so rare that it can share a key
+
+    private static final long SEED = 0x5e771e25L; // changing this changes every hash, so saved hashes would be wrong
+    private static final int VERTEX_COUNT = 54;
+    private static final int EDGE_COUNT = 72;
+    private static final int HEX_COUNT = 19;
+    private static final int DECK_SIZE = 25;
+    private static final Resource[] RESOURCES = Resource.values();
+    private static final DevelopmentCard[] CARDS = DevelopmentCard.values();
+    private static final int HAND_RESOURCES = Resource.MISC.ordinal(); // every resource but MISC can be held
+
+    private static final long[] VERTEX_KEYS; // [(vertex * MAX_PLAYERS + owner) * 2 + 1 for a city]
+    private static final long[] EDGE_KEYS; // [edge * MAX_PLAYERS + owner]
+    private static final long[] THIEF_KEYS; // [hex]
+    private static final long[] TURN_KEYS; // [player]
+    private static final long[] LONGEST_ROAD_KEYS; // [player]
+    private static final long[] LARGEST_ARMY_KEYS; // [player]
+    private static final long[] DECK_KEYS; // [cards left]
+    private static final long MAIN_PHASE_KEY;
+    // the counts have a key for 0, which is always 0, so a new player hashes as 0
+    private static final long[] HAND_KEYS; // [(player * HAND_RESOURCES + resource) * (MAX_COUNT + 1) + count]
+    private static final long[] CARD_KEYS; // [(player * CARDS.length + card) * (MAX_COUNT + 1) + count]
+    private static final long[] KNIGHT_KEYS; // [player * (MAX_COUNT + 1) + count]
+
+    static {
+        // the order the keys are made in is part of what the seed means, so new ones must go at the end
+        SplittableRandom random = new SplittableRandom(SEED);
+        VERTEX_KEYS = keys(random, VERTEX_COUNT * MAX_PLAYERS * 2);
+        EDGE_KEYS = keys(random, EDGE_COUNT * MAX_PLAYERS);
+        THIEF_KEYS = keys(random, HEX_COUNT);
+        TURN_KEYS = keys(random, MAX_PLAYERS);
+        LONGEST_ROAD_KEYS = keys(random, MAX_PLAYERS);
+        LARGEST_ARMY_KEYS = keys(random, MAX_PLAYERS);
+        DECK_KEYS = keys(random, DECK_SIZE + 1);
+        MAIN_PHASE_KEY = random.nextLong();
+        HAND_KEYS = countKeys(random, MAX_PLAYERS * HAND_RESOURCES);
+        CARD_KEYS = countKeys(random, MAX_PLAYERS * CARDS.length);
+        KNIGHT_KEYS = countKeys(random, MAX_PLAYERS);
+    }
+
+    private Zobrist() {
+    }
+
+    private static long[] keys(SplittableRandom random, int count) {
+        long[] keys = new long[count];
+        for (int i = 0; i < count; i++) {
+            keys[i] = random.nextLong();
+        }
+        return keys;
+    }
+
+    private static long[] countKeys(SplittableRandom random, int counters) {
+        long[] keys = keys(random, counters * (MAX_COUNT + 1));
+        for (int counter = 0; counter < counters; counter++) {
+            keys[counter * (MAX_COUNT + 1)] = 0; // having none of something doesn't change the hash
+        }
+        return keys;
+    }
+
+    private static boolean isPlayer(int player) {
+        return player >= 0 && player < MAX_PLAYERS;
+    }
+
+    private static int countIndex(int counter, int count) {
+        return counter * (MAX_COUNT + 1) + Math.min(count, MAX_COUNT);
+    }
+
+    /**
+     * @param vertex the vertex's id
+     * @param owner the place in the game's players of whoever built there
+     * @param isCity true if it is a city, false if it is a settlement
+     * @return the key of that building
+     */
+    static long vertex(int vertex, int owner, boolean isCity) {
+        if (vertex < 0 || vertex >= VERTEX_COUNT || !isPlayer(owner)) {
+            return 0;
+        }
+        return VERTEX_KEYS[(vertex * MAX_PLAYERS + owner) * 2 + (isCity ? 1 : 0)];
+    }
+
+    /**
+     * @param edge the edge's id
+     * @param owner the place in the game's players of whoever built there
+     * @return the key of that road
+     */
+    static long edge(int edge, int owner) {
+        if (edge < 0 || edge >= EDGE_COUNT || !isPlayer(owner)) {
+            return 0;
+        }
+        return EDGE_KEYS[edge * MAX_PLAYERS + owner];
+    }
+
+    /**
+     * @param hex the id of the hex with the thief
+     * @return the key of the thief being there
+     */
+    static long thief(int hex) {
+        return hex < 0 || hex >= HEX_COUNT ? 0 : THIEF_KEYS[hex];
+    }
+
+    /**
+     * @param player the place in the game's players of the player whose turn it is
+     * @return the key of it being their turn
+     */
+    static long turn(int player) {
+        return isPlayer(player) ? TURN_KEYS[player] : 0;
+    }
+
+    /**
+     * @param isMainPhase true if setup is over
+     * @return the key of the phase
+     */
+    static long mainPhase(boolean isMainPhase) {
+        return isMainPhase ? MAIN_PHASE_KEY : 0;
+    }
+
+    /**
+     * @param player the place in the game's players of the player with longest road
+     * @return the key of them having it
+     */
+    static long longestRoad(int player) {
+        return isPlayer(player) ? LONGEST_ROAD_KEYS[player] : 0;
+    }
+
+    /**
+     * @param player the place in the game's players of the player with largest army
+     * @return the key of them having it
+     */
+    static long largestArmy(int player) {
+        return isPlayer(player) ? LARGEST_ARMY_KEYS[player] : 0;
+    }
+
+    /**
+     * @param size the number of cards left in the deck
+     * @return the key of the deck having that many
+     */
+    static long deck(int size) {
+        return size < 0 || size > DECK_SIZE ? 0 : DECK_KEYS[size];
+    }
+
+    /**
+     * @param player the player's place in the game's players
+     * @param resource in their hand, which can't be MISC
+     * @param count how many of it they have
+     * @return the key of them having that many
+     */
+    static long hand(int player, Resource resource, int count) {
+        if (!isPlayer(player) || resource == Resource.MISC) {
+            return 0;
+        }
+        return HAND_KEYS[countIndex(player * HAND_RESOURCES + resource.ordinal(), count)];
+    }
+
+    /**
+     * @param player the player's place in the game's players
+     * @param card in their hand
+     * @param count how many of it they have
+     * @return the key of them having that many
+     */
+    static long cards(int player, DevelopmentCard card, int count) {
+        return isPlayer(player) ? CARD_KEYS[countIndex(player * CARDS.length + card.ordinal(), count)] : 0;
+    }
+
+    /**
+     * @param player the player's place in the game's players
+     * @param count how many knights they have played
+     * @return the key of them having played that many
+     */
+    static long knights(int player, int count) {
+        return isPlayer(player) ? KNIGHT_KEYS[countIndex(player, count)] : 0;
+    }
+
+    /**
+     * Hashes a position from scratch, which always gives the same as the hash Main keeps up as the game changes
+     * @param state of the game
+     * @return the position's hash
+     */
+    static long hash(GameState state) {
+        long hash = 0;
+        for (int vertex = 0; vertex < VERTEX_COUNT; vertex++) {
+            hash ^= vertex(vertex, state.getVertexOwner(vertex), state.isCity(vertex));
+        }
+        for (int edge = 0; edge < EDGE_COUNT; edge++) {
+            hash ^= edge(edge, state.getEdgeOwner(edge));
+        }
+        hash ^= thief(state.getThiefHex());
+        hash ^= turn(state.getCurrentTurn());
+        hash ^= mainPhase(state.isMainPhase());
+        hash ^= longestRoad(state.getLongestRoadHolder());
+        hash ^= largestArmy(state.getLargestArmyHolder());
+        hash ^= deck(state.getDeckSize());
+        for (int player = 0; player < state.getPlayerCount(); player++) {
+            for (int resource = 0; resource < HAND_RESOURCES; resource++) {
+                hash ^= hand(player, RESOURCES[resource], state.getResourceCount(player, RESOURCES[resource]));
+            }
+            for (DevelopmentCard card : CARDS) {
+                hash ^= cards(player, card, state.getDevelopmentCardCount(player, card));
+            }
+            hash ^= knights(player, state.getKnightNumber(player));
+        }
+        return hash;
+    }
+}
@@ -1,5 +1,7 @@
 package settlers.board;
 
+import settlers.card.Resource;
+
 import java.util.Set;
 
 public interface Board {
@@ -14,6 +16,30 @@ public interface Board {
      */
     Vertex[] getVertices();
 
+    /**
+     * @return a length-72 array containing all the Edges
+     * An edge's place in this array is its id, and the bit it has in the edge bitsets
+     */
+    Edge[] getEdges();
+
+    /**
+     * @param id from 0 to 18
+     * @return the hex with that id, without copying the array
+     */
+    Hex getHex(int id);
+
+    /**
+     * @param id from 0 to 53
+     * @return the vertex with that id, without copying the array
+     */
+    Vertex getVertex(int id);
+
+    /**
+     * @param id from 0 to 71
+     * @return the edge with that id, without copying the array
+     */
+    Edge getEdge(int id);
+
     /**
      * @return all vertices that don't have a settlement or city and aren't next to one
      */
@@ -24,6 +50,93 @@ public interface Board {
      */
     Set<Edge> getEmptyEdges();
 
+    // The bitset versions of the above, for code that needs to check spots quickly
+    // The vertex with id i is bit i of a long, since there are only 54
+    // The edge with id i is bit i % 64 of word i / 64, since there are 72, so edge bitsets take 2 longs
+
+    /**
+     * @return the bitset of the vertices that don't have a settlement or city and aren't next to one
+     */
+    long getOpenVertexBits();
+
+    /**
+     * @param word 0 for edges 0 to 63, 1 for the rest
+     * @return that word of the bitset of the edges that don't have a road
+     */
+    long getEmptyEdgeBits(int word);
+
+    /**
+     * @param edge the edge's id
+     * @return the bitset of the 2 vertices at the ends of the edge
+     */
+    long getEdgeEndBits(int edge);
+
+    /**
+     * @param edge the edge's id
+     * @param word 0 for edges 0 to 63, 1 for the rest
+     * @return that word of the bitset of the edges that share a vertex with this edge, including itself
+     */
+    long getEdgeNeighborBits(int edge, int word);
+
+    // What each vertex is worth, worked out once when the board is made, and only changed when the thief moves
+    // Production is in pips, the number of the 36 rolls of two dice that give it, so a 6 or an 8 is 5 pips
+
+    /**
+     * @param vertex the vertex's id
+     * @return the bitset of the hexes the vertex touches, where hex i is bit i of an int, since there are only 19
+     */
+    int getVertexHexBits(int vertex);
+
+    /**
+     * @param hex the hex's id
+     * @return the bitset of the hex's 6 vertices, laid out like getOpenVertexBits
+     */
+    long getHexVertexBits(int hex);
+
+    /**
+     * @param hex the hex's id
+     * @return the pips of the hex's number, which is 0 for the desert, with or without the thief
+     */
+    int getHexPips(int hex);
+
+    /**
+     * @param vertex the vertex's id
+     * @param resource any resource but MISC
+     * @return the pips of that resource the vertex gets, leaving out the hex with the thief
+     */
+    int getVertexProduction(int vertex, Resource resource);
+
+    /**
+     * @param vertex the vertex's id
+     * @return the pips of everything the vertex gets, leaving out the hex with the thief
+     */
+    int getVertexPips(int vertex);
+
+    /**
+     * @param vertex the vertex's id
+     * @return the bit ordinal of each resource on a hex the vertex touches, whether or not the thief is there
+     */
+    int getVertexResourceBits(int vertex);
+
+    /**
+     * @param vertex the vertex's id
+     * @return how good a spot for a settlement the vertex is, as 4 for every pip it gets, 3 for every resource it
+     * touches, and up to 3 for its port: 3 for a 2:1 port of a resource it touches, 2 for a 3:1 port, and 1 for any
+     * other 2:1 port
+     */
+    int getVertexScore(int vertex);
+
+    /**
+     * @return the hex the thief is on
+     */
+    Hex getThiefHex();
+
+    /**
+     * Moves the thief, and takes what its new hex makes out of the vertices' values instead of the old one's
+     * @param location the hex the thief is moving to
+     */
+    void moveThief(Hex location);
+
     /**
      * @param vertex to be removed from the collection of open vertices
      * Also removes all vertices adjacent to it
@@ -35,6 +148,12 @@ public interface Board {
      */
     void removeRoad(Edge road);
 
+    /**
+     * Works out the open vertices and empty edges again from where everyone has built
+     * For undoing moves, since removeSettlement and removeRoad can't be taken back
+     */
+    void recalculateOpenSpots();
+
     /**
      * @return a length-5 array containing all the hex column beginning indices
      */
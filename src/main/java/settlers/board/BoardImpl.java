@@ -8,10 +8,28 @@ public class BoardImpl implements Board {
 
     private Hex[] hexes;
     private Vertex[] vertices;
-    private Set<Vertex> openVertices;
-    private Set<Edge> emptyEdges;
-
-    private Hashtable<Resource,Integer> tileResourceQuantities;
+    private Edge[] edges; // in the order they were made, going through the vertices
+    private int edgeCount; // how many edges have been made so far, which is also the next edge's id
+
+    // the open vertices and empty edges are bitsets, where bit i stands for vertices[i] or edges[i]
+    private long openVertexBits;
+    private final long[] emptyEdgeBits = new long[2];
+    // and this is the layout of the board as bitsets, which never changes
+    private long[] vertexNeighborBits; // [vertex] = the vertex and the ones next to it
+    private long[] edgeEndBits; // [edge] = the vertices at its ends
+    private long[][] edgeNeighborBits; // [edge] = the edges that share a vertex with it, including itself
+    private int[] vertexHexBits; // [vertex] = the hexes it touches
+    private long[] hexVertexBits; // [hex] = its vertices
+    private int[] hexPips; // [hex] = the pips of its number
+    // and what each vertex is worth, which only changes when the thief moves
+    private int[][] vertexProduction; // [vertex][resource ordinal] = the pips of that resource, without the thief
+    private int[] vertexPips; // [vertex] = the pips of everything, without the thief
+    private int[] vertexResourceBits; // [vertex] = bit ordinal of each resource it touches
+    private int[] vertexScores;
+    private int thiefHex;
+    private final SplittableRandom rng; // the only source of randomness, so a seed always gives the same board
+
+    private EnumMap<Resource,Integer> tileResourceQuantities;
     private ArrayList<Integer> priorityTileNumbers;
     private ArrayList<Integer> otherTileNumbers;
     private ArrayList<Resource> portResources;
@@ -24,15 +42,26 @@ public class BoardImpl implements Board {
     private final int[][] portLocations = {{0,0,1},{1,1,2},{3,0,5},{6,1,2},{11,2,3},{12,0,5},{15,3,4},{16,4,5},{17,3,4}};
 
     /**
-     * Constructor
+     * Constructor, making a random board
      */
     public BoardImpl(){
+        this(new SplittableRandom());
+    }
+
+    /**
+     * Constructor, making the board decided by rng
+     * @param rng where all the random choices come from. Giving one with the same seed gives the same board
+     */
+    public BoardImpl(SplittableRandom rng){
+        this.rng = rng;
+
         //Creates empty tables of hexes and vertices
         hexes = new Hex[19];
         vertices = new Vertex[54];
+        edges = new Edge[72];
 
         //Sets up hexagon variables
-        tileResourceQuantities = new Hashtable<>();
+        tileResourceQuantities = new EnumMap<>(Resource.class);
         priorityTileNumbers = new ArrayList<Integer>();
         otherTileNumbers = new ArrayList<Integer>();
         portResources = new ArrayList<Resource>();
@@ -47,8 +76,154 @@ public class BoardImpl implements Board {
         //Generates vertices
         generateVertices();
 
-        openVertices = new HashSet<>(Arrays.asList(vertices));
-        emptyEdges = getAllEdges();
+        //Places all ports
+        for(int[] location : portLocations){
+            placePort(location);
+        }
+
+        //Sets up the bitsets, now that everything is connected
+        generateBitsets();
+        generateVertexValues();
+    }
+
+    /**
+     * Constructor, making a board whose hexes and ports were already decided, like one that was saved
+     * @param hexResources [hex id] = the hex's resource
+     * @param hexNumbers [hex id] = the hex's number, which is 1 for the desert
+     * @param ports [vertex id] = the resource of the vertex's port, MISC for a 3:1 port, or null if it has none
+     */
+    public BoardImpl(Resource[] hexResources, int[] hexNumbers, Resource[] ports){
+        if(hexResources.length != 19 || hexNumbers.length != 19 || ports.length != 54){
+            throw new IllegalArgumentException("A board has 19 hexes and 54 vertices");
+        }
+        rng = null; // nothing is left to chance
+
+        hexes = new Hex[19];
+        vertices = new Vertex[54];
+        edges = new Edge[72];
+
+        for(int i = 0; i < hexes.length; i++){
+            hexes[i] = new HexImpl(hexResources[i], i);
+            hexes[i].setNumber(hexNumbers[i]);
+            if(hexResources[i] == Resource.MISC){
+                hexes[i].setThief(true);
+            }
+        }
+
+        generateVertices();
+
+        for(int i = 0; i < vertices.length; i++){
+            if(ports[i] != null){
+                vertices[i].setPort(ports[i]);
+            }
+        }
+
+        generateBitsets();
+        generateVertexValues();
+    }
+
+    /**
+     * Numbers the edges, and makes the bitsets for where things can go and how the board is laid out
+     * Every vertex is open and every edge is empty at the start
+     */
+    private void generateBitsets(){
+        if(edgeCount != edges.length){
+            throw new IllegalStateException("The board should have " + edges.length + " edges, not " + edgeCount);
+        }
+
+        openVertexBits = vertices.length == 64 ? -1L : (1L << vertices.length) - 1;
+        for(int i = 0; i < edges.length; i++){
+            setBit(emptyEdgeBits, i);
+        }
+
+        vertexNeighborBits = new long[vertices.length];
+        for(int i = 0; i < vertices.length; i++){
+            vertexNeighborBits[i] = 1L << i;
+            for(Vertex adjacentVertex : vertices[i].getAdjacentVertices()){
+                if(adjacentVertex != null){
+                    vertexNeighborBits[i] |= 1L << adjacentVertex.getId();
+                }
+            }
+        }
+        edgeEndBits = new long[edges.length];
+        edgeNeighborBits = new long[edges.length][2];
+        for(int i = 0; i < edges.length; i++){
+            for(Vertex end : edges[i].getVertices()){
+                edgeEndBits[i] |= 1L << end.getId();
+                for(Edge neighbor : end.getEdges()){
+                    if(neighbor != null){
+                        setBit(edgeNeighborBits[i], neighbor.getId());
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Works out which hexes each vertex touches, and what each vertex is worth, once the hexes have their numbers
+     * and the vertices have their ports
+     */
+    private void generateVertexValues(){
+        int handResources = Resource.MISC.ordinal(); // every resource but MISC can be gotten
+        vertexHexBits = new int[vertices.length];
+        hexVertexBits = new long[hexes.length];
+        hexPips = new int[hexes.length];
+        vertexProduction = new int[vertices.length][handResources];
+        vertexPips = new int[vertices.length];
+        vertexResourceBits = new int[vertices.length];
+        vertexScores = new int[vertices.length];
+        thiefHex = -1;
+        for(int i = 0; i < hexes.length; i++){
+            int number = hexes[i].getNumber();
+            hexPips[i] = number < 2 ? 0 : 6 - Math.abs(7 - number);
+            for(Vertex vertex : hexes[i].getVertices()){
+                vertexHexBits[vertex.getId()] |= 1 << i;
+                hexVertexBits[i] |= 1L << vertex.getId();
+                if(hexes[i].getResource() != Resource.MISC){
+                    vertexResourceBits[vertex.getId()] |= 1 << hexes[i].getResource().ordinal();
+                }
+            }
+            if(hexes[i].hasThief()){
+                thiefHex = i;
+            }
+        }
+        for(int i = 0; i < vertices.length; i++){
+            Resource port = vertices[i].getPort();
+            if(port == Resource.MISC){
+                vertexScores[i] = 2;
+            }else if(port != null){
+                vertexScores[i] = (vertexResourceBits[i] & 1 << port.ordinal()) != 0 ? 3 : 1;
+            }
+            vertexScores[i] += 3 * Integer.bitCount(vertexResourceBits[i]);
+        }
+        for(int i = 0; i < hexes.length; i++){
+            if(i != thiefHex){
+                addProduction(i, 1);
+            }
+        }
+    }
+
+    /**
+     * Adds or takes away what a hex makes from the values of its vertices
+     * @param hex the hex's id
+     * @param sign 1 to add it, or -1 to take it away
+     */
+    private void addProduction(int hex, int sign){
+        Resource resource = hexes[hex].getResource();
+        if(resource == Resource.MISC){
+            return; // the desert makes nothing
+        }
+        int pips = sign * hexPips[hex];
+        for(long bits = hexVertexBits[hex]; bits != 0; bits &= bits - 1){
+            int vertex = Long.numberOfTrailingZeros(bits);
+            vertexProduction[vertex][resource.ordinal()] += pips;
+            vertexPips[vertex] += pips;
+            vertexScores[vertex] += 4 * pips;
+        }
+    }
+
+    private static void setBit(long[] bits, int index){
+        bits[index >>> 6] |= 1L << index;
     }
 
     /**
@@ -72,7 +247,7 @@ public class BoardImpl implements Board {
      * Where the quantities of hexagon resources are set
      * @param table the table containing all resources
      */
-    private void setupHexQuantities(Hashtable<Resource,Integer> table){
+    private void setupHexQuantities(EnumMap<Resource,Integer> table){
         table.put(Resource.WOOD,4);
         table.put(Resource.BRICK,3);
         table.put(Resource.WHEAT,4);
@@ -144,7 +319,6 @@ public class BoardImpl implements Board {
      * @return a resource in resource quantities which is available to be placed
      */
     private Resource getAvailableResource(){
-        Random rng = new Random();
         int resourceIndicator = rng.nextInt(getQuantityOfRemainingTiles());
 
         int index = 0;
@@ -182,13 +356,10 @@ public class BoardImpl implements Board {
      * @return the index of hex in hexes
      */
     private int getHexIndex(Hex hex){
-        for(int i = 0; i < hexes.length; i++){
-            if(hex.equals(hexes[i])){
-                return i;
-            }
+        if(!isOnBoard(hex)){
+            throw new IllegalArgumentException("Requested Hex doesn't exist on board");
         }
-
-        throw new IllegalArgumentException("Requested Hex doesn't exist on board");
+        return hex.getId();
     }
 
     /**
@@ -287,7 +458,6 @@ public class BoardImpl implements Board {
      */
     private void placeNumbers(ArrayList<Integer> numbers, boolean removeAdjacentHexes){
         ArrayList<Hex> validHexes = generateArrayListCopyOfHexes(getTilesWithNumbers());
-        Random rng = new Random();
 
         //For every tile number in numbers, set the number of a random valid tile to that number,
         //then remove the tile (and all adjacent tiles if removeAdjacentTiles is true) from the list of valid numbers.
@@ -310,7 +480,7 @@ public class BoardImpl implements Board {
     private void generateHexes(){
         //Generates 19 hexagons with random resources
         for(int i = 0; i < 19; i++){
-            hexes[i] = new HexImpl(getAvailableResource());
+            hexes[i] = new HexImpl(getAvailableResource(), i);
         }
 
         //Sets the desert to 1
@@ -334,13 +504,23 @@ public class BoardImpl implements Board {
      * @return the index of vertex in vertices
      */
     private int getVertexIndex(Vertex vertex){
-        for(int i = 0; i < vertices.length; i++){
-            if(vertex.equals(vertices[i])){
-                return i;
-            }
+        if(!isOnBoard(vertex)){
+            throw new IllegalArgumentException("Requested Vertex doesn't exist on board");
         }
+        return vertex.getId();
+    }
+
+    // since ids are just places in the arrays, checking that something is on this board is one lookup
+    private boolean isOnBoard(Hex hex){
+        return hex.getId() >= 0 && hex.getId() < hexes.length && hexes[hex.getId()] == hex;
+    }
+
+    private boolean isOnBoard(Vertex vertex){
+        return vertex.getId() >= 0 && vertex.getId() < vertices.length && vertices[vertex.getId()] == vertex;
+    }
 
-        throw new IllegalArgumentException("Requested Vertex doesn't exist on board");
+    private boolean isOnBoard(Edge edge){
+        return edge.getId() >= 0 && edge.getId() < edgeCount && edges[edge.getId()] == edge;
     }
 
     /**
@@ -423,7 +603,7 @@ public class BoardImpl implements Board {
      */
     private int getVertexRelationshipIndex(Vertex vertex, Vertex searchFor){
         for(int i = 0; i < 3; i++){
-            if(vertex != null && vertex.getAdjacentVertices()[i] != null && vertex.getAdjacentVertices()[i].equals(searchFor)){
+            if(vertex != null && vertex.getAdjacentVertices()[i] == searchFor){
                 return i;
             }
         }
@@ -442,7 +622,8 @@ public class BoardImpl implements Board {
             //If a Vertex is mapped at i, but not an Edge
             if(otherVertex != null && vertex.getEdges()[i] == null){
                 int otherVertexIndex = getVertexRelationshipIndex(otherVertex,vertex);
-                Edge edge = new EdgeImpl();
+                Edge edge = new EdgeImpl(edgeCount, vertex, otherVertex); // so the edge knows its ends from now on
+                edges[edgeCount++] = edge;
                 vertex.setEdge(edge,i);
                 otherVertex.setEdge(edge,otherVertexIndex);
             }
@@ -451,7 +632,6 @@ public class BoardImpl implements Board {
 
     private void placePort(int[] location){
         Hex hex = hexes[location[0]];
-        Random rng = new Random();
         Resource resource = portResources.remove(rng.nextInt(portResources.size()));
 
         hex.getVertices()[location[1]].setPort(resource);
@@ -464,7 +644,7 @@ public class BoardImpl implements Board {
     private void generateVertices(){
         //Generates the vertices
         for(int i = 0; i < vertices.length; i++){
-            vertices[i] = new VertexImpl();
+            vertices[i] = new VertexImpl(i);
         }
 
         //Maps the vertices to other vertices
@@ -481,11 +661,6 @@ public class BoardImpl implements Board {
         for(int i = 0; i < hexes.length; i++){
             mapHexToAdjacentVertices(hexes[i]);
         }
-
-        //Places all ports
-        for(int[] location : portLocations){
-            placePort(location);
-        }
     }
 
     /**
@@ -502,38 +677,148 @@ public class BoardImpl implements Board {
         return Arrays.copyOf(vertices,54);
     }
 
-    private Set<Edge> getAllEdges() {
-        Set<Edge> edges = new HashSet<>();
-        for (Vertex vertex : vertices) {
-            edges.addAll(Arrays.asList(vertex.getEdges()));
-            // adds all not already there
+    /**
+     * @return a length-72 array containing all the Edges
+     */
+    @Override
+    public Edge[] getEdges(){
+        return Arrays.copyOf(edges, edges.length);
+    }
+
+    @Override
+    public Hex getHex(int id){
+        return hexes[id];
+    }
+
+    @Override
+    public Vertex getVertex(int id){
+        return vertices[id];
+    }
+
+    @Override
+    public Edge getEdge(int id){
+        return edges[id];
+    }
+
+    @Override
+    public int getVertexHexBits(int vertex){
+        return vertexHexBits[vertex];
+    }
+
+    @Override
+    public long getHexVertexBits(int hex){
+        return hexVertexBits[hex];
+    }
+
+    @Override
+    public int getHexPips(int hex){
+        return hexPips[hex];
+    }
+
+    @Override
+    public int getVertexProduction(int vertex, Resource resource){
+        return vertexProduction[vertex][resource.ordinal()];
+    }
+
+    @Override
+    public int getVertexPips(int vertex){
+        return vertexPips[vertex];
+    }
+
+    @Override
+    public int getVertexResourceBits(int vertex){
+        return vertexResourceBits[vertex];
+    }
+
+    @Override
+    public int getVertexScore(int vertex){
+        return vertexScores[vertex];
+    }
+
+    /**
+     * @return the hex the thief is on, or null if it was moved off the board
+     */
+    @Override
+    public Hex getThiefHex(){
+        return thiefHex < 0 ? null : hexes[thiefHex];
+    }
+
+    /**
+     * Only the two hexes' vertices are changed, so moving the thief costs the same no matter how big the board is
+     * Tests move the thief to hexes off the board, which then take nothing from any vertex
+     */
+    @Override
+    public void moveThief(Hex location){
+        if(location.getId() == thiefHex && thiefHex >= 0){
+            return;
+        }
+        if(thiefHex >= 0){
+            hexes[thiefHex].setThief(false);
+            addProduction(thiefHex, 1);
+        }
+        location.setThief(true);
+        thiefHex = isOnBoard(location) ? location.getId() : -1;
+        if(thiefHex >= 0){
+            addProduction(thiefHex, -1);
         }
-        return edges;
     }
 
     /**
      * @return all vertices that don't have a settlement or city and aren't next to one
+     * The set is made from the bitset, in the order of getVertices(), and changing the board doesn't change it
      */
     @Override
     public Set<Vertex> getOpenVertices() {
+        Set<Vertex> openVertices = new LinkedHashSet<>();
+        for (long bits = openVertexBits; bits != 0; bits &= bits - 1) {
+            openVertices.add(vertices[Long.numberOfTrailingZeros(bits)]);
+        }
         return Collections.unmodifiableSet(openVertices);
     }
 
     /**
      * @return all edges that don't have a road
+     * The set is made from the bitset, in the order of getEdges(), and changing the board doesn't change it
      */
     @Override
     public Set<Edge> getEmptyEdges() {
+        Set<Edge> emptyEdges = new LinkedHashSet<>();
+        for (int word = 0; word < emptyEdgeBits.length; word++) {
+            for (long bits = emptyEdgeBits[word]; bits != 0; bits &= bits - 1) {
+                emptyEdges.add(edges[word * 64 + Long.numberOfTrailingZeros(bits)]);
+            }
+        }
         return Collections.unmodifiableSet(emptyEdges);
     }
 
+    @Override
+    public long getOpenVertexBits() {
+        return openVertexBits;
+    }
+
+    @Override
+    public long getEmptyEdgeBits(int word) {
+        return emptyEdgeBits[word];
+    }
+
+    @Override
+    public long getEdgeEndBits(int edge) {
+        return edgeEndBits[edge];
+    }
+
+    @Override
+    public long getEdgeNeighborBits(int edge, int word) {
+        return edgeNeighborBits[edge][word];
+    }
+
     /**
      * @param vertex to be removed from the collection of open vertices
      */
     @Override
     public void removeSettlement(Vertex vertex) {
-        openVertices.remove(vertex);
-        openVertices.removeAll(Arrays.asList(vertex.getAdjacentVertices()));
+        if (isOnBoard(vertex)) { // a vertex that isn't on this board was never open in the first place
+            openVertexBits &= ~vertexNeighborBits[vertex.getId()];
+        }
     }
 
     /**
@@ -541,7 +826,30 @@ public class BoardImpl implements Board {
      */
     @Override
     public void removeRoad(Edge road) {
-        emptyEdges.remove(road);
+        if (isOnBoard(road)) {
+            emptyEdgeBits[road.getId() >>> 6] &= ~(1L << road.getId());
+        }
+    }
+
+    /**
+     * Works out the open vertices and empty edges again from where everyone has built
+     * For undoing moves, since removeSettlement and removeRoad can't be taken back
+     */
+    @Override
+    public void recalculateOpenSpots() {
+        openVertexBits = vertices.length == 64 ? -1L : (1L << vertices.length) - 1;
+        for (int i = 0; i < vertices.length; i++) {
+            if (vertices[i].getPlayer() != null) {
+                openVertexBits &= ~vertexNeighborBits[i];
+            }
+        }
+        emptyEdgeBits[0] = 0;
+        emptyEdgeBits[1] = 0;
+        for (int i = 0; i < edges.length; i++) {
+            if (edges[i].getPlayer() == null) {
+                setBit(emptyEdgeBits, i);
+            }
+        }
     }
 
     /**
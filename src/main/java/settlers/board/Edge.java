@@ -6,6 +6,11 @@ import java.util.List;
 
 public interface Edge {
 
+    /**
+     * @return this edge's place in Board.getEdges(), which never changes, or -1 if it isn't part of a board
+     */
+    int getId();
+
     /**
      *
      * @return a length 3 array containing the adjacent vertices, where 0 is up, increasing clockwise
@@ -32,4 +37,17 @@ public interface Edge {
      */
     void setPlayer(Player player);
 
+    /**
+     * @return a length 2 array containing the vertices at either end of this Edge
+     */
+    Vertex[] getVertices();
+
+    /**
+     * Lets you walk along a road without copying arrays
+     * @param vertex at one end of this Edge
+     * @return the vertex at the other end
+     * @throws IllegalArgumentException if vertex is not at either end of this Edge
+     */
+    Vertex getOtherVertex(Vertex vertex);
+
 }
\ No newline at end of file
@@ -3,6 +3,7 @@ package settlers.board;
 import settlers.Player;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 
@@ -12,9 +13,26 @@ public class EdgeImpl implements Edge{
 
     private List<Edge> adjEdges;
     private Player player;
+    private final Vertex[] vertices; // the vertices at either end, which never change
+    private final int id;
 
-    public EdgeImpl() {
+    /**
+     * @param id its place in the board's edges
+     * @param firstVertex at one end of the edge
+     * @param secondVertex at the other end
+     */
+    public EdgeImpl(int id, Vertex firstVertex, Vertex secondVertex) {
+        if (firstVertex == null || secondVertex == null) {
+            throw new IllegalArgumentException("An edge needs a vertex at both ends");
+        }
         adjEdges = new ArrayList<>(3);
+        vertices = new Vertex[]{firstVertex, secondVertex};
+        this.id = id;
+    }
+
+    @Override
+    public int getId() {
+        return id;
     }
 
     /**
@@ -58,6 +76,30 @@ public class EdgeImpl implements Edge{
         this.player = player;
     }
 
+    /**
+     * @return a length 2 array containing the vertices at either end of this Edge
+     */
+    @Override
+    public Vertex[] getVertices() {
+        return Arrays.copyOf(vertices, vertices.length);
+    }
+
+    /**
+     * @param vertex at one end of this Edge
+     * @return the vertex at the other end
+     * @throws IllegalArgumentException if vertex is not at either end of this Edge
+     */
+    @Override
+    public Vertex getOtherVertex(Vertex vertex) {
+        if (vertex == vertices[0]) {
+            return vertices[1];
+        }
+        if (vertex == vertices[1]) {
+            return vertices[0];
+        }
+        throw new IllegalArgumentException(vertex + " is not at either end of this edge");
+    }
+
     // I am not overriding .equals, because I want to have multiple roads of the same player
 
     /*@Override
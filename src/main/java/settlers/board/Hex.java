@@ -4,6 +4,11 @@ import settlers.card.Resource;
 
 public interface Hex {
 
+    /**
+     * @return this hex's place in Board.getHexes(), which never changes, or -1 if it isn't part of a board
+     */
+    int getId();
+
     /**
      * Sets the hex's number to number
      * @param number we wish to set this object's number to
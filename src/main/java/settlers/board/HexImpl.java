@@ -9,13 +9,25 @@ public class HexImpl implements Hex{
     private int number;
     private Vertex[] vertices;
     private boolean hasThief; // default starts false
+    private final int id;
 
-
+    /**
+     * Makes a hex that isn't part of a board
+     */
     public HexImpl(Resource resource){
+        this(resource, -1);
+    }
+
+    /**
+     * @param resource the hex gives out
+     * @param id its place in the board's hexes
+     */
+    public HexImpl(Resource resource, int id){
         if (resource == null) {
             throw new IllegalArgumentException("Constructor is null");
         }
         this.resource = resource;
+        this.id = id;
         this.number = -1; // the default value, before it is set
         this.vertices = new Vertex[6];
     }
@@ -39,6 +51,11 @@ public class HexImpl implements Hex{
         this.number = number;
     }
 
+    @Override
+    public int getId(){
+        return id;
+    }
+
     /**
      * @return the Hex's die number, equals to 1 if this is the desert
      * @throws IllegalStateException if number hasn't been set yet
@@ -5,6 +5,11 @@ import settlers.card.Resource;
 
 public interface Vertex {
 
+    /**
+     * @return this vertex's place in Board.getVertices(), which never changes, or -1 if it isn't part of a board
+     */
+    int getId();
+
     /**
      *
      * @return a length 3 array containing the adjacent vertices, where 0 is up, increasing clockwise
@@ -70,4 +75,13 @@ public interface Vertex {
      */
     void makeCity();
 
+    /**
+     * Puts the building here back to how it was at some earlier point, for undoing moves
+     * Unlike setPlayer and makeCity, this can take a building away or turn a city back into a settlement
+     * @param player that owns the building, or null for no building
+     * @param isCity whether the building is a city, which must be false if there is no building
+     * @throws IllegalArgumentException if isCity is true without a player
+     */
+    void restore(Player player, boolean isCity);
+
 }
\ No newline at end of file
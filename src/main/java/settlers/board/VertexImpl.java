@@ -14,10 +14,25 @@ public class VertexImpl implements Vertex {
     private boolean isCity; // if this is a city or not, starts false by default
     private final int id;
 
+    /**
+     * Makes a vertex that isn't part of a board
+     */
     public VertexImpl() {
+        this(-1);
+    }
+
+    /**
+     * @param id its place in the board's vertices
+     */
+    public VertexImpl(int id) {
         adjVertices = new Vertex[3];
         adjEdges = new Edge[3];
-        id = (int) (Math.random() * Integer.MAX_VALUE);
+        this.id = id;
+    }
+
+    @Override
+    public int getId() {
+        return id;
     }
 
     /**
@@ -147,22 +162,23 @@ public class VertexImpl implements Vertex {
         isCity = true;
     }
 
+    /**
+     * Puts the building here back to how it was at some earlier point, for undoing moves
+     * @param player that owns the building, or null for no building
+     * @param isCity whether the building is a city, which must be false if there is no building
+     * @throws IllegalArgumentException if isCity is true without a player
+     */
     @Override
-    public boolean equals(Object o) {
-        if (this == o) return true;
-        if (o == null || getClass() != o.getClass()) return false;
-        //VertexImpl vertex = (VertexImpl) o;
-        return this.hashCode() == o.hashCode();
-        //return Arrays.equals(adjEdges, vertex.adjEdges) && port == vertex.port;
-    }
-/*
-    @Override
-    public int hashCode() {
-        int result = Objects.hash(port);
-        result = 31 * result + Arrays.hashCode(adjEdges);
-        return result;
+    public void restore(Player player, boolean isCity) {
+        if (player == null && isCity) {
+            throw new IllegalArgumentException("There can't be a city without a player");
+        }
+        this.player = player;
+        this.isCity = isCity;
     }
-    */
+
+    // I am not overriding .equals, because every vertex is a different place on the board, even if it looks the same
+    // Comparing hash codes, like I used to, could say two different vertices were equal
 
     /**
      * Returns a string representation of the object. In general, the
@@ -0,0 +1,57 @@
+package settlers.bot;
+
+import settlers.Main;
+import settlers.Player;
+import settlers.board.Vertex;
+import settlers.card.Resource;
+
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Makes the decisions for one player. MainImpl asks each player's agent directly, on its own thread, and carries on
+ * as soon as the agent returns, so bots play at full speed. The GUI is just another agent, GUIAgentImpl
+ * Agents act by calling Main directly, and should only do things that Main says are allowed
+ *
+ * Main only calls these four steps. An agent that plays whole steps, like the GUI, implements them directly, and a
+ * bot that would rather make one small choice at a time extends ChoiceAgent, which makes the steps out of them
+ */
+public interface Agent {
+
+    /**
+     * Builds a settlement and the free road next to it during setup
+     * @param main the game being played
+     * @param player this agent is playing for, whose setup turn it is
+     * @param validSpots where a settlement can be built
+     * @return where the settlement was built
+     */
+    Vertex takeSetupTurn(Main main, Player player, Set<Vertex> validSpots);
+
+    /**
+     * Discards cards after a 7 is rolled, until the player has cardsToKeep left
+     * @param main the game being played
+     * @param player this agent is playing for, who has more than 7 cards
+     * @param cardsToKeep how many cards the player must end with
+     */
+    void discard(Main main, Player player, int cardsToKeep);
+
+    /**
+     * Plays the player's turn once the dice are rolled and everyone has discarded, moving the thief first on a 7
+     * The turn ends when this method returns
+     * @param main the game being played
+     * @param player this agent is playing for, whose turn it is
+     * @param dieRoll the sum of both dice
+     */
+    void startTurn(Main main, Player player, int dieRoll);
+
+    /**
+     * Decides whether to take another player's trade offer
+     * @param main the game being played
+     * @param player this agent is playing for, who can afford their side of the trade
+     * @param trader who is offering the trade, whose turn it is
+     * @param resourcesExchanged the offer, where negative values are given by the trader to this player, and positive
+     *                           values are given by this player to the trader
+     * @return true to make the trade
+     */
+    boolean acceptTrade(Main main, Player player, Player trader, Map<Resource, Integer> resourcesExchanged);
+}
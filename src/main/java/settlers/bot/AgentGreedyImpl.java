@@ -0,0 +1,394 @@
+package settlers.bot;
+
+import settlers.Building;
+import settlers.Main;
+import settlers.Player;
+import settlers.board.*;
+import settlers.card.DevelopmentCard;
+import settlers.card.Resource;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * An agent that builds the best thing it can afford right away, by a few fixed rules, and is the baseline the other
+ * agents are measured against
+ * Cities come first, then settlements on the spots with the most pips, then roads toward new spots once there are
+ * none left, then development cards. When it is one card short of one of those, it trades with the bank for it.
+ * The thief goes wherever a ThiefEvaluator expects the most from
+ * How the board is connected is worked out once per board into arrays, and each decision only reads those, the
+ * board's vertex values and the game's bitsets, so deciding allocates nothing and takes a few microseconds. Only
+ * the calls to Main that make the moves allocate anything
+ */
+public class AgentGreedyImpl extends RuleOfThumbAgent {
+
+    // what it trades toward, where roads are only traded for once there is nowhere left to build a settlement
+    private static final Building[] TARGETS = {Building.CITY, Building.SETTLEMENT, Building.ROAD};
+    private static final int VERTICES = 54;
+    private static final int MAX_MOVES = 40; // a turn never needs this many, so more means something is wrong
+
+    // how the board is connected, worked out when a new one is seen, and only read after that
+    private Board board;
+    private List<Player> players;
+    private final long[] vertexNeighbors = new long[VERTICES]; // [vertex] = bits of the vertices next to it
+    private final int[][] vertexEdges = new int[VERTICES][3]; // [vertex] = its edges' ids, or -1
+
+    // scratch space, so decisions don't make arrays
+    private final int[] hand = new int[Moves.HAND_RESOURCES];
+    private final int[] ratios = new int[Moves.HAND_RESOURCES]; // [resource] = how many the bank wants for one card
+
+    /**
+     * Plays at most one development card, and then makes the best move it can until there is nothing left to do
+     */
+    @Override
+    public void takeTurn(Main main, Player player) {
+        playDevelopmentCard(main, player);
+        for (int moves = 0; main.getWinner() == null; moves++) {
+            int move = nextMove(main, player);
+            if (move == Moves.END_TURN) {
+                return;
+            }
+            if (moves == MAX_MOVES) {
+                throw new IllegalStateException(player + " made " + MAX_MOVES + " moves in one turn");
+            }
+            if (!Moves.makeMove(main, player, move)) {
+                throw new IllegalStateException(player + " couldn't make move " + move + ", which it chose");
+            }
+        }
+    }
+
+    /**
+     * Decides on the best move, without making it or allocating anything
+     * @return the move, or Moves.END_TURN if there is nothing worth doing
+     */
+    int nextMove(Main main, Player player) {
+        prepare(main);
+        if (main.playerCanBuild(player, Building.CITY)) {
+            return Moves.move(Moves.CITY, bestCitySpot(player));
+        }
+        long settlementSpots = main.getSettlementSpotBits(player);
+        if (main.playerCanBuild(player, Building.SETTLEMENT)) {
+            return Moves.move(Moves.SETTLEMENT, bestVertex(settlementSpots, 0));
+        }
+        if (settlementSpots == 0 && player.getSettlements().size() < Building.SETTLEMENT.getMax()
+                && main.playerCanBuild(player, Building.ROAD)) {
+            int road = bestRoad(main, player);
+            if (road >= 0) {
+                return Moves.move(Moves.ROAD, road);
+            }
+        }
+        if (main.playerCanBuild(player, Building.DEVELOPMENT_CARD)) {
+            return Moves.move(Moves.DEVELOPMENT_CARD, 0);
+        }
+        return bankTrade(main, player);
+    }
+
+    /**
+     * @return the player's settlement on the most pips
+     */
+    private int bestCitySpot(Player player) {
+        int best = -1;
+        for (int vertex = 0; vertex < VERTICES; vertex++) {
+            Vertex spot = board.getVertex(vertex);
+            if (spot.getPlayer() == player && !spot.isCity()
+                    && (best < 0 || board.getVertexPips(vertex) > board.getVertexPips(best))) {
+                best = vertex;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * @param spots bits of the vertices to choose from, which must not be empty
+     * @param produced bit ordinal of each resource the player already gets, which new ones count extra over
+     * @return the spot the board scores best, counting only the resources the player doesn't get yet
+     */
+    private int bestVertex(long spots, int produced) {
+        int best = -1;
+        int bestScore = Integer.MIN_VALUE;
+        for (long bits = spots; bits != 0; bits &= bits - 1) {
+            int vertex = Long.numberOfTrailingZeros(bits);
+            int score = board.getVertexScore(vertex)
+                    - 3 * Integer.bitCount(board.getVertexResourceBits(vertex) & produced);
+            if (score > bestScore) {
+                best = vertex;
+                bestScore = score;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * @return the empty edge the player can build on that leads to the open vertex with the most pips, or -1 if
+     * none lead anywhere
+     */
+    private int bestRoad(Main main, Player player) {
+        long open = board.getOpenVertexBits();
+        int best = -1;
+        int bestScore = 0;
+        for (int word = 0; word < 2; word++) {
+            for (long bits = main.getRoadSpotBits(player, word); bits != 0; bits &= bits - 1) {
+                int edge = word * 64 + Long.numberOfTrailingZeros(bits);
+                int score = 0;
+                for (long ends = board.getEdgeEndBits(edge); ends != 0; ends &= ends - 1) {
+                    int end = Long.numberOfTrailingZeros(ends);
+                    if ((open & 1L << end) != 0) {
+                        score = Math.max(score, 2 * board.getVertexPips(end)); // a spot right there
+                    }
+                    for (long next = vertexNeighbors[end] & open; next != 0; next &= next - 1) {
+                        // one more road away
+                        score = Math.max(score, board.getVertexPips(Long.numberOfTrailingZeros(next)));
+                    }
+                }
+                if (score > bestScore) {
+                    best = edge;
+                    bestScore = score;
+                }
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Finds a trade with the bank that leaves the player able to build a city, a settlement, or a road to new spots
+     * @return the trade, or Moves.END_TURN if none does
+     */
+    private int bankTrade(Main main, Player player) {
+        fillHand(player, hand);
+        fillRatios(player);
+        for (Building target : TARGETS) {
+            if (!worthTradingFor(main, player, target)) {
+                continue;
+            }
+            int missing = -1;
+            for (int resource = 0; resource < Moves.HAND_RESOURCES; resource++) {
+                int cardsShort = target.getCost(Moves.RESOURCES[resource]) - hand[resource];
+                if (cardsShort > 1 || cardsShort == 1 && missing >= 0) {
+                    missing = -2; // more than one card short, which one trade can't fix
+                    break;
+                }
+                if (cardsShort == 1) {
+                    missing = resource;
+                }
+            }
+            if (missing < 0) {
+                continue;
+            }
+            for (int given = 0; given < Moves.HAND_RESOURCES; given++) {
+                if (given != missing && hand[given] - target.getCost(Moves.RESOURCES[given]) >= ratios[given]) {
+                    return Moves.move(Moves.BANK_TRADE, given * 8 + missing);
+                }
+            }
+        }
+        return Moves.END_TURN;
+    }
+
+    /**
+     * @return true if the player has somewhere to put the building and pieces left for it
+     */
+    private boolean worthTradingFor(Main main, Player player, Building target) {
+        if (target == Building.CITY) {
+            return !player.getSettlements().isEmpty() && player.getCities().size() < Building.CITY.getMax();
+        }
+        if (target == Building.SETTLEMENT) {
+            return main.getSettlementSpotBits(player) != 0
+                    && player.getSettlements().size() < Building.SETTLEMENT.getMax();
+        }
+        // the same as nextMove asks before building a road, so a trade for one is always followed by the road
+        return main.getSettlementSpotBits(player) == 0
+                && player.getSettlements().size() < Building.SETTLEMENT.getMax()
+                && player.getRoads().size() < Building.ROAD.getMax() && bestRoad(main, player) >= 0;
+    }
+
+    /**
+     * Plays whichever development card helps most right now, if any
+     */
+    private void playDevelopmentCard(Main main, Player player) {
+        prepare(main);
+        if (main.canPlay(player, DevelopmentCard.KNIGHT) && thiefIsOnPlayer(player)) {
+            thief.evaluate(main, player);
+            main.playKnight(player, board.getVertex(thief.getBestVictim()), board.getHex(thief.getBestHex()));
+        } else if (main.canPlay(player, DevelopmentCard.ROAD_BUILDING)
+                && player.getRoads().size() + 2 <= Building.ROAD.getMax() && bestRoad(main, player) >= 0) {
+            Edge first = board.getEdge(bestRoad(main, player));
+            Set<Edge> seconds = main.getAvailableRoadSpotsGivenEdge(player, first);
+            main.playRoadBuilding(player, first, seconds.isEmpty() ? null : seconds.iterator().next());
+        } else if (main.canPlay(player, DevelopmentCard.YEAR_OF_PLENTY)) {
+            fillHand(player, hand);
+            Resource first = mostNeeded(Building.CITY);
+            hand[first.ordinal()]++;
+            main.playYearOfPlenty(player, first, mostNeeded(Building.CITY));
+        } else if (main.canPlay(player, DevelopmentCard.MONOPOLY)) {
+            int best = 0;
+            int bestTotal = 0;
+            for (int resource = 0; resource < Moves.HAND_RESOURCES; resource++) {
+                int total = 0;
+                for (int i = 0; i < players.size(); i++) {
+                    if (players.get(i) != player) {
+                        total += players.get(i).getResourceCount(Moves.RESOURCES[resource]);
+                    }
+                }
+                if (total > bestTotal) {
+                    best = resource;
+                    bestTotal = total;
+                }
+            }
+            if (bestTotal >= 3) {
+                main.playMonopoly(player, Moves.RESOURCES[best]);
+            }
+        }
+    }
+
+    /**
+     * @return the resource the hand is furthest from having enough of for the building, or the one it has least of
+     */
+    private Resource mostNeeded(Building building) {
+        int best = 0;
+        int bestShort = Integer.MIN_VALUE;
+        for (int resource = 0; resource < Moves.HAND_RESOURCES; resource++) {
+            int cardsShort = building.getCost(Moves.RESOURCES[resource]) - hand[resource];
+            if (cardsShort > bestShort) {
+                best = resource;
+                bestShort = cardsShort;
+            }
+        }
+        return Moves.RESOURCES[best];
+    }
+
+    // the rest of the choices
+
+    /**
+     * Takes the open spot the board scores best, counting only the resources the player doesn't get yet
+     * validSpots are the open vertices during setup, so the board's bitset is read instead
+     */
+    @Override
+    public Vertex chooseSetupSettlement(Main main, Player player, Set<Vertex> validSpots) {
+        prepare(main);
+        int produced = 0;
+        for (int vertex = 0; vertex < VERTICES; vertex++) {
+            if (board.getVertex(vertex).getPlayer() == player) {
+                produced |= board.getVertexResourceBits(vertex);
+            }
+        }
+        return board.getVertex(bestVertex(main.getSettlementSpotBits(player), produced));
+    }
+
+    /**
+     * Builds toward the open spot with the most pips that the next road could reach
+     */
+    @Override
+    public Edge chooseSetupRoad(Main main, Player player, Vertex settlement) {
+        prepare(main);
+        long open = board.getOpenVertexBits();
+        int best = -1;
+        int bestScore = -1;
+        for (int edge : vertexEdges[settlement.getId()]) {
+            if (edge < 0 || (board.getEmptyEdgeBits(edge >>> 6) & 1L << edge) == 0) {
+                continue;
+            }
+            int end = Long.numberOfTrailingZeros(board.getEdgeEndBits(edge) & ~(1L << settlement.getId()));
+            int score = 0;
+            for (long next = vertexNeighbors[end] & open; next != 0; next &= next - 1) {
+                score = Math.max(score, board.getVertexPips(Long.numberOfTrailingZeros(next)));
+            }
+            if (score > bestScore) {
+                best = edge;
+                bestScore = score;
+            }
+        }
+        return board.getEdge(best);
+    }
+
+    /**
+     * Takes trades that get it closer to a city or settlement, without giving away more cards than it gets
+     */
+    @Override
+    public boolean acceptTrade(Main main, Player player, Player trader, Map<Resource, Integer> resourcesExchanged) {
+        fillHand(player, hand);
+        int before = cardsShort(Building.CITY) + cardsShort(Building.SETTLEMENT);
+        int balance = 0;
+        for (int resource = 0; resource < Moves.HAND_RESOURCES; resource++) {
+            int given = resourcesExchanged.getOrDefault(Moves.RESOURCES[resource], 0);
+            hand[resource] -= given;
+            balance -= given;
+        }
+        return balance >= 0 && cardsShort(Building.CITY) + cardsShort(Building.SETTLEMENT) < before;
+    }
+
+    private int cardsShort(Building building) {
+        int cardsShort = 0;
+        for (int resource = 0; resource < Moves.HAND_RESOURCES; resource++) {
+            cardsShort += Math.max(0, building.getCost(Moves.RESOURCES[resource]) - hand[resource]);
+        }
+        return cardsShort;
+    }
+
+    private boolean thiefIsOnPlayer(Player player) {
+        Hex thiefHex = board.getThiefHex();
+        if (thiefHex == null) {
+            return false;
+        }
+        for (long vertices = board.getHexVertexBits(thiefHex.getId()); vertices != 0; vertices &= vertices - 1) {
+            if (board.getVertex(Long.numberOfTrailingZeros(vertices)).getPlayer() == player) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static void fillHand(Player player, int[] hand) {
+        for (int resource = 0; resource < Moves.HAND_RESOURCES; resource++) {
+            hand[resource] = player.getResourceCount(Moves.RESOURCES[resource]);
+        }
+    }
+
+    /**
+     * Works out the bank's rates from the ports of the player's buildings, since Player.getPorts makes a view
+     */
+    private void fillRatios(Player player) {
+        int generic = 4;
+        for (int resource = 0; resource < Moves.HAND_RESOURCES; resource++) {
+            ratios[resource] = 4;
+        }
+        for (int vertex = 0; vertex < VERTICES; vertex++) {
+            Vertex spot = board.getVertex(vertex);
+            if (spot.getPlayer() == player && spot.getPort() != null) {
+                if (spot.getPort() == Resource.MISC) {
+                    generic = 3;
+                } else {
+                    ratios[spot.getPort().ordinal()] = 2;
+                }
+            }
+        }
+        for (int resource = 0; resource < Moves.HAND_RESOURCES; resource++) {
+            ratios[resource] = Math.min(ratios[resource], generic);
+        }
+    }
+
+    /**
+     * Works out how the board is connected, if this is a different board than last time
+     * What the spots are worth comes from the board itself, which keeps it up to date as the thief moves
+     * This is the only place that allocates, and only once per game
+     */
+    private void prepare(Main main) {
+        if (main.getBoard() == board) {
+            return;
+        }
+        board = main.getBoard();
+        players = main.getPlayers();
+        for (int vertex = 0; vertex < VERTICES; vertex++) {
+            vertexNeighbors[vertex] = 0;
+            Vertex spot = board.getVertex(vertex);
+            for (Vertex neighbor : spot.getAdjacentVertices()) {
+                if (neighbor != null) {
+                    vertexNeighbors[vertex] |= 1L << neighbor.getId();
+                }
+            }
+            Edge[] edges = spot.getEdges();
+            for (int i = 0; i < 3; i++) {
+                vertexEdges[vertex][i] = i < edges.length && edges[i] != null ? edges[i].getId() : -1;
+            }
+        }
+    }
+}
@@ -0,0 +1,504 @@
+package settlers.bot;
+
+import settlers.Building;
+import settlers.GameResult;
+import settlers.GameState;
+import settlers.Main;
+import settlers.MainImpl;
+import settlers.Player;
+import settlers.board.*;
+import settlers.card.DevelopmentCard;
+import settlers.card.Resource;
+
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * An agent that plays its turns with Monte Carlo Tree Search over the real rules
+ * For every move in its turn, it tries its options on copies of the game made with MainImpl.fromState, plays each
+ * copy to the end with AgentRandomImpls, and makes the move whose games it won the most. The tree is made of its own
+ * moves until it ends its turn, and everything after that is played out at random
+ * The search is root parallel: each thread grows its own tree on its own copy of the game, and only the first moves
+ * of the trees are added up at the end, so the threads share nothing while they search
+ * The setup comes from an OpeningBook, the thief after a 7 from a ThiefEvaluator, and everything else but the main
+ * phase turn is decided by quick rules of thumb instead. Knights are searched like any other move, where the tree
+ * picks the hex and Moves robs the richest opponent on it
+ */
+public class AgentMctsImpl extends RuleOfThumbAgent {
+
+    // every search thread there will ever be, shared by all the agents, so making an agent doesn't make threads
+    private static final ExecutorService SEARCH_THREADS = Executors.newFixedThreadPool(
+            Runtime.getRuntime().availableProcessors(), task -> {
+                Thread thread = new Thread(task, "mcts-search");
+                thread.setDaemon(true); // searches are always waited for, so these never keep the program running
+                return thread;
+            });
+
+    // every board's setup picks, shared by all the agents, so games on a board seen before start right away
+    private static final OpeningBook OPENINGS = new OpeningBook(OpeningBook.DEFAULT_CAPACITY);
+
+    private static final int ROLLOUT_TURNS = 200; // after which a rollout is scored by points instead of its winner
+    private static final int MAX_TREE_DEPTH = 8; // moves in one turn, after which the rest is played out at random
+    private static final double EXPLORATION = 0.7; // how much UCT favors moves it has tried less
+
+
+    private final long moveNanos;
+    private final int maxRollouts;
+    private final SplittableRandom random;
+    private final Worker[] workers;
+    private GameState layout; // of the board the workers' games are on, so they are only remade for a new board
+    private OpeningBook.Opening opening; // the setup picks for openingBoard
+    private Board openingBoard;
+
+    private long rollouts;
+    private long searchNanos;
+
+    /**
+     * Makes an agent that searches for a second per move on every core
+     */
+    public AgentMctsImpl() {
+        this(1000, Integer.MAX_VALUE, Runtime.getRuntime().availableProcessors(), new SplittableRandom());
+    }
+
+    /**
+     * @param moveMillis how long to search for each move, unless maxRollouts runs out first
+     * @param maxRollouts the most games to play out for each move, over all the threads
+     * @param threads how many trees to grow at once, which is best as the number of cores
+     * @param random where every choice comes from. With one thread and enough time for maxRollouts, an agent given
+     *               the same seed always makes the same choices
+     */
+    public AgentMctsImpl(long moveMillis, int maxRollouts, int threads, SplittableRandom random) {
+        if (moveMillis < 1 || maxRollouts < 1 || threads < 1) {
+            throw new IllegalArgumentException("The search needs some time, rollouts and threads, not " + moveMillis
+                    + "ms, " + maxRollouts + " rollouts and " + threads + " threads");
+        }
+        if (random == null) {
+            throw new IllegalArgumentException("random is null");
+        }
+        this.moveNanos = moveMillis * 1_000_000;
+        this.maxRollouts = maxRollouts;
+        this.random = random;
+        workers = new Worker[threads];
+    }
+
+    /**
+     * @return how many games this agent has played out so far, over all its moves
+     */
+    public long getRollouts() {
+        return rollouts;
+    }
+
+    /**
+     * @return how many games this agent has played out per second of searching, over all its moves
+     */
+    public double getRolloutsPerSecond() {
+        return searchNanos == 0 ? 0 : rollouts * 1e9 / searchNanos;
+    }
+
+    /**
+     * Searches for each move, and keeps making them until the best one is to end the turn
+     */
+    @Override
+    public void takeTurn(Main main, Player player) {
+        while (main.getWinner() == null) {
+            if (legalMoves(main, player).length == 1) {
+                return; // ending the turn is all that is left, so there is nothing to search
+            }
+            int move = search(main, player);
+            if (move == Moves.END_TURN || !Moves.makeMove(main, player, move)) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Grows a tree on each thread until the time or the rollouts run out, and adds up their first moves
+     * @return the first move that was tried the most, which is the one UCT thought was best
+     */
+    int search(Main main, Player player) {
+        long start = System.nanoTime();
+        GameState root = main.getState();
+        prepareWorkers(root);
+        long deadline = start + moveNanos;
+        AtomicInteger rolloutsLeft = new AtomicInteger(maxRollouts);
+        CompletableFuture<?>[] helpers = new CompletableFuture<?>[workers.length - 1];
+        for (int i = 1; i < workers.length; i++) {
+            Worker worker = workers[i];
+            helpers[i - 1] = CompletableFuture.runAsync(
+                    () -> worker.search(root, player.getID(), deadline, rolloutsLeft), SEARCH_THREADS);
+        }
+        workers[0].search(root, player.getID(), deadline, rolloutsLeft); // this thread would only be waiting
+        CompletableFuture.allOf(helpers).join();
+
+        // [move] = {visits, wins}, added up over every tree
+        Map<Integer, double[]> totals = new HashMap<>();
+        for (Worker worker : workers) {
+            rollouts += worker.rollouts;
+            worker.rollouts = 0;
+            Node tree = worker.root;
+            for (int i = 0; i < tree.expanded; i++) {
+                double[] total = totals.computeIfAbsent(tree.children[i].move, move -> new double[2]);
+                total[0] += tree.children[i].visits;
+                total[1] += tree.children[i].wins;
+            }
+        }
+        searchNanos += System.nanoTime() - start;
+        int best = Moves.END_TURN;
+        double[] bestTotal = {0, 0};
+        for (Map.Entry<Integer, double[]> entry : totals.entrySet()) {
+            double[] total = entry.getValue();
+            if (total[0] > bestTotal[0] || total[0] == bestTotal[0] && total[1] > bestTotal[1]) {
+                best = entry.getKey();
+                bestTotal = total;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Makes each thread's copy of the game, the first time, and again whenever the board is different
+     */
+    private void prepareWorkers(GameState root) {
+        if (layout != null && layout.hasSameLayout(root)) {
+            return;
+        }
+        layout = root;
+        for (int i = 0; i < workers.length; i++) {
+            workers[i] = new Worker(random.split(), root);
+        }
+    }
+
+    /**
+     * One thread's search, on its own copy of the game
+     * It is only used by one thread at a time, and the search waits for it to finish before reading its tree
+     */
+    private static final class Worker {
+        private final SplittableRandom random;
+        private final MainImpl game;
+        private final List<ChoiceAgent> agents; // that play the game out, one per player
+        private final List<Node> path; // from the root to where this rollout left the tree
+        private Node root;
+        private long rollouts; // since the last search added them up
+
+        Worker(SplittableRandom random, GameState layout) {
+            this.random = random;
+            agents = new ArrayList<>(layout.getPlayerCount());
+            for (int i = 0; i < layout.getPlayerCount(); i++) {
+                agents.add(new AgentRandomImpl(random.split()));
+            }
+            game = MainImpl.fromState(layout, Collections.unmodifiableList(agents), random.nextLong());
+            path = new ArrayList<>(MAX_TREE_DEPTH + 1);
+        }
+
+        /**
+         * Grows a new tree from the state until the deadline, or until there are no rollouts left
+         */
+        void search(GameState state, int playerID, long deadline, AtomicInteger rolloutsLeft) {
+            root = new Node(-1);
+            Player player = game.getPlayers().get(playerID);
+            while (rolloutsLeft.getAndDecrement() > 0) {
+                game.restore(state);
+                game.shuffleDeck(); // the real player can't know the order, so neither should the search
+                descend(player);
+                double reward = rollout(player);
+                for (Node node : path) {
+                    node.visits++;
+                    node.wins += reward;
+                }
+                rollouts++;
+                if (System.nanoTime() >= deadline) {
+                    return;
+                }
+            }
+        }
+
+        /**
+         * Makes moves down the tree with UCT, and adds the first move it hasn't tried yet
+         * Other rollouts drew different cards, so a move in the tree may not be legal this time, and then the
+         * rollout starts from the move before it
+         */
+        private void descend(Player player) {
+            path.clear();
+            Node node = root;
+            path.add(node);
+            while (path.size() <= MAX_TREE_DEPTH && game.getWinner() == null) {
+                if (node.moves == null) {
+                    node.moves = legalMoves(game, player);
+                    shuffle(node.moves);
+                    node.children = new Node[node.moves.length];
+                }
+                Node child;
+                if (node.expanded < node.moves.length) {
+                    child = new Node(node.moves[node.expanded]);
+                    node.children[node.expanded++] = child;
+                } else {
+                    child = node.select();
+                }
+                if (child.move != Moves.END_TURN && !Moves.makeMove(game, player, child.move)) {
+                    return;
+                }
+                path.add(child);
+                node = child;
+                if (child.visits == 0 || child.move == Moves.END_TURN) {
+                    return; // a new leaf, or the end of the turn, which the rollout goes on from
+                }
+            }
+        }
+
+        /**
+         * Plays the game out from where the tree left it
+         * @return 1 if the player won, 0 if someone else did, and if no one did, up to half for how close the player
+         * was to the lead
+         */
+        private double rollout(Player player) {
+            if (game.getWinner() == null && path.get(path.size() - 1).move != Moves.END_TURN) {
+                agents.get(player.getID()).takeTurn(game, player); // the rest of the turn the tree didn't get to
+            }
+            GameResult result = game.playOut(ROLLOUT_TURNS);
+            if (result.hasWinner()) {
+                return result.getWinnerID() == player.getID() ? 1 : 0;
+            }
+            int mostPoints = 1;
+            for (int i = 0; i < result.getPlayerCount(); i++) {
+                mostPoints = Math.max(mostPoints, result.getVictoryPoints(i));
+            }
+            return 0.5 * result.getVictoryPoints(player.getID()) / mostPoints;
+        }
+
+        private void shuffle(int[] moves) {
+            for (int i = moves.length - 1; i > 0; i--) {
+                int other = random.nextInt(i + 1);
+                int move = moves[i];
+                moves[i] = moves[other];
+                moves[other] = move;
+            }
+        }
+    }
+
+    /**
+     * A move in one thread's tree, with how the rollouts through it went
+     */
+    private static final class Node {
+        private final int move; // that was made to get here
+        private int[] moves; // that can be made from here, found the first time a rollout gets here
+        private Node[] children; // in the same order as moves
+        private int expanded; // how many of the moves have children so far
+        private int visits;
+        private double wins;
+
+        Node(int move) {
+            this.move = move;
+        }
+
+        /**
+         * @return the child with the best UCT score, once every move has been tried
+         */
+        Node select() {
+            double logVisits = Math.log(visits);
+            Node best = children[0];
+            double bestScore = Double.NEGATIVE_INFINITY;
+            for (Node child : children) {
+                if (child.visits == 0) {
+                    return child; // one that was added when it wasn't legal, which should be tried again
+                }
+                double score = child.wins / child.visits + EXPLORATION * Math.sqrt(logVisits / child.visits);
+                if (score > bestScore) {
+                    best = child;
+                    bestScore = score;
+                }
+            }
+            return best;
+        }
+    }
+
+    /**
+     * @return every move the player can make now, starting with ending the turn
+     * Bank trades are only included if they let the player build something they couldn't before, since the rest
+     * only make the tree bigger
+     */
+    static int[] legalMoves(Main main, Player player) {
+        int[] moves = new int[16];
+        int count = 0;
+        moves[count++] = Moves.END_TURN;
+        if (main.playerCanBuild(player, Building.ROAD)) {
+            for (int word = 0; word < 2; word++) {
+                for (long bits = main.getRoadSpotBits(player, word); bits != 0; bits &= bits - 1) {
+                    moves = add(moves, count++, Moves.move(Moves.ROAD, word * 64 + Long.numberOfTrailingZeros(bits)));
+                }
+            }
+        }
+        if (main.playerCanBuild(player, Building.SETTLEMENT)) {
+            for (long bits = main.getSettlementSpotBits(player); bits != 0; bits &= bits - 1) {
+                moves = add(moves, count++, Moves.move(Moves.SETTLEMENT, Long.numberOfTrailingZeros(bits)));
+            }
+        }
+        if (main.playerCanBuild(player, Building.CITY)) {
+            for (Vertex vertex : main.getAvailableCitySpots(player)) {
+                moves = add(moves, count++, Moves.move(Moves.CITY, vertex.getId()));
+            }
+        }
+        if (main.playerCanBuild(player, Building.DEVELOPMENT_CARD)) {
+            moves = add(moves, count++, Moves.move(Moves.DEVELOPMENT_CARD, 0));
+        }
+        if (main.canPlay(player, DevelopmentCard.KNIGHT)) {
+            for (Hex hex : thiefSpots(main, player)) {
+                moves = add(moves, count++, Moves.move(Moves.KNIGHT, hex.getId()));
+            }
+        }
+        if (main.canPlay(player, DevelopmentCard.YEAR_OF_PLENTY)) {
+            for (int first = 0; first < Moves.HAND_RESOURCES; first++) {
+                for (int second = first; second < Moves.HAND_RESOURCES; second++) {
+                    moves = add(moves, count++, Moves.move(Moves.YEAR_OF_PLENTY, first * 8 + second));
+                }
+            }
+        }
+        if (main.canPlay(player, DevelopmentCard.MONOPOLY)) {
+            for (int resource = 0; resource < Moves.HAND_RESOURCES; resource++) {
+                moves = add(moves, count++, Moves.move(Moves.MONOPOLY, resource));
+            }
+        }
+        if (main.canPlay(player, DevelopmentCard.ROAD_BUILDING)
+                && player.getRoads().size() + 2 <= Building.ROAD.getMax()) {
+            for (int word = 0; word < 2; word++) {
+                for (long bits = main.getRoadSpotBits(player, word); bits != 0; bits &= bits - 1) {
+                    int edge = word * 64 + Long.numberOfTrailingZeros(bits);
+                    moves = add(moves, count++, Moves.move(Moves.ROAD_BUILDING, edge));
+                }
+            }
+        }
+        int[] hand = new int[Moves.HAND_RESOURCES];
+        for (int resource = 0; resource < Moves.HAND_RESOURCES; resource++) {
+            hand[resource] = player.getResourceCount(Moves.RESOURCES[resource]);
+        }
+        int affordable = affordable(hand);
+        for (int given = 0; given < Moves.HAND_RESOURCES; given++) {
+            if (!main.canTrade(player, Moves.RESOURCES[given])) {
+                continue;
+            }
+            int ratio = tradeRatio(player, Moves.RESOURCES[given]);
+            hand[given] -= ratio;
+            for (int gotten = 0; gotten < Moves.HAND_RESOURCES; gotten++) {
+                if (gotten == given) {
+                    continue;
+                }
+                hand[gotten]++;
+                if ((affordable(hand) & ~affordable) != 0) {
+                    moves = add(moves, count++, Moves.move(Moves.BANK_TRADE, given * 8 + gotten));
+                }
+                hand[gotten]--;
+            }
+            hand[given] += ratio;
+        }
+        return Arrays.copyOf(moves, count);
+    }
+
+    private static int[] add(int[] moves, int index, int move) {
+        if (index == moves.length) {
+            moves = Arrays.copyOf(moves, moves.length * 2);
+        }
+        moves[index] = move;
+        return moves;
+    }
+
+    /**
+     * @param hand [resource ordinal] = how many the player has
+     * @return a bitmask of the buildings the hand can pay for, by ordinal
+     */
+    private static int affordable(int[] hand) {
+        int affordable = 0;
+        for (Building building : Building.values()) {
+            boolean canPay = true;
+            for (int resource = 0; resource < Moves.HAND_RESOURCES && canPay; resource++) {
+                canPay = hand[resource] >= building.getCost(Moves.RESOURCES[resource]);
+            }
+            if (canPay) {
+                affordable |= 1 << building.ordinal();
+            }
+        }
+        return affordable;
+    }
+
+    /**
+     * @return how many of the resource the player gives the bank for one card, from their ports
+     */
+    private static int tradeRatio(Player player, Resource resource) {
+        if (player.getPorts().contains(resource)) {
+            return 2;
+        }
+        return player.getPorts().contains(Resource.MISC) ? 3 : 4;
+    }
+
+    // the rules of thumb, for everything but the main phase turn
+
+    /**
+     * Takes the best spot left in the opening book, which every MCTS agent shares
+     */
+    @Override
+    public Vertex chooseSetupSettlement(Main main, Player player, Set<Vertex> validSpots) {
+        return opening(main.getBoard()).chooseSettlement(main, player);
+    }
+
+    /**
+     * Takes the road the opening book ranks best for the settlement
+     */
+    @Override
+    public Edge chooseSetupRoad(Main main, Player player, Vertex settlement) {
+        return opening(main.getBoard()).chooseRoad(main, settlement);
+    }
+
+    /**
+     * Takes trades that give it more cards than it gives away
+     */
+    @Override
+    public boolean acceptTrade(Main main, Player player, Player trader, Map<Resource, Integer> resourcesExchanged) {
+        int balance = 0;
+        for (int count : resourcesExchanged.values()) {
+            balance -= count;
+        }
+        return balance > 0;
+    }
+
+    /**
+     * @return the hexes worth using a knight on, which are those that would take from someone else and not the
+     * player, or every hex but the thief's if there aren't any
+     */
+    private static List<Hex> thiefSpots(Main main, Player player) {
+        List<Hex> spots = new ArrayList<>();
+        for (Hex hex : main.getAvailableThiefSpots()) {
+            if (thiefScore(main.getBoard(), player, hex) > 0) {
+                spots.add(hex);
+            }
+        }
+        return spots.isEmpty() ? new ArrayList<>(main.getAvailableThiefSpots()) : spots;
+    }
+
+    /**
+     * @return how much the thief on the hex would take from other players, less what it would take from the player
+     */
+    private static int thiefScore(Board board, Player player, Hex hex) {
+        int pips = board.getHexPips(hex.getId());
+        int score = 0;
+        for (long vertices = board.getHexVertexBits(hex.getId()); vertices != 0; vertices &= vertices - 1) {
+            Vertex vertex = board.getVertex(Long.numberOfTrailingZeros(vertices));
+            if (vertex.getPlayer() != null) {
+                int taken = pips * (vertex.isCity() ? 2 : 1);
+                score += vertex.getPlayer() == player ? -3 * taken : taken;
+            }
+        }
+        return score;
+    }
+
+    /**
+     * @return the openings for the board, which are only looked up in the book once per board
+     */
+    private OpeningBook.Opening opening(Board board) {
+        if (board != openingBoard) {
+            opening = OPENINGS.getOpening(board);
+            openingBoard = board;
+        }
+        return opening;
+    }
+}
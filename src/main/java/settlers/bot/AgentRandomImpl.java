@@ -0,0 +1,202 @@
+package settlers.bot;
+
+import settlers.Building;
+import settlers.Main;
+import settlers.Player;
+import settlers.board.*;
+import settlers.card.DevelopmentCard;
+import settlers.card.Resource;
+
+import java.util.*;
+
+/**
+ * An agent that makes every decision randomly out of its legal options
+ * It is terrible at Catan, but it does finish games, so it is good for testing the headless game
+ */
+public class AgentRandomImpl extends ChoiceAgent {
+
+    private final SplittableRandom random;
+
+    public AgentRandomImpl() {
+        this(new SplittableRandom());
+    }
+
+    /**
+     * @param random where every choice comes from, so an agent given the same seed always makes the same choices
+     */
+    public AgentRandomImpl(SplittableRandom random) {
+        if (random == null) {
+            throw new IllegalArgumentException("random is null");
+        }
+        this.random = random;
+    }
+
+    @Override
+    public Vertex chooseSetupSettlement(Main main, Player player, Set<Vertex> validSpots) {
+        return randomElement(validSpots);
+    }
+
+    @Override
+    public Edge chooseSetupRoad(Main main, Player player, Vertex settlement) {
+        List<Edge> emptyEdges = new ArrayList<>(3);
+        for (Edge edge : settlement.getEdges()) {
+            if (edge != null && edge.getPlayer() == null) {
+                emptyEdges.add(edge);
+            }
+        }
+        return randomElement(emptyEdges);
+    }
+
+    @Override
+    public Resource chooseDiscard(Main main, Player player) {
+        List<Resource> heldResources = new ArrayList<>(5);
+        for (Resource resource : player.getResources().keySet()) {
+            if (player.getResourceCount(resource) > 0) {
+                heldResources.add(resource);
+            }
+        }
+        return randomElement(heldResources);
+    }
+
+    @Override
+    public Hex chooseThiefSpot(Main main, Player player, Set<Hex> validSpots) {
+        return randomElement(validSpots);
+    }
+
+    @Override
+    public Vertex chooseVictim(Main main, Player player, Hex location) {
+        List<Vertex> victims = new ArrayList<>(6);
+        for (Vertex vertex : location.getVertices()) {
+            if (vertex.getPlayer() != null && vertex.getPlayer() != player) {
+                victims.add(vertex);
+            }
+        }
+        if (victims.isEmpty()) {
+            return location.getVertices()[0]; // same as the GUI, when there is no one to rob
+        }
+        return randomElement(victims);
+    }
+
+    /**
+     * Takes half of the trades it is offered, at random
+     */
+    @Override
+    public boolean acceptTrade(Main main, Player player, Player trader, Map<Resource, Integer> resourcesExchanged) {
+        return random.nextBoolean();
+    }
+
+    @Override
+    public void takeTurn(Main main, Player player) {
+        playRandomDevelopmentCard(main, player);
+        // keeps building random things until it can't afford anything, trading with the bank when it gets stuck
+        while (main.getWinner() == null) {
+            List<Building> affordable = new ArrayList<>(4);
+            for (Building project : Building.values()) {
+                if (main.playerCanBuild(player, project)) {
+                    affordable.add(project);
+                }
+            }
+            if (!affordable.isEmpty()) {
+                build(main, player, randomElement(affordable));
+            } else if (!tradeWithBank(main, player)) {
+                return; // nothing left to do, so the turn is over
+            }
+        }
+    }
+
+    /**
+     * Builds the project somewhere random
+     * Precondition: main.playerCanBuild(player, project) is true
+     */
+    private void build(Main main, Player player, Building project) {
+        switch (project) {
+            case ROAD:
+                main.buildRoad(player, randomElement(main.getAvailableRoadSpots(player)));
+                break;
+            case SETTLEMENT:
+                main.buildSettlement(player, randomElement(main.getAvailableSettlementSpots(player)));
+                break;
+            case CITY:
+                // copied, because the city spots are the player's own settlements, which building changes
+                main.buildCity(player, randomElement(new ArrayList<>(main.getAvailableCitySpots(player))));
+                break;
+            case DEVELOPMENT_CARD:
+                main.buildDevelopmentCard(player);
+                break;
+        }
+    }
+
+    /**
+     * Trades a random resource the player has enough of for a random other resource
+     * @return true if a trade was made, false if the player can't trade anything
+     */
+    private boolean tradeWithBank(Main main, Player player) {
+        List<Resource> tradeable = new ArrayList<>(5);
+        for (Resource resource : Resource.values()) {
+            if (main.canTrade(player, resource)) {
+                tradeable.add(resource);
+            }
+        }
+        if (tradeable.isEmpty()) {
+            return false;
+        }
+        Resource given = randomElement(tradeable);
+        Resource gotten;
+        do {
+            gotten = Resource.values()[random.nextInt(Resource.values().length - 1)]; // never MISC, which is last
+        } while (gotten == given);
+        main.trade(player, given, gotten);
+        return true;
+    }
+
+    /**
+     * Plays at most one development card, chosen randomly out of those the player can play
+     */
+    private void playRandomDevelopmentCard(Main main, Player player) {
+        List<DevelopmentCard> playable = new ArrayList<>(4);
+        for (DevelopmentCard card : DevelopmentCard.values()) {
+            if (main.canPlay(player, card)) {
+                playable.add(card);
+            }
+        }
+        if (playable.isEmpty() || random.nextBoolean()) {
+            return; // sometimes it holds on to its cards, to be more random
+        }
+        Resource[] resources = {Resource.WHEAT, Resource.SHEEP, Resource.ORE, Resource.WOOD, Resource.BRICK};
+        switch (randomElement(playable)) {
+            case KNIGHT:
+                Hex location = chooseThiefSpot(main, player, main.getAvailableThiefSpots());
+                main.playKnight(player, chooseVictim(main, player, location), location);
+                break;
+            case YEAR_OF_PLENTY:
+                main.playYearOfPlenty(player, resources[random.nextInt(5)], resources[random.nextInt(5)]);
+                break;
+            case MONOPOLY:
+                main.playMonopoly(player, resources[random.nextInt(5)]);
+                break;
+            case ROAD_BUILDING:
+                Set<Edge> firstSpots = main.getAvailableRoadSpots(player);
+                if (firstSpots.isEmpty() || player.getRoads().size() + 2 > Building.ROAD.getMax()) {
+                    return; // keeps the card, since it can't use it properly
+                }
+                Edge firstRoad = randomElement(firstSpots);
+                Set<Edge> secondSpots = main.getAvailableRoadSpotsGivenEdge(player, firstRoad);
+                main.playRoadBuilding(player, firstRoad, secondSpots.isEmpty() ? null : randomElement(secondSpots));
+                break;
+        }
+    }
+
+    /**
+     * @param options to choose from, must not be empty
+     * @return a random element of options
+     */
+    private <T> T randomElement(Collection<T> options) {
+        int index = random.nextInt(options.size());
+        for (T option : options) {
+            if (index-- == 0) {
+                return option;
+            }
+        }
+        throw new IllegalStateException("Could not get an element with the given RNG bounds");
+    }
+}
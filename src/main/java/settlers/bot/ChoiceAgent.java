@@ -0,0 +1,106 @@
+package settlers.bot;
+
+import settlers.Main;
+import settlers.Player;
+import settlers.board.*;
+import settlers.card.Resource;
+
+import java.util.Set;
+
+/**
+ * An Agent that makes each step out of smaller choices, so a bot only has to make the choices
+ * Every bot extends this. Agents that play whole steps themselves, like the GUI, implement Agent directly instead
+ */
+public abstract class ChoiceAgent implements Agent {
+
+    /**
+     * Builds the settlement from chooseSetupSettlement, then the road from chooseSetupRoad
+     */
+    @Override
+    public Vertex takeSetupTurn(Main main, Player player, Set<Vertex> validSpots) {
+        Vertex settlement = chooseSetupSettlement(main, player, validSpots);
+        main.buildSettlement(player, settlement);
+        main.buildRoad(player, chooseSetupRoad(main, player, settlement));
+        return settlement;
+    }
+
+    /**
+     * Discards whatever chooseDiscard says, one card at a time
+     */
+    @Override
+    public void discard(Main main, Player player, int cardsToKeep) {
+        while (player.getCardNumber() > cardsToKeep) {
+            Resource resource = chooseDiscard(main, player);
+            if (!main.removePlayerResource(player, resource)) {
+                throw new IllegalStateException(player + " tried to discard " + resource + ", which they don't have");
+            }
+        }
+    }
+
+    /**
+     * Moves the thief with chooseThiefSpot and chooseVictim on a 7, then plays the rest with takeTurn
+     */
+    @Override
+    public void startTurn(Main main, Player player, int dieRoll) {
+        if (dieRoll == 7) {
+            Hex location = chooseThiefSpot(main, player, main.getAvailableThiefSpots());
+            main.moveThief(player, chooseVictim(main, player, location), location);
+        }
+        if (main.getWinner() == null) {
+            takeTurn(main, player);
+        }
+    }
+
+    /**
+     * Chooses where to build a settlement during setup
+     * @param main the game being played
+     * @param player this agent is playing for
+     * @param validSpots where a settlement can be built
+     * @return one of validSpots
+     */
+    public abstract Vertex chooseSetupSettlement(Main main, Player player, Set<Vertex> validSpots);
+
+    /**
+     * Chooses where to build the free road during setup
+     * @param main the game being played
+     * @param player this agent is playing for
+     * @param settlement that the player just built, which the road must touch
+     * @return an empty edge of settlement
+     */
+    public abstract Edge chooseSetupRoad(Main main, Player player, Vertex settlement);
+
+    /**
+     * Chooses one card to discard when a 7 is rolled. Called again until the player has discarded enough
+     * @param main the game being played
+     * @param player this agent is playing for, who has more than 7 cards
+     * @return a resource the player has at least one of
+     */
+    public abstract Resource chooseDiscard(Main main, Player player);
+
+    /**
+     * Chooses where to move the thief
+     * @param main the game being played
+     * @param player this agent is playing for
+     * @param validSpots where the thief can be moved to
+     * @return one of validSpots
+     */
+    public abstract Hex chooseThiefSpot(Main main, Player player, Set<Hex> validSpots);
+
+    /**
+     * Chooses whose settlement to rob once the thief is moved
+     * @param main the game being played
+     * @param player this agent is playing for
+     * @param location where the thief was moved
+     * @return one of location's vertices. If it doesn't belong to another player, no one is robbed
+     */
+    public abstract Vertex chooseVictim(Main main, Player player, Hex location);
+
+    /**
+     * Plays the rest of the player's turn, after the dice were rolled and the thief was dealt with
+     * The turn ends when this method returns, and any trades offered through Main.offerTrade are answered before
+     * offerTrade returns
+     * @param main the game being played
+     * @param player this agent is playing for, whose turn it is
+     */
+    public abstract void takeTurn(Main main, Player player);
+}
@@ -0,0 +1,133 @@
+package settlers.bot;
+
+import settlers.Building;
+import settlers.Main;
+import settlers.Player;
+import settlers.board.*;
+import settlers.card.DevelopmentCard;
+import settlers.card.Resource;
+
+import java.util.Iterator;
+
+/**
+ * The moves of a main phase turn as ints, shared by the bots that pick their moves out of a list
+ * A move is its kind << 8 | what it is done to, and ending the turn is 0, so a list of moves is just an int array
+ */
+final class Moves {
+
+    static final Resource[] RESOURCES = Resource.values();
+    static final int HAND_RESOURCES = Resource.MISC.ordinal(); // every resource but MISC can be held
+
+    static final int END_TURN = 0;
+    static final int ROAD = 1;
+    static final int SETTLEMENT = 2;
+    static final int CITY = 3;
+    static final int DEVELOPMENT_CARD = 4;
+    static final int BANK_TRADE = 5; // given * 8 + gotten
+    static final int KNIGHT = 6; // the hex, where the opponent with the most cards is robbed
+    static final int YEAR_OF_PLENTY = 7; // first * 8 + second
+    static final int MONOPOLY = 8;
+    static final int ROAD_BUILDING = 9; // the first edge, where the second is the first spot it opens up
+
+    private Moves() {
+    }
+
+    static int move(int kind, int target) {
+        return kind << 8 | target;
+    }
+
+    static int kind(int move) {
+        return move >>> 8;
+    }
+
+    static int target(int move) {
+        return move & 0xFF;
+    }
+
+    /**
+     * Makes the move, if it is still legal
+     * @return false if it wasn't, so nothing was done
+     */
+    static boolean makeMove(Main main, Player player, int move) {
+        Board board = main.getBoard();
+        int target = target(move);
+        switch (kind(move)) {
+            case ROAD:
+                if (!main.playerCanBuild(player, Building.ROAD) || !isRoadSpot(main, player, target)) {
+                    return false;
+                }
+                main.buildRoad(player, board.getEdge(target));
+                return true;
+            case SETTLEMENT:
+                if (!main.playerCanBuild(player, Building.SETTLEMENT)
+                        || (main.getSettlementSpotBits(player) & 1L << target) == 0) {
+                    return false;
+                }
+                main.buildSettlement(player, board.getVertex(target));
+                return true;
+            case CITY:
+                Vertex vertex = board.getVertex(target);
+                if (!main.playerCanBuild(player, Building.CITY) || vertex.getPlayer() != player || vertex.isCity()) {
+                    return false;
+                }
+                main.buildCity(player, vertex);
+                return true;
+            case DEVELOPMENT_CARD:
+                if (!main.playerCanBuild(player, Building.DEVELOPMENT_CARD)) {
+                    return false;
+                }
+                main.buildDevelopmentCard(player);
+                return true;
+            case BANK_TRADE:
+                if (!main.canTrade(player, RESOURCES[target / 8])) {
+                    return false;
+                }
+                main.trade(player, RESOURCES[target / 8], RESOURCES[target % 8]);
+                return true;
+            case KNIGHT:
+                Hex location = board.getHex(target);
+                if (!main.canPlay(player, DevelopmentCard.KNIGHT) || location.hasThief()) {
+                    return false;
+                }
+                return main.playKnight(player, richestVictim(main.getBoard(), player, location), location);
+            case YEAR_OF_PLENTY:
+                return main.canPlay(player, DevelopmentCard.YEAR_OF_PLENTY)
+                        && main.playYearOfPlenty(player, RESOURCES[target / 8], RESOURCES[target % 8]);
+            case MONOPOLY:
+                return main.canPlay(player, DevelopmentCard.MONOPOLY) && main.playMonopoly(player, RESOURCES[target]);
+            case ROAD_BUILDING:
+                if (!main.canPlay(player, DevelopmentCard.ROAD_BUILDING) || !isRoadSpot(main, player, target)
+                        || player.getRoads().size() + 2 > Building.ROAD.getMax()) {
+                    return false;
+                }
+                Edge first = board.getEdge(target);
+                Iterator<Edge> seconds = main.getAvailableRoadSpotsGivenEdge(player, first).iterator();
+                return main.playRoadBuilding(player, first, seconds.hasNext() ? seconds.next() : null);
+            default:
+                return false;
+        }
+    }
+
+    private static boolean isRoadSpot(Main main, Player player, int edge) {
+        return (main.getRoadSpotBits(player, edge >>> 6) & 1L << edge) != 0;
+    }
+
+    /**
+     * @return the vertex of the other player on the hex with the most cards, or the hex's first vertex if there is
+     * no one to rob
+     */
+    private static Vertex richestVictim(Board board, Player player, Hex location) {
+        long vertices = board.getHexVertexBits(location.getId());
+        Vertex victim = board.getVertex(Long.numberOfTrailingZeros(vertices));
+        int mostCards = -1;
+        for (; vertices != 0; vertices &= vertices - 1) {
+            Vertex vertex = board.getVertex(Long.numberOfTrailingZeros(vertices));
+            Player owner = vertex.getPlayer();
+            if (owner != null && owner != player && owner.getCardNumber() > mostCards) {
+                victim = vertex;
+                mostCards = owner.getCardNumber();
+            }
+        }
+        return victim;
+    }
+}
@@ -0,0 +1,738 @@
+package settlers.bot;
+
+import settlers.Main;
+import settlers.Player;
+import settlers.board.Board;
+import settlers.board.BoardImpl;
+import settlers.board.Edge;
+import settlers.board.Hex;
+import settlers.board.Vertex;
+import settlers.card.Resource;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.stream.IntStream;
+
+/**
+ * Ranks every settlement and road a player could pick during setup, once per board layout, so setup choices are a
+ * walk down a list instead of a search
+ * A setup pick only depends on the layout and on which spots are already taken, so the book ranks every vertex for
+ * the first settlement, every vertex for the second settlement given each first one, and every vertex's edges for
+ * the free road. A pick is then the best ranked spot that is still open
+ *
+ * Boards that are rotations or mirror images of each other get the same book, since every layout is turned into
+ * the least of its 12 symmetric versions before it is looked up. Books are kept in memory, with the least recently
+ * used one thrown away once there are too many, and can also be saved to a directory, so the next run starts with
+ * them. The book is thread safe, and two threads that miss the same layout at once just both work it out
+ */
+public class OpeningBook {
+
+    public static final int DEFAULT_CAPACITY = 64;
+
+    private static final int MAGIC = 0x434F504E; // "COPN", so other files aren't mistaken for books
+    private static final int FORMAT = 1; // goes up whenever the scoring or the file changes, so old books aren't used
+    private static final int HEXES = 19;
+    private static final int VERTICES = 54;
+    private static final int EDGES = 72;
+    private static final int LAYOUT_BYTES = HEXES + VERTICES; // a byte per hex, then a byte per vertex's port
+    private static final int ROADS = 3; // the most edges a vertex has
+    private static final int PICKS_BETWEEN = 6; // the most other settlements placed between a player's two picks
+    private static final Resource[] RESOURCES = Resource.values();
+
+    // how the board is connected, which is the same for every layout, by id
+    private static final int[][] HEX_VERTICES = new int[HEXES][6];
+    private static final int[][] VERTEX_EDGES = new int[VERTICES][ROADS]; // or -1
+    private static final int[][] EDGE_ENDS = new int[EDGES][2];
+    private static final long[] NEIGHBORS = new long[VERTICES]; // [vertex] = bits of the vertices next to it
+    // the ways the board maps onto itself, as [symmetry][id] = where the id goes, with the identity first
+    private static final int[][] VERTEX_SYMMETRIES;
+    private static final int[][] HEX_SYMMETRIES;
+    private static final int[][] EDGE_SYMMETRIES;
+
+    static {
+        Board board = new BoardImpl(new SplittableRandom(0)); // any board will do, since only the shape is read
+        for (int hex = 0; hex < HEXES; hex++) {
+            Vertex[] vertices = board.getHex(hex).getVertices();
+            for (int i = 0; i < 6; i++) {
+                HEX_VERTICES[hex][i] = vertices[i].getId();
+            }
+        }
+        for (int vertex = 0; vertex < VERTICES; vertex++) {
+            Arrays.fill(VERTEX_EDGES[vertex], -1);
+            int roads = 0;
+            for (Edge edge : board.getVertex(vertex).getEdges()) {
+                if (edge != null) {
+                    VERTEX_EDGES[vertex][roads++] = edge.getId();
+                }
+            }
+            for (Vertex neighbor : board.getVertex(vertex).getAdjacentVertices()) {
+                if (neighbor != null) {
+                    NEIGHBORS[vertex] |= 1L << neighbor.getId();
+                }
+            }
+        }
+        for (int edge = 0; edge < EDGES; edge++) {
+            long ends = board.getEdgeEndBits(edge);
+            EDGE_ENDS[edge][0] = Long.numberOfTrailingZeros(ends);
+            EDGE_ENDS[edge][1] = 63 - Long.numberOfLeadingZeros(ends);
+        }
+        VERTEX_SYMMETRIES = findSymmetries();
+        HEX_SYMMETRIES = new int[VERTEX_SYMMETRIES.length][HEXES];
+        EDGE_SYMMETRIES = new int[VERTEX_SYMMETRIES.length][EDGES];
+        for (int symmetry = 0; symmetry < VERTEX_SYMMETRIES.length; symmetry++) {
+            int[] vertexMap = VERTEX_SYMMETRIES[symmetry];
+            for (int hex = 0; hex < HEXES; hex++) {
+                long image = 0;
+                for (int vertex : HEX_VERTICES[hex]) {
+                    image |= 1L << vertexMap[vertex];
+                }
+                HEX_SYMMETRIES[symmetry][hex] = hexOf(image);
+            }
+            for (int edge = 0; edge < EDGES; edge++) {
+                EDGE_SYMMETRIES[symmetry][edge] = edgeBetween(vertexMap[EDGE_ENDS[edge][0]],
+                        vertexMap[EDGE_ENDS[edge][1]]);
+            }
+        }
+    }
+
+    private final int capacity;
+    private final Path directory;
+    private final Map<String, Book> books; // guarded by itself, in the order they were last used
+    private long hits; // guarded by books
+    private long misses; // guarded by books
+    private IOException saveFailure; // guarded by books
+
+    /**
+     * Makes a book that is only kept in memory
+     * @see #OpeningBook(int, Path)
+     */
+    public OpeningBook(int capacity) {
+        this(capacity, null);
+    }
+
+    /**
+     * @param capacity the most layouts kept in memory at once
+     * @param directory where books are saved and looked for before they are worked out, which must already exist,
+     *                  or null to only keep them in memory
+     */
+    public OpeningBook(int capacity, Path directory) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("capacity must be positive, not " + capacity);
+        }
+        if (directory != null && !Files.isDirectory(directory)) {
+            throw new IllegalArgumentException(directory + " isn't a directory");
+        }
+        this.capacity = capacity;
+        this.directory = directory;
+        books = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Book> eldest) {
+                return size() > OpeningBook.this.capacity;
+            }
+        };
+    }
+
+    /**
+     * Gets the openings for a board, working them out first if this is a new layout
+     * This looks at every symmetry of the layout, so an agent should keep the Opening for as long as the board
+     * @param board whose layout the openings are for. Only its hexes, numbers and ports are read
+     * @return the openings, in terms of this board's ids
+     */
+    public Opening getOpening(Board board) {
+        byte[] layout = layoutOf(board);
+        int symmetry = canonicalSymmetry(layout);
+        String fingerprint = toHex(transform(layout, symmetry));
+        Book book;
+        synchronized (books) {
+            book = books.get(fingerprint);
+            if (book != null) {
+                hits++;
+            } else {
+                misses++;
+            }
+        }
+        if (book == null) {
+            book = load(fingerprint);
+            synchronized (books) {
+                Book raced = books.putIfAbsent(fingerprint, book);
+                book = raced == null ? book : raced;
+            }
+        }
+        return new Opening(book, symmetry);
+    }
+
+    /**
+     * @param board to fingerprint
+     * @return a string that is the same for two boards exactly when one's layout can be turned or flipped into the
+     * other's
+     */
+    public static String fingerprint(Board board) {
+        byte[] layout = layoutOf(board);
+        return toHex(transform(layout, canonicalSymmetry(layout)));
+    }
+
+    /**
+     * @return the number of layouts in memory
+     */
+    public int size() {
+        synchronized (books) {
+            return books.size();
+        }
+    }
+
+    /**
+     * @return how many times getOpening found its layout already in memory
+     */
+    public long getHits() {
+        synchronized (books) {
+            return hits;
+        }
+    }
+
+    /**
+     * @return how many times getOpening had to read or work out its layout
+     */
+    public long getMisses() {
+        synchronized (books) {
+            return misses;
+        }
+    }
+
+    /**
+     * Books that can't be saved are still used, so this is the only way to find out that one wasn't
+     * @return why the last book that couldn't be saved wasn't, or null if every one has been
+     */
+    public IOException getSaveFailure() {
+        synchronized (books) {
+            return saveFailure;
+        }
+    }
+
+    /**
+     * The book for one board, with the ids turned from the book's version of the layout into the board's
+     */
+    public static final class Opening {
+
+        private final Book book;
+        private final int[] toBoard; // [book vertex] = board vertex
+        private final int[] toBook; // [board vertex] = book vertex
+        private final int[] edgeToBoard; // [book edge] = board edge
+
+        private Opening(Book book, int symmetry) {
+            this.book = book;
+            toBook = VERTEX_SYMMETRIES[symmetry];
+            toBoard = new int[VERTICES];
+            for (int vertex = 0; vertex < VERTICES; vertex++) {
+                toBoard[toBook[vertex]] = vertex;
+            }
+            edgeToBoard = new int[EDGES];
+            for (int edge = 0; edge < EDGES; edge++) {
+                edgeToBoard[EDGE_SYMMETRIES[symmetry][edge]] = edge;
+            }
+        }
+
+        /**
+         * @param main the game in setup
+         * @param player whose pick it is
+         * @return the best ranked spot the player can still build on, or null if there are none
+         */
+        public Vertex chooseSettlement(Main main, Player player) {
+            Board board = main.getBoard();
+            long spots = main.getSettlementSpotBits(player);
+            byte[] ranking = book.firstPicks;
+            for (int vertex = 0; vertex < VERTICES; vertex++) {
+                if (board.getVertex(vertex).getPlayer() == player) {
+                    ranking = book.secondPicks[toBook[vertex]];
+                    break;
+                }
+            }
+            for (byte pick : ranking) {
+                int vertex = toBoard[pick];
+                if ((spots & 1L << vertex) != 0) {
+                    return board.getVertex(vertex);
+                }
+            }
+            return null;
+        }
+
+        /**
+         * @param main the game in setup
+         * @param settlement that was just built, which the road must touch
+         * @return the best ranked empty edge of the settlement, or null if they are all taken
+         */
+        public Edge chooseRoad(Main main, Vertex settlement) {
+            Board board = main.getBoard();
+            for (byte pick : book.roads[toBook[settlement.getId()]]) {
+                if (pick < 0) {
+                    break;
+                }
+                int edge = edgeToBoard[pick];
+                if ((board.getEmptyEdgeBits(edge >>> 6) & 1L << edge) != 0) {
+                    return board.getEdge(edge);
+                }
+            }
+            return null;
+        }
+
+        /**
+         * @param rank from 0 for the best
+         * @return the board id of the vertex the book ranks there for a first settlement
+         */
+        int getFirstPick(int rank) {
+            return toBoard[book.firstPicks[rank]];
+        }
+    }
+
+    /**
+     * The rankings for one layout, in terms of the ids of its least symmetric version
+     */
+    private static final class Book {
+        private final byte[] firstPicks; // every vertex, best first
+        private final byte[][] secondPicks; // [first pick] = every vertex, best first
+        private final byte[][] roads; // [vertex] = its edges, best first, then -1
+
+        private Book(byte[] firstPicks, byte[][] secondPicks, byte[][] roads) {
+            this.firstPicks = firstPicks;
+            this.secondPicks = secondPicks;
+            this.roads = roads;
+        }
+    }
+
+    // working out a book
+
+    /**
+     * Works out the rankings for a layout, with the second picks for each first pick worked out in parallel
+     * @param layout in the form made by layoutOf
+     */
+    private static Book compute(byte[] layout) {
+        int[] value = new int[VERTICES]; // what a settlement there is worth by itself
+        int[] resources = new int[VERTICES]; // bit ordinal of each resource around it
+        int[] pips = new int[VERTICES];
+        for (int hex = 0; hex < HEXES; hex++) {
+            Resource resource = RESOURCES[layout[hex] >>> 4];
+            int hexPips = pips(layout[hex] & 0xF);
+            for (int vertex : HEX_VERTICES[hex]) {
+                pips[vertex] += hexPips;
+                if (resource != Resource.MISC) {
+                    resources[vertex] |= 1 << resource.ordinal();
+                }
+            }
+        }
+        for (int vertex = 0; vertex < VERTICES; vertex++) {
+            value[vertex] = 4 * pips[vertex] + portValue(layout[HEXES + vertex], resources[vertex]);
+        }
+
+        byte[][] secondPicks = new byte[VERTICES][];
+        int[] firstScores = new int[VERTICES];
+        IntStream.range(0, VERTICES).parallel().forEach(first -> {
+            int[] scores = new int[VERTICES];
+            for (int second = 0; second < VERTICES; second++) {
+                scores[second] = second == first || (NEIGHBORS[first] & 1L << second) != 0 ? Integer.MIN_VALUE
+                        : pairScore(value, resources, first, second);
+            }
+            secondPicks[first] = rank(scores);
+            // the best few partners might be taken before the player picks again, so the first pick is only as
+            // good as what is likely to be left
+            int total = 0;
+            for (int i = 0; i < PICKS_BETWEEN; i++) {
+                total += scores[secondPicks[first][i]];
+            }
+            firstScores[first] = total;
+        });
+
+        byte[][] roads = new byte[VERTICES][ROADS];
+        for (int vertex = 0; vertex < VERTICES; vertex++) {
+            int[] scores = new int[ROADS];
+            for (int i = 0; i < ROADS; i++) {
+                int edge = VERTEX_EDGES[vertex][i];
+                scores[i] = edge < 0 ? Integer.MIN_VALUE : 0;
+                if (edge >= 0) {
+                    int end = EDGE_ENDS[edge][0] == vertex ? EDGE_ENDS[edge][1] : EDGE_ENDS[edge][0];
+                    for (long next = NEIGHBORS[end] & ~(1L << vertex); next != 0; next &= next - 1) {
+                        scores[i] = Math.max(scores[i], value[Long.numberOfTrailingZeros(next)]);
+                    }
+                }
+            }
+            byte[] order = rank(scores);
+            for (int i = 0; i < ROADS; i++) {
+                roads[vertex][i] = scores[order[i]] == Integer.MIN_VALUE ? -1
+                        : (byte) VERTEX_EDGES[vertex][order[i]];
+            }
+        }
+        return new Book(rank(firstScores), secondPicks, roads);
+    }
+
+    /**
+     * @return what a player with settlements on both vertices is worth, counting the pips, having many resources,
+     * and being able to build roads and cities with what they make
+     */
+    private static int pairScore(int[] value, int[] resources, int first, int second) {
+        int both = resources[first] | resources[second];
+        int score = value[first] + value[second] + 3 * Integer.bitCount(both);
+        if ((both & (1 << Resource.WOOD.ordinal() | 1 << Resource.BRICK.ordinal()))
+                == (1 << Resource.WOOD.ordinal() | 1 << Resource.BRICK.ordinal())) {
+            score += 4;
+        }
+        if ((both & (1 << Resource.WHEAT.ordinal() | 1 << Resource.ORE.ordinal()))
+                == (1 << Resource.WHEAT.ordinal() | 1 << Resource.ORE.ordinal())) {
+            score += 3;
+        }
+        return score;
+    }
+
+    /**
+     * @param port the vertex's port byte from the layout
+     * @return a little for a 3:1 port, and more for a 2:1 port of something the spot makes itself
+     */
+    private static int portValue(byte port, int resources) {
+        if (port == 0) {
+            return 0;
+        }
+        Resource resource = RESOURCES[port - 1];
+        if (resource == Resource.MISC) {
+            return 2;
+        }
+        return (resources & 1 << resource.ordinal()) != 0 ? 3 : 1;
+    }
+
+    /**
+     * @return the indexes of scores from highest to lowest, with ties going to the lower index
+     */
+    private static byte[] rank(int[] scores) {
+        Integer[] order = new Integer[scores.length];
+        for (int i = 0; i < order.length; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, (a, b) -> scores[a] != scores[b] ? Integer.compare(scores[b], scores[a]) : a - b);
+        byte[] ranked = new byte[scores.length];
+        for (int i = 0; i < ranked.length; i++) {
+            ranked[i] = (byte) (int) order[i];
+        }
+        return ranked;
+    }
+
+    private static int pips(int number) {
+        return number < 2 ? 0 : 6 - Math.abs(7 - number);
+    }
+
+    // layouts and their symmetries
+
+    /**
+     * @return a byte per hex, its resource ordinal << 4 | its number, and then a byte per vertex, its port
+     * ordinal + 1, or 0 for none
+     */
+    static byte[] layoutOf(Board board) {
+        byte[] layout = new byte[LAYOUT_BYTES];
+        for (int hex = 0; hex < HEXES; hex++) {
+            Hex spot = board.getHex(hex);
+            layout[hex] = (byte) (spot.getResource().ordinal() << 4 | spot.getNumber());
+        }
+        for (int vertex = 0; vertex < VERTICES; vertex++) {
+            Resource port = board.getVertex(vertex).getPort();
+            layout[HEXES + vertex] = (byte) (port == null ? 0 : port.ordinal() + 1);
+        }
+        return layout;
+    }
+
+    /**
+     * @return the layout with everything moved to where the symmetry takes it
+     */
+    private static byte[] transform(byte[] layout, int symmetry) {
+        byte[] moved = new byte[LAYOUT_BYTES];
+        for (int hex = 0; hex < HEXES; hex++) {
+            moved[HEX_SYMMETRIES[symmetry][hex]] = layout[hex];
+        }
+        for (int vertex = 0; vertex < VERTICES; vertex++) {
+            moved[HEXES + VERTEX_SYMMETRIES[symmetry][vertex]] = layout[HEXES + vertex];
+        }
+        return moved;
+    }
+
+    /**
+     * @return the symmetry that turns the layout into the least of its versions, which is the one books are kept as
+     */
+    private static int canonicalSymmetry(byte[] layout) {
+        int best = 0;
+        byte[] least = layout;
+        for (int symmetry = 1; symmetry < VERTEX_SYMMETRIES.length; symmetry++) {
+            byte[] moved = transform(layout, symmetry);
+            if (Arrays.compare(moved, least) < 0) {
+                best = symmetry;
+                least = moved;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * @return a new board with the same layout as board, but turned or flipped by the symmetry
+     */
+    static Board transform(Board board, int symmetry) {
+        byte[] moved = transform(layoutOf(board), symmetry);
+        Resource[] hexResources = new Resource[HEXES];
+        int[] hexNumbers = new int[HEXES];
+        Resource[] ports = new Resource[VERTICES];
+        for (int hex = 0; hex < HEXES; hex++) {
+            hexResources[hex] = RESOURCES[moved[hex] >>> 4];
+            hexNumbers[hex] = moved[hex] & 0xF;
+        }
+        for (int vertex = 0; vertex < VERTICES; vertex++) {
+            ports[vertex] = moved[HEXES + vertex] == 0 ? null : RESOURCES[moved[HEXES + vertex] - 1];
+        }
+        return new BoardImpl(hexResources, hexNumbers, ports);
+    }
+
+    /**
+     * @return where the symmetry takes the vertex
+     */
+    static int transformVertex(int vertex, int symmetry) {
+        return VERTEX_SYMMETRIES[symmetry][vertex];
+    }
+
+    /**
+     * @return the number of ways the board can be turned or flipped onto itself, which is 12 for a hexagon
+     */
+    static int symmetryCount() {
+        return VERTEX_SYMMETRIES.length;
+    }
+
+    /**
+     * Finds every way to move the vertices that keeps the same ones next to each other and the same ones around a hex
+     * Vertices are matched in breadth first order, so each one can only go next to where the one it was found from
+     * went, which leaves few choices to try
+     */
+    private static int[][] findSymmetries() {
+        int[] order = new int[VERTICES];
+        int[] parent = new int[VERTICES];
+        long seen = 1L;
+        int found = 1;
+        for (int i = 0; i < found; i++) {
+            for (long next = NEIGHBORS[order[i]] & ~seen; next != 0; next &= next - 1) {
+                int vertex = Long.numberOfTrailingZeros(next);
+                order[found] = vertex;
+                parent[vertex] = order[i];
+                found++;
+                seen |= 1L << vertex;
+            }
+        }
+        List<int[]> symmetries = new ArrayList<>();
+        int[] map = new int[VERTICES];
+        Arrays.fill(map, -1);
+        for (int root = 0; root < VERTICES; root++) {
+            if (Long.bitCount(NEIGHBORS[root]) == Long.bitCount(NEIGHBORS[order[0]])) {
+                map[order[0]] = root;
+                extend(order, parent, map, 1L << root, 1, symmetries);
+                map[order[0]] = -1;
+            }
+        }
+        symmetries.sort((a, b) -> Arrays.compare(a, b)); // so the identity comes first
+        return symmetries.toArray(new int[0][]);
+    }
+
+    private static void extend(int[] order, int[] parent, int[] map, long used, int placed, List<int[]> symmetries) {
+        if (placed == VERTICES) {
+            if (keepsHexes(map)) {
+                symmetries.add(map.clone());
+            }
+            return;
+        }
+        int vertex = order[placed];
+        for (long options = NEIGHBORS[map[parent[vertex]]] & ~used; options != 0; options &= options - 1) {
+            int image = Long.numberOfTrailingZeros(options);
+            if (fits(map, vertex, image)) {
+                map[vertex] = image;
+                extend(order, parent, map, used | 1L << image, placed + 1, symmetries);
+                map[vertex] = -1;
+            }
+        }
+    }
+
+    /**
+     * @return true if the vertex can go to image, and still be next to exactly the images of its placed neighbors
+     */
+    private static boolean fits(int[] map, int vertex, int image) {
+        if (Long.bitCount(NEIGHBORS[vertex]) != Long.bitCount(NEIGHBORS[image])) {
+            return false;
+        }
+        for (int other = 0; other < VERTICES; other++) {
+            if (map[other] >= 0 && ((NEIGHBORS[vertex] >>> other & 1) != (NEIGHBORS[image] >>> map[other] & 1))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean keepsHexes(int[] map) {
+        for (int hex = 0; hex < HEXES; hex++) {
+            long image = 0;
+            for (int vertex : HEX_VERTICES[hex]) {
+                image |= 1L << map[vertex];
+            }
+            if (hexOf(image) < 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return the hex with exactly these vertices, or -1 if there isn't one
+     */
+    private static int hexOf(long vertices) {
+        for (int hex = 0; hex < HEXES; hex++) {
+            long corners = 0;
+            for (int vertex : HEX_VERTICES[hex]) {
+                corners |= 1L << vertex;
+            }
+            if (corners == vertices) {
+                return hex;
+            }
+        }
+        return -1;
+    }
+
+    private static int edgeBetween(int first, int second) {
+        for (int edge : VERTEX_EDGES[first]) {
+            if (edge >= 0 && (EDGE_ENDS[edge][0] == second || EDGE_ENDS[edge][1] == second)) {
+                return edge;
+            }
+        }
+        throw new IllegalStateException("No edge between vertices " + first + " and " + second);
+    }
+
+    private static String toHex(byte[] bytes) {
+        StringBuilder hex = new StringBuilder(bytes.length * 2);
+        for (byte b : bytes) {
+            hex.append(Character.forDigit(b >>> 4 & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+        }
+        return hex.toString();
+    }
+
+    // saving books
+
+    /**
+     * Reads the layout's book from the directory, or works it out and saves it if it isn't there or can't be read
+     * A book that can't be saved is still returned, since the next run can always work it out again, and why is kept
+     * for getSaveFailure
+     * @param fingerprint of the least version of the layout, which is also its file's name
+     */
+    private Book load(String fingerprint) {
+        byte[] layout = new byte[LAYOUT_BYTES];
+        for (int i = 0; i < LAYOUT_BYTES; i++) {
+            layout[i] = (byte) Integer.parseInt(fingerprint.substring(2 * i, 2 * i + 2), 16);
+        }
+        if (directory == null) {
+            return compute(layout);
+        }
+        Path file = directory.resolve(fingerprint + ".book");
+        try (InputStream in = Files.newInputStream(file)) {
+            Book book = read(new DataInputStream(in), layout);
+            if (book != null) {
+                return book;
+            }
+        } catch (NoSuchFileException e) {
+            // it just hasn't been worked out yet
+        } catch (IOException e) {
+            // I work it out again and write over it, since a book is only ever a saved copy of compute
+        }
+        Book book = compute(layout);
+        Path temporary = null;
+        try {
+            temporary = Files.createTempFile(directory, fingerprint, ".tmp");
+            try (OutputStream out = Files.newOutputStream(temporary)) {
+                write(new DataOutputStream(out), layout, book);
+            }
+            // moved into place in one step, so other threads and runs never read half a book
+            Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            synchronized (books) {
+                saveFailure = e;
+            }
+        } finally {
+            deleteQuietly(temporary); // which is only still there if it couldn't be moved
+        }
+        return book;
+    }
+
+    private static void deleteQuietly(Path temporary) {
+        if (temporary == null) {
+            return;
+        }
+        try {
+            Files.deleteIfExists(temporary);
+        } catch (IOException e) {
+            // it is only a temporary file, so the worst that happens is it is left behind
+        }
+    }
+
+    private static void write(DataOutputStream out, byte[] layout, Book book) throws IOException {
+        out.writeInt(MAGIC);
+        out.writeByte(FORMAT);
+        out.write(layout);
+        out.write(book.firstPicks);
+        for (byte[] picks : book.secondPicks) {
+            out.write(picks);
+        }
+        for (byte[] roads : book.roads) {
+            out.write(roads);
+        }
+        out.flush();
+    }
+
+    /**
+     * @return the book in the stream, or null if it is from another format, for another layout, or has a pick that
+     * isn't a vertex or a road that isn't an edge, since a broken file shouldn't send an agent off the board
+     */
+    private static Book read(DataInputStream in, byte[] layout) throws IOException {
+        if (in.readInt() != MAGIC || in.readByte() != FORMAT) {
+            return null;
+        }
+        byte[] savedLayout = new byte[LAYOUT_BYTES];
+        in.readFully(savedLayout);
+        if (!Arrays.equals(savedLayout, layout)) {
+            return null;
+        }
+        byte[] firstPicks = new byte[VERTICES];
+        in.readFully(firstPicks);
+        if (!allBetween(firstPicks, 0, VERTICES - 1)) {
+            return null;
+        }
+        byte[][] secondPicks = new byte[VERTICES][VERTICES];
+        for (byte[] picks : secondPicks) {
+            in.readFully(picks);
+            if (!allBetween(picks, 0, VERTICES - 1)) {
+                return null;
+            }
+        }
+        byte[][] roads = new byte[VERTICES][ROADS];
+        for (byte[] vertexRoads : roads) {
+            in.readFully(vertexRoads);
+            if (!allBetween(vertexRoads, -1, EDGES - 1)) {
+                return null;
+            }
+        }
+        return new Book(firstPicks, secondPicks, roads);
+    }
+
+    private static boolean allBetween(byte[] values, int least, int most) {
+        for (byte value : values) {
+            if (value < least || value > most) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
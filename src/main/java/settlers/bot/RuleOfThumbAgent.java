@@ -0,0 +1,52 @@
+package settlers.bot;
+
+import settlers.Main;
+import settlers.Player;
+import settlers.board.Hex;
+import settlers.board.Vertex;
+import settlers.card.Resource;
+
+import java.util.Set;
+
+/**
+ * The choices the greedy and MCTS agents make the same way, by quick rules of thumb
+ * Discards are whatever the player has the most of, and the thief goes wherever a ThiefEvaluator expects the most
+ * from, between what it blocks and steals
+ */
+abstract class RuleOfThumbAgent extends ChoiceAgent {
+
+    final ThiefEvaluator thief = new ThiefEvaluator(); // for the thief after a 7, and the greedy agent's knights
+
+    /**
+     * Throws away whatever the player has the most of
+     */
+    @Override
+    public Resource chooseDiscard(Main main, Player player) {
+        int most = 0;
+        for (int resource = 1; resource < Moves.HAND_RESOURCES; resource++) {
+            if (player.getResourceCount(Moves.RESOURCES[resource])
+                    > player.getResourceCount(Moves.RESOURCES[most])) {
+                most = resource;
+            }
+        }
+        return Moves.RESOURCES[most];
+    }
+
+    /**
+     * Moves the thief to wherever the ThiefEvaluator expects the most from
+     * validSpots are every hex but the thief's, which is what the evaluator looks at anyway
+     */
+    @Override
+    public Hex chooseThiefSpot(Main main, Player player, Set<Hex> validSpots) {
+        thief.evaluate(main, player);
+        return main.getBoard().getHex(thief.getBestHex());
+    }
+
+    /**
+     * Robs whoever the ThiefEvaluator expects the most from
+     */
+    @Override
+    public Vertex chooseVictim(Main main, Player player, Hex location) {
+        return thief.chooseVictim(main, player, location);
+    }
+}
@@ -0,0 +1,221 @@
+package settlers.bot;
+
+import settlers.Building;
+import settlers.Main;
+import settlers.Player;
+import settlers.board.Board;
+import settlers.board.Hex;
+import settlers.board.Vertex;
+import settlers.card.Resource;
+
+import java.util.List;
+
+/**
+ * Works out what each place for the thief, and each player to rob there, is worth, for a 7 or a knight
+ * An option is worth what the thief blocks, plus what the steal is expected to be worth. The steal is a chance node:
+ * Main takes a card from the victim's hand at random, so each resource comes up as often as the victim has it, and
+ * the steal is worth the average over the victim's hand of what the card is worth to the player, plus what losing it
+ * costs the victim. Nothing is sampled, so the same position always gets the same values
+ *
+ * What a card is worth comes from the hand it goes into: a hand is worth the best of what it can build, less for
+ * every card it is short, and a card is worth how much it changes that. What the thief blocks is the pips it takes
+ * from each building on the hex, for about as long as it takes for the next 7
+ * Values are in cards, and opponents count for more the more points they have, so the leader is hurt first
+ *
+ * Everything is kept in arrays made with the evaluator, so evaluating allocates nothing and takes a few
+ * microseconds. An evaluator isn't thread safe, so each agent has its own
+ */
+public class ThiefEvaluator {
+
+    private static final Resource[] RESOURCES = Resource.values();
+    private static final int HAND_RESOURCES = Resource.MISC.ordinal(); // every resource but MISC can be held
+    private static final int HEXES = 19;
+    private static final int MAX_PLAYERS = 8;
+    private static final Building[] GOALS = {Building.CITY, Building.SETTLEMENT, Building.DEVELOPMENT_CARD,
+            Building.ROAD};
+    private static final double[] GOAL_VALUES = {2.0, 2.0, 1.0, 0.5}; // in cards, for GOALS
+    private static final double CARD_VALUE = 0.25; // what any card is worth, since it can always be traded
+    private static final double BLOCKED_TURNS = 6; // until the next 7, which comes once every 6 rolls on average
+    private static final double ROLLS = 36;
+
+    // per player, by place in the game, filled in once per evaluation
+    private final int[][] hands = new int[MAX_PLAYERS][HAND_RESOURCES];
+    private final double[][] gains = new double[MAX_PLAYERS][HAND_RESOURCES]; // what getting one more is worth
+    private final double[][] losses = new double[MAX_PLAYERS][HAND_RESOURCES]; // what losing one costs
+    private final double[] weights = new double[MAX_PLAYERS]; // how much hurting the player helps, or -1 for itself
+    private final int[] hand = new int[HAND_RESOURCES]; // scratch space for working out gains and losses
+
+    private int bestHex;
+    private int bestVictim; // the vertex to rob from
+    private double bestValue;
+
+    /**
+     * Finds the best option of moving the thief, out of every hex but the one it is on, and everyone there to rob
+     * The answer is read with getBestHex, getBestVictim and getBestValue
+     * @param main the game, where the player is about to move the thief
+     * @param player who is moving the thief
+     */
+    public void evaluate(Main main, Player player) {
+        prepare(main, player);
+        Board board = main.getBoard();
+        Hex thief = board.getThiefHex();
+        double unblocked = thief == null ? 0 : blockValue(board, thief.getId());
+        bestValue = Double.NEGATIVE_INFINITY;
+        for (int hex = 0; hex < HEXES; hex++) {
+            if (thief != null && hex == thief.getId()) {
+                continue;
+            }
+            int victim = bestVictimOn(main, player, hex);
+            double value = blockValue(board, hex) - unblocked + stealValue(main, player, victim);
+            if (value > bestValue) {
+                bestHex = hex;
+                bestVictim = victim;
+                bestValue = value;
+            }
+        }
+    }
+
+    /**
+     * Finds the best player to rob on a hex the thief is already going to, like when the hex was chosen elsewhere
+     * @param main the game, where the player is moving the thief
+     * @param player who is moving the thief
+     * @param location where the thief is going
+     * @return the vertex to rob from
+     */
+    public Vertex chooseVictim(Main main, Player player, Hex location) {
+        prepare(main, player);
+        return main.getBoard().getVertex(bestVictimOn(main, player, location.getId()));
+    }
+
+    /**
+     * @return the hex that the last evaluate found best
+     */
+    public int getBestHex() {
+        return bestHex;
+    }
+
+    /**
+     * @return the vertex to rob from that the last evaluate found best, which is someone else's if anyone has cards
+     * there, and otherwise a vertex of the hex that isn't the player's, if there is one
+     */
+    public int getBestVictim() {
+        return bestVictim;
+    }
+
+    /**
+     * @return what the last evaluate's best option is worth, in cards, compared to leaving the thief where it was
+     */
+    public double getBestValue() {
+        return bestValue;
+    }
+
+    /**
+     * @return the vertex on the hex whose owner is worth robbing the most, or one that robs no one if no one is
+     */
+    private int bestVictimOn(Main main, Player player, int hex) {
+        Board board = main.getBoard();
+        long vertices = board.getHexVertexBits(hex);
+        int best = Long.numberOfTrailingZeros(vertices);
+        double bestSteal = Double.NEGATIVE_INFINITY;
+        for (; vertices != 0; vertices &= vertices - 1) {
+            int vertex = Long.numberOfTrailingZeros(vertices);
+            if (board.getVertex(vertex).getPlayer() == player) {
+                continue; // robbing yourself is never better than robbing no one
+            }
+            double steal = stealValue(main, player, vertex);
+            if (steal > bestSteal) {
+                best = vertex;
+                bestSteal = steal;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * @return what robbing the owner of the vertex is expected to be worth, or 0 if it robs no one
+     */
+    private double stealValue(Main main, Player player, int vertex) {
+        Player victim = main.getBoard().getVertex(vertex).getPlayer();
+        if (victim == null || victim == player) {
+            return 0;
+        }
+        return expectedSteal(player.getID(), victim.getID());
+    }
+
+    /**
+     * The chance node: the average over the victim's cards of what taking that card is worth
+     * @return what the stealer expects to get out of robbing the victim, using the hands from prepare
+     */
+    double expectedSteal(int stealer, int victim) {
+        int cards = 0;
+        double total = 0;
+        for (int resource = 0; resource < HAND_RESOURCES; resource++) {
+            int count = hands[victim][resource];
+            cards += count;
+            total += count * (gains[stealer][resource] + weights[victim] * losses[victim][resource]);
+        }
+        return cards == 0 ? 0 : total / cards;
+    }
+
+    /**
+     * @return what the thief on the hex keeps from everyone over the next few turns, counting for the player and
+     * against them
+     */
+    private double blockValue(Board board, int hex) {
+        if (board.getHex(hex).getResource() == Resource.MISC) {
+            return 0;
+        }
+        double perBuilding = board.getHexPips(hex) * BLOCKED_TURNS / ROLLS;
+        double value = 0;
+        for (long vertices = board.getHexVertexBits(hex); vertices != 0; vertices &= vertices - 1) {
+            Vertex vertex = board.getVertex(Long.numberOfTrailingZeros(vertices));
+            Player owner = vertex.getPlayer();
+            if (owner != null) {
+                value += weights[owner.getID()] * perBuilding * (vertex.isCity() ? 2 : 1);
+            }
+        }
+        return value;
+    }
+
+    /**
+     * Reads every player's hand and points, and works out what each card is worth to them
+     */
+    void prepare(Main main, Player player) {
+        List<Player> players = main.getPlayers();
+        if (players.size() > MAX_PLAYERS) {
+            throw new IllegalArgumentException("Can't evaluate a game of " + players.size() + " players");
+        }
+        for (int i = 0; i < players.size(); i++) {
+            Player other = players.get(i);
+            for (int resource = 0; resource < HAND_RESOURCES; resource++) {
+                hands[i][resource] = other.getResourceCount(RESOURCES[resource]);
+                hand[resource] = hands[i][resource];
+            }
+            double value = handValue(hand);
+            for (int resource = 0; resource < HAND_RESOURCES; resource++) {
+                hand[resource]++;
+                gains[i][resource] = CARD_VALUE + handValue(hand) - value;
+                hand[resource] -= 2;
+                losses[i][resource] = hand[resource] < 0 ? 0 : CARD_VALUE + value - handValue(hand);
+                hand[resource]++;
+            }
+            // a player with 10 points would win, so hurting them is worth twice as much as hurting a new player
+            weights[i] = other == player ? -1 : 1 + other.getVictoryPoints() / 10.0;
+        }
+    }
+
+    /**
+     * @return the most a hand is worth, out of everything it could build, where each card it is short halves that
+     */
+    static double handValue(int[] hand) {
+        double best = 0;
+        for (int goal = 0; goal < GOALS.length; goal++) {
+            int cardsShort = 0;
+            for (int resource = 0; resource < HAND_RESOURCES; resource++) {
+                cardsShort += Math.max(0, GOALS[goal].getCost(RESOURCES[resource]) - hand[resource]);
+            }
+            best = Math.max(best, GOAL_VALUES[goal] / (1 << cardsShort));
+        }
+        return best;
+    }
+}
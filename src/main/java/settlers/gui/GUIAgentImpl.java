@@ -0,0 +1,56 @@
+package settlers.gui;
+
+import settlers.Main;
+import settlers.Player;
+import settlers.board.Vertex;
+import settlers.bot.Agent;
+import settlers.card.Resource;
+
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * The Agent for people playing at the GUI, which hands each step of the game to a GUIMain
+ * The people make their choices in their windows, and GUIMain calls Main itself, so this overrides whole steps
+ * instead of making the small choices. Each step holds Main's thread until the player is done with it
+ */
+public class GUIAgentImpl implements Agent {
+
+    private final GUIMain gui;
+
+    /**
+     * @param gui that shows the game, which can be shared by every player's agent
+     */
+    public GUIAgentImpl(GUIMain gui) {
+        if (gui == null) {
+            throw new IllegalArgumentException("gui is null");
+        }
+        this.gui = gui;
+    }
+
+    @Override
+    public Vertex takeSetupTurn(Main main, Player player, Set<Vertex> validSpots) {
+        return gui.startSetupTurn(player, validSpots);
+    }
+
+    @Override
+    public void discard(Main main, Player player, int cardsToKeep) {
+        gui.startDiscard(player, cardsToKeep);
+    }
+
+    /**
+     * Gives the turn to the player's window, where they move the thief themselves if it was a 7
+     */
+    @Override
+    public void startTurn(Main main, Player player, int dieRoll) {
+        gui.startTurn(player, dieRoll);
+    }
+
+    /**
+     * People answer trades in their windows, through GUIMain.trade, so trades offered through Main are declined
+     */
+    @Override
+    public boolean acceptTrade(Main main, Player player, Player trader, Map<Resource, Integer> resourcesExchanged) {
+        return false;
+    }
+}
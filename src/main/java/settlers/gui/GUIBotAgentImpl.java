@@ -0,0 +1,57 @@
+package settlers.gui;
+
+import settlers.Main;
+import settlers.Player;
+import settlers.board.Vertex;
+import settlers.bot.Agent;
+import settlers.card.Resource;
+
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * The Agent for a seat at the GUI that the computer plays, like with an AgentMctsImpl
+ * The computer makes every choice and calls Main itself, without holding Main's thread for a window, and once each
+ * of its steps is done, GUIMain shows what it did to the people at the other windows
+ */
+public class GUIBotAgentImpl implements Agent {
+
+    private final GUIMain gui;
+    private final Agent computer;
+
+    /**
+     * @param gui that shows the game to the people playing
+     * @param computer that plays this seat
+     */
+    public GUIBotAgentImpl(GUIMain gui, Agent computer) {
+        if (gui == null || computer == null) {
+            throw new IllegalArgumentException("null values not permitted");
+        }
+        this.gui = gui;
+        this.computer = computer;
+    }
+
+    @Override
+    public Vertex takeSetupTurn(Main main, Player player, Set<Vertex> validSpots) {
+        Vertex settlement = computer.takeSetupTurn(main, player, validSpots);
+        gui.showComputerMoves(player, 0);
+        return settlement;
+    }
+
+    @Override
+    public void discard(Main main, Player player, int cardsToKeep) {
+        computer.discard(main, player, cardsToKeep);
+        gui.showComputerMoves(player, 0);
+    }
+
+    @Override
+    public void startTurn(Main main, Player player, int dieRoll) {
+        computer.startTurn(main, player, dieRoll);
+        gui.showComputerMoves(player, dieRoll);
+    }
+
+    @Override
+    public boolean acceptTrade(Main main, Player player, Player trader, Map<Resource, Integer> resourcesExchanged) {
+        return computer.acceptTrade(main, player, trader, resourcesExchanged);
+    }
+}
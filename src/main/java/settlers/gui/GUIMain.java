@@ -146,20 +146,36 @@ public interface GUIMain {
     Set<Vertex> getAvailableCitySpots(Player player);
 
     /**
-     * Starts a turn. Called by Main, updates resources and die number in GUIPlayers
+     * Starts a turn. Called by GUIAgentImpl, updates resources and die number in GUIPlayers
+     * Returns once the player passes
      * @param player the player whose turn it is
      * @param dieRoll the sum of both die rolls
      */
     public void startTurn(Player player, int dieRoll);
 
     /**
-     * Called by Main. Has the player built a settlement and road during setup
+     * Called by GUIAgentImpl when a 7 is rolled. Has the player discard, and returns once they have
+     * @param player who has more than 7 cards
+     * @param cardsToKeep how many cards the player must end with
+     */
+    public void startDiscard(Player player, int cardsToKeep);
+
+    /**
+     * Called by GUIAgentImpl. Has the player built a settlement and road during setup
      * @param player whose turn it is
      * @param validSpots where a settlement can be built during setup
      * @return the Vertex where the player built a Settlement
      */
     public Vertex startSetupTurn(Player player, Set<Vertex> validSpots);
 
+    /**
+     * Called by GUIBotAgentImpl once a computer player is done with a step. The computer calls Main directly instead
+     * of going through the GUI, so this shows everything on the board as it now is, in every window
+     * @param player the computer player
+     * @param dieRoll that started the computer's turn, or 0 if the step wasn't a turn
+     */
+    public void showComputerMoves(Player player, int dieRoll);
+
     /**
      * Moves the thief
      * @param player the player who moved the thief
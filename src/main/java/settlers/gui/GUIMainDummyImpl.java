@@ -118,11 +118,21 @@ public class GUIMainDummyImpl implements GUIMain {
      * @param validSpots where a settlement can be built during setup
      * @return the Vertex where the player built a Settlement
      */
+    @Override
+    public void startDiscard(Player player, int cardsToKeep) {
+
+    }
+
     @Override
     public Vertex startSetupTurn(Player player, Set<Vertex> validSpots) {
         return null;
     }
 
+    @Override
+    public void showComputerMoves(Player player, int dieRoll) {
+
+    }
+
     @Override
     public void moveThief(Player player, Vertex vertex, Hex position) {
 
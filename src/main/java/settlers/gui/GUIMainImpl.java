@@ -303,42 +303,46 @@ public class GUIMainImpl implements GUIMain {
         }
     }
 
-    private void forcePlayersToDiscardHalfOfHand(){
+    /**
+     * Has the player discard until they have cardsToKeep cards, and holds until they have
+     * @param player who has more than 7 cards
+     * @param cardsToKeep how many cards the player must end with
+     */
+    @Override
+    public void startDiscard(Player player, int cardsToKeep){
+        startMainPhaseIfNeeded();
+        updateResourceCounters();
 
-        for(Player plr : main.getPlayers()) {
-            if (plr.hasMoreThan7Cards()) {
-                int targetResourceQuantity = plr.getCardNumber() / 2 + plr.getCardNumber() % 2;
-                playerGUIs.get(plr).discardUntil(targetResourceQuantity);
-                playersWhoHaveNotDiscarded.put(plr,targetResourceQuantity);
-            }
-        }
+        playerGUIs.get(player).discardUntil(cardsToKeep);
+        playersWhoHaveNotDiscarded.put(player,cardsToKeep);
 
-        if(playersWhoHaveNotDiscarded.size() > 0) {
-            threadManager.startHold();
+        threadManager.startHold();
+    }
+
+    /**
+     * Lets the GUIPlayers know that setup is over, the first time a main phase method is called
+     */
+    private void startMainPhaseIfNeeded(){
+        if(!mainPhase){
+            mainPhase = true;
+            startMainPhase();
         }
     }
 
     /**
-     * Starts a turn. Called by Main, updates resources and die number in GUIPlayers
+     * Starts a turn. Called by GUIAgentImpl, updates resources and die number in GUIPlayers
+     * By now, everyone has already discarded if it was a 7
      * @param player the player whose turn it is
      * @param dieRoll the sum of both die rolls
      */
     @Override
     public void startTurn(Player player, int dieRoll){
         //Updates mainPhase if needed
-        if(!mainPhase){
-            mainPhase = true;
-            startMainPhase();
-        }
+        startMainPhaseIfNeeded();
 
         //Updates dice and resources for all players
         updateResourceCounters(dieRoll);
 
-        //Forces players to discard half of their hand if they have more than 7 cards. Buggy so commented out
-        if(dieRoll == 7){
-            forcePlayersToDiscardHalfOfHand();
-        }
-
         //Starts player's turn
         playerGUIs.get(player).startTurn(dieRoll);
 
@@ -347,7 +351,7 @@ public class GUIMainImpl implements GUIMain {
     }
 
     /**
-     * Called by Main. Has the player built a settlement and road during setup
+     * Called by GUIAgentImpl. Has the player built a settlement and road during setup
      * @param player whose turn it is
      * @param validSpots where a settlement can be built during setup
      * @return the Vertex where the player built a Settlement
@@ -365,6 +369,50 @@ public class GUIMainImpl implements GUIMain {
         return playerGUIs.get(player).getLastSettlementSpot();
     }
 
+    /**
+     * Called by GUIBotAgentImpl. Draws everything on the board again, since the computer didn't build through here
+     * Drawing a piece that is already drawn doesn't change anything, so there is no need to work out what is new
+     * @param player the computer player
+     * @param dieRoll that started the computer's turn, or 0 if the step wasn't a turn
+     */
+    @Override
+    public void showComputerMoves(Player player, int dieRoll){
+        if(dieRoll != 0){
+            startMainPhaseIfNeeded();
+            updateResourceCounters(dieRoll);
+        }
+
+        for(Vertex vertex : main.getBoard().getVertices()){
+            if(vertex.getPlayer() != null){
+                for(GUIPlayer gui : playerGUIs.values()){
+                    if(vertex.isCity()){
+                        gui.setCity(vertex.getPlayer(),vertex);
+                    }else{
+                        gui.setSettlement(vertex.getPlayer(),vertex);
+                    }
+                }
+            }
+        }
+        for(Edge edge : main.getBoard().getEdges()){
+            if(edge.getPlayer() != null){
+                for(GUIPlayer gui : playerGUIs.values()){
+                    gui.setRoad(edge.getPlayer(),edge);
+                }
+            }
+        }
+        for(Hex hex : main.getBoard().getHexes()){
+            if(hex.hasThief()){
+                updateGUISAfterThiefMove(hex);
+            }
+        }
+
+        updateDevelopmentCounters(player);
+        updateKnightCounters(player);
+        updateLongestRoad();
+        updateLargestArmy();
+        updateResourceCounters();
+    }
+
     public Set<Hex> getAvailableThiefSpots(){
         return main.getAvailableThiefSpots();
     }
@@ -1,37 +1,55 @@
 package settlers.gui;
 
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Holds Main's thread while the people at the GUI play, and lets it go when the GUI's thread says they're done
+ * The held thread is parked on a Condition, so it uses no CPU while it waits, and wakes as soon as it is released
+ */
 public class GUIThreadManagerImpl implements GUIThreadManager {
-    private boolean holding;
+    private final Lock lock = new ReentrantLock();
+    private final Condition released = lock.newCondition();
+    private boolean holding; // only read or written with the lock held, which also makes it visible across threads
 
     public GUIThreadManagerImpl(){
         holding = false;
     }
 
     /**
-     * Starts a loop which holds the GUIs in a stasis
+     * Starts a hold, and blocks until stopHold is called from another thread
      */
     public void startHold(){
-        if(holding)throw new IllegalStateException("startHold was called while GUIThreadManagerImpl was already holding");
-        holding = true;
-
-        //System.out.println("+ Hold Started");
+        lock.lock();
+        try {
+            if(holding)throw new IllegalStateException("startHold was called while GUIThreadManagerImpl was already holding");
+            holding = true;
 
-        while (holding){
-            try {
-                Thread.sleep(1);
-            }catch (InterruptedException e){
-                throw new IllegalStateException("Unexpected InterruptedException was thrown. Exception: " + e.getMessage());
+            // awaiting can wake up for no reason, so I check that the hold really was stopped
+            while (holding){
+                released.await();
             }
+        }catch (InterruptedException e){
+            holding = false; // no one is being held anymore
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Unexpected InterruptedException was thrown. Exception: " + e.getMessage());
+        }finally {
+            lock.unlock();
         }
     }
 
     /**
-     * Stops the loop which holds the GUIs in a stasis
+     * Stops the hold, waking up the thread that started it
      */
     public void stopHold(){
-        if(!holding)throw new IllegalStateException("stopHold was called while GUIThreadManagerImpl was not holding");
-        //System.out.println("+ Hold Finished");
-
-        holding = false;
+        lock.lock();
+        try {
+            if(!holding)throw new IllegalStateException("stopHold was called while GUIThreadManagerImpl was not holding");
+            holding = false;
+            released.signalAll();
+        }finally {
+            lock.unlock();
+        }
     }
-}
\ No newline at end of file
+}
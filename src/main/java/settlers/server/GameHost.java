@@ -0,0 +1,148 @@
+package settlers.server;
+
+import settlers.GameResult;
+import settlers.MainImpl;
+import settlers.bot.Agent;
+
+import java.lang.reflect.Method;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs many games at once, each on its own thread, for as long as they take
+ * Games with people in them spend nearly all their time waiting for someone to move, so each game gets a thread that
+ * can block for as long as it likes. When the JVM has virtual threads (Java 21 and up), those are used, so a waiting
+ * game costs a few KB of heap instead of a whole platform thread. On older JVMs, it falls back to platform threads
+ * The source targets Java 11, so virtual threads are found by reflection when the host is loaded
+ */
+public class GameHost implements AutoCloseable {
+
+    private static final ThreadFactory VIRTUAL_THREADS = findVirtualThreadFactory();
+
+    private final ThreadFactory threadFactory;
+    private final Set<Thread> threads; // the games still being played, so close can stop them
+    private final AtomicInteger gamesStarted;
+    private final Object lock; // held while starting a game or closing, so no game can start after close looks
+    private boolean closed; // guarded by lock
+
+    /**
+     * Makes a host that uses virtual threads if the JVM has them, and platform threads otherwise
+     */
+    public GameHost() {
+        this(VIRTUAL_THREADS != null ? VIRTUAL_THREADS : platformThreadFactory());
+    }
+
+    /**
+     * @param threadFactory makes the thread each game is played on
+     */
+    public GameHost(ThreadFactory threadFactory) {
+        if (threadFactory == null) {
+            throw new IllegalArgumentException("threadFactory is null");
+        }
+        this.threadFactory = threadFactory;
+        threads = ConcurrentHashMap.newKeySet();
+        gamesStarted = new AtomicInteger();
+        lock = new Object();
+    }
+
+    /**
+     * @return true if this JVM has virtual threads, so new GameHost() uses them
+     */
+    public static boolean hasVirtualThreads() {
+        return VIRTUAL_THREADS != null;
+    }
+
+    /**
+     * @return a factory for daemon platform threads, for hosts that shouldn't use virtual threads
+     */
+    public static ThreadFactory platformThreadFactory() {
+        AtomicInteger number = new AtomicInteger();
+        return task -> {
+            Thread thread = new Thread(task, "game-" + number.getAndIncrement());
+            thread.setDaemon(true); // a host left open shouldn't keep the program running
+            return thread;
+        };
+    }
+
+    /**
+     * Thread.ofVirtual().factory(), if this JVM has it
+     */
+    private static ThreadFactory findVirtualThreadFactory() {
+        try {
+            Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+            Method factory = Class.forName("java.lang.Thread$Builder").getMethod("factory");
+            return (ThreadFactory) factory.invoke(builder);
+        } catch (ReflectiveOperationException e) {
+            return null; // before Java 21, or 19 and 20 without preview features on
+        }
+    }
+
+    /**
+     * Starts a game on its own thread, and returns right away
+     * @param agents controlling the players, where agent i controls player i. There must be 2 to 4 of them
+     *               They are called on the game's thread, and may block it for as long as a person takes
+     * @param maxRounds after which the game is stopped without a winner
+     * @param seed that decides everything random in the game, the same way as MainImpl.playHeadlessGame
+     * @return the game's result, once it is over. If the game fails, or is stopped by close, it fails too
+     *         It completes on the game's thread, so actions chained onto it run there
+     * @throws IllegalStateException if the host is closed
+     */
+    public CompletableFuture<GameResult> host(List<Agent> agents, int maxRounds, long seed) {
+        CompletableFuture<GameResult> game = new CompletableFuture<>();
+        Thread thread = threadFactory.newThread(() -> {
+            GameResult result = null;
+            Throwable failure = null;
+            try {
+                result = MainImpl.playHeadlessGame(agents, maxRounds, seed);
+            } catch (Throwable e) {
+                failure = e;
+            }
+            // the game stops counting as running before anyone waiting on it hears it is over
+            threads.remove(Thread.currentThread());
+            if (failure == null) {
+                game.complete(result);
+            } else {
+                game.completeExceptionally(failure);
+            }
+        });
+        synchronized (lock) {
+            if (closed) {
+                throw new IllegalStateException("The host is closed");
+            }
+            threads.add(thread);
+            gamesStarted.incrementAndGet();
+            thread.start(); // before close can see it, since interrupting a thread that hasn't started does nothing
+        }
+        return game;
+    }
+
+    /**
+     * @return the number of games still being played
+     */
+    public int getRunningGames() {
+        return threads.size();
+    }
+
+    /**
+     * @return the number of games this host has started
+     */
+    public int getGamesStarted() {
+        return gamesStarted.get();
+    }
+
+    /**
+     * Stops taking games, and interrupts the ones still being played
+     * Agents that are waiting should stop when interrupted, and the games' futures then fail
+     */
+    @Override
+    public void close() {
+        synchronized (lock) {
+            closed = true;
+            for (Thread thread : threads) {
+                thread.interrupt();
+            }
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package settlers.server;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Counts how long each type of message takes, for any number of threads at once
+ * Times are kept in a histogram with a bucket for each power of 2 nanoseconds, so the percentiles are only good to
+ * within a factor of 2, but recording one never allocates or locks
+ */
+public class LatencyStats {
+
+    private static final int TYPES = 128; // message types are bytes from 0 up
+    private static final int BUCKETS = 40; // bucket i is for times under 2^i ns, and 2^39 ns is about 9 minutes
+
+    private final AtomicLongArray counts; // [type * BUCKETS + bucket]
+    private final AtomicLongArray totals; // [type], in ns
+
+    public LatencyStats() {
+        counts = new AtomicLongArray(TYPES * BUCKETS);
+        totals = new AtomicLongArray(TYPES);
+    }
+
+    /**
+     * @param type of the message that was timed
+     * @param nanos how long it took
+     */
+    public void record(byte type, long nanos) {
+        if (type < 0) {
+            throw new IllegalArgumentException("There is no message type " + type);
+        }
+        int bucket = Math.min(BUCKETS - 1, 64 - Long.numberOfLeadingZeros(Math.max(nanos, 0)));
+        counts.incrementAndGet(type * BUCKETS + bucket);
+        totals.addAndGet(type, nanos);
+    }
+
+    /**
+     * Adds all of another's times to this one
+     */
+    public void merge(LatencyStats other) {
+        for (int i = 0; i < counts.length(); i++) {
+            counts.addAndGet(i, other.counts.get(i));
+        }
+        for (int i = 0; i < totals.length(); i++) {
+            totals.addAndGet(i, other.totals.get(i));
+        }
+    }
+
+    /**
+     * @return the number of messages of this type timed
+     */
+    public long getCount(byte type) {
+        long count = 0;
+        for (int bucket = 0; bucket < BUCKETS; bucket++) {
+            count += counts.get(type * BUCKETS + bucket);
+        }
+        return count;
+    }
+
+    /**
+     * @return the average time of this type of message in ns, or 0 if none were timed
+     */
+    public double getMean(byte type) {
+        long count = getCount(type);
+        return count == 0 ? 0 : (double) totals.get(type) / count;
+    }
+
+    /**
+     * @param type of message
+     * @param fraction of messages that were at least this fast, like 0.99 for the 99th percentile
+     * @return the top of the bucket with that percentile in ns, or 0 if none were timed
+     */
+    public long getPercentile(byte type, double fraction) {
+        long target = (long) Math.ceil(getCount(type) * fraction);
+        long seen = 0;
+        for (int bucket = 0; bucket < BUCKETS; bucket++) {
+            seen += counts.get(type * BUCKETS + bucket);
+            if (seen >= target && seen > 0) {
+                return 1L << bucket;
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * @param names what to call each type, by type, where types without a name or without times are left out
+     * @return a table of the count, mean, 50th and 99th percentile of each type, in microseconds
+     */
+    public String toTable(String[] names) {
+        StringBuilder table = new StringBuilder("message, count, mean us, p50 us, p99 us\n");
+        for (int type = 0; type < Math.min(names.length, TYPES); type++) {
+            if (names[type] != null && getCount((byte) type) > 0) {
+                table.append(String.format("%s, %d, %.1f, %.1f, %.1f%n", names[type], getCount((byte) type),
+                        getMean((byte) type) / 1e3, getPercentile((byte) type, 0.5) / 1e3,
+                        getPercentile((byte) type, 0.99) / 1e3));
+            }
+        }
+        return table.toString();
+    }
+}
@@ -0,0 +1,466 @@
+package settlers.server;
+
+import settlers.Building;
+import settlers.GameState;
+import settlers.Main;
+import settlers.Player;
+import settlers.board.*;
+import settlers.bot.Agent;
+import settlers.card.DevelopmentCard;
+import settlers.card.Resource;
+
+import java.nio.ByteBuffer;
+import java.util.*;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+
+/**
+ * The Agent for a player on a remote client, which prompts the client for each step and carries out its commands
+ * It runs on the game's thread, blocking on the commands the server's selector thread hands it, so it is to the
+ * network what GUIAgentImpl is to the GUI. Every command is checked before it is carried out, since clients can't
+ * be trusted, and gets one reply, timed from when the selector read it
+ */
+class NetworkAgent implements Agent {
+
+    private static final Resource[] RESOURCES = Resource.values();
+    private static final int HEXES = 19;
+    private static final int EDGES = 72;
+    private static final Command DISCONNECTED = new Command(new byte[0], 0);
+
+    /**
+     * A message from the client, with when it was read
+     */
+    private static final class Command {
+        final byte[] message;
+        final long readAt;
+
+        Command(byte[] message, long readAt) {
+            this.message = message;
+            this.readAt = readAt;
+        }
+
+        byte type() {
+            return message[0];
+        }
+
+        /**
+         * @return the payload byte at that place, or -128 if the message is too short, which no id ever is
+         */
+        byte arg(int at) {
+            return 1 + at < message.length ? message[1 + at] : Byte.MIN_VALUE;
+        }
+    }
+
+    private final NioGameServer.Connection connection;
+    private final LatencyStats latency;
+    private final BlockingQueue<Command> commands;
+    // whether the game is waiting on this client, so its commands are taken. Guarded by this, so a command can't be
+    // queued just as a step ends, where nothing would ever answer it
+    private boolean prompting;
+
+    /**
+     * @param connection to the client, which replies and prompts are sent through
+     * @param latency where the time from reading each command to replying is recorded
+     */
+    NetworkAgent(NioGameServer.Connection connection, LatencyStats latency) {
+        this.connection = connection;
+        this.latency = latency;
+        commands = new LinkedBlockingQueue<>();
+    }
+
+    /**
+     * Hands the agent a command from its client, called on the selector's thread
+     * Commands sent while the client isn't being prompted are refused right away, since nothing would take them
+     */
+    synchronized void receive(byte[] message, long readAt) {
+        Command command = new Command(message, readAt);
+        if (prompting) {
+            commands.add(command);
+        } else {
+            reply(command, Protocol.NOT_NOW);
+        }
+    }
+
+    /**
+     * Tells the agent its client is gone, so the game fails the next time it waits on it
+     */
+    void disconnected() {
+        commands.add(DISCONNECTED);
+    }
+
+    @Override
+    public Vertex takeSetupTurn(Main main, Player player, Set<Vertex> validSpots) {
+        startPrompt();
+        try {
+            long validBits = 0;
+            for (Vertex vertex : validSpots) {
+                validBits |= 1L << vertex.getId();
+            }
+            prompt(Protocol.SETUP_SETTLEMENT_PROMPT, Protocol.bits(validBits));
+            Vertex settlement = null;
+            while (settlement == null) {
+                Command command = nextCommand(main, player);
+                if (command.type() != Protocol.SETUP_SETTLEMENT) {
+                    reply(command, Protocol.NOT_NOW);
+                } else if (!isSet(validBits, command.arg(0))) {
+                    reply(command, Protocol.ILLEGAL);
+                } else {
+                    settlement = main.getBoard().getVertex(command.arg(0));
+                    main.buildSettlement(player, settlement);
+                    reply(command, Protocol.OK);
+                }
+            }
+
+            long[] words = new long[2];
+            for (Edge edge : settlement.getEdges()) {
+                if (edge != null && edge.getPlayer() == null) {
+                    words[edge.getId() >>> 6] |= 1L << (edge.getId() & 63);
+                }
+            }
+            prompt(Protocol.SETUP_ROAD_PROMPT, edgeBits(words[0], words[1]));
+            while (true) {
+                Command command = nextCommand(main, player);
+                if (command.type() != Protocol.SETUP_ROAD) {
+                    reply(command, Protocol.NOT_NOW);
+                } else if (command.arg(0) < 0 || !isSet(words[command.arg(0) >>> 6], command.arg(0) & 63)) {
+                    reply(command, Protocol.ILLEGAL);
+                } else {
+                    main.buildRoad(player, main.getBoard().getEdge(command.arg(0)));
+                    reply(command, Protocol.OK);
+                    return settlement;
+                }
+            }
+        } finally {
+            endPrompt();
+        }
+    }
+
+    @Override
+    public void discard(Main main, Player player, int cardsToKeep) {
+        startPrompt();
+        try {
+            prompt(Protocol.DISCARD_PROMPT, (byte) cardsToKeep);
+            while (player.getCardNumber() > cardsToKeep) {
+                Command command = nextCommand(main, player);
+                if (command.type() != Protocol.DISCARD) {
+                    reply(command, Protocol.NOT_NOW);
+                } else {
+                    Resource resource = resource(command.arg(0));
+                    boolean discarded = resource != null && main.removePlayerResource(player, resource);
+                    reply(command, discarded ? Protocol.OK : Protocol.ILLEGAL);
+                }
+            }
+        } finally {
+            endPrompt();
+        }
+    }
+
+    @Override
+    public boolean acceptTrade(Main main, Player player, Player trader, Map<Resource, Integer> resourcesExchanged) {
+        startPrompt();
+        try {
+            byte[] payload = new byte[1 + Protocol.HAND_RESOURCES];
+            payload[0] = (byte) trader.getID();
+            for (Map.Entry<Resource, Integer> exchanged : resourcesExchanged.entrySet()) {
+                payload[1 + exchanged.getKey().ordinal()] = (byte) (int) exchanged.getValue();
+            }
+            prompt(Protocol.TRADE_PROMPT, payload);
+            while (true) {
+                Command command = nextCommand(main, player);
+                if (command.type() == Protocol.ACCEPT_TRADE || command.type() == Protocol.DECLINE_TRADE) {
+                    reply(command, Protocol.OK);
+                    return command.type() == Protocol.ACCEPT_TRADE;
+                }
+                reply(command, Protocol.NOT_NOW);
+            }
+        } finally {
+            endPrompt();
+        }
+    }
+
+    /**
+     * Gives the turn to the client, which moves the thief first if it was a 7, and then sends commands until it passes
+     */
+    @Override
+    public void startTurn(Main main, Player player, int dieRoll) {
+        startPrompt();
+        try {
+            prompt(Protocol.TURN_PROMPT, (byte) dieRoll);
+            boolean thiefMoved = dieRoll != 7;
+            while (main.getWinner() == null) {
+                Command command = nextCommand(main, player);
+                if (command.type() == Protocol.MOVE_THIEF) {
+                    if (thiefMoved) {
+                        reply(command, Protocol.NOT_NOW);
+                    } else {
+                        thiefMoved = robberyIsLegal(main, player, command.arg(0), command.arg(1));
+                        if (thiefMoved) {
+                            Hex location = main.getBoard().getHex(command.arg(0));
+                            main.moveThief(player, victim(main, player, location, command.arg(1)), location);
+                        }
+                        reply(command, thiefMoved ? Protocol.OK : Protocol.ILLEGAL);
+                    }
+                } else if (!thiefMoved) {
+                    reply(command, Protocol.NOT_NOW); // nothing else happens until the thief is moved
+                } else if (command.type() == Protocol.PASS) {
+                    reply(command, Protocol.OK);
+                    return;
+                } else if (command.type() == Protocol.OFFER_TRADE) {
+                    offerTrade(main, player, command);
+                } else {
+                    reply(command, carryOut(main, player, command));
+                }
+            }
+        } finally {
+            endPrompt();
+        }
+    }
+
+    /**
+     * Does a command from the main part of a turn, which GUIMain would have done for a person
+     * @return the status to reply with
+     */
+    private byte carryOut(Main main, Player player, Command command) {
+        Board board = main.getBoard();
+        switch (command.type()) {
+            case Protocol.BUILD_ROAD:
+                if (!main.playerCanBuild(player, Building.ROAD) || !canBuildRoad(main, player, command.arg(0))) {
+                    return Protocol.ILLEGAL;
+                }
+                main.buildRoad(player, board.getEdge(command.arg(0)));
+                return Protocol.OK;
+            case Protocol.BUILD_SETTLEMENT:
+                if (!main.playerCanBuild(player, Building.SETTLEMENT)
+                        || !isSet(main.getSettlementSpotBits(player), command.arg(0))) {
+                    return Protocol.ILLEGAL;
+                }
+                main.buildSettlement(player, board.getVertex(command.arg(0)));
+                return Protocol.OK;
+            case Protocol.BUILD_CITY:
+                if (!main.playerCanBuild(player, Building.CITY) || !isSet(cityBits(player), command.arg(0))) {
+                    return Protocol.ILLEGAL;
+                }
+                main.buildCity(player, board.getVertex(command.arg(0)));
+                return Protocol.OK;
+            case Protocol.BUY_DEVELOPMENT_CARD:
+                if (!main.playerCanBuild(player, Building.DEVELOPMENT_CARD)) {
+                    return Protocol.ILLEGAL;
+                }
+                main.buildDevelopmentCard(player);
+                return Protocol.OK;
+            case Protocol.PLAY_KNIGHT:
+                if (!main.canPlay(player, DevelopmentCard.KNIGHT)
+                        || !robberyIsLegal(main, player, command.arg(0), command.arg(1))) {
+                    return Protocol.ILLEGAL;
+                }
+                Hex location = board.getHex(command.arg(0));
+                main.playKnight(player, victim(main, player, location, command.arg(1)), location);
+                return Protocol.OK;
+            case Protocol.PLAY_YEAR_OF_PLENTY:
+                Resource first = resource(command.arg(0));
+                Resource second = resource(command.arg(1));
+                return first != null && second != null && main.playYearOfPlenty(player, first, second)
+                        ? Protocol.OK : Protocol.ILLEGAL;
+            case Protocol.PLAY_MONOPOLY:
+                Resource monopolized = resource(command.arg(0));
+                return monopolized != null && main.playMonopoly(player, monopolized) ? Protocol.OK : Protocol.ILLEGAL;
+            case Protocol.PLAY_ROAD_BUILDING:
+                return playRoadBuilding(main, player, command.arg(0), command.arg(1));
+            case Protocol.TRADE_WITH_BANK:
+                Resource given = resource(command.arg(0));
+                Resource gotten = resource(command.arg(1));
+                if (given == null || gotten == null || given == gotten || !main.canTrade(player, given)) {
+                    return Protocol.ILLEGAL;
+                }
+                main.trade(player, given, gotten);
+                return Protocol.OK;
+            default:
+                return Protocol.NOT_NOW; // setup, discard and trade answers, or something that isn't a command
+        }
+    }
+
+    private byte playRoadBuilding(Main main, Player player, int firstId, int secondId) {
+        if (!main.canPlay(player, DevelopmentCard.ROAD_BUILDING) || !canBuildRoad(main, player, firstId)
+                || player.getRoads().size() + (secondId < 0 ? 1 : 2) > Building.ROAD.getMax()) {
+            return Protocol.ILLEGAL;
+        }
+        Edge firstRoad = main.getBoard().getEdge(firstId);
+        Edge secondRoad = null;
+        if (secondId >= 0) {
+            secondRoad = edgeOrNull(main, secondId);
+            if (secondRoad == null || !main.getAvailableRoadSpotsGivenEdge(player, firstRoad).contains(secondRoad)) {
+                return Protocol.ILLEGAL;
+            }
+        }
+        return main.playRoadBuilding(player, firstRoad, secondRoad) ? Protocol.OK : Protocol.ILLEGAL;
+    }
+
+    /**
+     * Offers the trade to the players in the command's bitmask, whose clients are prompted in turn
+     * The reply is only sent once the trade is taken or everyone declines, and says who took it
+     */
+    private void offerTrade(Main main, Player player, Command command) {
+        Map<Resource, Integer> exchanged = new EnumMap<>(Resource.class);
+        for (int i = 0; i < Protocol.HAND_RESOURCES; i++) {
+            if (command.arg(i) != 0) {
+                exchanged.put(RESOURCES[i], (int) command.arg(i));
+            }
+        }
+        Set<Player> sendTo = new HashSet<>();
+        int mask = command.arg(Protocol.HAND_RESOURCES);
+        for (Player other : main.getPlayers()) {
+            if ((mask >>> other.getID() & 1) != 0) {
+                sendTo.add(other);
+            }
+        }
+        if (command.message.length != 2 + Protocol.HAND_RESOURCES || !main.canTrade(player, exchanged, true)) {
+            reply(command, Protocol.ILLEGAL, (byte) -1);
+            return;
+        }
+        Player taker = main.offerTrade(player, exchanged, sendTo);
+        reply(command, Protocol.OK, (byte) (taker == null ? -1 : taker.getID()));
+    }
+
+    /**
+     * Sends the client what it can do, and the whole game, so it can decide on its next command
+     */
+    private void sendOptions(Main main, Player player, Command command) {
+        GameState game = main.getState();
+        int affordable = 0;
+        for (Building project : Building.values()) {
+            if (game.isMainPhase() && main.playerCanBuild(player, project)) {
+                affordable |= 1 << project.ordinal();
+            }
+        }
+        byte[] state = game.toByteArray();
+        ByteBuffer options = ByteBuffer.allocate(1 + 8 + 16 + 8 + state.length);
+        options.put((byte) affordable).putLong(main.getSettlementSpotBits(player))
+                .putLong(main.getRoadSpotBits(player, 0)).putLong(main.getRoadSpotBits(player, 1))
+                .putLong(cityBits(player)).put(state);
+        send(command, Protocol.OPTIONS, options.array());
+    }
+
+    /**
+     * Waits for the next command that needs the game, answering any requests for options on the way
+     * @throws IllegalStateException if the client disconnected, or the game's thread was interrupted
+     */
+    private Command nextCommand(Main main, Player player) {
+        while (true) {
+            Command command;
+            try {
+                command = commands.take();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Stopped while waiting for " + player + "'s client", e);
+            }
+            if (command == DISCONNECTED) {
+                throw new IllegalStateException(player + "'s client disconnected");
+            }
+            if (command.type() != Protocol.GET_OPTIONS) {
+                return command;
+            }
+            sendOptions(main, player, command);
+        }
+    }
+
+    /**
+     * Starts taking commands
+     */
+    private synchronized void startPrompt() {
+        prompting = true;
+    }
+
+    /**
+     * Stops taking commands, refusing any the step didn't get to, which were sent too late
+     * Otherwise a command read just as the step that ended the game returned would never be answered
+     */
+    private synchronized void endPrompt() {
+        prompting = false;
+        Command stale;
+        while ((stale = commands.poll()) != null) {
+            if (stale == DISCONNECTED) {
+                commands.add(stale); // so the game still finds out when it waits
+                return;
+            }
+            reply(stale, Protocol.NOT_NOW);
+        }
+    }
+
+    private void prompt(byte type, byte... payload) {
+        connection.send(Protocol.frame(type, payload));
+    }
+
+    private void reply(Command command, byte status, byte... extra) {
+        byte[] payload = new byte[2 + extra.length];
+        payload[0] = command.type();
+        payload[1] = status;
+        System.arraycopy(extra, 0, payload, 2, extra.length);
+        send(command, Protocol.RESULT, payload);
+    }
+
+    private void send(Command command, byte type, byte[] payload) {
+        ByteBuffer frame = Protocol.frame(type, payload);
+        // recorded before sending, so it is counted by the time the client hears back
+        latency.record(command.type(), System.nanoTime() - command.readAt);
+        connection.send(frame);
+    }
+
+    /**
+     * @return whether the hex is somewhere the thief can go, and the victim is -1 or on the hex and not the player's
+     */
+    static boolean robberyIsLegal(Main main, Player player, int hex, int victim) {
+        Board board = main.getBoard();
+        if (hex < 0 || hex >= HEXES || !main.getAvailableThiefSpots().contains(board.getHex(hex))) {
+            return false;
+        }
+        return victim == -1
+                || isSet(board.getHexVertexBits(hex), victim) && board.getVertex(victim).getPlayer() != player;
+    }
+
+    /**
+     * @return the vertex robbed, where -1 means the first on the hex that isn't the player's, the same as the GUI
+     * when there is no one to rob. There always is one, since buildings can't be next to each other
+     */
+    private static Vertex victim(Main main, Player player, Hex location, int id) {
+        Board board = main.getBoard();
+        if (id != -1) {
+            return board.getVertex(id);
+        }
+        long vertices = board.getHexVertexBits(location.getId());
+        while (board.getVertex(Long.numberOfTrailingZeros(vertices)).getPlayer() == player) {
+            vertices &= vertices - 1;
+        }
+        return board.getVertex(Long.numberOfTrailingZeros(vertices));
+    }
+
+    private static boolean canBuildRoad(Main main, Player player, int edge) {
+        return edge >= 0 && edge < EDGES && isSet(main.getRoadSpotBits(player, edge >>> 6), edge & 63);
+    }
+
+    private static long cityBits(Player player) {
+        long bits = 0;
+        for (Vertex settlement : player.getSettlements()) {
+            bits |= 1L << settlement.getId();
+        }
+        return bits;
+    }
+
+    private static Edge edgeOrNull(Main main, int id) {
+        return id >= 0 && id < EDGES ? main.getBoard().getEdge(id) : null;
+    }
+
+    /**
+     * @return the resource with that ordinal, or null if there isn't one that can be held
+     */
+    private static Resource resource(int ordinal) {
+        return ordinal >= 0 && ordinal < Protocol.HAND_RESOURCES ? RESOURCES[ordinal] : null;
+    }
+
+    private static boolean isSet(long bits, int bit) {
+        return bit >= 0 && bit < 64 && (bits >>> bit & 1) != 0;
+    }
+
+    private static byte[] edgeBits(long low, long high) {
+        return ByteBuffer.allocate(16).putLong(low).putLong(high).array();
+    }
+}
@@ -0,0 +1,351 @@
+package settlers.server;
+
+import settlers.bot.Agent;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.*;
+import java.util.*;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Serves games to remote clients over the binary Protocol, with one selector thread for all of their connections
+ * Clients JOIN a game of some size, and once enough have joined, the game is played on a GameHost, with a
+ * NetworkAgent for each client. The selector thread only reads, splits frames and writes, and never waits on a game,
+ * while each game's thread blocks on its clients' commands, so one process can serve many games and clients at once
+ */
+public class NioGameServer implements Closeable {
+
+    private final Selector selector;
+    private final ServerSocketChannel serverChannel;
+    private final GameHost host;
+    private final int maxRounds;
+    private final SplittableRandom seeds; // only used on the selector thread, when games start
+    private final LatencyStats latency;
+    private final Map<Integer, List<Connection>> lobbies; // [players in the game], only used on the selector thread
+    private final Set<Connection> connections; // only used on the selector thread
+    private final Queue<Connection> pendingWrites; // connections that game threads have sent to since the last select
+    private final AtomicInteger gamesFinished;
+    private final Thread selectorThread;
+    private volatile boolean closed;
+
+    /**
+     * Opens the server, and starts taking clients right away
+     * @param address to listen on, where port 0 picks a free port
+     * @param host that plays the games, which the caller still has to close
+     * @param maxRounds after which a game is stopped without a winner
+     * @param seed that every game's seed comes from, in the order the games start
+     * @throws IOException if the address can't be listened on
+     */
+    public NioGameServer(InetSocketAddress address, GameHost host, int maxRounds, long seed) throws IOException {
+        if (address == null || host == null) {
+            throw new IllegalArgumentException("null values not permitted");
+        }
+        if (maxRounds < 1) {
+            throw new IllegalArgumentException("Games need at least 1 round, not " + maxRounds);
+        }
+        this.host = host;
+        this.maxRounds = maxRounds;
+        seeds = new SplittableRandom(seed);
+        latency = new LatencyStats();
+        lobbies = new HashMap<>();
+        connections = new HashSet<>();
+        pendingWrites = new ConcurrentLinkedQueue<>();
+        gamesFinished = new AtomicInteger();
+
+        selector = Selector.open();
+        serverChannel = ServerSocketChannel.open();
+        serverChannel.bind(address);
+        serverChannel.configureBlocking(false);
+        serverChannel.register(selector, SelectionKey.OP_ACCEPT);
+        selectorThread = new Thread(this::run, "server-selector");
+        selectorThread.setDaemon(true);
+        selectorThread.start();
+    }
+
+    /**
+     * @param args optionally, the port, defaulting to 5555, and the most rounds a game lasts, defaulting to 1000
+     */
+    public static void main(String[] args) throws IOException, InterruptedException {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : 5555;
+        int maxRounds = args.length > 1 ? Integer.parseInt(args[1]) : 1000;
+        try (GameHost host = new GameHost();
+             NioGameServer server = new NioGameServer(new InetSocketAddress(port), host, maxRounds,
+                     System.nanoTime())) {
+            System.out.println("Serving games on port " + server.getPort());
+            server.selectorThread.join();
+        }
+    }
+
+    /**
+     * @return the port the server is listening on
+     */
+    public int getPort() {
+        return serverChannel.socket().getLocalPort();
+    }
+
+    /**
+     * @return how long the server took from reading each command to replying, by command type
+     */
+    public LatencyStats getLatency() {
+        return latency;
+    }
+
+    /**
+     * @return the number of games that have ended, whether or not they were won
+     */
+    public int getGamesFinished() {
+        return gamesFinished.get();
+    }
+
+    /**
+     * Stops serving, and disconnects every client, which fails the games they are in
+     */
+    @Override
+    public void close() {
+        closed = true;
+        selector.wakeup();
+        if (Thread.currentThread() != selectorThread) {
+            try {
+                selectorThread.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private void run() {
+        try {
+            while (!closed) {
+                selector.select();
+                Connection written;
+                while ((written = pendingWrites.poll()) != null) {
+                    written.flush();
+                }
+                Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+                while (keys.hasNext()) {
+                    SelectionKey key = keys.next();
+                    keys.remove();
+                    if (!key.isValid()) {
+                        continue;
+                    }
+                    if (key.isAcceptable()) {
+                        accept();
+                        continue;
+                    }
+                    Connection connection = (Connection) key.attachment();
+                    if (key.isReadable()) {
+                        connection.read();
+                    }
+                    if (key.isValid() && key.isWritable()) {
+                        connection.flush();
+                    }
+                }
+            }
+        } catch (IOException e) {
+            System.err.println("The server stopped: " + e);
+        } finally {
+            closed = true;
+            for (Connection connection : new ArrayList<>(connections)) {
+                connection.close();
+            }
+            try {
+                serverChannel.close();
+                selector.close();
+            } catch (IOException e) {
+                // it is shutting down anyway, so there is nothing else to do
+            }
+        }
+    }
+
+    private void accept() throws IOException {
+        SocketChannel channel = serverChannel.accept();
+        if (channel == null) {
+            return; // someone else's connection attempt, which gave up before it was taken
+        }
+        channel.configureBlocking(false);
+        channel.socket().setTcpNoDelay(true); // messages are small, and a player is waiting on each reply
+        Connection connection = new Connection(channel);
+        connection.key = channel.register(selector, SelectionKey.OP_READ, connection);
+        connections.add(connection);
+    }
+
+    /**
+     * Puts the client in the lobby for games of its size, and starts the game if the lobby is full
+     */
+    private void join(Connection connection, int players, long readAt) {
+        if (connection.agent != null || connection.waitingFor != 0) {
+            connection.reply(Protocol.JOIN, Protocol.NOT_NOW, readAt); // already in a game, or waiting for one
+            return;
+        }
+        if (players < 2 || players > 4) {
+            connection.reply(Protocol.JOIN, Protocol.ILLEGAL, readAt);
+            return;
+        }
+        connection.reply(Protocol.JOIN, Protocol.OK, readAt);
+        connection.waitingFor = players;
+        List<Connection> lobby = lobbies.computeIfAbsent(players, size -> new ArrayList<>(size));
+        lobby.add(connection);
+        if (lobby.size() == players) {
+            lobbies.remove(players);
+            startGame(lobby);
+        }
+    }
+
+    private void startGame(List<Connection> players) {
+        List<Agent> agents = new ArrayList<>(players.size());
+        for (int i = 0; i < players.size(); i++) {
+            Connection connection = players.get(i);
+            connection.waitingFor = 0;
+            connection.agent = new NetworkAgent(connection, latency);
+            agents.add(connection.agent);
+            connection.send(Protocol.frame(Protocol.WELCOME, (byte) i, (byte) players.size()));
+        }
+        try {
+            host.host(agents, maxRounds, seeds.nextLong()).whenComplete((result, failure) -> {
+                byte winner = (byte) (result == null ? -1 : result.getWinnerID());
+                gamesFinished.incrementAndGet();
+                for (Connection connection : players) {
+                    connection.agent = null; // first, so the client can join again as soon as it hears
+                    connection.send(Protocol.frame(Protocol.GAME_OVER, winner));
+                }
+            });
+        } catch (IllegalStateException e) {
+            closed = true; // the host was closed under the server, so it can't play anything else
+        }
+    }
+
+    /**
+     * One client's connection, which is read and written on the selector thread, and sent to from any thread
+     */
+    class Connection {
+        private final SocketChannel channel;
+        private final ByteBuffer readBuffer; // in write mode between reads
+        private final Queue<ByteBuffer> outbox; // frames waiting to be written, in order
+        private final AtomicBoolean flushQueued; // so game threads only wake the selector once per flush
+        private SelectionKey key;
+        private volatile NetworkAgent agent; // set by the selector thread, and cleared by the game's thread
+        private int waitingFor; // the size of game this is in the lobby for, or 0. Only used on the selector thread
+        private volatile boolean open;
+
+        Connection(SocketChannel channel) {
+            this.channel = channel;
+            readBuffer = ByteBuffer.allocate(2 + Protocol.MAX_FRAME);
+            outbox = new ConcurrentLinkedQueue<>();
+            flushQueued = new AtomicBoolean();
+            open = true;
+        }
+
+        /**
+         * Queues a frame to be written, which can be called on any thread
+         * Frames to a client that has disconnected are dropped
+         */
+        void send(ByteBuffer frame) {
+            if (!open) {
+                return;
+            }
+            outbox.add(frame);
+            if (Thread.currentThread() == selectorThread) {
+                flush();
+            } else if (flushQueued.compareAndSet(false, true)) {
+                pendingWrites.add(this);
+                selector.wakeup();
+            }
+        }
+
+        void reply(byte type, byte status, long readAt) {
+            ByteBuffer frame = Protocol.frame(Protocol.RESULT, type, status);
+            latency.record(type, System.nanoTime() - readAt);
+            send(frame);
+        }
+
+        /**
+         * Writes as much of the outbox as the socket takes, and waits to be writable again for the rest
+         */
+        private void flush() {
+            flushQueued.set(false); // before writing, so frames sent while this writes wake the selector again
+            if (!open) {
+                return;
+            }
+            try {
+                ByteBuffer frame;
+                while ((frame = outbox.peek()) != null) {
+                    channel.write(frame);
+                    if (frame.hasRemaining()) {
+                        key.interestOps(SelectionKey.OP_READ | SelectionKey.OP_WRITE);
+                        return;
+                    }
+                    outbox.poll();
+                }
+                key.interestOps(SelectionKey.OP_READ);
+            } catch (IOException | CancelledKeyException e) {
+                close();
+            }
+        }
+
+        /**
+         * Reads what has arrived, and hands on every whole message in it
+         */
+        private void read() {
+            try {
+                if (channel.read(readBuffer) < 0) {
+                    close();
+                    return;
+                }
+            } catch (IOException e) {
+                close();
+                return;
+            }
+            long readAt = System.nanoTime();
+            readBuffer.flip();
+            try {
+                byte[] message;
+                while (open && (message = Protocol.nextMessage(readBuffer)) != null) {
+                    handle(message, readAt);
+                }
+            } catch (IllegalArgumentException e) {
+                close(); // the client isn't speaking the protocol, so nothing after this can be trusted
+                return;
+            }
+            readBuffer.compact();
+        }
+
+        private void handle(byte[] message, long readAt) {
+            NetworkAgent currentAgent = agent;
+            if (message[0] == Protocol.JOIN) {
+                join(this, message.length > 1 ? message[1] : 0, readAt);
+            } else if (currentAgent != null) {
+                currentAgent.receive(message, readAt);
+            } else {
+                reply(message[0], Protocol.NOT_NOW, readAt); // not in a game
+            }
+        }
+
+        private void close() {
+            if (!open) {
+                return;
+            }
+            open = false;
+            connections.remove(this);
+            if (waitingFor != 0) {
+                lobbies.get(waitingFor).remove(this);
+            }
+            NetworkAgent currentAgent = agent;
+            if (currentAgent != null) {
+                currentAgent.disconnected();
+            }
+            if (key != null) {
+                key.cancel();
+            }
+            try {
+                channel.close();
+            } catch (IOException e) {
+                // it is closed either way
+            }
+        }
+    }
+}
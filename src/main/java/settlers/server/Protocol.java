@@ -0,0 +1,141 @@
+package settlers.server;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * The binary protocol between NioGameServer and its clients
+ * Every message is a frame: 2 bytes of big-endian length, then that many bytes, the first of which is the type
+ * Ids of vertices, edges and hexes, player places and resource ordinals are single bytes, with -1 for none
+ * A bitset of vertices is 8 bytes, and of edges 16, in the board's bitset layout
+ *
+ * The server prompts a client when its player has something to do, and the client answers with commands until the
+ * prompt is dealt with. Every command gets exactly one reply, RESULT, or OPTIONS for GET_OPTIONS, so clients can
+ * send a command and wait for its reply. The commands match GUIMain's callbacks, and are only taken during a prompt
+ */
+public final class Protocol {
+
+    public static final int MAX_FRAME = 0xFFFF; // the most bytes after the length
+
+    // client to server
+    public static final byte JOIN = 1; // [players in the game], to be put in the next game of that size
+    public static final byte SETUP_SETTLEMENT = 2; // [vertex]
+    public static final byte SETUP_ROAD = 3; // [edge]
+    public static final byte BUILD_ROAD = 4; // [edge]
+    public static final byte BUILD_SETTLEMENT = 5; // [vertex]
+    public static final byte BUILD_CITY = 6; // [vertex]
+    public static final byte BUY_DEVELOPMENT_CARD = 7;
+    public static final byte PLAY_KNIGHT = 8; // [hex][vertex robbed, or -1 for whoever else is first on the hex]
+    public static final byte PLAY_YEAR_OF_PLENTY = 9; // [resource][resource]
+    public static final byte PLAY_MONOPOLY = 10; // [resource]
+    public static final byte PLAY_ROAD_BUILDING = 11; // [edge][edge, or -1]
+    public static final byte TRADE_WITH_BANK = 12; // [resource given][resource gotten]
+    public static final byte OFFER_TRADE = 13; // [a signed count per resource, negative for given][players bitmask]
+    public static final byte ACCEPT_TRADE = 14;
+    public static final byte DECLINE_TRADE = 15;
+    public static final byte DISCARD = 16; // [resource]
+    public static final byte MOVE_THIEF = 17; // [hex][vertex robbed, or -1 for whoever else is first on the hex]
+    public static final byte GET_OPTIONS = 18;
+    public static final byte PASS = 19;
+
+    // server to client
+    public static final byte WELCOME = 64; // [your place in the game][players in the game]
+    public static final byte SETUP_SETTLEMENT_PROMPT = 65; // [vertex bitset]
+    public static final byte SETUP_ROAD_PROMPT = 66; // [edge bitset]
+    public static final byte TURN_PROMPT = 67; // [die roll], where a 7 means MOVE_THIEF comes first
+    public static final byte DISCARD_PROMPT = 68; // [cards to keep]
+    public static final byte TRADE_PROMPT = 69; // [trader][the offer's signed counts, as OFFER_TRADE]
+    public static final byte RESULT = 70; // [command type][status], and for OFFER_TRADE [who took it, or -1]
+    public static final byte OPTIONS = 71; // [affordable buildings bitmask][settlement vertex bitset]
+        // [road edge bitset][city vertex bitset][the GameState's bytes]
+    public static final byte GAME_OVER = 72; // [winner, or -1]
+
+    // the statuses in RESULT
+    public static final byte OK = 0;
+    public static final byte ILLEGAL = 1; // not allowed, or doesn't make sense
+    public static final byte NOT_NOW = 2; // not something this player can do right now
+
+    public static final int HAND_RESOURCES = 5; // the resources that can be traded, which are every one but MISC
+
+    private Protocol() {
+    }
+
+    /**
+     * @param type of the message
+     * @param payload the bytes after the type
+     * @return the whole frame, ready to write
+     */
+    public static ByteBuffer frame(byte type, byte... payload) {
+        if (payload.length + 1 > MAX_FRAME) {
+            throw new IllegalArgumentException("A " + type + " message of " + payload.length + " bytes is too big");
+        }
+        ByteBuffer frame = ByteBuffer.allocate(2 + 1 + payload.length);
+        frame.putShort((short) (payload.length + 1)).put(type).put(payload);
+        frame.flip();
+        return frame;
+    }
+
+    /**
+     * Takes the next whole message out of bytes read so far, if there is one
+     * @param buffer in read mode, which is left just after the message, or where it was if there isn't a whole one
+     * @return the message, starting with its type, or null if the buffer doesn't have all of one yet
+     * @throws IllegalArgumentException if the frame is empty, since every message has a type
+     */
+    public static byte[] nextMessage(ByteBuffer buffer) {
+        if (buffer.remaining() < 2) {
+            return null;
+        }
+        int length = buffer.getShort(buffer.position()) & 0xFFFF;
+        if (length == 0) {
+            throw new IllegalArgumentException("An empty frame has no type");
+        }
+        if (buffer.remaining() < 2 + length) {
+            return null;
+        }
+        byte[] message = new byte[length];
+        buffer.position(buffer.position() + 2);
+        buffer.get(message);
+        return message;
+    }
+
+    /**
+     * Writes a message to a blocking stream, for clients
+     */
+    public static void write(DataOutputStream out, byte type, byte... payload) throws IOException {
+        ByteBuffer frame = frame(type, payload);
+        out.write(frame.array(), 0, frame.limit());
+        out.flush();
+    }
+
+    /**
+     * Reads a message from a blocking stream, for clients
+     * @return the message, starting with its type
+     * @throws EOFException if the server closed the connection
+     */
+    public static byte[] read(DataInputStream in) throws IOException {
+        int length = in.readUnsignedShort();
+        if (length == 0) {
+            throw new IOException("An empty frame has no type");
+        }
+        byte[] message = new byte[length];
+        in.readFully(message);
+        return message;
+    }
+
+    /**
+     * @return the bitset as 8 big-endian bytes
+     */
+    public static byte[] bits(long bits) {
+        return ByteBuffer.allocate(8).putLong(bits).array();
+    }
+
+    /**
+     * @return the 8 byte bitset in the message at that place
+     */
+    public static long readBits(byte[] message, int at) {
+        return ByteBuffer.wrap(message, at, 8).getLong();
+    }
+}
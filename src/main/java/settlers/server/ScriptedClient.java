@@ -0,0 +1,285 @@
+package settlers.server;
+
+import settlers.GameState;
+import settlers.card.Resource;
+
+import java.io.*;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * A client that plays random legal moves against a NioGameServer, for testing the server and measuring it
+ * It plays like AgentRandomImpl, but only knows what the protocol tells it, and times every command from sending it to
+ * getting the reply. It blocks on its socket, so each client needs a thread of its own
+ */
+public class ScriptedClient implements Closeable {
+
+    private static final int NO_WINNER_YET = Integer.MIN_VALUE;
+    private static final int MOST_ACTIONS = 20; // per turn, so a turn can't go on forever
+    private static final int OPTIONS_STATE_AT = 1 + 1 + 8 + 16 + 8; // after the type, mask and bitsets
+
+    private final Socket socket;
+    private final DataInputStream in;
+    private final DataOutputStream out;
+    private final SplittableRandom random;
+    private final LatencyStats latency;
+    private int place; // in the current game
+    private int winner; // of the current game, or NO_WINNER_YET
+    private boolean offeredThisTurn; // so it only offers one trade a turn
+
+    /**
+     * @param address of the server
+     * @param random where every choice comes from
+     * @param latency where the round trip of every command is recorded, which can be shared by many clients
+     * @throws IOException if the server can't be reached
+     */
+    public ScriptedClient(InetSocketAddress address, SplittableRandom random, LatencyStats latency)
+            throws IOException {
+        if (address == null || random == null || latency == null) {
+            throw new IllegalArgumentException("null values not permitted");
+        }
+        this.random = random;
+        this.latency = latency;
+        socket = new Socket();
+        socket.setTcpNoDelay(true);
+        socket.connect(address);
+        in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+        out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+    }
+
+    /**
+     * Joins a game, and plays it until it ends
+     * @param players in the game to join, from 2 to 4
+     * @return the place of the winner, or -1 if no one won
+     * @throws IOException if the connection fails
+     * @throws IllegalStateException if the server refuses a command, or sends something out of order
+     */
+    public int playGame(int players) throws IOException {
+        winner = NO_WINNER_YET;
+        if (!command(Protocol.JOIN, (byte) players)) {
+            throw new IllegalStateException("Could not join a game of " + players);
+        }
+        byte[] welcome = Protocol.read(in);
+        if (welcome[0] != Protocol.WELCOME) {
+            throw new IllegalStateException("Expected a welcome, not message " + welcome[0]);
+        }
+        place = welcome[1];
+        while (winner == NO_WINNER_YET) {
+            byte[] prompt = Protocol.read(in);
+            switch (prompt[0]) {
+                case Protocol.SETUP_SETTLEMENT_PROMPT:
+                    command(Protocol.SETUP_SETTLEMENT, randomBit(Protocol.readBits(prompt, 1), 0));
+                    break;
+                case Protocol.SETUP_ROAD_PROMPT:
+                    command(Protocol.SETUP_ROAD, randomBit(Protocol.readBits(prompt, 1), Protocol.readBits(prompt, 9)));
+                    break;
+                case Protocol.DISCARD_PROMPT:
+                    discard(prompt[1]);
+                    break;
+                case Protocol.TRADE_PROMPT:
+                    command(random.nextBoolean() ? Protocol.ACCEPT_TRADE : Protocol.DECLINE_TRADE);
+                    break;
+                case Protocol.TURN_PROMPT:
+                    takeTurn(prompt[1]);
+                    break;
+                case Protocol.GAME_OVER:
+                    winner = prompt[1];
+                    break;
+                default:
+                    throw new IllegalStateException("Expected a prompt, not message " + prompt[0]);
+            }
+        }
+        return winner;
+    }
+
+    private void discard(int cardsToKeep) throws IOException {
+        byte[] options = options();
+        if (options == null) {
+            return;
+        }
+        GameState state = state(options);
+        int[] hand = new int[Protocol.HAND_RESOURCES];
+        int cards = 0;
+        for (int i = 0; i < hand.length; i++) {
+            hand[i] = state.getResourceCount(place, Resource.values()[i]);
+            cards += hand[i];
+        }
+        while (cards > cardsToKeep) {
+            int resource = randomHeld(hand);
+            if (!command(Protocol.DISCARD, (byte) resource)) {
+                return;
+            }
+            hand[resource]--;
+            cards--;
+        }
+    }
+
+    private void takeTurn(int dieRoll) throws IOException {
+        if (dieRoll == 7) {
+            byte[] options = options();
+            if (options == null) {
+                return;
+            }
+            int hex;
+            do {
+                hex = random.nextInt(19);
+            } while (hex == state(options).getThiefHex());
+            if (!command(Protocol.MOVE_THIEF, (byte) hex, (byte) -1)) {
+                return;
+            }
+        }
+        offeredThisTurn = false;
+        for (int action = 0; action < MOST_ACTIONS; action++) {
+            byte[] options = options();
+            if (options == null) {
+                return;
+            }
+            if (!act(options)) {
+                break;
+            }
+        }
+        if (winner == NO_WINNER_YET) {
+            command(Protocol.PASS);
+        }
+    }
+
+    /**
+     * Does one random thing the options allow
+     * @return false if the turn is over, because there is nothing left to do or the game ended
+     */
+    private boolean act(byte[] options) throws IOException {
+        int affordable = options[1];
+        long settlementBits = Protocol.readBits(options, 2);
+        long roadLow = Protocol.readBits(options, 10);
+        long roadHigh = Protocol.readBits(options, 18);
+        long cityBits = Protocol.readBits(options, 26);
+        if (affordable != 0) {
+            List<Integer> projects = new ArrayList<>(4);
+            for (int project = 0; project < 4; project++) {
+                if ((affordable >>> project & 1) != 0) {
+                    projects.add(project);
+                }
+            }
+            switch (projects.get(random.nextInt(projects.size()))) {
+                case 0: // the order of Building
+                    return command(Protocol.BUILD_ROAD, randomBit(roadLow, roadHigh));
+                case 1:
+                    return command(Protocol.BUILD_SETTLEMENT, randomBit(settlementBits, 0));
+                case 2:
+                    return command(Protocol.BUILD_CITY, randomBit(cityBits, 0));
+                default:
+                    return command(Protocol.BUY_DEVELOPMENT_CARD);
+            }
+        }
+
+        GameState state = state(options);
+        int[] hand = new int[Protocol.HAND_RESOURCES];
+        for (int i = 0; i < hand.length; i++) {
+            hand[i] = state.getResourceCount(place, Resource.values()[i]);
+            if (hand[i] >= 4) { // enough to trade with the bank without a port
+                return command(Protocol.TRADE_WITH_BANK, (byte) i, (byte) ((i + 1 + random.nextInt(4)) % 5));
+            }
+        }
+        if (!offeredThisTurn && Arrays.stream(hand).sum() > 0 && random.nextInt(4) == 0) {
+            byte[] offer = new byte[Protocol.HAND_RESOURCES + 1];
+            int given = randomHeld(hand);
+            offer[given] = -1;
+            offer[(given + 1 + random.nextInt(4)) % 5] = 1;
+            offer[Protocol.HAND_RESOURCES] = (byte) ~(1 << place); // everyone else
+            offeredThisTurn = true;
+            return command(Protocol.OFFER_TRADE, offer);
+        }
+        return false;
+    }
+
+    /**
+     * @return the OPTIONS message, or null if the game ended
+     */
+    private byte[] options() throws IOException {
+        byte[] reply = request(Protocol.GET_OPTIONS);
+        return reply[0] == Protocol.OPTIONS ? reply : null;
+    }
+
+    private GameState state(byte[] options) {
+        return GameState.fromBytes(Arrays.copyOfRange(options, OPTIONS_STATE_AT, options.length));
+    }
+
+    /**
+     * Sends a command that should be taken
+     * @return true if it was, or false if the game ended first
+     * @throws IllegalStateException if the server refused it while the game was still going
+     */
+    private boolean command(byte type, byte... payload) throws IOException {
+        byte[] reply = request(type, payload);
+        if (reply[0] == Protocol.RESULT && reply[2] == Protocol.OK) {
+            return true;
+        }
+        if (winner != NO_WINNER_YET) {
+            return false;
+        }
+        throw new IllegalStateException("The server refused command " + type + " with status " + reply[2]);
+    }
+
+    /**
+     * Sends a command and waits for its reply, timing the round trip
+     * If it was refused because the game is over, this also waits for GAME_OVER, so the caller knows why
+     */
+    private byte[] request(byte type, byte... payload) throws IOException {
+        long sentAt = System.nanoTime();
+        Protocol.write(out, type, payload);
+        while (true) {
+            byte[] reply = Protocol.read(in);
+            if (reply[0] == Protocol.GAME_OVER) {
+                winner = reply[1];
+            } else if (reply[0] == Protocol.RESULT || reply[0] == Protocol.OPTIONS) {
+                latency.record(type, System.nanoTime() - sentAt);
+                if (reply[0] == Protocol.RESULT && reply[2] == Protocol.NOT_NOW && winner == NO_WINNER_YET) {
+                    // the only time this client is told not now is when the game ended while it was acting
+                    byte[] gameOver = Protocol.read(in);
+                    if (gameOver[0] != Protocol.GAME_OVER) {
+                        throw new IllegalStateException("Command " + type + " was refused during the game");
+                    }
+                    winner = gameOver[1];
+                }
+                return reply;
+            } else {
+                throw new IllegalStateException("Expected a reply to " + type + ", not message " + reply[0]);
+            }
+        }
+    }
+
+    /**
+     * @return a random set bit's place in the 128 bit set, or -1 if none are set
+     */
+    private byte randomBit(long low, long high) {
+        int count = Long.bitCount(low) + Long.bitCount(high);
+        if (count == 0) {
+            return -1;
+        }
+        int index = random.nextInt(count);
+        for (int bit = 0; bit < 128; bit++) {
+            long word = bit < 64 ? low : high;
+            if ((word >>> (bit & 63) & 1) != 0 && index-- == 0) {
+                return (byte) bit;
+            }
+        }
+        throw new IllegalStateException("Could not get a bit with the given RNG bounds");
+    }
+
+    private int randomHeld(int[] hand) {
+        int held;
+        do {
+            held = random.nextInt(hand.length);
+        } while (hand[held] == 0);
+        return held;
+    }
+
+    @Override
+    public void close() throws IOException {
+        socket.close();
+    }
+}
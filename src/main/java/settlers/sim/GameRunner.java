@@ -0,0 +1,168 @@
+package settlers.sim;
+
+import settlers.GameResult;
+import settlers.MainImpl;
+import settlers.bot.Agent;
+import settlers.bot.AgentGreedyImpl;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * Plays many independent headless games in parallel, and totals up their results
+ * Every game has its own board, players and agents, so the only thing the worker threads share is the counter
+ * of which game to play next. Each worker keeps its own GameStatistics, which are merged once all games are done
+ * Every game gets its own seed, worked out from the run's seed and the game's number, so a run with the same seed
+ * gives the same statistics no matter how many threads play it, and any one game can be replayed with playGame
+ */
+public class GameRunner {
+
+    private static final long GOLDEN_GAMMA = 0x9e3779b97f4a7c15L; // what SplittableRandom adds to its seed each time
+
+    private final Function<SplittableRandom, List<Agent>> agentFactory;
+    private final int threads;
+    private final int maxRounds;
+    private final long seed;
+
+    /**
+     * Makes a runner with a random seed
+     * @see #GameRunner(Function, int, int, long)
+     */
+    public GameRunner(Function<SplittableRandom, List<Agent>> agentFactory, int threads, int maxRounds) {
+        this(agentFactory, threads, maxRounds, new SplittableRandom().nextLong());
+    }
+
+    /**
+     * @param agentFactory makes a new set of agents for each game, one per player, that get all their randomness
+     *                     from the SplittableRandom given. It is called from all the worker threads, so it must be
+     *                     thread safe, and must never give the same agent to two games
+     * @param threads the number of games played at once
+     * @param maxRounds after which a game is stopped without a winner
+     * @param seed that every game's seed comes from
+     */
+    public GameRunner(Function<SplittableRandom, List<Agent>> agentFactory, int threads, int maxRounds, long seed) {
+        if (agentFactory == null) {
+            throw new IllegalArgumentException("agentFactory is null");
+        }
+        if (threads < 1) {
+            throw new IllegalArgumentException("Need at least 1 thread, not " + threads);
+        }
+        if (maxRounds < 1) {
+            throw new IllegalArgumentException("maxRounds must be positive, not " + maxRounds);
+        }
+        this.agentFactory = agentFactory;
+        this.threads = threads;
+        this.maxRounds = maxRounds;
+        this.seed = seed;
+    }
+
+    public long getSeed() {
+        return seed;
+    }
+
+    /**
+     * Gives the seed of a game in the run, which is the same as the game-th number of a SplittableRandom made with
+     * the run's seed, but can be found without going through all the games before it
+     * @param game the number of the game in the run, starting from 0
+     * @return the seed that game is played with
+     */
+    public long getGameSeed(int game) {
+        return new SplittableRandom(seed + game * GOLDEN_GAMMA).nextLong();
+    }
+
+    /**
+     * Plays one game, where the agents and the game each get their own stream split from the game's seed
+     * @param gameSeed decides everything random in the game, including what the agents do
+     * @return the result of the game, which is always the same for the same seed
+     */
+    public GameResult playGame(long gameSeed) {
+        SplittableRandom gameRandom = new SplittableRandom(gameSeed);
+        List<Agent> agents = agentFactory.apply(gameRandom.split());
+        return MainImpl.playHeadlessGame(agents, maxRounds, gameRandom.nextLong());
+    }
+
+    /**
+     * Plays the games, and blocks until they are all done
+     * @param games the number of games to play
+     * @param playerCount the number of players in every game, which must match the number of agents
+     * @return the combined statistics of all the games
+     */
+    public GameStatistics run(int games, int playerCount) {
+        if (games < 0) {
+            throw new IllegalArgumentException("Can't play " + games + " games");
+        }
+        AtomicInteger nextGame = new AtomicInteger();
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<GameStatistics>> workers = new ArrayList<>(threads);
+            for (int i = 0; i < threads; i++) {
+                workers.add(pool.submit(() -> {
+                    // each worker takes games until they run out, so fast workers aren't left waiting for slow ones
+                    GameStatistics workerStatistics = new GameStatistics(playerCount);
+                    for (int game = nextGame.getAndIncrement(); game < games; game = nextGame.getAndIncrement()) {
+                        long gameSeed = getGameSeed(game);
+                        try {
+                            workerStatistics.record(playGame(gameSeed));
+                        } catch (RuntimeException e) {
+                            // the seed is all that is needed to play the game again and see what went wrong
+                            throw new IllegalStateException("Game " + game + " with seed " + gameSeed + " failed", e);
+                        }
+                    }
+                    return workerStatistics;
+                }));
+            }
+            GameStatistics statistics = new GameStatistics(playerCount);
+            for (Future<GameStatistics> worker : workers) {
+                statistics.merge(worker.get());
+            }
+            return statistics;
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("A game failed: " + e.getCause(), e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for games to finish", e);
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    /**
+     * Measures how throughput scales with the number of threads, from 1 up to every core, doubling each time
+     * Prints games/sec for each thread count, and per thread, which falls below the single thread rate once threads
+     * start sharing cores. The games are between AgentGreedyImpls, the same baseline the other agents play against
+     * @param args optionally, the number of games to play per thread count, defaulting to 2000
+     */
+    public static void main(String[] args) {
+        int games = args.length > 0 ? Integer.parseInt(args[0]) : 2000;
+        int cores = Runtime.getRuntime().availableProcessors();
+        Function<SplittableRandom, List<Agent>> greedyAgents = random -> {
+            List<Agent> agents = new ArrayList<>(4);
+            for (int i = 0; i < 4; i++) {
+                agents.add(new AgentGreedyImpl());
+            }
+            return agents;
+        };
+        new GameRunner(greedyAgents, cores, 1000).run(games / 10 + 1, 4); // warms up the JIT
+
+        System.out.println("threads, games/sec, games/sec/thread, speedup");
+        double singleThreadRate = 0;
+        for (int threads = 1; ; threads = Math.min(threads * 2, cores)) {
+            long start = System.nanoTime();
+            GameStatistics statistics = new GameRunner(greedyAgents, threads, 1000).run(games, 4);
+            double gamesPerSecond = statistics.getGames() / ((System.nanoTime() - start) / 1e9);
+            if (threads == 1) {
+                singleThreadRate = gamesPerSecond;
+            }
+            System.out.printf("%d, %.1f, %.1f, %.2fx%n", threads, gamesPerSecond, gamesPerSecond / threads,
+                    gamesPerSecond / singleThreadRate);
+            if (threads == cores) {
+                System.out.print(statistics);
+                return;
+            }
+        }
+    }
+}
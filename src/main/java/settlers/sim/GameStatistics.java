@@ -0,0 +1,156 @@
+package settlers.sim;
+
+import settlers.GameResult;
+
+import java.util.Arrays;
+
+/**
+ * Totals up the results of many games: win rates, game lengths, and how many victory points each player ended with
+ * Not thread safe. Each worker thread keeps its own, and they are merged at the end so no locking is needed
+ */
+public class GameStatistics {
+
+    public static final int MAX_TRACKED_POINTS = 20; // anything above this is counted as this
+
+    private final int playerCount;
+    private long games;
+    private long unfinishedGames; // games stopped at the round limit without a winner
+    private final long[] wins; // indexed by player ID
+    private long totalTurns;
+    private int minTurns = Integer.MAX_VALUE;
+    private int maxTurns;
+    private final long[][] victoryPointCounts; // [player ID][points] = number of games the player ended with that
+
+    public GameStatistics(int playerCount) {
+        if (playerCount < 2 || playerCount > 4) {
+            throw new IllegalArgumentException(playerCount + " is not a valid number of players");
+        }
+        this.playerCount = playerCount;
+        wins = new long[playerCount];
+        victoryPointCounts = new long[playerCount][MAX_TRACKED_POINTS + 1];
+    }
+
+    /**
+     * @param result of a game to add to the totals
+     */
+    public void record(GameResult result) {
+        if (result.getPlayerCount() != playerCount) {
+            throw new IllegalArgumentException("This has " + playerCount + " players, but the game had "
+                    + result.getPlayerCount());
+        }
+        games++;
+        if (result.hasWinner()) {
+            wins[result.getWinnerID()]++;
+        } else {
+            unfinishedGames++;
+        }
+        totalTurns += result.getTurns();
+        minTurns = Math.min(minTurns, result.getTurns());
+        maxTurns = Math.max(maxTurns, result.getTurns());
+        for (int player = 0; player < playerCount; player++) {
+            int points = Math.min(Math.max(result.getVictoryPoints(player), 0), MAX_TRACKED_POINTS);
+            victoryPointCounts[player][points]++;
+        }
+    }
+
+    /**
+     * Adds all of another statistics' games to this one
+     * @param other statistics of the same number of players
+     */
+    public void merge(GameStatistics other) {
+        if (other.playerCount != playerCount) {
+            throw new IllegalArgumentException("Can't merge statistics for " + other.playerCount + " players into "
+                    + playerCount);
+        }
+        games += other.games;
+        unfinishedGames += other.unfinishedGames;
+        totalTurns += other.totalTurns;
+        minTurns = Math.min(minTurns, other.minTurns);
+        maxTurns = Math.max(maxTurns, other.maxTurns);
+        for (int player = 0; player < playerCount; player++) {
+            wins[player] += other.wins[player];
+            for (int points = 0; points <= MAX_TRACKED_POINTS; points++) {
+                victoryPointCounts[player][points] += other.victoryPointCounts[player][points];
+            }
+        }
+    }
+
+    public int getPlayerCount() {
+        return playerCount;
+    }
+
+    public long getGames() {
+        return games;
+    }
+
+    /**
+     * @return the number of games that hit the round limit before anyone won
+     */
+    public long getUnfinishedGames() {
+        return unfinishedGames;
+    }
+
+    public long getWins(int playerID) {
+        return wins[playerID];
+    }
+
+    /**
+     * @return the fraction of all games this player won, from 0 to 1
+     */
+    public double getWinRate(int playerID) {
+        return games == 0 ? 0 : (double) wins[playerID] / games;
+    }
+
+    public double getAverageTurns() {
+        return games == 0 ? 0 : (double) totalTurns / games;
+    }
+
+    /**
+     * @return the fewest turns any game took, or 0 if no games were played
+     */
+    public int getMinTurns() {
+        return games == 0 ? 0 : minTurns;
+    }
+
+    public int getMaxTurns() {
+        return maxTurns;
+    }
+
+    /**
+     * @param playerID of the player
+     * @param points from 0 to MAX_TRACKED_POINTS
+     * @return the number of games where the player ended with that many points
+     */
+    public long getVictoryPointCount(int playerID, int points) {
+        return victoryPointCounts[playerID][points];
+    }
+
+    public double getAverageVictoryPoints(int playerID) {
+        if (games == 0) {
+            return 0;
+        }
+        long totalPoints = 0;
+        for (int points = 0; points <= MAX_TRACKED_POINTS; points++) {
+            totalPoints += points * victoryPointCounts[playerID][points];
+        }
+        return (double) totalPoints / games;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder report = new StringBuilder();
+        report.append(String.format("%d games, %d unfinished, turns: avg %.1f, min %d, max %d%n",
+                games, unfinishedGames, getAverageTurns(), getMinTurns(), maxTurns));
+        for (int player = 0; player < playerCount; player++) {
+            // the point distribution is trimmed at the highest score anyone reached, to keep it readable
+            int highest = MAX_TRACKED_POINTS;
+            while (highest > 0 && victoryPointCounts[player][highest] == 0) {
+                highest--;
+            }
+            report.append(String.format("player %d: win rate %.3f, avg points %.2f, points %s%n", player,
+                    getWinRate(player), getAverageVictoryPoints(player),
+                    Arrays.toString(Arrays.copyOf(victoryPointCounts[player], highest + 1))));
+        }
+        return report.toString();
+    }
+}
@@ -0,0 +1,119 @@
+package settlers.sim;
+
+import settlers.Main;
+import settlers.Player;
+import settlers.board.Vertex;
+import settlers.bot.Agent;
+import settlers.bot.AgentRandomImpl;
+import settlers.server.GameHost;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.lang.management.ThreadMXBean;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.SplittableRandom;
+
+/**
+ * Measures what it costs to host many slow games at once, like games where people take their time to move
+ * Every agent thinks for a minute before each setup turn and main turn, so all the games are waiting while they
+ * are measured. For each number of games, it prints the platform threads alive, the heap used after a GC, and on
+ * Linux the process's resident memory, which is where platform threads' stacks show up
+ * Run it on Java 21 or newer to see virtual threads, where the thread count stays flat and each game costs far less
+ */
+public class HostLoadTest {
+
+    private static final long THINKING_MILLIS = 60_000;
+
+    /**
+     * A random agent that takes its time before each of its turns, like a person would
+     */
+    private static class SlowAgent extends AgentRandomImpl {
+
+        SlowAgent(SplittableRandom random) {
+            super(random);
+        }
+
+        private void think() {
+            try {
+                Thread.sleep(THINKING_MILLIS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Stopped while thinking", e);
+            }
+        }
+
+        @Override
+        public Vertex takeSetupTurn(Main main, Player player, Set<Vertex> validSpots) {
+            think();
+            return super.takeSetupTurn(main, player, validSpots);
+        }
+
+        @Override
+        public void startTurn(Main main, Player player, int dieRoll) {
+            think();
+            super.startTurn(main, player, dieRoll);
+        }
+    }
+
+    /**
+     * @param args optionally, the most games to host at once, defaulting to 4096, and then "platform" to use
+     *             platform threads even if virtual threads are available
+     */
+    public static void main(String[] args) throws InterruptedException {
+        int maxGames = args.length > 0 ? Integer.parseInt(args[0]) : 4096;
+        boolean platform = args.length > 1 && args[1].equals("platform") || !GameHost.hasVirtualThreads();
+        ThreadMXBean threadBean = ManagementFactory.getThreadMXBean();
+        MemoryMXBean memoryBean = ManagementFactory.getMemoryMXBean();
+
+        System.out.println("Hosting on " + (platform ? "platform" : "virtual") + " threads, Java "
+                + System.getProperty("java.version"));
+        System.out.println("games, platform threads, heap MB, heap KB per game, resident MB");
+        long baseHeap = usedHeap(memoryBean);
+        for (int games = 16; games <= maxGames; games *= 4) {
+            GameHost host = platform ? new GameHost(GameHost.platformThreadFactory()) : new GameHost();
+            SplittableRandom random = new SplittableRandom(games);
+            for (int game = 0; game < games; game++) {
+                List<Agent> agents = new ArrayList<>(4);
+                for (int i = 0; i < 4; i++) {
+                    agents.add(new SlowAgent(random.split()));
+                }
+                host.host(agents, 1000, random.nextLong());
+            }
+            Thread.sleep(500); // gives every game time to get to its first wait
+            long heap = usedHeap(memoryBean) - baseHeap;
+            long resident = residentBytes();
+            System.out.printf("%d, %d, %.1f, %.1f, %s%n", games, threadBean.getThreadCount(), heap / 1e6,
+                    heap / 1e3 / games, resident < 0 ? "n/a" : String.format("%.1f", resident / 1e6));
+            host.close();
+            while (host.getRunningGames() > 0) {
+                Thread.sleep(10);
+            }
+        }
+    }
+
+    /**
+     * @return the process's resident memory from /proc, or -1 if this isn't Linux
+     */
+    private static long residentBytes() {
+        try {
+            for (String line : Files.readAllLines(Paths.get("/proc/self/status"))) {
+                if (line.startsWith("VmRSS:")) {
+                    return Long.parseLong(line.replaceAll("[^0-9]", "")) * 1024; // it is given in kB
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            // not Linux, or not a format I know, so there is nothing to show
+        }
+        return -1;
+    }
+
+    private static long usedHeap(MemoryMXBean memoryBean) {
+        System.gc();
+        return memoryBean.getHeapMemoryUsage().getUsed();
+    }
+}
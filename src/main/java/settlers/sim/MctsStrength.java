@@ -0,0 +1,77 @@
+package settlers.sim;
+
+import settlers.GameResult;
+import settlers.MainImpl;
+import settlers.bot.Agent;
+import settlers.bot.AgentGreedyImpl;
+import settlers.bot.AgentMctsImpl;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * Measures how much stronger AgentMctsImpl gets as it plays out more games per move, against three AgentGreedyImpls
+ * Each point of the curve is a number of rollouts per move, and the MCTS agent takes each seat in turn, so a seat
+ * that moves first doesn't help it. Every rollout is a game played on copies of MainImpl, so the rollouts per second
+ * are also a measure of how fast the rules are
+ */
+public class MctsStrength {
+
+    private static final int MAX_ROUNDS = 300;
+
+    /**
+     * Prints the win rate and rollouts/sec for each number of rollouts per move
+     * @param args optionally, the games per point, defaulting to 20, the search threads, defaulting to 1, and then
+     *             the rollouts per move of each point, defaulting to 25 50 100 200 400. With more than one thread,
+     *             how the rollouts are split between them changes from run to run, and so do the results
+     */
+    public static void main(String[] args) {
+        int games = args.length > 0 ? Integer.parseInt(args[0]) : 20;
+        int threads = args.length > 1 ? Integer.parseInt(args[1]) : 1;
+        int[] budgets = {25, 50, 100, 200, 400};
+        if (args.length > 2) {
+            budgets = new int[args.length - 2];
+            for (int i = 2; i < args.length; i++) {
+                budgets[i - 2] = Integer.parseInt(args[i]);
+            }
+        }
+        System.out.println("rollouts/move, games, mcts win rate, baseline win rate, avg turns, rollouts/sec");
+        for (int budget : budgets) {
+            run(budget, games, threads);
+        }
+    }
+
+    private static void run(int rolloutsPerMove, int games, int threads) {
+        int wins = 0;
+        int baselineWins = 0;
+        long turns = 0;
+        long rollouts = 0;
+        double rolloutSeconds = 0;
+        for (int game = 0; game < games; game++) {
+            SplittableRandom random = new SplittableRandom(game);
+            int seat = game % 4;
+            // a minute a move, so only the rollouts limit the search, and on one thread the curve is the same on any
+            // machine
+            AgentMctsImpl mcts = new AgentMctsImpl(60_000, rolloutsPerMove, threads, random.split());
+            List<Agent> agents = new ArrayList<>(4);
+            for (int i = 0; i < 4; i++) {
+                agents.add(i == seat ? mcts : new AgentGreedyImpl());
+            }
+            GameResult result = MainImpl.playHeadlessGame(agents, MAX_ROUNDS, game);
+            if (result.getWinnerID() == seat) {
+                wins++;
+            } else if (result.hasWinner()) {
+                baselineWins++;
+            }
+            turns += result.getTurns();
+            rollouts += mcts.getRollouts();
+            if (mcts.getRolloutsPerSecond() > 0) {
+                rolloutSeconds += mcts.getRollouts() / mcts.getRolloutsPerSecond();
+            }
+        }
+        // the baselines' rate is per baseline, so the two rates are even when the search is no better than greedy
+        System.out.printf("%d, %d, %.3f, %.3f, %.1f, %.0f%n", rolloutsPerMove, games, (double) wins / games,
+                baselineWins / 3.0 / games, (double) turns / games, rolloutSeconds == 0 ? 0 : rollouts / rolloutSeconds);
+    }
+}
@@ -0,0 +1,98 @@
+package settlers.sim;
+
+import settlers.server.GameHost;
+import settlers.server.LatencyStats;
+import settlers.server.NioGameServer;
+import settlers.server.Protocol;
+import settlers.server.ScriptedClient;
+
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Plays many games at once through a NioGameServer on localhost, with a ScriptedClient for every player
+ * Prints how many games a second the server got through, then the latency of each command twice: the round trip the
+ * clients saw, and the time the server took from reading the command to replying. The difference is the network
+ * and the clients' own threads, while the server's time includes waiting for the game's thread to pick it up
+ */
+public class NetworkLoadTest {
+
+    /**
+     * @param args optionally, the number of games to play at once, defaulting to 64, the games each client plays,
+     *             defaulting to 4, and the players in each game, defaulting to 4
+     */
+    public static void main(String[] args) throws Exception {
+        int concurrentGames = args.length > 0 ? Integer.parseInt(args[0]) : 64;
+        int gamesEach = args.length > 1 ? Integer.parseInt(args[1]) : 4;
+        int players = args.length > 2 ? Integer.parseInt(args[2]) : 4;
+        int clientCount = concurrentGames * players;
+
+        LatencyStats clientLatency = new LatencyStats();
+        try (GameHost host = new GameHost();
+             NioGameServer server = new NioGameServer(new InetSocketAddress("localhost", 0), host, 1000, 1)) {
+            InetSocketAddress address = new InetSocketAddress("localhost", server.getPort());
+            ExecutorService clientThreads = Executors.newFixedThreadPool(clientCount);
+            SplittableRandom random = new SplittableRandom(1);
+            List<Future<Integer>> wins = new ArrayList<>(clientCount);
+            long start = System.nanoTime();
+            for (int i = 0; i < clientCount; i++) {
+                SplittableRandom clientRandom = random.split();
+                wins.add(clientThreads.submit(() -> {
+                    int gamesWon = 0;
+                    try (ScriptedClient client = new ScriptedClient(address, clientRandom, clientLatency)) {
+                        for (int game = 0; game < gamesEach; game++) {
+                            gamesWon += client.playGame(players) >= 0 ? 1 : 0; // counted by every player in it
+                        }
+                    }
+                    return gamesWon;
+                }));
+            }
+            int gamesWon = 0;
+            for (Future<Integer> won : wins) {
+                gamesWon += won.get();
+            }
+            double seconds = (System.nanoTime() - start) / 1e9;
+            clientThreads.shutdown();
+
+            System.out.printf("%d games by %d clients in %.2f s, %.1f games/s, %d won%n", server.getGamesFinished(),
+                    clientCount, seconds, server.getGamesFinished() / seconds, gamesWon / players);
+            String[] names = commandNames();
+            System.out.println("Round trip at the clients:");
+            System.out.print(clientLatency.toTable(names));
+            System.out.println("Read to reply at the server:");
+            System.out.print(server.getLatency().toTable(names));
+        }
+    }
+
+    /**
+     * @return the name of each command in Protocol, by its type
+     */
+    private static String[] commandNames() {
+        String[] names = new String[Protocol.PASS + 1];
+        names[Protocol.JOIN] = "JOIN";
+        names[Protocol.SETUP_SETTLEMENT] = "SETUP_SETTLEMENT";
+        names[Protocol.SETUP_ROAD] = "SETUP_ROAD";
+        names[Protocol.BUILD_ROAD] = "BUILD_ROAD";
+        names[Protocol.BUILD_SETTLEMENT] = "BUILD_SETTLEMENT";
+        names[Protocol.BUILD_CITY] = "BUILD_CITY";
+        names[Protocol.BUY_DEVELOPMENT_CARD] = "BUY_DEVELOPMENT_CARD";
+        names[Protocol.PLAY_KNIGHT] = "PLAY_KNIGHT";
+        names[Protocol.PLAY_YEAR_OF_PLENTY] = "PLAY_YEAR_OF_PLENTY";
+        names[Protocol.PLAY_MONOPOLY] = "PLAY_MONOPOLY";
+        names[Protocol.PLAY_ROAD_BUILDING] = "PLAY_ROAD_BUILDING";
+        names[Protocol.TRADE_WITH_BANK] = "TRADE_WITH_BANK";
+        names[Protocol.OFFER_TRADE] = "OFFER_TRADE";
+        names[Protocol.ACCEPT_TRADE] = "ACCEPT_TRADE";
+        names[Protocol.DECLINE_TRADE] = "DECLINE_TRADE";
+        names[Protocol.DISCARD] = "DISCARD";
+        names[Protocol.MOVE_THIEF] = "MOVE_THIEF";
+        names[Protocol.GET_OPTIONS] = "GET_OPTIONS";
+        names[Protocol.PASS] = "PASS";
+        return names;
+    }
+}
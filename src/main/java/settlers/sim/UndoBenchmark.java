@@ -0,0 +1,84 @@
+package settlers.sim;
+
+import settlers.GameState;
+import settlers.MainImpl;
+import settlers.Player;
+import settlers.bot.Agent;
+import settlers.bot.AgentRandomImpl;
+import settlers.board.Edge;
+import settlers.card.Resource;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * Measures how long a search takes to try a move and go back, which is taking a GameState, making the move, and
+ * restoring the state
+ * Gaining a card only changes a hand, while a road also means rebuilding the road network and frontier, so both are timed
+ */
+public class UndoBenchmark {
+
+    private static final int WARM_UP_ROUNDS = 3;
+    private static final Resource[] RESOURCES = {Resource.BRICK, Resource.WOOD, Resource.WHEAT, Resource.ORE,
+            Resource.SHEEP};
+
+    /**
+     * Prints the ns per snapshot, and per apply+undo of gaining a card and of a road
+     * @param args optionally, the number of times to try each move per game, defaulting to 200000
+     */
+    public static void main(String[] args) {
+        int tries = args.length > 0 ? Integer.parseInt(args[0]) : 200_000;
+        for (int round = 0; round < WARM_UP_ROUNDS; round++) {
+            run(tries / 10, round, false); // warms up the JIT
+        }
+        System.out.println("game, snapshot ns, card apply+undo ns, road apply+undo ns");
+        for (int game = 0; game < 5; game++) {
+            run(tries, game, true);
+        }
+    }
+
+    private static void run(int tries, long seed, boolean print) {
+        SplittableRandom random = new SplittableRandom(seed);
+        List<Agent> agents = new ArrayList<>(4);
+        for (int i = 0; i < 4; i++) {
+            agents.add(new AgentRandomImpl(random.split()));
+        }
+        MainImpl main = MainImpl.setUpHeadlessGame(agents, seed);
+        Player player = main.getPlayers().get(0);
+        List<Edge> roadSpots = new ArrayList<>(main.getAvailableRoadSpots(player));
+        if (roadSpots.isEmpty()) {
+            throw new IllegalStateException("Game " + seed + " has nowhere to build a road");
+        }
+
+        long start = System.nanoTime();
+        int checksum = 0; // so the JIT can't throw the states away
+        for (int i = 0; i < tries; i++) {
+            checksum += main.getState().size();
+        }
+        long snapshot = System.nanoTime() - start;
+
+        GameState before = main.getState();
+        start = System.nanoTime();
+        for (int i = 0; i < tries; i++) {
+            player.addResource(RESOURCES[i % RESOURCES.length]);
+            main.restore(before);
+        }
+        long hand = System.nanoTime() - start;
+
+        start = System.nanoTime();
+        for (int i = 0; i < tries; i++) {
+            main.buildRoad(player, roadSpots.get(i % roadSpots.size()));
+            main.restore(before);
+        }
+        long road = System.nanoTime() - start;
+
+        if (!main.getState().equals(before)) {
+            throw new IllegalStateException("Game " + seed + " didn't go back to how it was");
+        }
+        if (print) {
+            System.out.printf("%d, %.1f, %.1f, %.1f%s%n", seed, (double) snapshot / tries, (double) hand / tries,
+                    (double) road / tries, checksum == 0 ? " (empty states)" : "");
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package settlers;
+
+import org.junit.jupiter.api.Test;
+import settlers.board.*;
+
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BuildFrontierTest {
+
+    // tests that the frontier always agrees with looking at every edge, as roads and settlements are added at random
+    @Test
+    public void matchesScan() {
+        for (long seed = 0; seed < 20; seed++) {
+            SplittableRandom random = new SplittableRandom(seed);
+            Board board = new BoardImpl(random.split());
+            BuildFrontier frontier = new BuildFrontier(board);
+            Player[] players = {new PlayerImpl(0), new PlayerImpl(1)};
+            Edge[] edges = board.getEdges();
+            for (int step = 0; step < 50; step++) {
+                Player builder = players[random.nextInt(players.length)];
+                if (random.nextInt(4) == 0) {
+                    Vertex vertex = board.getVertex(random.nextInt(board.getVertices().length));
+                    if (vertex.getPlayer() == null) {
+                        vertex.setPlayer(builder);
+                        board.removeSettlement(vertex);
+                    }
+                } else {
+                    Edge edge = edges[random.nextInt(edges.length)];
+                    if (edge.getPlayer() == null) {
+                        edge.setPlayer(builder);
+                        board.removeRoad(edge);
+                        frontier.addRoad(builder, edge);
+                    }
+                }
+                for (Player player : players) {
+                    long roadEnds = 0;
+                    long[] touched = new long[2];
+                    for (Edge edge : edges) {
+                        if (edge.getPlayer() == player) {
+                            roadEnds |= board.getEdgeEndBits(edge.getId());
+                            touched[0] |= board.getEdgeNeighborBits(edge.getId(), 0);
+                            touched[1] |= board.getEdgeNeighborBits(edge.getId(), 1);
+                        }
+                    }
+                    assertEquals(roadEnds & board.getOpenVertexBits(), frontier.getSettlementSpotBits(player));
+                    for (int word = 0; word < 2; word++) {
+                        assertEquals(touched[word] & board.getEmptyEdgeBits(word), frontier.getRoadSpotBits(player, word));
+                    }
+                }
+            }
+        }
+    }
+
+    // tests that a player with no roads has nowhere to build, and a road off the board changes nothing
+    @Test
+    public void noRoadsNoSpots() {
+        Board board = new BoardImpl(new SplittableRandom(1));
+        BuildFrontier frontier = new BuildFrontier(board);
+        Player player = new PlayerImpl(0);
+        frontier.addRoad(player, new EdgeImpl(-1, new VertexImpl(), new VertexImpl()));
+        assertEquals(0, frontier.getSettlementSpotBits(player));
+        assertEquals(0, frontier.getRoadSpotBits(player, 0));
+        assertEquals(0, frontier.getRoadSpotBits(player, 1));
+    }
+}
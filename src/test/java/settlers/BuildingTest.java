@@ -0,0 +1,82 @@
+package settlers;
+
+import org.junit.jupiter.api.Test;
+import settlers.card.Resource;
+
+import java.util.Map;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BuildingTest {
+
+    /**
+     * @return true if the player has enough of everything in the building's Map, checked one resource at a time
+     */
+    private boolean canAffordSlowly(Player player, Building building) {
+        for (Map.Entry<Resource, Integer> cost : building.getResources().entrySet()) {
+            if (player.getResourceCount(cost.getKey()) < cost.getValue()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // tests that the packed costs agree with the Maps
+    @Test
+    public void packedCostsMatchMaps() {
+        for (Building building : Building.values()) {
+            for (Resource resource : Resource.values()) {
+                assertEquals(building.getResources().getOrDefault(resource, 0), building.getCost(resource));
+            }
+        }
+    }
+
+    // tests that the bitmask says the same thing as checking each resource, for many random hands
+    @Test
+    public void affordableMatchesMaps() {
+        SplittableRandom random = new SplittableRandom(10);
+        Resource[] resources = {Resource.WHEAT, Resource.SHEEP, Resource.ORE, Resource.WOOD, Resource.BRICK};
+        for (int hand = 0; hand < 500; hand++) {
+            Player player = new PlayerImpl(0);
+            int cards = random.nextInt(12);
+            for (int card = 0; card < cards; card++) {
+                player.addResource(resources[random.nextInt(resources.length)]);
+            }
+            int affordable = Building.getAffordable(Building.packHand(player));
+            for (Building building : Building.values()) {
+                assertEquals(canAffordSlowly(player, building), (affordable >>> building.ordinal() & 1) != 0,
+                        building + " with " + player.getResources());
+            }
+        }
+    }
+
+    // tests that a very large hand still affords everything, even though it can't all be packed
+    @Test
+    public void largeHandAffordsEverything() {
+        Player player = new PlayerImpl(0);
+        for (int card = 0; card < 3000; card++) {
+            player.addResource(Resource.WHEAT);
+            player.addResource(Resource.SHEEP);
+            player.addResource(Resource.ORE);
+            player.addResource(Resource.WOOD);
+            player.addResource(Resource.BRICK);
+        }
+        assertEquals((1 << Building.values().length) - 1, Building.getAffordable(Building.packHand(player)));
+    }
+
+    // tests that paying for a building takes exactly its cost, and nothing if the player can't afford it
+    @Test
+    public void paysForBuilding() {
+        Player player = new PlayerImpl(0);
+        player.addResource(Resource.WOOD);
+        player.addResource(Resource.BRICK);
+        player.addResource(Resource.ORE);
+        assertFalse(player.removeResources(Building.SETTLEMENT));
+        assertEquals(3, player.getCardNumber());
+        assertTrue(player.removeResources(Building.ROAD));
+        assertEquals(1, player.getCardNumber());
+        assertEquals(1, player.getResourceCount(Resource.ORE));
+        assertEquals(0, player.getResourceCount(Resource.WOOD));
+    }
+}
@@ -0,0 +1,119 @@
+package settlers;
+
+import org.junit.jupiter.api.Test;
+import settlers.bot.Agent;
+import settlers.bot.AgentRandomImpl;
+import settlers.card.Resource;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class GameJournalTest {
+
+    /**
+     * A random agent that also offers trades, and tries a road and takes it back, so every kind of event is made
+     * It keeps the game it was in, so the test can see how it ended
+     */
+    private static class BusyAgent extends AgentRandomImpl {
+        private final SplittableRandom random;
+        MainImpl main;
+
+        BusyAgent(SplittableRandom random) {
+            super(random.split());
+            this.random = random;
+        }
+
+        @Override
+        public void takeTurn(Main main, Player player) {
+            this.main = (MainImpl) main;
+            for (Resource resource : Arrays.asList(Resource.WHEAT, Resource.SHEEP, Resource.ORE)) {
+                if (player.getResourceCount(resource) > 0) {
+                    Map<Resource, Integer> offer = new EnumMap<>(Resource.class);
+                    offer.put(resource, -1);
+                    offer.put(Resource.WOOD, 1);
+                    main.offerTrade(player, offer, new HashSet<>(main.getPlayers()));
+                    break;
+                }
+            }
+            if (main.playerCanBuild(player, Building.ROAD) && random.nextBoolean()) {
+                GameState before = main.getState();
+                main.buildRoad(player, main.getAvailableRoadSpots(player).iterator().next());
+                main.restore(before);
+            }
+            super.takeTurn(main, player);
+        }
+    }
+
+    private List<Agent> agents(long seed) {
+        SplittableRandom random = new SplittableRandom(seed);
+        List<Agent> agents = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            agents.add(new BusyAgent(random.split()));
+        }
+        return agents;
+    }
+
+    private byte[] journal(long seed, List<Agent> agents) throws IOException {
+        ByteArrayOutputStream journal = new ByteArrayOutputStream();
+        MainImpl.playHeadlessGame(agents, 300, seed, journal);
+        return journal.toByteArray();
+    }
+
+    // tests that replaying a journal ends in exactly the same position as the game it was written from
+    @Test
+    public void replayEndsWhereTheGameDid() throws IOException {
+        for (long seed = 0; seed < 10; seed++) {
+            List<Agent> agents = agents(seed);
+            byte[] journal = journal(seed, agents);
+            MainImpl played = ((BusyAgent) agents.get(0)).main;
+            MainImpl replayed = MainImpl.replayJournal(new ByteArrayInputStream(journal));
+
+            assertEquals(played.getResult().toString(), replayed.getResult().toString(), "seed " + seed);
+            assertArrayEquals(played.getState().toByteArray(), replayed.getState().toByteArray(), "seed " + seed);
+            assertEquals(played.getPositionHash(), replayed.getPositionHash(), "seed " + seed);
+        }
+    }
+
+    // tests that keeping a journal doesn't change how the game goes
+    @Test
+    public void journalDoesNotChangeTheGame() throws IOException {
+        for (long seed = 0; seed < 5; seed++) {
+            GameResult unrecorded = MainImpl.playHeadlessGame(agents(seed), 300, seed);
+            GameResult recorded = MainImpl.playHeadlessGame(agents(seed), 300, seed, new ByteArrayOutputStream());
+            assertEquals(unrecorded.toString(), recorded.toString());
+        }
+    }
+
+    // tests that a journal cut off anywhere, like by a crash, replays up to where it was cut
+    @Test
+    public void cutOffJournalReplaysToTheCut() throws IOException {
+        byte[] journal = journal(3, agents(3));
+        int lastTurns = -1;
+        for (int length = 18; length < journal.length; length += journal.length / 17) {
+            byte[] cut = Arrays.copyOf(journal, length);
+            MainImpl replayed = MainImpl.replayJournal(new ByteArrayInputStream(cut));
+            MainImpl again = MainImpl.replayJournal(new ByteArrayInputStream(cut));
+            assertArrayEquals(replayed.getState().toByteArray(), again.getState().toByteArray());
+            int turns = replayed.getState().getTurnsPlayed();
+            assertTrue(turns >= lastTurns, "A longer journal went back in time");
+            lastTurns = turns;
+        }
+        assertTrue(lastTurns > 0);
+    }
+
+    // tests that a journal that doesn't match its header's game is caught, and that other files are refused
+    @Test
+    public void mismatchedJournalsAreRefused() throws IOException {
+        byte[] journal = journal(5, agents(5));
+        journal[6] ^= 1; // the first byte of the seed, so the dice won't match
+        assertThrows(IllegalStateException.class, () -> MainImpl.replayJournal(new ByteArrayInputStream(journal)));
+
+        byte[] notAJournal = "Settlers of Catan, but not a journal".getBytes();
+        assertThrows(IllegalArgumentException.class,
+                () -> MainImpl.replayJournal(new ByteArrayInputStream(notAJournal)));
+    }
+}
@@ -0,0 +1,121 @@
+package settlers;
+
+import org.junit.jupiter.api.Test;
+import settlers.board.*;
+import settlers.card.DevelopmentCard;
+import settlers.card.Resource;
+import settlers.gui.GUIMainDummyImpl;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class GameStateTest {
+
+    /**
+     * Makes a seeded game and plays some moves on it, so there is something in every part of the state
+     */
+    private MainImpl playSomeMoves(long seed) {
+        MainImpl main = new MainImpl(4, new GUIMainDummyImpl(), new SplittableRandom(seed));
+        List<Player> players = main.getPlayers();
+        Board board = main.getBoard();
+        Player first = players.get(0);
+        Player second = players.get(1);
+        main.buildSettlement(first, board.getVertex(10));
+        main.buildRoad(first, board.getVertex(10).getEdges()[0]);
+        main.buildSettlement(second, board.getVertex(40));
+        main.buildRoad(second, board.getVertex(40).getEdges()[1]);
+        main.setTurn(first, true);
+        for (Resource resource : new Resource[]{Resource.WHEAT, Resource.WHEAT, Resource.ORE, Resource.ORE,
+                Resource.ORE, Resource.SHEEP, Resource.WOOD}) {
+            first.addResource(resource);
+        }
+        main.buildCity(first, board.getVertex(10));
+        main.buildDevelopmentCard(first);
+        main.moveThief(first, board.getVertex(40), board.getHex(3));
+        return main;
+    }
+
+    // tests that every getter gives back what the game had
+    @Test
+    public void stateMatchesGame() {
+        MainImpl main = playSomeMoves(4);
+        GameState state = main.getState();
+        Board board = main.getBoard();
+        List<Player> players = main.getPlayers();
+        assertEquals(players.size(), state.getPlayerCount());
+        for (Hex hex : board.getHexes()) {
+            assertEquals(hex.getResource(), state.getHexResource(hex.getId()));
+            assertEquals(hex.getNumber(), state.getHexNumber(hex.getId()));
+            assertEquals(hex.hasThief(), state.getThiefHex() == hex.getId());
+        }
+        for (Vertex vertex : board.getVertices()) {
+            assertEquals(vertex.getPort(), state.getPort(vertex.getId()));
+            assertEquals(vertex.getPlayer() == null ? -1 : players.indexOf(vertex.getPlayer()),
+                    state.getVertexOwner(vertex.getId()));
+            assertEquals(vertex.isCity(), state.isCity(vertex.getId()));
+        }
+        for (Edge edge : board.getEdges()) {
+            assertEquals(edge.getPlayer() == null ? -1 : players.indexOf(edge.getPlayer()),
+                    state.getEdgeOwner(edge.getId()));
+        }
+        for (int i = 0; i < players.size(); i++) {
+            Player player = players.get(i);
+            for (Resource resource : Resource.values()) {
+                assertEquals(player.getResourceCount(resource), state.getResourceCount(i, resource));
+                assertEquals(player.getPorts().contains(resource), state.hasPort(i, resource));
+            }
+            for (DevelopmentCard card : DevelopmentCard.values()) {
+                assertEquals(player.getDevelopmentCards().getOrDefault(card, 0), state.getDevelopmentCardCount(i, card));
+            }
+            assertEquals(player.getVictoryPoints(), state.getVictoryPoints(i));
+            assertEquals(player.getRoadLength(), state.getRoadLength(i));
+            assertEquals(player.getKnightNumber(), state.getKnightNumber(i));
+        }
+        assertTrue(state.isMainPhase());
+        assertEquals(0, state.getCurrentTurn());
+        assertEquals(-1, state.getWinner());
+        assertEquals(24, state.getDeck().size());
+        assertEquals(new ArrayList<>(main.getVellyDeck()), state.getDeck());
+        int[] turnOrder = state.getTurnOrder();
+        for (int i = 0; i < turnOrder.length; i++) {
+            assertEquals((int) main.getTurnOrder().get(i), turnOrder[i]);
+        }
+        assertTrue(state.size() < 300, "a 4 player state should only take a few hundred bytes, not " + state.size());
+    }
+
+    // tests that the bytes turn back into an equal state
+    @Test
+    public void bytesRoundTrip() {
+        GameState state = playSomeMoves(5).getState();
+        GameState copy = GameState.fromBytes(state.toByteArray());
+        assertEquals(state, copy);
+        assertEquals(state.hashCode(), copy.hashCode());
+        assertEquals(state.getTurnsPlayed(), copy.getTurnsPlayed());
+    }
+
+    // tests that the same game gives the same state, and a different move gives a different one
+    @Test
+    public void samePositionSameState() {
+        MainImpl main = playSomeMoves(6);
+        assertEquals(main.getState(), playSomeMoves(6).getState());
+        GameState before = main.getState();
+        main.getPlayers().get(2).addResource(Resource.BRICK);
+        assertNotEquals(before, main.getState());
+    }
+
+    // tests that bytes that aren't a state are turned down
+    @Test
+    public void rejectsBadBytes() {
+        byte[] bytes = playSomeMoves(7).getState().toByteArray();
+        assertThrows(IllegalArgumentException.class, () -> GameState.fromBytes(new byte[3]));
+        byte[] wrongFormat = bytes.clone();
+        wrongFormat[0] = 99;
+        assertThrows(IllegalArgumentException.class, () -> GameState.fromBytes(wrongFormat));
+        byte[] cutShort = Arrays.copyOf(bytes, bytes.length - 1);
+        assertThrows(IllegalArgumentException.class, () -> GameState.fromBytes(cutShort));
+    }
+}
@@ -0,0 +1,131 @@
+package settlers;
+
+import org.junit.jupiter.api.Test;
+import settlers.bot.Agent;
+import settlers.bot.AgentRandomImpl;
+import settlers.gui.GUIMainDummyImpl;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class HeadlessGameTest {
+
+    private List<Agent> randomAgents(int number) {
+        List<Agent> agents = new ArrayList<>();
+        for (int i = 0; i < number; i++) {
+            agents.add(new AgentRandomImpl());
+        }
+        return agents;
+    }
+
+    // tests that a headless game returns, instead of closing the program, and that the winner really won
+    @Test
+    public void headlessGameEndsWithWinner() {
+        for (int i = 0; i < 20; i++) {
+            GameResult result = MainImpl.playHeadlessGame(randomAgents(4), 1000);
+            assertTrue(result.hasWinner(), "random agents should be able to finish a game in 1000 rounds");
+            assertTrue(result.getVictoryPoints(result.getWinnerID()) >= 10);
+            assertTrue(result.getTurns() > 0);
+        }
+    }
+
+    // tests that games with fewer players work too
+    @Test
+    public void headlessGameWorksWith2And3Players() {
+        for (int players = 2; players <= 3; players++) {
+            GameResult result = MainImpl.playHeadlessGame(randomAgents(players), 1000);
+            assertEquals(players, result.getPlayerCount());
+        }
+    }
+
+    // tests that the game stops after the maximum number of rounds, even if no one won
+    @Test
+    public void headlessGameStopsAtMaxRounds() {
+        GameResult result = MainImpl.playHeadlessGame(randomAgents(4), 1);
+        assertTrue(result.getTurns() <= 4);
+    }
+
+    // tests that a game with the same seed, and agents with the same seed, plays out exactly the same
+    @Test
+    public void sameSeedSameGame() {
+        for (long seed = 0; seed < 5; seed++) {
+            GameResult first = MainImpl.playHeadlessGame(RandomAgents.seeded(4, seed), 1000, seed);
+            GameResult second = MainImpl.playHeadlessGame(RandomAgents.seeded(4, seed), 1000, seed);
+            assertEquals(first.toString(), second.toString());
+            assertEquals(first.getTurns(), second.getTurns());
+        }
+    }
+
+    // tests that the seed really is used, by checking that not every seed gives the same game
+    @Test
+    public void differentSeedsDifferentGames() {
+        Set<String> results = new HashSet<>();
+        for (long seed = 0; seed < 10; seed++) {
+            results.add(MainImpl.playHeadlessGame(RandomAgents.seeded(4, 0), 1000, seed).toString());
+        }
+        assertTrue(results.size() > 1);
+    }
+
+    // tests that the same seed gives the same board
+    @Test
+    public void sameSeedSameBoard() {
+        MainImpl first = new MainImpl(4, new GUIMainDummyImpl(), new SplittableRandom(99));
+        MainImpl second = new MainImpl(4, new GUIMainDummyImpl(), new SplittableRandom(99));
+        for (int i = 0; i < first.getBoard().getHexes().length; i++) {
+            assertEquals(first.getBoard().getHexes()[i].getResource(), second.getBoard().getHexes()[i].getResource());
+            assertEquals(first.getBoard().getHexes()[i].getNumber(), second.getBoard().getHexes()[i].getNumber());
+        }
+        for (int i = 0; i < first.getBoard().getVertices().length; i++) {
+            assertEquals(first.getBoard().getVertices()[i].getPort(), second.getBoard().getVertices()[i].getPort());
+        }
+    }
+
+    // tests that a bad number of agents is rejected
+    @Test
+    public void headlessGameNeeds2To4Agents() {
+        assertThrows(IllegalArgumentException.class, () -> MainImpl.playHeadlessGame(randomAgents(1), 10));
+        assertThrows(IllegalArgumentException.class, () -> MainImpl.playHeadlessGame(randomAgents(5), 10));
+    }
+
+    // now that the game doesn't call System.exit outside the GUI, winning can be tested
+    @Test
+    public void winningIsRecorded() {
+        MainImpl main = new MainImpl(4, new GUIMainDummyImpl());
+        Player player = main.getPlayers().get(0);
+        assertNull(main.getWinner());
+        player.increaseVictoryPoints(9);
+        main.buildSettlement(player, main.getBoard().getVertices()[0]);
+        assertEquals(player, main.getWinner());
+        assertEquals(0, main.getResult().getWinnerID());
+    }
+
+    // tests that a game made from a state is in the same position, on a board of its own
+    @Test
+    public void fromStateIsTheSamePosition() {
+        MainImpl main = MainImpl.setUpHeadlessGame(RandomAgents.seeded(4, 6), 6);
+        GameState state = main.getState();
+        MainImpl copy = MainImpl.fromState(state, RandomAgents.seeded(4, 7), 7);
+        assertEquals(state, copy.getState());
+        assertEquals(main.getPositionHash(), copy.getPositionHash());
+        assertNotSame(main.getBoard(), copy.getBoard());
+
+        copy.playOut(10);
+        assertEquals(state, main.getState(), "Playing the copy changed the real game");
+    }
+
+    // tests that a game made from a state can be played on to the end, and the turn limit is kept
+    @Test
+    public void playOutFinishesTheGame() {
+        GameState state = MainImpl.setUpHeadlessGame(RandomAgents.seeded(3, 2), 2).getState();
+        GameResult result = MainImpl.fromState(state, RandomAgents.seeded(3, 3), 3).playOut(5000);
+        assertTrue(result.hasWinner());
+        GameResult stopped = MainImpl.fromState(state, RandomAgents.seeded(3, 3), 3).playOut(4);
+        assertEquals(4, stopped.getTurns());
+        assertThrows(IllegalArgumentException.class, () -> MainImpl.fromState(state, RandomAgents.seeded(4, 3), 3));
+    }
+}
@@ -0,0 +1,146 @@
+package settlers;
+
+import org.junit.jupiter.api.Test;
+import settlers.board.*;
+import settlers.card.DevelopmentCard;
+import settlers.card.Resource;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class MainPositionHashTest {
+
+    private static final Resource[] HAND_RESOURCES = {Resource.WHEAT, Resource.SHEEP, Resource.ORE, Resource.WOOD,
+            Resource.BRICK};
+
+    private Resource randomResource(SplittableRandom random) {
+        return HAND_RESOURCES[random.nextInt(HAND_RESOURCES.length)];
+    }
+
+    /**
+     * Makes a random move for a random player, covering everything that changes the hash
+     */
+    private void randomMove(MainImpl main, SplittableRandom random) {
+        List<Player> players = main.getPlayers();
+        Player player = players.get(random.nextInt(players.size()));
+        main.setTurn(player, true);
+        for (int i = 0; i < 3; i++) {
+            player.addResource(randomResource(random));
+        }
+        Board board = main.getBoard();
+        switch (random.nextInt(10)) {
+            case 0:
+                List<Edge> roadSpots = new ArrayList<>(main.getAvailableRoadSpots(player));
+                if (!roadSpots.isEmpty()) {
+                    main.buildRoad(player, roadSpots.get(random.nextInt(roadSpots.size())));
+                }
+                break;
+            case 1:
+                List<Vertex> settlementSpots = new ArrayList<>(main.getAvailableSettlementSpots(player));
+                if (!settlementSpots.isEmpty()) {
+                    main.buildSettlement(player, settlementSpots.get(random.nextInt(settlementSpots.size())));
+                }
+                break;
+            case 2:
+                List<Vertex> citySpots = new ArrayList<>(main.getAvailableCitySpots(player));
+                citySpots.sort(Comparator.comparingInt(Vertex::getId));
+                if (!citySpots.isEmpty()) {
+                    main.buildCity(player, citySpots.get(random.nextInt(citySpots.size())));
+                }
+                break;
+            case 3:
+                if (main.playerCanBuild(player, Building.DEVELOPMENT_CARD)) {
+                    main.buildDevelopmentCard(player);
+                }
+                break;
+            case 4: // moving the thief onto someone, and robbing them
+                Vertex victim = board.getVertex(random.nextInt(board.getVertices().length));
+                main.moveThief(player, victim, board.getHex(random.nextInt(board.getHexes().length)));
+                break;
+            case 5:
+                if (player.getDevelopmentCards().getOrDefault(DevelopmentCard.KNIGHT, 0) > 0) {
+                    main.playKnight(player, board.getVertex(random.nextInt(board.getVertices().length)),
+                            board.getHex(random.nextInt(board.getHexes().length)));
+                }
+                break;
+            case 6:
+                main.playMonopoly(player, randomResource(random)); // does nothing without the card
+                main.playYearOfPlenty(player, randomResource(random), randomResource(random));
+                break;
+            case 7:
+                main.applyDice(2 + random.nextInt(6) + random.nextInt(6));
+                break;
+            case 8:
+                Resource given = randomResource(random);
+                if (main.canTrade(player, given)) {
+                    main.trade(player, given, randomResource(random));
+                }
+                break;
+            default:
+                main.removePlayerResource(player, randomResource(random));
+        }
+    }
+
+    // tests that the hash kept up by Main is always the same as hashing the position from scratch
+    @Test
+    public void incrementalHashMatchesScratch() {
+        for (long seed = 0; seed < 20; seed++) {
+            MainImpl main = RandomAgents.setUpGame(seed);
+            assertEquals(Zobrist.hash(main.getState()), main.getPositionHash(), "seed " + seed + " after setup");
+            SplittableRandom random = new SplittableRandom(seed);
+            for (int step = 0; step < 150; step++) {
+                randomMove(main, random);
+                assertEquals(Zobrist.hash(main.getState()), main.getPositionHash(), "seed " + seed + ", step " + step);
+            }
+        }
+    }
+
+    // tests that restoring a state also puts back its hash
+    @Test
+    public void restoreRestoresHash() {
+        MainImpl main = RandomAgents.setUpGame(3);
+        SplittableRandom random = new SplittableRandom(3);
+        for (int step = 0; step < 50; step++) {
+            GameState before = main.getState();
+            long hashBefore = main.getPositionHash();
+            for (int tried = 0; tried < 4; tried++) {
+                randomMove(main, random);
+            }
+            main.restore(before);
+            assertEquals(hashBefore, main.getPositionHash(), "step " + step);
+            randomMove(main, random);
+        }
+    }
+
+    // tests that the same position reached in a different order hashes the same, and a different one doesn't
+    @Test
+    public void transpositionsHashTheSame() {
+        MainImpl first = RandomAgents.setUpGame(5);
+        MainImpl second = RandomAgents.setUpGame(5);
+        Player firstPlayer = first.getPlayers().get(0);
+        Player secondPlayer = second.getPlayers().get(0);
+        List<Edge> firstSpots = new ArrayList<>(first.getAvailableRoadSpots(firstPlayer));
+        firstSpots.sort(Comparator.comparingInt(Edge::getId));
+        assertTrue(firstSpots.size() >= 2);
+        Edge a = firstSpots.get(0);
+        Edge b = firstSpots.get(1);
+        long start = first.getPositionHash();
+
+        first.buildRoad(firstPlayer, a);
+        first.buildRoad(firstPlayer, b);
+        second.buildRoad(secondPlayer, second.getBoard().getEdge(b.getId()));
+        assertNotEquals(start, second.getPositionHash());
+        assertNotEquals(first.getPositionHash(), second.getPositionHash());
+        second.buildRoad(secondPlayer, second.getBoard().getEdge(a.getId()));
+        assertEquals(first.getPositionHash(), second.getPositionHash());
+
+        firstPlayer.addResource(Resource.ORE);
+        assertNotEquals(first.getPositionHash(), second.getPositionHash());
+        secondPlayer.addResource(Resource.ORE);
+        assertEquals(first.getPositionHash(), second.getPositionHash());
+    }
+}
@@ -0,0 +1,137 @@
+package settlers;
+
+import org.junit.jupiter.api.Test;
+import settlers.board.*;
+import settlers.card.Resource;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class MainRestoreTest {
+
+    private static final Resource[] HAND_RESOURCES = {Resource.WHEAT, Resource.SHEEP, Resource.ORE, Resource.WOOD,
+            Resource.BRICK};
+
+    // sorts by id first, since a restored player's pieces come back in board order, not the order they were built
+    private Vertex randomElement(List<Vertex> list, SplittableRandom random) {
+        list.sort(Comparator.comparingInt(Vertex::getId));
+        return list.get(random.nextInt(list.size()));
+    }
+
+    private Edge randomEdge(List<Edge> list, SplittableRandom random) {
+        list.sort(Comparator.comparingInt(Edge::getId));
+        return list.get(random.nextInt(list.size()));
+    }
+
+    /**
+     * Makes a random move for a random player, without using any of the game's own randomness,
+     * so that two copies of a game stay the same when one of them has moves tried and undone
+     */
+    private void randomMove(MainImpl main, SplittableRandom random) {
+        Player player = main.getPlayers().get(random.nextInt(main.getPlayers().size()));
+        main.setTurn(player, true);
+        for (int i = 0; i < 4; i++) {
+            player.addResource(HAND_RESOURCES[random.nextInt(HAND_RESOURCES.length)]);
+        }
+        switch (random.nextInt(7)) {
+            case 0:
+                List<Edge> roadSpots = new ArrayList<>(main.getAvailableRoadSpots(player));
+                if (!roadSpots.isEmpty()) {
+                    main.buildRoad(player, randomEdge(roadSpots, random));
+                }
+                break;
+            case 1:
+                List<Vertex> settlementSpots = new ArrayList<>(main.getAvailableSettlementSpots(player));
+                if (!settlementSpots.isEmpty()) {
+                    main.buildSettlement(player, randomElement(settlementSpots, random));
+                }
+                break;
+            case 2:
+                List<Vertex> citySpots = new ArrayList<>(main.getAvailableCitySpots(player));
+                if (!citySpots.isEmpty()) {
+                    main.buildCity(player, randomElement(citySpots, random));
+                }
+                break;
+            case 3:
+                if (main.playerCanBuild(player, Building.DEVELOPMENT_CARD)) {
+                    main.buildDevelopmentCard(player);
+                }
+                break;
+            case 4:
+                Hex location = main.getBoard().getHex(random.nextInt(main.getBoard().getHexes().length));
+                main.moveThief(player, new VertexImpl(), location); // no one to rob, so the thief's random isn't used
+                break;
+            case 5:
+                main.applyDice(2 + random.nextInt(6) + random.nextInt(6));
+                break;
+            default:
+                Resource given = HAND_RESOURCES[random.nextInt(HAND_RESOURCES.length)];
+                if (main.canTrade(player, given)) {
+                    main.trade(player, given, HAND_RESOURCES[random.nextInt(HAND_RESOURCES.length)]);
+                }
+        }
+    }
+
+    /**
+     * Checks that the two games agree on their state, and on everything the indexes give back
+     */
+    private void assertSameGame(MainImpl expected, MainImpl actual, String message) {
+        assertEquals(expected.getState(), actual.getState(), message);
+        for (int i = 0; i < expected.getPlayers().size(); i++) {
+            Player expectedPlayer = expected.getPlayers().get(i);
+            Player actualPlayer = actual.getPlayers().get(i);
+            assertEquals(ids(expected.getAvailableRoadSpots(expectedPlayer)),
+                    ids(actual.getAvailableRoadSpots(actualPlayer)), message);
+            assertEquals(ids(expected.getAvailableSettlementSpots(expectedPlayer)),
+                    ids(actual.getAvailableSettlementSpots(actualPlayer)), message);
+            assertEquals(ids(expectedPlayer.getSettlements()), ids(actualPlayer.getSettlements()), message);
+            assertEquals(ids(expectedPlayer.getRoads()), ids(actualPlayer.getRoads()), message);
+        }
+    }
+
+    private List<Integer> ids(Iterable<?> elements) {
+        List<Integer> ids = new ArrayList<>();
+        for (Object element : elements) {
+            ids.add(element instanceof Vertex ? ((Vertex) element).getId() : ((Edge) element).getId());
+        }
+        ids.sort(null);
+        return ids;
+    }
+
+    // tests that trying a move and restoring leaves the game the same as a copy that never tried it,
+    // including the indexes, which are checked by playing the same real moves on both afterwards
+    @Test
+    public void tryingAndUndoingChangesNothing() {
+        for (long seed = 0; seed < 10; seed++) {
+            MainImpl main = RandomAgents.setUpGame(seed);
+            MainImpl untouched = RandomAgents.setUpGame(seed);
+            SplittableRandom tries = new SplittableRandom(seed + 100);
+            SplittableRandom moves = new SplittableRandom(seed + 200);
+            for (int step = 0; step < 60; step++) {
+                GameState before = main.getState();
+                for (int tried = 0; tried < 3; tried++) {
+                    randomMove(main, tries);
+                }
+                main.restore(before);
+                assertSameGame(untouched, main, "seed " + seed + ", step " + step);
+
+                long moveSeed = moves.nextLong();
+                randomMove(main, new SplittableRandom(moveSeed));
+                randomMove(untouched, new SplittableRandom(moveSeed));
+                assertSameGame(untouched, main, "seed " + seed + ", step " + step + " after a real move");
+            }
+        }
+    }
+
+    // tests that a state from another board can't be restored
+    @Test
+    public void otherBoardRejected() {
+        MainImpl main = RandomAgents.setUpGame(1);
+        MainImpl other = RandomAgents.setUpGame(2);
+        assertThrows(IllegalArgumentException.class, () -> main.restore(other.getState()));
+    }
+}
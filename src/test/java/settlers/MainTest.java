@@ -208,13 +208,13 @@ public class MainTest {
 
         Vertex firstVertex = verticesSource.getVertices()[0];
         Edge firstRoad = firstVertex.getEdges()[0];
-        firstRoad.setPlayer(playerCopy.get(0));
+        addPlayer(firstRoad, playerCopy.get(0));
         verticesCopy.add(firstVertex);
         verticesCopy.add(firstVertex.getAdjacentVertices()[0]);
 
         Vertex secondVertex = verticesSource.getVertices()[3];
         Edge secondRoad = secondVertex.getEdges()[0];
-        secondRoad.setPlayer(playerCopy.get(0));
+        addPlayer(secondRoad, playerCopy.get(0));
         verticesCopy.add(secondVertex);
         verticesCopy.add(secondVertex.getAdjacentVertices()[0]);
 
@@ -238,9 +238,9 @@ public class MainTest {
      * @param player where road is updated
      */
     private void addPlayer(Edge edge, Player player) {
-        edge.setPlayer(player);
-        player.addRoad(edge);
-        main.getBoard().removeRoad(edge);
+        // this goes through main, so main knows where the player's roads reach
+        // in the main phase the player can't pay, but main still builds the road
+        main.buildRoad(player, edge);
     }
 
     /**
@@ -1109,7 +1109,7 @@ public class MainTest {
         Vertex vertex = main.getBoard().getVertices()[13];
         addPlayer(vertex.getEdges()[0], player);
 
-        Set<Edge> normalResultWithoutEdge = main.getAvailableRoadSpots(player);
+        Set<Edge> normalResultWithoutEdge = new HashSet<>(main.getAvailableRoadSpots(player));
         normalResultWithoutEdge.remove(vertex.getEdges()[1]); // since that one won't be available anymore
         assertTrue(main.getAvailableRoadSpotsGivenEdge(player, vertex.getEdges()[1]).containsAll(normalResultWithoutEdge));
     }
@@ -1133,6 +1133,26 @@ public class MainTest {
         return new HashSet<>();
     }
 
+    // tests that the spots are saved until something changes, and can't be changed by whoever asked for them
+    @Test
+    public void spotsCachedUntilChange() {
+        Player player = main.getPlayers().get(0);
+        main.setTurn(player, true);
+        Vertex vertex = main.getBoard().getVertices()[13];
+        addPlayer(vertex.getEdges()[0], player);
+
+        Set<Edge> roadSpots = main.getAvailableRoadSpots(player);
+        Set<Vertex> settlementSpots = main.getAvailableSettlementSpots(player);
+        assertSame(roadSpots, main.getAvailableRoadSpots(player));
+        assertSame(settlementSpots, main.getAvailableSettlementSpots(player));
+        assertThrows(UnsupportedOperationException.class, () -> roadSpots.clear());
+
+        Edge nextRoad = roadSpots.iterator().next();
+        addPlayer(nextRoad, player);
+        assertNotSame(roadSpots, main.getAvailableRoadSpots(player));
+        assertFalse(main.getAvailableRoadSpots(player).contains(nextRoad));
+    }
+
     // tests that it returns all the new spots given from that edge
     @Test
     public void returnsAllNewAdjacentEdges() {
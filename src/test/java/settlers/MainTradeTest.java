@@ -1,11 +1,12 @@
 package settlers;
 
 import org.junit.jupiter.api.Test;
+import settlers.bot.Agent;
+import settlers.bot.AgentRandomImpl;
 import settlers.card.Resource;
 import settlers.gui.GUIMainDummyImpl;
 
-import java.util.HashMap;
-import java.util.Map;
+import java.util.*;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -517,4 +518,95 @@ public class MainTradeTest {
         assertEquals(result2, player2.getResources());
     }
 
+    // tests for offerTrade, which asks the other players' agents
+
+    /**
+     * An agent that always gives the same answer to trades, and remembers whether it was asked
+     */
+    private static class TradeAgent extends AgentRandomImpl {
+        private final boolean accepts;
+        private boolean asked;
+
+        TradeAgent(boolean accepts) {
+            super(new SplittableRandom(accepts ? 1 : 2));
+            this.accepts = accepts;
+        }
+
+        @Override
+        public boolean acceptTrade(Main main, Player player, Player trader, Map<Resource, Integer> resourcesExchanged) {
+            asked = true;
+            return accepts;
+        }
+    }
+
+    private List<TradeAgent> tradeAgents(boolean... accepts) {
+        List<TradeAgent> agents = new ArrayList<>();
+        for (boolean accept : accepts) {
+            agents.add(new TradeAgent(accept));
+        }
+        return agents;
+    }
+
+    private MainImpl headlessGame(List<TradeAgent> agents) {
+        MainImpl game = MainImpl.setUpHeadlessGame(new ArrayList<Agent>(agents), 7);
+        for (Player playerInGame : game.getPlayers()) {
+            giveResources(playerInGame, Resource.WOOD, 1);
+            giveResources(playerInGame, Resource.ORE, 1);
+        }
+        return game;
+    }
+
+    private Map<Resource, Integer> woodForOre() {
+        Map<Resource, Integer> exchange = new EnumMap<>(Resource.class);
+        exchange.put(Resource.WOOD, -1);
+        exchange.put(Resource.ORE, 1);
+        return exchange;
+    }
+
+    // tests that the trade is made with the first player who accepts, and later players aren't asked
+    @Test
+    public void offerTradeGoesToFirstWhoAccepts() {
+        List<TradeAgent> agents = tradeAgents(false, false, true, true);
+        MainImpl game = headlessGame(agents);
+        List<Player> players = game.getPlayers();
+        int woodBefore = players.get(2).getResourceCount(Resource.WOOD);
+        int oreBefore = players.get(0).getResourceCount(Resource.ORE);
+
+        Player taker = game.offerTrade(players.get(0), woodForOre(), new HashSet<>(players));
+        assertSame(players.get(2), taker);
+        assertFalse(agents.get(0).asked); // the trader isn't offered their own trade
+        assertTrue(agents.get(1).asked);
+        assertFalse(agents.get(3).asked);
+        assertEquals(woodBefore + 1, players.get(2).getResourceCount(Resource.WOOD));
+        assertEquals(oreBefore + 1, players.get(0).getResourceCount(Resource.ORE));
+    }
+
+    // tests that players who can't afford the trade, or weren't sent it, aren't asked
+    @Test
+    public void offerTradeSkipsPlayersWhoCantTrade() {
+        List<TradeAgent> agents = tradeAgents(false, true, true, true);
+        MainImpl game = headlessGame(agents);
+        List<Player> players = game.getPlayers();
+        players.get(1).removeResource(Resource.ORE, players.get(1).getResourceCount(Resource.ORE));
+
+        Player taker = game.offerTrade(players.get(0), woodForOre(), new HashSet<>(players.subList(1, 3)));
+        assertSame(players.get(2), taker);
+        assertFalse(agents.get(1).asked);
+        assertFalse(agents.get(3).asked);
+    }
+
+    // tests that no one is asked if the trader can't afford it, or if everyone declines
+    @Test
+    public void offerTradeCanFail() {
+        List<TradeAgent> agents = tradeAgents(false, false, false, false);
+        MainImpl game = headlessGame(agents);
+        List<Player> players = game.getPlayers();
+        assertNull(game.offerTrade(players.get(0), woodForOre(), new HashSet<>(players)));
+        assertTrue(agents.get(3).asked);
+
+        agents.get(3).asked = false;
+        players.get(0).removeResource(Resource.WOOD, players.get(0).getResourceCount(Resource.WOOD));
+        assertNull(game.offerTrade(players.get(0), woodForOre(), new HashSet<>(players)));
+        assertFalse(agents.get(3).asked);
+    }
 }
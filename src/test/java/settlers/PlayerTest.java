@@ -66,6 +66,24 @@ public class PlayerTest {
         assertFalse(player.hasMoreThan7Cards());
     }
 
+    // make sure that the counts agree with the map, which keeps up with the hand and can't be changed
+    @Test
+    public void resourceCountMatchesMap() {
+        player.addResource(Resource.ORE);
+        player.addResource(Resource.ORE);
+        player.addResource(Resource.SHEEP);
+        for (Resource resource : Resource.values()) {
+            assertEquals(player.getResources().getOrDefault(resource, 0), player.getResourceCount(resource));
+        }
+        assertFalse(player.getResources().containsKey(Resource.MISC));
+        assertThrows(UnsupportedOperationException.class, () -> player.getResources().put(Resource.ORE, 5));
+        assertFalse(player.removeResource(Resource.ORE, 3));
+        assertEquals(2, player.getResourceCount(Resource.ORE));
+        assertTrue(player.removeResource(Resource.ORE, 2));
+        assertEquals(0, player.getResources().get(Resource.ORE));
+        assertEquals(1, player.getCardNumber());
+    }
+
     // make sure that works when has more than 7 cards
     @Test
     public void resourceWorks8() {
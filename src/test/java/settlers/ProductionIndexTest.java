@@ -0,0 +1,110 @@
+package settlers;
+
+import org.junit.jupiter.api.Test;
+import settlers.board.Board;
+import settlers.board.BoardImpl;
+import settlers.board.Hex;
+import settlers.board.Vertex;
+import settlers.card.Resource;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ProductionIndexTest {
+
+    /**
+     * Works out what a roll gives each player the slow way, by looking at every hex, like applyDice used to
+     * @return [player ID][resource ordinal] = how many of that resource the player gets
+     */
+    private int[][] scanProduction(Board board, int dieValue, int playerCount) {
+        int[][] production = new int[playerCount][Resource.values().length];
+        for (Hex hex : board.getHexes()) {
+            if (hex.getNumber() == dieValue && !hex.hasThief()) {
+                for (Vertex vertex : hex.getVertices()) {
+                    if (vertex.getPlayer() != null) {
+                        production[vertex.getPlayer().getID()][hex.getResource().ordinal()] += vertex.isCity() ? 2 : 1;
+                    }
+                }
+            }
+        }
+        return production;
+    }
+
+    /**
+     * Rolls every number, and checks each player got exactly what a scan of the board says they should
+     */
+    private void assertMatchesScan(Board board, ProductionIndex index, Player[] players) {
+        for (int dieValue = 2; dieValue <= 12; dieValue++) {
+            int[][] expected = scanProduction(board, dieValue, players.length);
+            int[][] before = new int[players.length][Resource.values().length];
+            for (Player player : players) {
+                for (Map.Entry<Resource, Integer> resource : player.getResources().entrySet()) {
+                    before[player.getID()][resource.getKey().ordinal()] = resource.getValue();
+                }
+            }
+            index.apply(dieValue);
+            for (Player player : players) {
+                for (Map.Entry<Resource, Integer> resource : player.getResources().entrySet()) {
+                    assertEquals(expected[player.getID()][resource.getKey().ordinal()],
+                            resource.getValue() - before[player.getID()][resource.getKey().ordinal()],
+                            "roll " + dieValue + ", player " + player.getID() + ", " + resource.getKey());
+                }
+            }
+        }
+    }
+
+    // tests that the index gives out the same as a scan of the board, as settlements, cities and the thief change
+    @Test
+    public void indexMatchesScan() {
+        for (long seed = 0; seed < 20; seed++) {
+            SplittableRandom random = new SplittableRandom(seed);
+            Board board = new BoardImpl(random.split());
+            Player[] players = {new PlayerImpl(0), new PlayerImpl(1), new PlayerImpl(2)};
+            ProductionIndex index = new ProductionIndex(board);
+            assertMatchesScan(board, index, players);
+
+            Hex thiefIsHere = null;
+            for (Hex hex : board.getHexes()) {
+                if (hex.hasThief()) {
+                    thiefIsHere = hex;
+                }
+            }
+            Vertex[] vertices = board.getVertices();
+            List<Vertex> settlements = new ArrayList<>();
+            for (int step = 0; step < 30; step++) {
+                int action = random.nextInt(3);
+                if (action == 0) {
+                    Vertex vertex = vertices[random.nextInt(vertices.length)];
+                    if (vertex.getPlayer() == null) {
+                        vertex.setPlayer(players[random.nextInt(players.length)]);
+                        settlements.add(vertex);
+                        index.vertexChanged(vertex);
+                    }
+                } else if (action == 1 && !settlements.isEmpty()) {
+                    Vertex vertex = settlements.get(random.nextInt(settlements.size()));
+                    if (!vertex.isCity()) {
+                        vertex.makeCity();
+                        index.vertexChanged(vertex);
+                    }
+                } else {
+                    Hex location = board.getHexes()[random.nextInt(board.getHexes().length)];
+                    thiefIsHere.setThief(false);
+                    location.setThief(true);
+                    index.thiefMoved(thiefIsHere, location);
+                    thiefIsHere = location;
+                }
+                assertMatchesScan(board, index, players);
+            }
+        }
+    }
+
+    // tests that nothing is given out before anything is built
+    @Test
+    public void emptyBoardHasNoPayouts() {
+        ProductionIndex index = new ProductionIndex(new BoardImpl());
+        for (int dieValue = 0; dieValue <= 12; dieValue++) {
+            assertEquals(0, index.getPayoutCount(dieValue));
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package settlers;
+
+import settlers.bot.Agent;
+import settlers.bot.AgentRandomImpl;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * Agents that play at random, for tests that need seats filled or a game to start from
+ */
+public final class RandomAgents {
+
+    private RandomAgents() {
+    }
+
+    /**
+     * @param random that each agent gets the next split of, in seat order
+     * @return that many random agents
+     */
+    public static List<Agent> split(int number, SplittableRandom random) {
+        List<Agent> agents = new ArrayList<>();
+        for (int i = 0; i < number; i++) {
+            agents.add(new AgentRandomImpl(random.split()));
+        }
+        return agents;
+    }
+
+    /**
+     * @return that many random agents, which play the same way every time for the same seed
+     */
+    public static List<Agent> seeded(int number, long seed) {
+        return split(number, new SplittableRandom(seed));
+    }
+
+    /**
+     * @return a 4 player game between random agents, set up and ready for its first turn, where the seed decides
+     * both the game and the agents
+     */
+    public static MainImpl setUpGame(long seed) {
+        return MainImpl.setUpHeadlessGame(seeded(4, seed), seed);
+    }
+}
@@ -0,0 +1,202 @@
+package settlers;
+
+import org.junit.jupiter.api.Test;
+import settlers.board.*;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RoadNetworkTest {
+
+    private final Board board = new BoardImpl();
+    private final RoadNetwork network = new RoadNetwork(board);
+    private final Player player = new PlayerImpl(0);
+    private final Player opponent = new PlayerImpl(1);
+
+    /**
+     * Builds a road the way Main does, on the edge and in the network
+     */
+    private int build(Player builder, Edge edge) {
+        edge.setPlayer(builder);
+        return network.addRoad(builder, edge);
+    }
+
+    /**
+     * Walks along the board from a vertex without going back on itself
+     * @return the edges walked, in order
+     */
+    private List<Edge> walk(Vertex start, int length) {
+        List<Edge> path = new ArrayList<>();
+        Set<Vertex> seen = new HashSet<>();
+        seen.add(start);
+        Vertex current = start;
+        while (path.size() < length) {
+            boolean moved = false;
+            for (Edge edge : current.getEdges()) {
+                if (edge != null && !seen.contains(edge.getOtherVertex(current))) {
+                    path.add(edge);
+                    current = edge.getOtherVertex(current);
+                    seen.add(current);
+                    moved = true;
+                    break;
+                }
+            }
+            assertTrue(moved, "the walk got stuck");
+        }
+        return path;
+    }
+
+    /**
+     * @return the 6 edges around a hex
+     */
+    private List<Edge> ring(Hex hex) {
+        List<Vertex> hexVertices = Arrays.asList(hex.getVertices());
+        Set<Edge> edges = new LinkedHashSet<>();
+        for (Vertex vertex : hexVertices) {
+            for (Edge edge : vertex.getEdges()) {
+                if (edge != null && hexVertices.contains(edge.getOtherVertex(vertex))) {
+                    edges.add(edge);
+                }
+            }
+        }
+        assertEquals(6, edges.size());
+        return new ArrayList<>(edges);
+    }
+
+    /**
+     * Finds the longest road the slow way, trying every walk from every vertex over every road of the player
+     */
+    private int bruteForceLongestRoad(Board on, Player owner) {
+        int longest = 0;
+        for (Vertex vertex : on.getVertices()) {
+            longest = Math.max(longest, bruteForceWalk(owner, vertex, new HashSet<>()));
+        }
+        return longest;
+    }
+
+    private int bruteForceWalk(Player owner, Vertex vertex, Set<Edge> used) {
+        int longest = 0;
+        for (Edge edge : vertex.getEdges()) {
+            if (edge == null || edge.getPlayer() != owner || used.contains(edge)) {
+                continue;
+            }
+            Vertex other = edge.getOtherVertex(vertex);
+            used.add(edge);
+            int length = 1;
+            if (other.getPlayer() == null || other.getPlayer() == owner) {
+                length += bruteForceWalk(owner, other, used);
+            }
+            used.remove(edge);
+            longest = Math.max(longest, length);
+        }
+        return longest;
+    }
+
+    // tests that a straight road is as long as its number of edges
+    @Test
+    public void straightRoad() {
+        List<Edge> path = walk(board.getVertices()[20], 5);
+        for (int i = 0; i < path.size(); i++) {
+            assertEquals(i + 1, build(player, path.get(i)));
+        }
+        assertEquals(1, network.getPieceCount(player));
+    }
+
+    // tests that building the middle of a road last joins both sides into one road
+    @Test
+    public void middleRoadJoinsBothSides() {
+        List<Edge> path = walk(board.getVertices()[20], 5);
+        build(player, path.get(0));
+        build(player, path.get(1));
+        build(player, path.get(3));
+        build(player, path.get(4));
+        assertEquals(2, network.getPieceCount(player));
+        assertEquals(5, build(player, path.get(2)));
+        assertEquals(1, network.getPieceCount(player));
+    }
+
+    // tests that a loop counts every edge once, and a tail off the loop counts too
+    @Test
+    public void loopWithTail() {
+        Hex hex = board.getHexes()[9]; // the middle hex, so every vertex has an edge going out
+        List<Edge> ring = ring(hex);
+        for (Edge edge : ring) {
+            build(player, edge);
+        }
+        assertEquals(6, network.getLongestRoad(player));
+        Vertex corner = hex.getVertices()[0];
+        for (Edge edge : corner.getEdges()) {
+            if (!ring.contains(edge)) {
+                assertEquals(7, build(player, edge));
+            }
+        }
+    }
+
+    // tests that another player's settlement in the middle of a road cuts it in two
+    @Test
+    public void settlementCutsRoad() {
+        List<Edge> path = walk(board.getVertices()[20], 5);
+        for (Edge edge : path) {
+            build(player, edge);
+        }
+        // the vertex between the 2nd and 3rd roads
+        Vertex middle = path.get(1).getVertices()[0];
+        if (!Arrays.asList(path.get(2).getVertices()).contains(middle)) {
+            middle = path.get(1).getVertices()[1];
+        }
+        middle.setPlayer(opponent);
+        assertEquals(player, network.settlementBuilt(opponent, middle));
+        assertEquals(3, network.getLongestRoad(player));
+        assertEquals(2, network.getPieceCount(player));
+    }
+
+    // tests that a settlement at the end of a road, or on the player's own road, doesn't cut anything
+    @Test
+    public void settlementAtEndCutsNothing() {
+        List<Edge> path = walk(board.getVertices()[20], 3);
+        for (Edge edge : path) {
+            build(player, edge);
+        }
+        Vertex start = board.getVertices()[20];
+        start.setPlayer(opponent);
+        assertNull(network.settlementBuilt(opponent, start));
+        assertEquals(3, network.getLongestRoad(player));
+        Vertex middle = path.get(0).getOtherVertex(start);
+        middle.setPlayer(player);
+        assertNull(network.settlementBuilt(player, middle));
+        assertEquals(3, network.getLongestRoad(player));
+    }
+
+    // tests that the network always agrees with a search from scratch, as roads and settlements are added at random
+    @Test
+    public void matchesBruteForce() {
+        for (long seed = 0; seed < 30; seed++) {
+            SplittableRandom random = new SplittableRandom(seed);
+            Board randomBoard = new BoardImpl(random.split());
+            RoadNetwork randomNetwork = new RoadNetwork(randomBoard);
+            Player[] players = {new PlayerImpl(0), new PlayerImpl(1)};
+            Vertex[] vertices = randomBoard.getVertices();
+            for (int step = 0; step < 60; step++) {
+                Player builder = players[random.nextInt(players.length)];
+                Vertex vertex = vertices[random.nextInt(vertices.length)];
+                if (random.nextInt(4) == 0) {
+                    if (vertex.getPlayer() == null) {
+                        vertex.setPlayer(builder);
+                        randomNetwork.settlementBuilt(builder, vertex);
+                    }
+                } else {
+                    Edge edge = vertex.getEdges()[random.nextInt(3)];
+                    if (edge != null && edge.getPlayer() == null) {
+                        edge.setPlayer(builder);
+                        randomNetwork.addRoad(builder, edge);
+                    }
+                }
+                for (Player owner : players) {
+                    assertEquals(bruteForceLongestRoad(randomBoard, owner), randomNetwork.getLongestRoad(owner),
+                            "seed " + seed + ", step " + step);
+                }
+            }
+        }
+    }
+}
@@ -9,7 +9,9 @@ import settlers.board.BoardImpl;
 import settlers.board.Hex;
 import settlers.card.Resource;
 
+import java.util.Arrays;
 import java.util.HashMap;
+import java.util.SplittableRandom;
 
 public class BoardTest{
 
@@ -133,4 +135,175 @@ public class BoardTest{
             Assertions.assertEquals(1,numberCounter.get(12));
         }
     }
-}
\ No newline at end of file
+
+    // tests that every edge knows the two vertices it connects, and that they agree with the vertices' own edges
+    @Test
+    public void edgesKnowTheirVertices() {
+        Board board = new BoardImpl();
+        int edgeCount = 0;
+        for (Vertex vertex : board.getVertices()) {
+            for (int i = 0; i < 3; i++) {
+                Edge edge = vertex.getEdges()[i];
+                if (edge == null) {
+                    continue;
+                }
+                edgeCount++;
+                Vertex[] ends = edge.getVertices();
+                Assertions.assertEquals(2, ends.length);
+                Assertions.assertTrue(ends[0] == vertex || ends[1] == vertex);
+                Assertions.assertSame(vertex.getAdjacentVertices()[i], edge.getOtherVertex(vertex));
+                Assertions.assertSame(vertex, edge.getOtherVertex(vertex.getAdjacentVertices()[i]));
+            }
+        }
+        Assertions.assertEquals(72 * 2, edgeCount); // each of the 72 edges is seen from both ends
+        Edge edge = board.getVertices()[0].getEdges()[1] != null ? board.getVertices()[0].getEdges()[1]
+                : board.getVertices()[0].getEdges()[2];
+        Assertions.assertThrows(IllegalArgumentException.class, () -> edge.getOtherVertex(new VertexImpl()));
+    }
+
+    // tests that the bitsets always say the same thing as the sets, as settlements and roads are placed
+    @Test
+    public void bitsetsMatchSets() {
+        SplittableRandom random = new SplittableRandom(3);
+        Board board = new BoardImpl(random.split());
+        Vertex[] vertices = board.getVertices();
+        Edge[] edges = board.getEdges();
+        Assertions.assertEquals(72, edges.length);
+        Assertions.assertEquals(54, Long.bitCount(board.getOpenVertexBits()));
+        for (int step = 0; step < 40; step++) {
+            if (random.nextBoolean()) {
+                board.removeSettlement(vertices[random.nextInt(vertices.length)]);
+            } else {
+                board.removeRoad(edges[random.nextInt(edges.length)]);
+            }
+            for (int i = 0; i < vertices.length; i++) {
+                Assertions.assertEquals(board.getOpenVertices().contains(vertices[i]),
+                        (board.getOpenVertexBits() >>> i & 1) != 0);
+            }
+            for (int i = 0; i < edges.length; i++) {
+                Assertions.assertEquals(board.getEmptyEdges().contains(edges[i]),
+                        (board.getEmptyEdgeBits(i / 64) >>> (i % 64) & 1) != 0);
+            }
+        }
+        // and that the layout bitsets agree with the vertices and edges
+        for (int i = 0; i < edges.length; i++) {
+            Assertions.assertEquals(2, Long.bitCount(board.getEdgeEndBits(i)));
+            int neighbors = Long.bitCount(board.getEdgeNeighborBits(i, 0)) + Long.bitCount(board.getEdgeNeighborBits(i, 1));
+            Assertions.assertTrue(neighbors >= 3 && neighbors <= 5, "an edge touches 2 to 4 others, plus itself");
+        }
+    }
+
+    // tests that ids are each element's place in the board's arrays, and that elements off the board have none
+    @Test
+    public void idsMatchArrays() {
+        Board board = new BoardImpl(new SplittableRandom(5));
+        Hex[] hexes = board.getHexes();
+        for (int i = 0; i < hexes.length; i++) {
+            Assertions.assertEquals(i, hexes[i].getId());
+            Assertions.assertSame(hexes[i], board.getHex(i));
+        }
+        Vertex[] vertices = board.getVertices();
+        for (int i = 0; i < vertices.length; i++) {
+            Assertions.assertEquals(i, vertices[i].getId());
+            Assertions.assertSame(vertices[i], board.getVertex(i));
+        }
+        Edge[] edges = board.getEdges();
+        for (int i = 0; i < edges.length; i++) {
+            Assertions.assertEquals(i, edges[i].getId());
+            Assertions.assertSame(edges[i], board.getEdge(i));
+        }
+        Assertions.assertEquals(-1, new VertexImpl().getId());
+        Assertions.assertEquals(-1, new HexImpl(Resource.MISC).getId());
+        // a vertex off the board is never equal to one on it, even if it has the same edges
+        Assertions.assertNotEquals(vertices[0], new VertexImpl());
+    }
+
+    // tests that a board made from another's layout has everything in the same place
+    @Test
+    public void boardFromLayoutMatches() {
+        Board original = new BoardImpl(new SplittableRandom(8));
+        Resource[] hexResources = new Resource[19];
+        int[] hexNumbers = new int[19];
+        Resource[] ports = new Resource[54];
+        for (int i = 0; i < 19; i++) {
+            hexResources[i] = original.getHex(i).getResource();
+            hexNumbers[i] = original.getHex(i).getNumber();
+        }
+        for (int i = 0; i < 54; i++) {
+            ports[i] = original.getVertex(i).getPort();
+        }
+        Board copy = new BoardImpl(hexResources, hexNumbers, ports);
+        for (int i = 0; i < 19; i++) {
+            Assertions.assertEquals(original.getHex(i).getResource(), copy.getHex(i).getResource());
+            Assertions.assertEquals(original.getHex(i).getNumber(), copy.getHex(i).getNumber());
+            Assertions.assertEquals(original.getHex(i).hasThief(), copy.getHex(i).hasThief());
+        }
+        for (int i = 0; i < 54; i++) {
+            Assertions.assertEquals(original.getVertex(i).getPort(), copy.getVertex(i).getPort());
+        }
+        for (int i = 0; i < 72; i++) {
+            Assertions.assertEquals(original.getEdgeEndBits(i), copy.getEdgeEndBits(i));
+        }
+        Assertions.assertThrows(IllegalArgumentException.class,
+                () -> new BoardImpl(new Resource[18], hexNumbers, ports));
+    }
+
+    // tests that the vertex values match walking the hexes, both from the start and as the thief moves around
+    @Test
+    public void vertexValuesFollowTheThief() {
+        Board board = new BoardImpl(new SplittableRandom(12));
+        SplittableRandom random = new SplittableRandom(3);
+        for (int move = 0; move < 30; move++) {
+            for (Vertex vertex : board.getVertices()) {
+                int hexBits = 0;
+                int pips = 0;
+                int resourceBits = 0;
+                int[] production = new int[Resource.MISC.ordinal()];
+                for (Hex hex : board.getHexes()) {
+                    if (Arrays.asList(hex.getVertices()).contains(vertex)) {
+                        hexBits |= 1 << hex.getId();
+                        Assertions.assertNotEquals(0, board.getHexVertexBits(hex.getId()) & 1L << vertex.getId());
+                        if (hex.getResource() != Resource.MISC) {
+                            resourceBits |= 1 << hex.getResource().ordinal();
+                            if (!hex.hasThief()) {
+                                pips += board.getHexPips(hex.getId());
+                                production[hex.getResource().ordinal()] += board.getHexPips(hex.getId());
+                            }
+                        }
+                    }
+                }
+                int id = vertex.getId();
+                Assertions.assertEquals(hexBits, board.getVertexHexBits(id));
+                Assertions.assertEquals(pips, board.getVertexPips(id));
+                Assertions.assertEquals(resourceBits, board.getVertexResourceBits(id));
+                for (int resource = 0; resource < production.length; resource++) {
+                    Assertions.assertEquals(production[resource],
+                            board.getVertexProduction(id, Resource.values()[resource]));
+                }
+                int portScore = vertex.getPort() == null ? 0 : vertex.getPort() == Resource.MISC ? 2
+                        : (resourceBits & 1 << vertex.getPort().ordinal()) != 0 ? 3 : 1;
+                Assertions.assertEquals(4 * pips + 3 * Integer.bitCount(resourceBits) + portScore,
+                        board.getVertexScore(id));
+            }
+            Hex location = board.getHex(random.nextInt(19));
+            board.moveThief(location);
+            Assertions.assertSame(location, board.getThiefHex());
+            int thieves = 0;
+            for (Hex hex : board.getHexes()) {
+                thieves += hex.hasThief() ? 1 : 0;
+            }
+            Assertions.assertEquals(1, thieves);
+        }
+        Assertions.assertEquals(5, board.getHexPips(findHex(board, 6)));
+        Assertions.assertEquals(1, board.getHexPips(findHex(board, 12)));
+    }
+
+    private static int findHex(Board board, int number) {
+        for (Hex hex : board.getHexes()) {
+            if (hex.getNumber() == number) {
+                return hex.getId();
+            }
+        }
+        throw new IllegalStateException("No hex has " + number);
+    }
+}
@@ -1,6 +1,8 @@
 package settlers.board;
 
 import org.junit.jupiter.api.Test;
+import settlers.Building;
+import settlers.GameState;
 import settlers.Player;
 import settlers.card.DevelopmentCard;
 import settlers.card.Resource;
@@ -227,6 +229,11 @@ public class VertexTest {
             this.id = id;
         }
 
+        @Override
+        public int getId() {
+            return id;
+        }
+
         /**
          * @return a length 3 array containing the adjacent vertices, where 0 is up, increasing clockwise
          */
@@ -262,6 +269,16 @@ public class VertexTest {
 
         }
 
+        @Override
+        public Vertex[] getVertices() {
+            return null;
+        }
+
+        @Override
+        public Vertex getOtherVertex(Vertex vertex) {
+            return null;
+        }
+
         @Override
         public boolean equals(Object o) {
             if (this == o) return true;
@@ -289,6 +306,21 @@ public class VertexTest {
 
         }
 
+        @Override
+        public int getResourceCount(Resource resource) {
+            return 0;
+        }
+
+        @Override
+        public boolean removeResource(Resource resource, int number) {
+            return false;
+        }
+
+        @Override
+        public boolean removeResources(Building project) {
+            return false;
+        }
+
         /**
          * @param resources to be removed from the player's hand
          * @return true if the removal was successful, false if it was not
@@ -470,6 +502,21 @@ public class VertexTest {
             return 0;
         }
 
+        @Override
+        public long getPositionHash() {
+            return 0;
+        }
+
+        @Override
+        public void restore(GameState state, int index) {
+
+        }
+
+        @Override
+        public void restorePieces(GameState state, int index, Board board) {
+
+        }
+
     }
 
 }
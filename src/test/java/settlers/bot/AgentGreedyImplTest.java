@@ -0,0 +1,82 @@
+package settlers.bot;
+
+import org.junit.jupiter.api.Test;
+import settlers.GameResult;
+import settlers.MainImpl;
+import settlers.Player;
+import settlers.RandomAgents;
+import settlers.card.Resource;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class AgentGreedyImplTest {
+
+    /**
+     * @return the greedy agent in seat 0 of a 4 player game, against random agents
+     */
+    private List<Agent> againstRandom(long seed) {
+        List<Agent> agents = new ArrayList<>();
+        agents.add(new AgentGreedyImpl());
+        agents.addAll(RandomAgents.seeded(3, seed));
+        return agents;
+    }
+
+    // tests that building greedily wins most games against agents that play at random
+    @Test
+    public void beatsRandomAgents() {
+        int wins = 0;
+        for (long seed = 0; seed < 20; seed++) {
+            GameResult result = MainImpl.playHeadlessGame(againstRandom(seed), 1000, seed);
+            if (result.getWinnerID() == 0) {
+                wins++;
+            }
+        }
+        assertTrue(wins >= 15, "The greedy agent only won " + wins + " of 20 games against random moves");
+    }
+
+    // tests that games between greedy agents finish, and that they play the same way for the same seed
+    @Test
+    public void greedyGamesFinishTheSameWay() {
+        for (long seed = 0; seed < 20; seed++) {
+            List<Agent> first = List.of(new AgentGreedyImpl(), new AgentGreedyImpl(), new AgentGreedyImpl());
+            List<Agent> second = List.of(new AgentGreedyImpl(), new AgentGreedyImpl(), new AgentGreedyImpl());
+            GameResult result = MainImpl.playHeadlessGame(first, 1000, seed);
+            assertTrue(result.hasWinner(), "Game " + seed + " never ended");
+            assertEquals(result.toString(), MainImpl.playHeadlessGame(second, 1000, seed).toString());
+        }
+    }
+
+    // tests that games where no one could get brick, and so had nowhere left to settle, now finish
+    @Test
+    public void gamesWithoutBrickFinish() {
+        long[][] stalled = {{3, 415}, {3, 1915}, {4, 3958}}; // players, seed
+        for (long[] game : stalled) {
+            List<Agent> agents = new ArrayList<>();
+            for (int i = 0; i < game[0]; i++) {
+                agents.add(new AgentGreedyImpl());
+            }
+            GameResult result = MainImpl.playHeadlessGame(agents, 1000, game[1]);
+            assertTrue(result.hasWinner(), game[0] + " player game " + game[1] + " never ended");
+        }
+    }
+
+    // tests that deciding on a move, a thief spot and a victim doesn't allocate, once the board is known
+    @Test
+    public void decisionsDontAllocate() {
+        List<Agent> agents = againstRandom(3);
+        AgentGreedyImpl greedy = (AgentGreedyImpl) agents.get(0);
+        MainImpl main = MainImpl.setUpHeadlessGame(agents, 3);
+        Player player = main.getPlayers().get(0);
+        for (Resource resource : new Resource[]{Resource.WOOD, Resource.BRICK, Resource.SHEEP, Resource.WHEAT}) {
+            player.addResource(resource);
+        }
+        player.addResource(Resource.WHEAT); // so it is one ore short of a city, and has to think about trading
+
+        Allocations.assertDoesntAllocate("a move, a thief spot and a victim", () -> greedy.nextMove(main, player)
+                + greedy.chooseThiefSpot(main, player, null).getId()
+                + greedy.chooseVictim(main, player, main.getBoard().getHex(9)).getId());
+    }
+}
@@ -0,0 +1,84 @@
+package settlers.bot;
+
+import org.junit.jupiter.api.Test;
+import settlers.GameResult;
+import settlers.MainImpl;
+import settlers.Player;
+import settlers.card.Resource;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class AgentMctsImplTest {
+
+    /**
+     * @return the MCTS agent in seat 0 of a 2 player game, against a random agent
+     */
+    private List<Agent> againstRandom(long seed, int rollouts, int threads) {
+        SplittableRandom random = new SplittableRandom(seed);
+        List<Agent> agents = new ArrayList<>();
+        // an hour a move, so only the rollouts limit the search
+        agents.add(new AgentMctsImpl(3_600_000, rollouts, threads, random.split()));
+        agents.add(new AgentRandomImpl(random.split()));
+        return agents;
+    }
+
+    // tests that even a small search beats an agent that plays at random
+    @Test
+    public void beatsRandomAgent() {
+        int wins = 0;
+        for (long seed = 0; seed < 6; seed++) {
+            GameResult result = MainImpl.playHeadlessGame(againstRandom(seed, 20, 1), 300, seed);
+            if (result.getWinnerID() == 0) {
+                wins++;
+            }
+        }
+        assertTrue(wins >= 5, "The search only won " + wins + " of 6 games against random moves");
+    }
+
+    // tests that with one thread and no time limit, the same seed makes the same moves
+    @Test
+    public void sameSeedSameGame() {
+        GameResult first = MainImpl.playHeadlessGame(againstRandom(4, 10, 1), 300, 4);
+        GameResult second = MainImpl.playHeadlessGame(againstRandom(4, 10, 1), 300, 4);
+        assertEquals(first.toString(), second.toString());
+    }
+
+    // tests that searching on several threads at once still plays a whole game, and counts every rollout
+    @Test
+    public void searchesOnSeveralThreads() {
+        List<Agent> agents = againstRandom(9, 12, 3);
+        GameResult result = MainImpl.playHeadlessGame(agents, 300, 9);
+        assertTrue(result.hasWinner());
+        AgentMctsImpl mcts = (AgentMctsImpl) agents.get(0);
+        assertTrue(mcts.getRollouts() > 0);
+        assertEquals(0, mcts.getRollouts() % 12, "Every search should use up all its rollouts");
+        assertTrue(mcts.getRolloutsPerSecond() > 0);
+    }
+
+    // tests that the search only ever suggests moves that can be made
+    @Test
+    public void searchSuggestsLegalMoves() {
+        List<Agent> agents = againstRandom(2, 30, 1);
+        MainImpl main = MainImpl.setUpHeadlessGame(agents, 2);
+        Player player = main.getPlayers().get(main.getState().getCurrentTurn());
+        player.addResource(Resource.WOOD);
+        player.addResource(Resource.BRICK); // so there is at least a road to think about
+        int move = ((AgentMctsImpl) agents.get(0)).search(main, player);
+        assertNotEquals(Moves.END_TURN, move, "A free road is better than nothing");
+        assertTrue(Moves.makeMove(main, player, move));
+    }
+
+    // tests that searches without time, rollouts or threads are refused
+    @Test
+    public void searchNeedsSomethingToSearchWith() {
+        SplittableRandom random = new SplittableRandom();
+        assertThrows(IllegalArgumentException.class, () -> new AgentMctsImpl(0, 10, 1, random));
+        assertThrows(IllegalArgumentException.class, () -> new AgentMctsImpl(10, 0, 1, random));
+        assertThrows(IllegalArgumentException.class, () -> new AgentMctsImpl(10, 10, 0, random));
+        assertThrows(IllegalArgumentException.class, () -> new AgentMctsImpl(10, 10, 1, null));
+    }
+}
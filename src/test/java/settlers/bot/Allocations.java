@@ -0,0 +1,53 @@
+package settlers.bot;
+
+import java.lang.management.ManagementFactory;
+import java.util.function.IntSupplier;
+
+import static org.junit.jupiter.api.Assertions.fail;
+
+/**
+ * Checks that code on a bot's hot path doesn't allocate, by counting the bytes the test's thread allocates
+ */
+final class Allocations {
+
+    private static final int WARM_UP_CALLS = 20_000; // so the JIT has compiled it all, and escape analysis is done
+    private static final int MEASURED_CALLS = 10_000;
+    // a little room for whatever the measuring itself allocates, which is far less than a byte a call
+    private static final long MOST_BYTES = 10_000;
+    // the JIT compiles in the background, so on a busy machine the first measurements can still be interpreted
+    private static final int TRIES = 5;
+
+    private static int sink; // where the answers go, so the JIT can't skip the calls
+
+    private Allocations() {
+    }
+
+    /**
+     * Fails unless some batch of calls, once the code is warmed up, allocates next to nothing
+     * @param what is being called, for the failure message
+     * @param call that is measured, which returns something that depends on its answer
+     */
+    static void assertDoesntAllocate(String what, IntSupplier call) {
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long thread = Thread.currentThread().getId();
+        int answers = 0;
+        for (int i = 0; i < WARM_UP_CALLS; i++) {
+            answers += call.getAsInt();
+        }
+        long allocated = 0;
+        for (int attempt = 0; attempt < TRIES; attempt++) {
+            long before = threads.getThreadAllocatedBytes(thread);
+            for (int i = 0; i < MEASURED_CALLS; i++) {
+                answers += call.getAsInt();
+            }
+            allocated = threads.getThreadAllocatedBytes(thread) - before;
+            if (allocated < MOST_BYTES) {
+                sink += answers;
+                return;
+            }
+        }
+        sink += answers;
+        fail(MEASURED_CALLS + " calls of " + what + " allocated " + allocated + " bytes, even after " + TRIES
+                + " tries");
+    }
+}
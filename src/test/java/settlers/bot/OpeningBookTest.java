@@ -0,0 +1,168 @@
+package settlers.bot;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import settlers.Main;
+import settlers.MainImpl;
+import settlers.Player;
+import settlers.board.Board;
+import settlers.board.BoardImpl;
+import settlers.board.Edge;
+import settlers.board.Vertex;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.SplittableRandom;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class OpeningBookTest {
+
+    // tests that the board can be turned 6 ways and flipped, and nothing else
+    @Test
+    public void boardHasTwelveSymmetries() {
+        assertEquals(12, OpeningBook.symmetryCount());
+    }
+
+    // tests that a turned or flipped board is looked up as the same layout, with the same picks turned the same way
+    @Test
+    public void symmetricBoardsShareABook() {
+        OpeningBook book = new OpeningBook(4);
+        Board board = new BoardImpl(new SplittableRandom(5));
+        OpeningBook.Opening opening = book.getOpening(board);
+        for (int symmetry = 1; symmetry < OpeningBook.symmetryCount(); symmetry++) {
+            Board moved = OpeningBook.transform(board, symmetry);
+            assertEquals(OpeningBook.fingerprint(board), OpeningBook.fingerprint(moved));
+            OpeningBook.Opening movedOpening = book.getOpening(moved);
+            for (int rank = 0; rank < 5; rank++) {
+                assertEquals(OpeningBook.transformVertex(opening.getFirstPick(rank), symmetry),
+                        movedOpening.getFirstPick(rank));
+            }
+        }
+        assertEquals(1, book.size());
+        assertEquals(1, book.getMisses());
+        Board other = new BoardImpl(new SplittableRandom(6));
+        assertNotEquals(OpeningBook.fingerprint(board), OpeningBook.fingerprint(other));
+    }
+
+    // tests that the layout used longest ago is the one thrown away
+    @Test
+    public void leastRecentlyUsedIsEvicted() {
+        OpeningBook book = new OpeningBook(2);
+        Board first = new BoardImpl(new SplittableRandom(1));
+        Board second = new BoardImpl(new SplittableRandom(2));
+        book.getOpening(first);
+        book.getOpening(second);
+        book.getOpening(first);
+        book.getOpening(new BoardImpl(new SplittableRandom(3))); // second is the least recently used now
+        assertEquals(2, book.size());
+        assertEquals(1, book.getHits());
+        book.getOpening(first);
+        assertEquals(2, book.getHits());
+        book.getOpening(second);
+        assertEquals(2, book.getHits(), "The second board should have been thrown away");
+        assertThrows(IllegalArgumentException.class, () -> new OpeningBook(0));
+    }
+
+    // tests that a saved book is read back by a new OpeningBook, with the same picks
+    @Test
+    public void booksAreSavedAndRead(@TempDir Path directory) throws IOException {
+        Board board = new BoardImpl(new SplittableRandom(8));
+        OpeningBook saver = new OpeningBook(4, directory);
+        OpeningBook.Opening saved = saver.getOpening(board);
+        assertNull(saver.getSaveFailure());
+        try (Stream<Path> files = Files.list(directory)) {
+            assertEquals(1, files.count());
+        }
+        OpeningBook.Opening read = new OpeningBook(4, directory).getOpening(board);
+        for (int rank = 0; rank < 54; rank++) {
+            assertEquals(saved.getFirstPick(rank), read.getFirstPick(rank));
+        }
+
+        Path file;
+        try (Stream<Path> files = Files.list(directory)) {
+            file = files.findFirst().orElseThrow();
+        }
+        Files.write(file, new byte[]{1, 2, 3}); // a broken book is worked out again
+        assertEquals(saved.getFirstPick(0), new OpeningBook(4, directory).getOpening(board).getFirstPick(0));
+        assertTrue(Files.size(file) > 3);
+    }
+
+    // tests that a book whose picks aren't on the board is worked out again, instead of being trusted
+    @Test
+    public void booksWithBadPicksAreWorkedOutAgain(@TempDir Path directory) throws IOException {
+        Board board = new BoardImpl(new SplittableRandom(8));
+        OpeningBook.Opening saved = new OpeningBook(4, directory).getOpening(board);
+        Path file = directory.resolve(OpeningBook.fingerprint(board) + ".book");
+        byte[] good = Files.readAllBytes(file);
+        int firstPicksAt = 4 + 1 + 19 + 54; // after the magic, the format and the layout
+        int[] badBytes = {firstPicksAt, firstPicksAt + 54 + 100, good.length - 1};
+        byte[] badValues = {54, -1, 72}; // a vertex, a second pick and a road that aren't on the board
+        for (int i = 0; i < badBytes.length; i++) {
+            byte[] bad = good.clone();
+            bad[badBytes[i]] = badValues[i];
+            Files.write(file, bad);
+            OpeningBook book = new OpeningBook(4, directory);
+            assertEquals(saved.getFirstPick(0), book.getOpening(board).getFirstPick(0));
+            assertArrayEquals(good, Files.readAllBytes(file), "the bad book should have been written over");
+        }
+    }
+
+    // tests that a book that can't be saved is still used, and leaves no temporary file behind
+    @Test
+    public void unsavedBooksAreStillUsed(@TempDir Path directory) throws IOException {
+        Board board = new BoardImpl(new SplittableRandom(8));
+        Path file = directory.resolve(OpeningBook.fingerprint(board) + ".book");
+        Files.createDirectory(file); // which can't be read as a book, or moved over, since it isn't empty
+        Files.createFile(file.resolve("in the way"));
+        OpeningBook book = new OpeningBook(4, directory);
+        OpeningBook.Opening opening = book.getOpening(board);
+        assertEquals(new OpeningBook(4).getOpening(board).getFirstPick(0), opening.getFirstPick(0));
+        assertNotNull(book.getSaveFailure(), "The book should say it couldn't be saved");
+        try (Stream<Path> files = Files.list(directory)) {
+            assertEquals(1, files.count(), "Only the directory in the way should be left");
+        }
+    }
+
+    // tests that the book's picks can always be built, by playing the whole setup with them and checking each one
+    // before it is built, since Main builds setup picks without checking them
+    @Test
+    public void bookPicksAreLegal() {
+        for (long seed = 0; seed < 5; seed++) {
+            int[] picks = new int[2]; // settlements, roads
+            List<Agent> agents = new ArrayList<>();
+            for (int i = 0; i < 4; i++) {
+                agents.add(new AgentGreedyImpl() {
+                    private final OpeningBook book = new OpeningBook(1);
+
+                    @Override
+                    public Vertex chooseSetupSettlement(Main main, Player player, Set<Vertex> validSpots) {
+                        Vertex settlement = book.getOpening(main.getBoard()).chooseSettlement(main, player);
+                        assertTrue(validSpots.contains(settlement), settlement + " isn't open");
+                        picks[0]++;
+                        return settlement;
+                    }
+
+                    @Override
+                    public Edge chooseSetupRoad(Main main, Player player, Vertex settlement) {
+                        Board board = main.getBoard();
+                        Edge road = book.getOpening(board).chooseRoad(main, settlement);
+                        int edge = road.getId();
+                        assertNotEquals(0, board.getEdgeEndBits(edge) & 1L << settlement.getId(),
+                                road + " doesn't touch " + settlement);
+                        assertNotEquals(0, board.getEmptyEdgeBits(edge >>> 6) & 1L << edge, road + " isn't empty");
+                        picks[1]++;
+                        return road;
+                    }
+                });
+            }
+            MainImpl.playHeadlessGame(agents, 1000, seed);
+            assertArrayEquals(new int[]{8, 8}, picks, "Every setup pick should come from the book");
+        }
+    }
+}
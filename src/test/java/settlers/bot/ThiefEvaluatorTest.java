@@ -0,0 +1,96 @@
+package settlers.bot;
+
+import org.junit.jupiter.api.Test;
+import settlers.MainImpl;
+import settlers.Player;
+import settlers.RandomAgents;
+import settlers.board.Board;
+import settlers.board.Vertex;
+import settlers.card.Resource;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ThiefEvaluatorTest {
+
+    private static final Resource[] HAND = {Resource.WHEAT, Resource.SHEEP, Resource.ORE, Resource.WOOD,
+            Resource.BRICK};
+
+    private static void emptyHand(Player player) {
+        for (Resource resource : HAND) {
+            player.removeResource(resource, player.getResourceCount(resource));
+        }
+    }
+
+    /**
+     * @return a vertex of the hex that no one has built on, so moving the thief there robs no one
+     */
+    private static Vertex emptyVertex(Board board, int hex) {
+        long vertices = board.getHexVertexBits(hex);
+        while (board.getVertex(Long.numberOfTrailingZeros(vertices)).getPlayer() != null) {
+            vertices &= vertices - 1;
+        }
+        return board.getVertex(Long.numberOfTrailingZeros(vertices));
+    }
+
+    // tests that a steal is worth the average, over every card the victim has, of what taking that card is worth
+    @Test
+    public void stealIsAveragedOverTheVictimsCards() {
+        MainImpl main = RandomAgents.setUpGame(4);
+        Player stealer = main.getPlayers().get(0);
+        Player victim = main.getPlayers().get(1);
+        emptyHand(stealer);
+        emptyHand(victim);
+        victim.addResource(Resource.ORE);
+        victim.addResource(Resource.ORE);
+        victim.addResource(Resource.WHEAT);
+        assertEquals(2, victim.getVictoryPoints());
+        ThiefEvaluator evaluator = new ThiefEvaluator();
+        evaluator.prepare(main, stealer);
+        // with nothing, the stealer is 2 short of a road, worth 0.5 / 4. Either card makes it 2 short of a
+        // development card, worth 1 / 4, so either is a gain of 0.125 on top of the card itself, for 0.375
+        // the victim is 2 short of a city, worth 2 / 4. Losing an ore leaves them 1 short of a development card,
+        // still worth 0.5, and losing the wheat drops them to 0.25, so the losses are 0.25 and 0.5 with the card
+        // they have 2 points, so hurting them counts 1.2 times: (2 * (0.375 + 1.2 * 0.25) + 0.375 + 1.2 * 0.5) / 3
+        assertEquals(0.775, evaluator.expectedSteal(0, 1), 1e-9);
+    }
+
+    // tests that the best option moves the thief, doesn't rob the player, and robs from the hex it goes to
+    @Test
+    public void bestOptionIsAMoveTheRulesAllow() {
+        for (long seed = 0; seed < 20; seed++) {
+            MainImpl main = RandomAgents.setUpGame(seed);
+            Board board = main.getBoard();
+            Player player = main.getPlayers().get((int) (seed % 4));
+            ThiefEvaluator evaluator = new ThiefEvaluator();
+            evaluator.evaluate(main, player);
+            assertNotEquals(board.getThiefHex().getId(), evaluator.getBestHex());
+            assertNotEquals(0, board.getHexVertexBits(evaluator.getBestHex()) & 1L << evaluator.getBestVictim());
+            assertNotSame(player, board.getVertex(evaluator.getBestVictim()).getPlayer());
+            assertTrue(evaluator.getBestValue() > 0, "Some hex should block an opponent");
+            // moving the thief there makes every option worse, and moving it back, robbing no one either way,
+            // leaves the same values as before
+            double value = evaluator.getBestValue();
+            int bestHex = evaluator.getBestHex();
+            int thief = board.getThiefHex().getId();
+            main.moveThief(player, emptyVertex(board, bestHex), board.getHex(bestHex));
+            evaluator.evaluate(main, player);
+            assertTrue(evaluator.getBestValue() < value, "Nothing should be as good once the best hex is blocked");
+            main.moveThief(player, emptyVertex(board, thief), board.getHex(thief));
+            evaluator.evaluate(main, player);
+            assertEquals(value, evaluator.getBestValue(), 1e-9);
+            assertEquals(bestHex, evaluator.getBestHex());
+        }
+    }
+
+    // tests that evaluating doesn't allocate, so it can be done on every 7 and knight
+    @Test
+    public void evaluatingDoesntAllocate() {
+        MainImpl main = RandomAgents.setUpGame(7);
+        Player player = main.getPlayers().get(0);
+        ThiefEvaluator evaluator = new ThiefEvaluator();
+        Allocations.assertDoesntAllocate("evaluate", () -> {
+            evaluator.evaluate(main, player);
+            return evaluator.getBestHex();
+        });
+    }
+}
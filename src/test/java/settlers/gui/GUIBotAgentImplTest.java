@@ -0,0 +1,38 @@
+package settlers.gui;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import settlers.GameResult;
+import settlers.MainImpl;
+import settlers.Player;
+import settlers.bot.Agent;
+import settlers.bot.AgentRandomImpl;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+public class GUIBotAgentImplTest {
+
+    // tests that a computer seat plays its own steps, and has each of them shown
+    @Test
+    public void computerStepsAreShown() {
+        int[] shown = new int[2]; // {setup turns and discards, turns}
+        GUIMain gui = new GUIMainDummyImpl() {
+            @Override
+            public void showComputerMoves(Player player, int dieRoll) {
+                shown[dieRoll == 0 ? 0 : 1]++;
+            }
+        };
+        SplittableRandom random = new SplittableRandom(1);
+        List<Agent> agents = new ArrayList<>();
+        agents.add(new GUIBotAgentImpl(gui, new AgentRandomImpl(random.split())));
+        agents.add(new AgentRandomImpl(random.split()));
+        GameResult result = MainImpl.playHeadlessGame(agents, 1000, 1);
+
+        Assertions.assertTrue(shown[0] >= 2, "Both setup turns should have been shown");
+        Assertions.assertTrue(shown[1] >= result.getTurns() / 2, "Every turn should have been shown");
+        Assertions.assertThrows(IllegalArgumentException.class, () -> new GUIBotAgentImpl(gui, null));
+    }
+}
@@ -0,0 +1,86 @@
+package settlers.gui;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class GUIThreadManagerTest {
+
+    /**
+     * Starts a hold on a new thread, and waits until that thread is parked in it
+     */
+    private Thread holdOnNewThread(GUIThreadManager manager, AtomicReference<Throwable> thrown)
+            throws InterruptedException {
+        Thread holder = new Thread(() -> {
+            try {
+                manager.startHold();
+            } catch (Throwable e) {
+                thrown.set(e);
+            }
+        });
+        holder.setDaemon(true);
+        holder.start();
+        long deadline = System.currentTimeMillis() + 5000;
+        while (holder.getState() != Thread.State.WAITING && System.currentTimeMillis() < deadline) {
+            Thread.sleep(1);
+        }
+        return holder;
+    }
+
+    // tests that the held thread is parked, not sleeping in a loop, and wakes up when the hold is stopped
+    @Test
+    public void holdParksUntilStopped() throws InterruptedException {
+        GUIThreadManager manager = new GUIThreadManagerImpl();
+        AtomicReference<Throwable> thrown = new AtomicReference<>();
+        Thread holder = holdOnNewThread(manager, thrown);
+        assertEquals(Thread.State.WAITING, holder.getState()); // a sleeping loop would be TIMED_WAITING
+
+        manager.stopHold();
+        holder.join(5000);
+        assertFalse(holder.isAlive());
+        assertNull(thrown.get());
+    }
+
+    // tests that a manager can hold again after being stopped, like it does every turn
+    @Test
+    public void holdCanBeReused() throws InterruptedException {
+        GUIThreadManager manager = new GUIThreadManagerImpl();
+        AtomicReference<Throwable> thrown = new AtomicReference<>();
+        for (int turn = 0; turn < 3; turn++) {
+            Thread holder = holdOnNewThread(manager, thrown);
+            manager.stopHold();
+            holder.join(5000);
+            assertFalse(holder.isAlive());
+        }
+        assertNull(thrown.get());
+    }
+
+    // tests that stopping without a hold, or holding twice, is still an error
+    @Test
+    public void misuseThrows() throws InterruptedException {
+        GUIThreadManager manager = new GUIThreadManagerImpl();
+        assertThrows(IllegalStateException.class, manager::stopHold);
+
+        AtomicReference<Throwable> thrown = new AtomicReference<>();
+        Thread holder = holdOnNewThread(manager, thrown);
+        assertThrows(IllegalStateException.class, manager::startHold);
+        manager.stopHold();
+        holder.join(5000);
+        assertNull(thrown.get());
+    }
+
+    // tests that interrupting the held thread ends the hold with an exception
+    @Test
+    public void interruptEndsHold() throws InterruptedException {
+        GUIThreadManager manager = new GUIThreadManagerImpl();
+        AtomicReference<Throwable> thrown = new AtomicReference<>();
+        Thread holder = holdOnNewThread(manager, thrown);
+        holder.interrupt();
+        holder.join(5000);
+        assertFalse(holder.isAlive());
+        assertTrue(thrown.get() instanceof IllegalStateException);
+        assertThrows(IllegalStateException.class, manager::stopHold); // no one is held anymore
+    }
+}
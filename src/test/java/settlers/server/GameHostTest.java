@@ -0,0 +1,110 @@
+package settlers.server;
+
+import org.junit.jupiter.api.Test;
+import settlers.GameResult;
+import settlers.Main;
+import settlers.MainImpl;
+import settlers.Player;
+import settlers.RandomAgents;
+import settlers.board.Vertex;
+import settlers.bot.Agent;
+import settlers.bot.AgentRandomImpl;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class GameHostTest {
+
+    /**
+     * An agent that waits until it is interrupted on its first setup turn, like a person who never moves
+     */
+    private static class StuckAgent extends AgentRandomImpl {
+        @Override
+        public Vertex takeSetupTurn(Main main, Player player, Set<Vertex> validSpots) {
+            try {
+                Thread.sleep(Long.MAX_VALUE);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            throw new IllegalStateException("Stopped while waiting");
+        }
+    }
+
+    // tests that a hosted game plays out the same as one played on the calling thread
+    @Test
+    public void hostedGamesMatchHeadlessGames() throws Exception {
+        try (GameHost host = new GameHost()) {
+            List<Future<GameResult>> results = new ArrayList<>();
+            for (long seed = 0; seed < 8; seed++) {
+                results.add(host.host(RandomAgents.seeded(4, seed), 1000, seed));
+            }
+            for (int seed = 0; seed < 8; seed++) {
+                GameResult expected = MainImpl.playHeadlessGame(RandomAgents.seeded(4, seed), 1000, seed);
+                assertEquals(expected.toString(), results.get(seed).get(30, TimeUnit.SECONDS).toString());
+            }
+            assertEquals(8, host.getGamesStarted());
+        }
+    }
+
+    // tests that closing the host stops games that are waiting, and their results fail
+    @Test
+    public void closeStopsWaitingGames() throws Exception {
+        GameHost host = new GameHost(GameHost.platformThreadFactory());
+        List<Future<GameResult>> results = new ArrayList<>();
+        for (int game = 0; game < 5; game++) {
+            List<Agent> agents = new ArrayList<>();
+            for (int i = 0; i < 4; i++) {
+                agents.add(new StuckAgent());
+            }
+            results.add(host.host(agents, 10, game));
+        }
+        assertEquals(5, host.getRunningGames());
+        host.close();
+        for (Future<GameResult> result : results) {
+            assertThrows(ExecutionException.class, () -> result.get(30, TimeUnit.SECONDS));
+        }
+        long deadline = System.currentTimeMillis() + 5000;
+        while (host.getRunningGames() > 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(1);
+        }
+        assertEquals(0, host.getRunningGames());
+        assertThrows(IllegalStateException.class, () -> host.host(RandomAgents.seeded(4, 0), 10, 0));
+    }
+
+    // tests that a game hosted while the host is closing is either refused or stopped, so none waits forever
+    @Test
+    public void gamesHostedDuringCloseAreStopped() throws Exception {
+        for (int round = 0; round < 20; round++) {
+            GameHost host = new GameHost(GameHost.platformThreadFactory());
+            List<Future<GameResult>> results = Collections.synchronizedList(new ArrayList<>());
+            Thread hosting = new Thread(() -> {
+                try {
+                    while (true) {
+                        List<Agent> agents = new ArrayList<>();
+                        for (int i = 0; i < 2; i++) {
+                            agents.add(new StuckAgent());
+                        }
+                        results.add(host.host(agents, 10, 0));
+                    }
+                } catch (IllegalStateException e) {
+                    // the host closed, which is when this stops
+                }
+            });
+            hosting.start();
+            Thread.sleep(round % 3);
+            host.close();
+            hosting.join(10_000);
+            assertFalse(hosting.isAlive());
+            for (Future<GameResult> result : results) {
+                assertThrows(ExecutionException.class, () -> result.get(10, TimeUnit.SECONDS));
+            }
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package settlers.server;
+
+import org.junit.jupiter.api.Test;
+import settlers.MainImpl;
+import settlers.Player;
+import settlers.RandomAgents;
+import settlers.board.Board;
+import settlers.board.Vertex;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class NetworkAgentTest {
+
+    // tests that a client can rob someone else's building, or no one, but not its own
+    @Test
+    public void clientsCantRobThemselves() {
+        MainImpl main = MainImpl.setUpHeadlessGame(RandomAgents.seeded(2, 5), 5);
+        Board board = main.getBoard();
+        Player player = main.getPlayers().get(0);
+        Player other = main.getPlayers().get(1);
+
+        int robbed = 0;
+        for (Vertex settlement : player.getSettlements()) {
+            int hexes = board.getVertexHexBits(settlement.getId());
+            for (; hexes != 0; hexes &= hexes - 1) {
+                int hex = Integer.numberOfTrailingZeros(hexes);
+                if (!main.getAvailableThiefSpots().contains(board.getHex(hex))) {
+                    continue; // where the thief already is
+                }
+                assertFalse(NetworkAgent.robberyIsLegal(main, player, hex, settlement.getId()));
+                assertTrue(NetworkAgent.robberyIsLegal(main, other, hex, settlement.getId()));
+                assertTrue(NetworkAgent.robberyIsLegal(main, player, hex, -1));
+                robbed++;
+            }
+        }
+        assertTrue(robbed > 0);
+        assertFalse(NetworkAgent.robberyIsLegal(main, player, 19, -1), "there are only 19 hexes");
+    }
+}
@@ -0,0 +1,162 @@
+package settlers.server;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.*;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class NioGameServerTest {
+
+    private GameHost host;
+    private NioGameServer server;
+    private InetSocketAddress address;
+
+    /**
+     * A client that sends whatever it is told to, for checking what the server does with bad commands
+     */
+    private static class RawClient implements Closeable {
+        final Socket socket;
+        final DataInputStream in;
+        final DataOutputStream out;
+
+        RawClient(InetSocketAddress address) throws IOException {
+            socket = new Socket(address.getAddress(), address.getPort());
+            socket.setSoTimeout(10_000);
+            in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+            out = new DataOutputStream(socket.getOutputStream());
+        }
+
+        byte[] send(byte type, byte... payload) throws IOException {
+            Protocol.write(out, type, payload);
+            return Protocol.read(in);
+        }
+
+        byte[] read() throws IOException {
+            return Protocol.read(in);
+        }
+
+        @Override
+        public void close() throws IOException {
+            socket.close();
+        }
+    }
+
+    @BeforeEach
+    public void startServer() throws IOException {
+        host = new GameHost(GameHost.platformThreadFactory());
+        server = new NioGameServer(new InetSocketAddress("localhost", 0), host, 200, 42);
+        address = new InetSocketAddress("localhost", server.getPort());
+    }
+
+    @AfterEach
+    public void stopServer() {
+        server.close();
+        host.close();
+    }
+
+    /**
+     * Starts two raw clients in a 2 player game
+     * @return them, with the one whose setup turn is first at 0, and the setup prompt it was sent at 2
+     */
+    private Object[] startTwoPlayerGame() throws Exception {
+        RawClient first = new RawClient(address);
+        RawClient second = new RawClient(address);
+        assertEquals(Protocol.OK, first.send(Protocol.JOIN, (byte) 2)[2]);
+        assertEquals(Protocol.OK, second.send(Protocol.JOIN, (byte) 2)[2]);
+        assertEquals(Protocol.WELCOME, first.read()[0]);
+        assertEquals(Protocol.WELCOME, second.read()[0]);
+        // only the first in the turn order gets a prompt, so I wait to see who that is
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (first.in.available() == 0 && second.in.available() == 0) {
+            assertTrue(System.currentTimeMillis() < deadline, "No one was prompted");
+            Thread.sleep(1);
+        }
+        RawClient prompted = first.in.available() > 0 ? first : second;
+        RawClient waiting = prompted == first ? second : first;
+        return new Object[]{prompted, waiting, prompted.read()};
+    }
+
+    // tests that scripted clients can play whole games through the server, and agree on how each one ended
+    @Test
+    public void scriptedClientsFinishGames() throws Exception {
+        LatencyStats latency = new LatencyStats();
+        ExecutorService clients = Executors.newFixedThreadPool(12);
+        List<Future<Integer>> winners = new ArrayList<>();
+        SplittableRandom random = new SplittableRandom(7);
+        for (int i = 0; i < 12; i++) {
+            SplittableRandom clientRandom = random.split();
+            int players = i < 8 ? 4 : 2; // two games of 4, and two of 2
+            winners.add(clients.submit(() -> {
+                try (ScriptedClient client = new ScriptedClient(address, clientRandom, latency)) {
+                    return client.playGame(players);
+                }
+            }));
+        }
+        List<Integer> results = new ArrayList<>();
+        for (Future<Integer> winner : winners) {
+            results.add(winner.get(60, TimeUnit.SECONDS));
+        }
+        clients.shutdown();
+
+        assertEquals(4, server.getGamesFinished());
+        for (int result : results) {
+            assertTrue(result >= -1 && result < 4, "Winner " + result);
+        }
+        assertTrue(latency.getCount(Protocol.PASS) > 0);
+        assertEquals(12, latency.getCount(Protocol.JOIN));
+        assertEquals(24, latency.getCount(Protocol.SETUP_SETTLEMENT));
+        assertEquals(24, server.getLatency().getCount(Protocol.SETUP_ROAD));
+    }
+
+    // tests that commands at the wrong time, or that aren't legal, are refused without hurting the game
+    @Test
+    public void badCommandsAreRefused() throws Exception {
+        try (RawClient loner = new RawClient(address)) {
+            assertArrayEquals(new byte[]{Protocol.RESULT, Protocol.PASS, Protocol.NOT_NOW},
+                    loner.send(Protocol.PASS));
+            assertArrayEquals(new byte[]{Protocol.RESULT, Protocol.JOIN, Protocol.ILLEGAL},
+                    loner.send(Protocol.JOIN, (byte) 5));
+        }
+        Object[] game = startTwoPlayerGame();
+        try (RawClient prompted = (RawClient) game[0]; RawClient waiting = (RawClient) game[1]) {
+            byte[] prompt = (byte[]) game[2];
+            assertEquals(Protocol.SETUP_SETTLEMENT_PROMPT, prompt[0]);
+            assertEquals(Protocol.NOT_NOW, waiting.send(Protocol.SETUP_SETTLEMENT, (byte) 0)[2]);
+            assertEquals(Protocol.NOT_NOW, prompted.send(Protocol.BUILD_CITY, (byte) 0)[2]);
+            assertEquals(Protocol.ILLEGAL, prompted.send(Protocol.SETUP_SETTLEMENT, (byte) 60)[2]);
+            assertEquals(Protocol.NOT_NOW, prompted.send(Protocol.JOIN, (byte) 2)[2]);
+
+            int vertex = Long.numberOfTrailingZeros(Protocol.readBits(prompt, 1));
+            assertEquals(Protocol.OK, prompted.send(Protocol.SETUP_SETTLEMENT, (byte) vertex)[2]);
+            byte[] roadPrompt = prompted.read();
+            assertEquals(Protocol.SETUP_ROAD_PROMPT, roadPrompt[0]);
+            byte[] options = prompted.send(Protocol.GET_OPTIONS);
+            assertEquals(Protocol.OPTIONS, options[0]);
+            assertEquals(1L << vertex, Protocol.readBits(options, 26), "the new settlement could be a city");
+        }
+    }
+
+    // tests that a client leaving in the middle of its turn ends the game for everyone else
+    @Test
+    public void disconnectingEndsTheGame() throws Exception {
+        Object[] game = startTwoPlayerGame();
+        try (RawClient waiting = (RawClient) game[1]) {
+            ((RawClient) game[0]).close();
+            assertArrayEquals(new byte[]{Protocol.GAME_OVER, -1}, waiting.read());
+        }
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (server.getGamesFinished() == 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(1);
+        }
+        assertEquals(1, server.getGamesFinished());
+    }
+}
@@ -0,0 +1,44 @@
+package settlers.server;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ProtocolTest {
+
+    // tests that messages come out whole however the bytes are split up when they arrive
+    @Test
+    public void messagesSurviveSplitReads() {
+        ByteBuffer first = Protocol.frame(Protocol.BUILD_ROAD, (byte) 17);
+        ByteBuffer second = Protocol.frame(Protocol.PASS);
+        ByteBuffer sent = ByteBuffer.allocate(first.remaining() + second.remaining()).put(first).put(second);
+        sent.flip();
+
+        ByteBuffer received = ByteBuffer.allocate(16);
+        int messages = 0;
+        while (sent.hasRemaining()) {
+            received.put(sent.get()); // one byte at a time, the worst a socket can do
+            received.flip();
+            byte[] message;
+            while ((message = Protocol.nextMessage(received)) != null) {
+                if (messages++ == 0) {
+                    assertArrayEquals(new byte[]{Protocol.BUILD_ROAD, 17}, message);
+                } else {
+                    assertArrayEquals(new byte[]{Protocol.PASS}, message);
+                }
+            }
+            received.compact();
+        }
+        assertEquals(2, messages);
+        assertEquals(0, received.position());
+    }
+
+    // tests that an empty frame is refused, since it has no type
+    @Test
+    public void emptyFramesAreRefused() {
+        ByteBuffer empty = ByteBuffer.allocate(2);
+        assertThrows(IllegalArgumentException.class, () -> Protocol.nextMessage(empty));
+    }
+}
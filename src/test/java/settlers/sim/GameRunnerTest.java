@@ -0,0 +1,88 @@
+package settlers.sim;
+
+import org.junit.jupiter.api.Test;
+import settlers.GameResult;
+import settlers.RandomAgents;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class GameRunnerTest {
+
+    // tests that exactly the right number of games are played, even when split between threads
+    @Test
+    public void playsEveryGameOnce() {
+        GameStatistics statistics = new GameRunner(random -> RandomAgents.split(4, random), 4, 1000).run(37, 4);
+        assertEquals(37, statistics.getGames());
+
+        long wins = statistics.getUnfinishedGames();
+        for (int player = 0; player < 4; player++) {
+            wins += statistics.getWins(player);
+            long pointGames = 0;
+            for (int points = 0; points <= GameStatistics.MAX_TRACKED_POINTS; points++) {
+                pointGames += statistics.getVictoryPointCount(player, points);
+            }
+            assertEquals(37, pointGames); // every game gives every player one final score
+        }
+        assertEquals(37, wins);
+        assertTrue(statistics.getMinTurns() <= statistics.getAverageTurns());
+        assertTrue(statistics.getAverageTurns() <= statistics.getMaxTurns());
+    }
+
+    // tests that playing no games works
+    @Test
+    public void playsNoGames() {
+        GameStatistics statistics = new GameRunner(random -> RandomAgents.split(4, random), 2, 1000).run(0, 4);
+        assertEquals(0, statistics.getGames());
+        assertEquals(0, statistics.getWinRate(0));
+    }
+
+    // tests that the same seed gives the same statistics, however many threads play the games
+    @Test
+    public void sameSeedSameStatistics() {
+        GameStatistics oneThread = new GameRunner(random -> RandomAgents.split(4, random), 1, 1000, 42).run(20, 4);
+        GameStatistics threeThreads = new GameRunner(random -> RandomAgents.split(4, random), 3, 1000, 42).run(20, 4);
+        assertEquals(oneThread.toString(), threeThreads.toString());
+    }
+
+    // tests that a game from a run can be replayed from its seed alone
+    @Test
+    public void gameReplaysFromSeed() {
+        GameRunner runner = new GameRunner(random -> RandomAgents.split(4, random), 1, 1000, 7);
+        long gameSeed = runner.getGameSeed(3);
+        assertEquals(runner.playGame(gameSeed).toString(), runner.playGame(gameSeed).toString());
+        assertNotEquals(runner.getGameSeed(3), runner.getGameSeed(4));
+    }
+
+    // tests that merging gives the same totals as recording everything in one place
+    @Test
+    public void mergeAddsEverything() {
+        GameStatistics first = new GameStatistics(2);
+        GameStatistics second = new GameStatistics(2);
+        GameStatistics both = new GameStatistics(2);
+        GameResult win = new GameResult(0, 50, new int[]{10, 4});
+        GameResult loss = new GameResult(1, 70, new int[]{6, 11});
+        GameResult unfinished = new GameResult(-1, 90, new int[]{7, 7});
+        first.record(win);
+        second.record(loss);
+        second.record(unfinished);
+        both.record(win);
+        both.record(loss);
+        both.record(unfinished);
+        first.merge(second);
+
+        assertEquals(both.toString(), first.toString());
+        assertEquals(3, first.getGames());
+        assertEquals(1, first.getUnfinishedGames());
+        assertEquals(1.0 / 3, first.getWinRate(0), 1e-9);
+        assertEquals(50, first.getMinTurns());
+        assertEquals(90, first.getMaxTurns());
+        assertEquals(1, first.getVictoryPointCount(1, 11));
+    }
+
+    // tests that a game of the wrong size can't be recorded
+    @Test
+    public void rejectsWrongPlayerCount() {
+        GameStatistics statistics = new GameStatistics(3);
+        assertThrows(IllegalArgumentException.class, () -> statistics.record(new GameResult(0, 5, new int[]{10, 2})));
+    }
+}